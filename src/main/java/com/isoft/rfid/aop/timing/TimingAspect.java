@@ -0,0 +1,116 @@
+package com.isoft.rfid.aop.timing;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.annotation.Pointcut;
+import org.aspectj.lang.reflect.MethodSignature;
+
+/**
+ * Aspect for timing a sample of the executions of service and repository Spring components and Web REST endpoints.
+ * <p>
+ * The sampled executions are recorded in the {@code rfid.method.timed} timer of their method, tagged with its class, its
+ * name and the exception thrown, if any. The timer of each method is looked up once then kept by {@link Method}, so that
+ * an execution costs a random draw when it is not sampled, and two clock reads and a map lookup when it is; no string
+ * is built either way. Timers count the sampled executions only.
+ */
+@Aspect
+public class TimingAspect {
+
+    public static final String TIMER_NAME = "rfid.method.timed";
+
+    private static final String NO_EXCEPTION = "none";
+
+    private final MeterRegistry meterRegistry;
+
+    private final double sampleRate;
+
+    private final boolean percentileHistogram;
+
+    private final ConcurrentHashMap<Method, Timer> timers = new ConcurrentHashMap<>();
+
+    /**
+     * @param meterRegistry the registry of the timers.
+     * @param sampleRate the share of the executions that are timed, from {@code 0} to {@code 1}.
+     * @param percentileHistogram whether the timers publish a histogram, from which percentiles can be aggregated.
+     */
+    public TimingAspect(MeterRegistry meterRegistry, double sampleRate, boolean percentileHistogram) {
+        this.meterRegistry = meterRegistry;
+        this.sampleRate = sampleRate;
+        this.percentileHistogram = percentileHistogram;
+    }
+
+    /**
+     * Pointcut that matches all repositories, services and Web REST endpoints.
+     */
+    @Pointcut(
+        "within(@org.springframework.stereotype.Repository *)" +
+        " || within(@org.springframework.stereotype.Service *)" +
+        " || within(@org.springframework.web.bind.annotation.RestController *)"
+    )
+    public void springBeanPointcut() {
+        // Method is empty as this is just a Pointcut, the implementations are in the advices.
+    }
+
+    /**
+     * Pointcut that matches all Spring beans in the application's main packages.
+     */
+    @Pointcut("within(com.isoft.rfid.repository..*)" + " || within(com.isoft.rfid.service..*)" + " || within(com.isoft.rfid.web.rest..*)")
+    public void applicationPackagePointcut() {
+        // Method is empty as this is just a Pointcut, the implementations are in the advices.
+    }
+
+    /**
+     * Advice that times a sample of the executions of a method.
+     *
+     * @param joinPoint join point for advice.
+     * @return result.
+     * @throws Throwable the exception thrown by the method.
+     */
+    @Around("applicationPackagePointcut() && springBeanPointcut()")
+    public Object timeAround(ProceedingJoinPoint joinPoint) throws Throwable {
+        if (ThreadLocalRandom.current().nextDouble() >= sampleRate) {
+            return joinPoint.proceed();
+        }
+        long start = System.nanoTime();
+        Object result;
+        try {
+            result = joinPoint.proceed();
+        } catch (Throwable e) {
+            // Failures are rare enough to be looked up in the registry each time.
+            timer(joinPoint, e.getClass().getSimpleName()).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            throw e;
+        }
+        long elapsed = System.nanoTime() - start;
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        Timer timer = timers.get(method);
+        if (timer == null) {
+            timer = timers.computeIfAbsent(method, key -> timer(joinPoint, NO_EXCEPTION));
+        }
+        timer.record(elapsed, TimeUnit.NANOSECONDS);
+        return result;
+    }
+
+    private Timer timer(ProceedingJoinPoint joinPoint, String exception) {
+        Timer.Builder builder = Timer
+            .builder(TIMER_NAME)
+            .description("Execution time of a sample of the calls to the method")
+            .tag("class", joinPoint.getSignature().getDeclaringType().getSimpleName())
+            .tag("method", joinPoint.getSignature().getName())
+            .tag("exception", exception);
+        if (percentileHistogram) {
+            builder
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofNanos(100_000))
+                .maximumExpectedValue(Duration.ofSeconds(30));
+        }
+        return builder.register(meterRegistry);
+    }
+}
@@ -1,6 +1,10 @@
 package com.isoft.rfid.config;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
 
 /**
  * Properties specific to Rfid Elk.
@@ -10,7 +14,1473 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
  */
 @ConfigurationProperties(prefix = "application", ignoreUnknownFields = false)
 public class ApplicationProperties {
+
+    private final Ingest ingest = new Ingest();
+
+    private final Llrp llrp = new Llrp();
+
+    private final Elasticsearch elasticsearch = new Elasticsearch();
+
+    private final Location location = new Location();
+
+    private final Zones zones = new Zones();
+
+    private final Direction direction = new Direction();
+
+    private final Search search = new Search();
+
+    private final Assets assets = new Assets();
+
+    private final Devices devices = new Devices();
+
+    private final RateLimit rateLimit = new RateLimit();
+
+    private final TokenRevocation tokenRevocation = new TokenRevocation();
+
+    private final Timing timing = new Timing();
+
     // jhipster-needle-application-properties-property
+
+    public Ingest getIngest() {
+        return ingest;
+    }
+
+    public Llrp getLlrp() {
+        return llrp;
+    }
+
+    public Elasticsearch getElasticsearch() {
+        return elasticsearch;
+    }
+
+    public Location getLocation() {
+        return location;
+    }
+
+    public Zones getZones() {
+        return zones;
+    }
+
+    public Direction getDirection() {
+        return direction;
+    }
+
+    public Search getSearch() {
+        return search;
+    }
+
+    public Assets getAssets() {
+        return assets;
+    }
+
+    public Devices getDevices() {
+        return devices;
+    }
+
+    public RateLimit getRateLimit() {
+        return rateLimit;
+    }
+
+    public TokenRevocation getTokenRevocation() {
+        return tokenRevocation;
+    }
+
+    public Timing getTiming() {
+        return timing;
+    }
+
     // jhipster-needle-application-properties-property-getter
+
+    public static class Ingest {
+
+        /**
+         * Prefix of the time-partitioned tag-read indices, and name of the alias searching all of them.
+         */
+        private String indexName = "tag-reads";
+
+        /**
+         * Time span of each tag-read index: a read goes to the index of its own timestamp, in UTC.
+         */
+        private Partitioning partitioning = Partitioning.DAILY;
+
+        /**
+         * Number of reads sent to Elasticsearch in a single bulk request; the initial size when the size is adaptive.
+         */
+        private int bulkActions = 1000;
+
+        /**
+         * Maximum time a read waits in a partially filled batch before it is flushed.
+         */
+        private Duration flushInterval = Duration.ofSeconds(1);
+
+        /**
+         * Number of reads parsed from a streamed NDJSON upload before they are handed to the indexer.
+         */
+        private int streamChunkSize = 1000;
+
+        /**
+         * Number of distinct reader ids tracked by the duplicate suppressor, the RSSI filter and the location view; reader
+         * ids come from the clients, so the reads of further readers are neither deduplicated nor filtered on their
+         * antennas, and do not update the locations.
+         */
+        private int maxReaders = 10_000;
+
+        private final Index index = new Index();
+
+        private final Dedup dedup = new Dedup();
+
+        private final Filter filter = new Filter();
+
+        private final Spool spool = new Spool();
+
+        private final Adaptive adaptive = new Adaptive();
+
+        public String getIndexName() {
+            return indexName;
+        }
+
+        public void setIndexName(String indexName) {
+            this.indexName = indexName;
+        }
+
+        public Partitioning getPartitioning() {
+            return partitioning;
+        }
+
+        public void setPartitioning(Partitioning partitioning) {
+            this.partitioning = partitioning;
+        }
+
+        public int getBulkActions() {
+            return bulkActions;
+        }
+
+        public void setBulkActions(int bulkActions) {
+            this.bulkActions = bulkActions;
+        }
+
+        public Duration getFlushInterval() {
+            return flushInterval;
+        }
+
+        public void setFlushInterval(Duration flushInterval) {
+            this.flushInterval = flushInterval;
+        }
+
+        public int getStreamChunkSize() {
+            return streamChunkSize;
+        }
+
+        public void setStreamChunkSize(int streamChunkSize) {
+            this.streamChunkSize = streamChunkSize;
+        }
+
+        public int getMaxReaders() {
+            return maxReaders;
+        }
+
+        public void setMaxReaders(int maxReaders) {
+            this.maxReaders = maxReaders;
+        }
+
+        public Index getIndex() {
+            return index;
+        }
+
+        public Dedup getDedup() {
+            return dedup;
+        }
+
+        public Filter getFilter() {
+            return filter;
+        }
+
+        public Spool getSpool() {
+            return spool;
+        }
+
+        public Adaptive getAdaptive() {
+            return adaptive;
+        }
+
+        public enum Partitioning {
+            DAILY,
+            HOURLY,
+        }
+
+        public static class Index {
+
+            private int shards = 1;
+
+            private int replicas = 1;
+
+            private String refreshInterval = "5s";
+
+            /**
+             * Replicas of the partitions being written while a bulk load is in progress.
+             */
+            private int bulkLoadReplicas = 0;
+
+            /**
+             * Refresh interval of the partitions being written while a bulk load is in progress, {@code -1} to disable refreshes.
+             */
+            private String bulkLoadRefreshInterval = "-1";
+
+            public int getShards() {
+                return shards;
+            }
+
+            public void setShards(int shards) {
+                this.shards = shards;
+            }
+
+            public int getReplicas() {
+                return replicas;
+            }
+
+            public void setReplicas(int replicas) {
+                this.replicas = replicas;
+            }
+
+            public String getRefreshInterval() {
+                return refreshInterval;
+            }
+
+            public void setRefreshInterval(String refreshInterval) {
+                this.refreshInterval = refreshInterval;
+            }
+
+            public int getBulkLoadReplicas() {
+                return bulkLoadReplicas;
+            }
+
+            public void setBulkLoadReplicas(int bulkLoadReplicas) {
+                this.bulkLoadReplicas = bulkLoadReplicas;
+            }
+
+            public String getBulkLoadRefreshInterval() {
+                return bulkLoadRefreshInterval;
+            }
+
+            public void setBulkLoadRefreshInterval(String bulkLoadRefreshInterval) {
+                this.bulkLoadRefreshInterval = bulkLoadRefreshInterval;
+            }
+        }
+
+        public static class Dedup {
+
+            private boolean enabled = true;
+
+            /**
+             * Repeats of the same EPC, reader and antenna within this window are dropped.
+             */
+            private Duration window = Duration.ofSeconds(2);
+
+            /**
+             * Number of slots of the duplicate table; it should hold about twice the keys seen in one window.
+             */
+            private int capacity = 1 << 18;
+
+            public boolean isEnabled() {
+                return enabled;
+            }
+
+            public void setEnabled(boolean enabled) {
+                this.enabled = enabled;
+            }
+
+            public Duration getWindow() {
+                return window;
+            }
+
+            public void setWindow(Duration window) {
+                this.window = window;
+            }
+
+            public int getCapacity() {
+                return capacity;
+            }
+
+            public void setCapacity(int capacity) {
+                this.capacity = capacity;
+            }
+        }
+
+        public static class Filter {
+
+            private boolean enabled = true;
+
+            /**
+             * Weight of a new read in the RSSI estimate of its tag, between 0 and 1.
+             */
+            private double alpha = 0.3;
+
+            /**
+             * Reads weaker than the estimate of their tag by this many standard deviations are dropped.
+             */
+            private double deviations = 2.5;
+
+            /**
+             * Reads weaker than this, in dBm, are always dropped.
+             */
+            private double minRssi = -85;
+
+            /**
+             * Reads of a tag needed before its estimate is used to drop reads.
+             */
+            private int warmUpReads = 3;
+
+            /**
+             * A tag is attributed to its strongest antenna for this long; weaker reads by other antennas meanwhile are
+             * cross-reads.
+             */
+            private Duration attributionWindow = Duration.ofSeconds(1);
+
+            /**
+             * Reads by another antenna weaker than the attributed one by this many dB are dropped as cross-reads.
+             */
+            private double crossReadMargin = 6;
+
+            /**
+             * Tags not read for this long start over with a new estimate.
+             */
+            private Duration idleTimeout = Duration.ofMinutes(10);
+
+            /**
+             * Number of slots of the tag table; it should hold about twice the tags read in one idle timeout.
+             */
+            private int capacity = 1 << 18;
+
+            /**
+             * Readers with their own drop meters, in the order they are first seen; the others are counted together under
+             * the {@code other} reader, so that clients sending arbitrary reader ids cannot create unbounded series.
+             */
+            private int maxTaggedReaders = 100;
+
+            public boolean isEnabled() {
+                return enabled;
+            }
+
+            public void setEnabled(boolean enabled) {
+                this.enabled = enabled;
+            }
+
+            public double getAlpha() {
+                return alpha;
+            }
+
+            public void setAlpha(double alpha) {
+                this.alpha = alpha;
+            }
+
+            public double getDeviations() {
+                return deviations;
+            }
+
+            public void setDeviations(double deviations) {
+                this.deviations = deviations;
+            }
+
+            public double getMinRssi() {
+                return minRssi;
+            }
+
+            public void setMinRssi(double minRssi) {
+                this.minRssi = minRssi;
+            }
+
+            public int getWarmUpReads() {
+                return warmUpReads;
+            }
+
+            public void setWarmUpReads(int warmUpReads) {
+                this.warmUpReads = warmUpReads;
+            }
+
+            public Duration getAttributionWindow() {
+                return attributionWindow;
+            }
+
+            public void setAttributionWindow(Duration attributionWindow) {
+                this.attributionWindow = attributionWindow;
+            }
+
+            public double getCrossReadMargin() {
+                return crossReadMargin;
+            }
+
+            public void setCrossReadMargin(double crossReadMargin) {
+                this.crossReadMargin = crossReadMargin;
+            }
+
+            public Duration getIdleTimeout() {
+                return idleTimeout;
+            }
+
+            public void setIdleTimeout(Duration idleTimeout) {
+                this.idleTimeout = idleTimeout;
+            }
+
+            public int getCapacity() {
+                return capacity;
+            }
+
+            public void setCapacity(int capacity) {
+                this.capacity = capacity;
+            }
+
+            public int getMaxTaggedReaders() {
+                return maxTaggedReaders;
+            }
+
+            public void setMaxTaggedReaders(int maxTaggedReaders) {
+                this.maxTaggedReaders = maxTaggedReaders;
+            }
+        }
+
+        public static class Spool {
+
+            /**
+             * When disabled, reads go straight to the bulk indexer and are lost if Elasticsearch is unavailable.
+             */
+            private boolean enabled = true;
+
+            private String directory = "spool";
+
+            private DataSize segmentSize = DataSize.ofMegabytes(64);
+
+            /**
+             * Segments allowed on disk; ingestion is refused once they are all waiting to be indexed.
+             */
+            private int maxSegments = 64;
+
+            /**
+             * Force every spooled batch to disk, so that it also survives a crash of the host and not only of the application.
+             */
+            private boolean sync = false;
+
+            public boolean isEnabled() {
+                return enabled;
+            }
+
+            public void setEnabled(boolean enabled) {
+                this.enabled = enabled;
+            }
+
+            public String getDirectory() {
+                return directory;
+            }
+
+            public void setDirectory(String directory) {
+                this.directory = directory;
+            }
+
+            public DataSize getSegmentSize() {
+                return segmentSize;
+            }
+
+            public void setSegmentSize(DataSize segmentSize) {
+                this.segmentSize = segmentSize;
+            }
+
+            public int getMaxSegments() {
+                return maxSegments;
+            }
+
+            public void setMaxSegments(int maxSegments) {
+                this.maxSegments = maxSegments;
+            }
+
+            public boolean isSync() {
+                return sync;
+            }
+
+            public void setSync(boolean sync) {
+                this.sync = sync;
+            }
+        }
+
+        public static class Adaptive {
+
+            /**
+             * When disabled, bulks hold {@code bulk-actions} reads and are sent one at a time.
+             */
+            private boolean enabled = true;
+
+            private int minActions = 100;
+
+            private int maxActions = 10000;
+
+            private int maxConcurrency = 4;
+
+            /**
+             * Bulks slower than this shrink the batch size.
+             */
+            private Duration targetLatency = Duration.ofMillis(500);
+
+            public boolean isEnabled() {
+                return enabled;
+            }
+
+            public void setEnabled(boolean enabled) {
+                this.enabled = enabled;
+            }
+
+            public int getMinActions() {
+                return minActions;
+            }
+
+            public void setMinActions(int minActions) {
+                this.minActions = minActions;
+            }
+
+            public int getMaxActions() {
+                return maxActions;
+            }
+
+            public void setMaxActions(int maxActions) {
+                this.maxActions = maxActions;
+            }
+
+            public int getMaxConcurrency() {
+                return maxConcurrency;
+            }
+
+            public void setMaxConcurrency(int maxConcurrency) {
+                this.maxConcurrency = maxConcurrency;
+            }
+
+            public Duration getTargetLatency() {
+                return targetLatency;
+            }
+
+            public void setTargetLatency(Duration targetLatency) {
+                this.targetLatency = targetLatency;
+            }
+        }
+    }
+
+    public static class Llrp {
+
+        private boolean enabled = false;
+
+        /**
+         * Readers to connect to, LLRP readers acting as servers.
+         */
+        private List<Reader> readers = new ArrayList<>();
+
+        /**
+         * Port accepting reader-initiated LLRP connections, {@code 0} to disable.
+         */
+        private int listenPort = 0;
+
+        private Duration reconnectDelay = Duration.ofSeconds(5);
+
+        private final Simulator simulator = new Simulator();
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public List<Reader> getReaders() {
+            return readers;
+        }
+
+        public void setReaders(List<Reader> readers) {
+            this.readers = readers;
+        }
+
+        public int getListenPort() {
+            return listenPort;
+        }
+
+        public void setListenPort(int listenPort) {
+            this.listenPort = listenPort;
+        }
+
+        public Duration getReconnectDelay() {
+            return reconnectDelay;
+        }
+
+        public void setReconnectDelay(Duration reconnectDelay) {
+            this.reconnectDelay = reconnectDelay;
+        }
+
+        public Simulator getSimulator() {
+            return simulator;
+        }
+
+        public static class Reader {
+
+            private String id;
+
+            private String host;
+
+            private int port = 5084;
+
+            public String getId() {
+                return id;
+            }
+
+            public void setId(String id) {
+                this.id = id;
+            }
+
+            public String getHost() {
+                return host;
+            }
+
+            public void setHost(String host) {
+                this.host = host;
+            }
+
+            public int getPort() {
+                return port;
+            }
+
+            public void setPort(int port) {
+                this.port = port;
+            }
+        }
+
+        public static class Simulator {
+
+            private boolean enabled = false;
+
+            private int port = 5084;
+
+            private int tagPopulation = 500;
+
+            private int tagsPerReport = 50;
+
+            private Duration reportInterval = Duration.ofMillis(100);
+
+            public boolean isEnabled() {
+                return enabled;
+            }
+
+            public void setEnabled(boolean enabled) {
+                this.enabled = enabled;
+            }
+
+            public int getPort() {
+                return port;
+            }
+
+            public void setPort(int port) {
+                this.port = port;
+            }
+
+            public int getTagPopulation() {
+                return tagPopulation;
+            }
+
+            public void setTagPopulation(int tagPopulation) {
+                this.tagPopulation = tagPopulation;
+            }
+
+            public int getTagsPerReport() {
+                return tagsPerReport;
+            }
+
+            public void setTagsPerReport(int tagsPerReport) {
+                this.tagsPerReport = tagsPerReport;
+            }
+
+            public Duration getReportInterval() {
+                return reportInterval;
+            }
+
+            public void setReportInterval(Duration reportInterval) {
+                this.reportInterval = reportInterval;
+            }
+        }
+    }
+
+    public static class Elasticsearch {
+
+        /**
+         * How {@code Instant} and {@code ZonedDateTime} fields are stored in the documents; both are always read.
+         */
+        private DateStorage dateStorage = DateStorage.ISO;
+
+        public DateStorage getDateStorage() {
+            return dateStorage;
+        }
+
+        public void setDateStorage(DateStorage dateStorage) {
+            this.dateStorage = dateStorage;
+        }
+
+        public enum DateStorage {
+            /**
+             * ISO-8601 strings, with the full precision of the value.
+             */
+            ISO,
+            /**
+             * Milliseconds since the epoch, cheaper to write and to read but truncated to the millisecond.
+             */
+            EPOCH_MILLIS,
+        }
+    }
+
+    public static class Location {
+
+        private boolean enabled = true;
+
+        /**
+         * Initial number of slots of the EPC table; it doubles when three quarters are used.
+         */
+        private int initialCapacity = 1 << 20;
+
+        private String snapshotDirectory = "location";
+
+        private Duration snapshotInterval = Duration.ofMinutes(5);
+
+        /**
+         * Reads this much older than the newest read of the snapshot are also replayed at boot, to cover late reads.
+         */
+        private Duration replayMargin = Duration.ofMinutes(1);
+
+        /**
+         * Reads replayed at boot when there is no snapshot.
+         */
+        private Duration initialReplay = Duration.ofHours(1);
+
+        /**
+         * Longest span of reads replayed at boot, when the snapshot is older than that.
+         */
+        private Duration maxReplay = Duration.ofHours(6);
+
+        /**
+         * Number of distinct zones tracked; the reads of further zones do not update the locations.
+         */
+        private int maxZones = 10_000;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getInitialCapacity() {
+            return initialCapacity;
+        }
+
+        public void setInitialCapacity(int initialCapacity) {
+            this.initialCapacity = initialCapacity;
+        }
+
+        public String getSnapshotDirectory() {
+            return snapshotDirectory;
+        }
+
+        public void setSnapshotDirectory(String snapshotDirectory) {
+            this.snapshotDirectory = snapshotDirectory;
+        }
+
+        public Duration getSnapshotInterval() {
+            return snapshotInterval;
+        }
+
+        public void setSnapshotInterval(Duration snapshotInterval) {
+            this.snapshotInterval = snapshotInterval;
+        }
+
+        public Duration getReplayMargin() {
+            return replayMargin;
+        }
+
+        public void setReplayMargin(Duration replayMargin) {
+            this.replayMargin = replayMargin;
+        }
+
+        public Duration getInitialReplay() {
+            return initialReplay;
+        }
+
+        public void setInitialReplay(Duration initialReplay) {
+            this.initialReplay = initialReplay;
+        }
+
+        public Duration getMaxReplay() {
+            return maxReplay;
+        }
+
+        public void setMaxReplay(Duration maxReplay) {
+            this.maxReplay = maxReplay;
+        }
+
+        public int getMaxZones() {
+            return maxZones;
+        }
+
+        public void setMaxZones(int maxZones) {
+            this.maxZones = maxZones;
+        }
+    }
+
+    public static class Zones {
+
+        private boolean enabled = true;
+
+        /**
+         * A tag not read in its zone for this long has left it.
+         */
+        private Duration exitTimeout = Duration.ofSeconds(30);
+
+        /**
+         * A tag still in its zone this long after entering it raises a dwell event.
+         */
+        private Duration dwellThreshold = Duration.ofMinutes(5);
+
+        /**
+         * Events kept while Elasticsearch is unavailable; the oldest are dropped beyond that.
+         */
+        private int maxPendingEvents = 100_000;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Duration getExitTimeout() {
+            return exitTimeout;
+        }
+
+        public void setExitTimeout(Duration exitTimeout) {
+            this.exitTimeout = exitTimeout;
+        }
+
+        public Duration getDwellThreshold() {
+            return dwellThreshold;
+        }
+
+        public void setDwellThreshold(Duration dwellThreshold) {
+            this.dwellThreshold = dwellThreshold;
+        }
+
+        public int getMaxPendingEvents() {
+            return maxPendingEvents;
+        }
+
+        public void setMaxPendingEvents(int maxPendingEvents) {
+            this.maxPendingEvents = maxPendingEvents;
+        }
+    }
+
+    public static class Direction {
+
+        private boolean enabled = true;
+
+        /**
+         * A passage through a portal ends when the tag has not been read by the portal for this long.
+         */
+        private Duration window = Duration.ofSeconds(2);
+
+        /**
+         * Passages whose antenna order is less consistent than this are reported with an unknown direction.
+         */
+        private double minConfidence = 0.6;
+
+        /**
+         * Worker threads, each owning the EPCs of one hash shard; {@code 0} for one per processor.
+         */
+        private int workers = 0;
+
+        /**
+         * Batches of reads waiting for each worker; reads are dropped when it is full.
+         */
+        private int queueCapacity = 1024;
+
+        private List<Portal> portals = new ArrayList<>();
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Duration getWindow() {
+            return window;
+        }
+
+        public void setWindow(Duration window) {
+            this.window = window;
+        }
+
+        public double getMinConfidence() {
+            return minConfidence;
+        }
+
+        public void setMinConfidence(double minConfidence) {
+            this.minConfidence = minConfidence;
+        }
+
+        public int getWorkers() {
+            return workers;
+        }
+
+        public void setWorkers(int workers) {
+            this.workers = workers;
+        }
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+
+        public List<Portal> getPortals() {
+            return portals;
+        }
+
+        public void setPortals(List<Portal> portals) {
+            this.portals = portals;
+        }
+
+        public static class Portal {
+
+            private String id;
+
+            private String readerId;
+
+            /**
+             * Antennas of the reader facing the inside of the building.
+             */
+            private List<Integer> innerAntennas = new ArrayList<>();
+
+            /**
+             * Antennas of the reader facing the outside of the building.
+             */
+            private List<Integer> outerAntennas = new ArrayList<>();
+
+            public String getId() {
+                return id;
+            }
+
+            public void setId(String id) {
+                this.id = id;
+            }
+
+            public String getReaderId() {
+                return readerId;
+            }
+
+            public void setReaderId(String readerId) {
+                this.readerId = readerId;
+            }
+
+            public List<Integer> getInnerAntennas() {
+                return innerAntennas;
+            }
+
+            public void setInnerAntennas(List<Integer> innerAntennas) {
+                this.innerAntennas = innerAntennas;
+            }
+
+            public List<Integer> getOuterAntennas() {
+                return outerAntennas;
+            }
+
+            public void setOuterAntennas(List<Integer> outerAntennas) {
+                this.outerAntennas = outerAntennas;
+            }
+        }
+    }
+
+    public static class Search {
+
+        /**
+         * How long the point in time of a cursor search is kept between two pages.
+         */
+        private Duration cursorKeepAlive = Duration.ofMinutes(2);
+
+        /**
+         * Slices of the point in time scanned in parallel by an export.
+         */
+        private int exportSlices = 4;
+
+        /**
+         * Reads fetched per request by each slice of an export.
+         */
+        private int exportBatchSize = 5000;
+
+        /**
+         * Exports running at once; further ones are refused until one ends.
+         */
+        private int maxConcurrentExports = 4;
+
+        /**
+         * Buckets fetched per request by the composite aggregations of GET /api/analytics/tag-reads.
+         */
+        private int analyticsPageSize = 1000;
+
+        private final Cache cache = new Cache();
+
+        public Duration getCursorKeepAlive() {
+            return cursorKeepAlive;
+        }
+
+        public void setCursorKeepAlive(Duration cursorKeepAlive) {
+            this.cursorKeepAlive = cursorKeepAlive;
+        }
+
+        public int getExportSlices() {
+            return exportSlices;
+        }
+
+        public void setExportSlices(int exportSlices) {
+            this.exportSlices = exportSlices;
+        }
+
+        public int getExportBatchSize() {
+            return exportBatchSize;
+        }
+
+        public void setExportBatchSize(int exportBatchSize) {
+            this.exportBatchSize = exportBatchSize;
+        }
+
+        public int getMaxConcurrentExports() {
+            return maxConcurrentExports;
+        }
+
+        public void setMaxConcurrentExports(int maxConcurrentExports) {
+            this.maxConcurrentExports = maxConcurrentExports;
+        }
+
+        public int getAnalyticsPageSize() {
+            return analyticsPageSize;
+        }
+
+        public void setAnalyticsPageSize(int analyticsPageSize) {
+            this.analyticsPageSize = analyticsPageSize;
+        }
+
+        public Cache getCache() {
+            return cache;
+        }
+
+        public static class Cache {
+
+            private boolean enabled = true;
+
+            /**
+             * Estimated size of the cached results, beyond which the least useful ones are evicted.
+             */
+            private DataSize maxSize = DataSize.ofMegabytes(64);
+
+            /**
+             * Searches ending now are rounded up to the end of a bucket of this length, so that repeated searches share
+             * their results.
+             */
+            private Duration timeBucket = Duration.ofSeconds(5);
+
+            /**
+             * How often the refresh generations of the indices are checked, and so how stale a cached result can be; with
+             * zero, before every cached search, and cached results are never stale.
+             */
+            private Duration generationCheckInterval = Duration.ZERO;
+
+            /**
+             * Results not read again for this long are evicted.
+             */
+            private Duration expireAfterAccess = Duration.ofMinutes(10);
+
+            public boolean isEnabled() {
+                return enabled;
+            }
+
+            public void setEnabled(boolean enabled) {
+                this.enabled = enabled;
+            }
+
+            public DataSize getMaxSize() {
+                return maxSize;
+            }
+
+            public void setMaxSize(DataSize maxSize) {
+                this.maxSize = maxSize;
+            }
+
+            public Duration getTimeBucket() {
+                return timeBucket;
+            }
+
+            public void setTimeBucket(Duration timeBucket) {
+                this.timeBucket = timeBucket;
+            }
+
+            public Duration getGenerationCheckInterval() {
+                return generationCheckInterval;
+            }
+
+            public void setGenerationCheckInterval(Duration generationCheckInterval) {
+                this.generationCheckInterval = generationCheckInterval;
+            }
+
+            public Duration getExpireAfterAccess() {
+                return expireAfterAccess;
+            }
+
+            public void setExpireAfterAccess(Duration expireAfterAccess) {
+                this.expireAfterAccess = expireAfterAccess;
+            }
+        }
+    }
+
+    public static class Assets {
+
+        private boolean enabled = true;
+
+        /**
+         * Initial number of slots of the EPC table; it doubles when three quarters are used.
+         */
+        private int initialCapacity = 1 << 16;
+
+        /**
+         * Slices of the asset index scrolled in parallel at boot.
+         */
+        private int warmUpSlices = 4;
+
+        private int batchSize = 5000;
+
+        /**
+         * How often assets indexed or updated since the last poll are fetched.
+         */
+        private Duration refreshInterval = Duration.ofSeconds(10);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getInitialCapacity() {
+            return initialCapacity;
+        }
+
+        public void setInitialCapacity(int initialCapacity) {
+            this.initialCapacity = initialCapacity;
+        }
+
+        public int getWarmUpSlices() {
+            return warmUpSlices;
+        }
+
+        public void setWarmUpSlices(int warmUpSlices) {
+            this.warmUpSlices = warmUpSlices;
+        }
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        public Duration getRefreshInterval() {
+            return refreshInterval;
+        }
+
+        public void setRefreshInterval(Duration refreshInterval) {
+            this.refreshInterval = refreshInterval;
+        }
+    }
+
+    public static class Devices {
+
+        /**
+         * API keys of the fixed readers and edge gateways, sent as {@code X-Api-Key: <id>.<secret>}.
+         */
+        private List<ApiKey> apiKeys = new ArrayList<>();
+
+        public List<ApiKey> getApiKeys() {
+            return apiKeys;
+        }
+
+        public void setApiKeys(List<ApiKey> apiKeys) {
+            this.apiKeys = apiKeys;
+        }
+
+        public static class ApiKey {
+
+            private String id;
+
+            /**
+             * Hex-encoded SHA-256 digest of the secret; the secret itself is only known to the device.
+             */
+            private String secretHash;
+
+            /**
+             * Endpoints the key gives access to, see {@link com.isoft.rfid.security.device.DeviceScope}.
+             */
+            private List<String> scopes = new ArrayList<>();
+
+            public String getId() {
+                return id;
+            }
+
+            public void setId(String id) {
+                this.id = id;
+            }
+
+            public String getSecretHash() {
+                return secretHash;
+            }
+
+            public void setSecretHash(String secretHash) {
+                this.secretHash = secretHash;
+            }
+
+            public List<String> getScopes() {
+                return scopes;
+            }
+
+            public void setScopes(List<String> scopes) {
+                this.scopes = scopes;
+            }
+        }
+    }
+
+    public static class RateLimit {
+
+        private boolean enabled = true;
+
+        /**
+         * Independent maps the buckets of each group are spread over, rounded up to a power of two.
+         */
+        private int stripes = 16;
+
+        /**
+         * How often the buckets that are full again are forgotten.
+         */
+        private Duration sweepInterval = Duration.ofMinutes(1);
+
+        /**
+         * Endpoint groups, each with one bucket per principal or device; a request counts against the first group
+         * with a matching path, and is not limited if there is none.
+         */
+        private List<Group> groups = new ArrayList<>();
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getStripes() {
+            return stripes;
+        }
+
+        public void setStripes(int stripes) {
+            this.stripes = stripes;
+        }
+
+        public Duration getSweepInterval() {
+            return sweepInterval;
+        }
+
+        public void setSweepInterval(Duration sweepInterval) {
+            this.sweepInterval = sweepInterval;
+        }
+
+        public List<Group> getGroups() {
+            return groups;
+        }
+
+        public void setGroups(List<Group> groups) {
+            this.groups = groups;
+        }
+
+        public static class Group {
+
+            private String name;
+
+            /**
+             * Ant-style patterns of the paths of the group.
+             */
+            private List<String> paths = new ArrayList<>();
+
+            /**
+             * Requests a client can make at once after being idle.
+             */
+            private int capacity = 50;
+
+            /**
+             * Sustained requests per second allowed to a client.
+             */
+            private double refillPerSecond = 10;
+
+            public String getName() {
+                return name;
+            }
+
+            public void setName(String name) {
+                this.name = name;
+            }
+
+            public List<String> getPaths() {
+                return paths;
+            }
+
+            public void setPaths(List<String> paths) {
+                this.paths = paths;
+            }
+
+            public int getCapacity() {
+                return capacity;
+            }
+
+            public void setCapacity(int capacity) {
+                this.capacity = capacity;
+            }
+
+            public double getRefillPerSecond() {
+                return refillPerSecond;
+            }
+
+            public void setRefillPerSecond(double refillPerSecond) {
+                this.refillPerSecond = refillPerSecond;
+            }
+        }
+    }
+
+    public static class TokenRevocation {
+
+        private boolean enabled = true;
+
+        /**
+         * Unexpired revoked tokens the Bloom filter is sized for; it is resized at each rebuild if there are more.
+         */
+        private long expectedRevocations = 100_000;
+
+        /**
+         * Share of the tokens that are looked up in Elasticsearch although they are not revoked.
+         */
+        private double falsePositiveRate = 0.001;
+
+        /**
+         * How often the tokens revoked on the other nodes are polled.
+         */
+        private Duration refreshInterval = Duration.ofSeconds(10);
+
+        /**
+         * How far back each poll looks before the previous one, covering the clock skew between the nodes and the
+         * refresh of the index.
+         */
+        private Duration refreshOverlap = Duration.ofMinutes(1);
+
+        /**
+         * How often the filter is rebuilt without the expired tokens.
+         */
+        private Duration rebuildInterval = Duration.ofHours(1);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public long getExpectedRevocations() {
+            return expectedRevocations;
+        }
+
+        public void setExpectedRevocations(long expectedRevocations) {
+            this.expectedRevocations = expectedRevocations;
+        }
+
+        public double getFalsePositiveRate() {
+            return falsePositiveRate;
+        }
+
+        public void setFalsePositiveRate(double falsePositiveRate) {
+            this.falsePositiveRate = falsePositiveRate;
+        }
+
+        public Duration getRefreshInterval() {
+            return refreshInterval;
+        }
+
+        public void setRefreshInterval(Duration refreshInterval) {
+            this.refreshInterval = refreshInterval;
+        }
+
+        public Duration getRefreshOverlap() {
+            return refreshOverlap;
+        }
+
+        public void setRefreshOverlap(Duration refreshOverlap) {
+            this.refreshOverlap = refreshOverlap;
+        }
+
+        public Duration getRebuildInterval() {
+            return rebuildInterval;
+        }
+
+        public void setRebuildInterval(Duration rebuildInterval) {
+            this.rebuildInterval = rebuildInterval;
+        }
+    }
+
+    public static class Timing {
+
+        private boolean enabled = true;
+
+        /**
+         * Share of the calls to the services, repositories and REST endpoints that are timed, from 0 to 1.
+         */
+        private double sampleRate = 0.05;
+
+        /**
+         * Whether the timers publish a histogram, from which percentiles can be aggregated across nodes.
+         */
+        private boolean percentileHistogram = true;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public double getSampleRate() {
+            return sampleRate;
+        }
+
+        public void setSampleRate(double sampleRate) {
+            this.sampleRate = sampleRate;
+        }
+
+        public boolean isPercentileHistogram() {
+            return percentileHistogram;
+        }
+
+        public void setPercentileHistogram(boolean percentileHistogram) {
+            this.percentileHistogram = percentileHistogram;
+        }
+    }
     // jhipster-needle-application-properties-property-class
 }
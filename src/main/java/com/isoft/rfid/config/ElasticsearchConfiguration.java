@@ -1,10 +1,14 @@
 package com.isoft.rfid.config;
 
+import com.isoft.rfid.repository.search.TagReadIndexManager;
+import com.isoft.rfid.repository.search.TagReadIndices;
 import java.time.Instant;
 import java.time.LocalDate;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
-import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.List;
+import org.elasticsearch.client.RestHighLevelClient;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.convert.converter.Converter;
@@ -16,19 +20,51 @@ import org.springframework.data.elasticsearch.core.convert.ElasticsearchCustomCo
 @Configuration
 public class ElasticsearchConfiguration extends ElasticsearchConfigurationSupport {
 
+    private final ApplicationProperties.Elasticsearch.DateStorage dateStorage;
+
+    public ElasticsearchConfiguration(ApplicationProperties applicationProperties) {
+        this.dateStorage = applicationProperties.getElasticsearch().getDateStorage();
+    }
+
     @Bean
     @Override
     public ElasticsearchCustomConversions elasticsearchCustomConversions() {
-        return new ElasticsearchCustomConversions(
-            Arrays.asList(
-                new ZonedDateTimeWritingConverter(),
-                new ZonedDateTimeReadingConverter(),
-                new InstantWritingConverter(),
-                new InstantReadingConverter(),
-                new LocalDateWritingConverter(),
-                new LocalDateReadingConverter()
-            )
-        );
+        return customConversions(dateStorage);
+    }
+
+    /**
+     * Converters writing the temporal fields in the given format. Both the ISO-8601 and the epoch-millis values are read,
+     * so that documents written before a change of {@code application.elasticsearch.date-storage} stay readable.
+     */
+    static ElasticsearchCustomConversions customConversions(ApplicationProperties.Elasticsearch.DateStorage dateStorage) {
+        List<Converter<?, ?>> converters = new ArrayList<>();
+        if (dateStorage == ApplicationProperties.Elasticsearch.DateStorage.EPOCH_MILLIS) {
+            converters.add(new ZonedDateTimeEpochMillisWritingConverter());
+            converters.add(new InstantEpochMillisWritingConverter());
+        } else {
+            converters.add(new ZonedDateTimeWritingConverter());
+            converters.add(new InstantWritingConverter());
+        }
+        converters.add(new ZonedDateTimeReadingConverter());
+        converters.add(new ZonedDateTimeEpochMillisReadingConverter());
+        converters.add(new InstantReadingConverter());
+        converters.add(new InstantEpochMillisReadingConverter());
+        converters.add(new LocalDateWritingConverter());
+        converters.add(new LocalDateReadingConverter());
+        return new ElasticsearchCustomConversions(converters);
+    }
+
+    /**
+     * Puts the versioned tag-read index template at startup, then keeps the daily or hourly partitions and their write
+     * alias up to date.
+     */
+    @Bean(initMethod = "initialize")
+    public TagReadIndexManager tagReadIndexManager(
+        RestHighLevelClient client,
+        TagReadIndices tagReadIndices,
+        ApplicationProperties applicationProperties
+    ) {
+        return new TagReadIndexManager(client, tagReadIndices, applicationProperties);
     }
 
     @WritingConverter
@@ -79,6 +115,54 @@ public class ElasticsearchConfiguration extends ElasticsearchConfigurationSuppor
         }
     }
 
+    @WritingConverter
+    static class ZonedDateTimeEpochMillisWritingConverter implements Converter<ZonedDateTime, Long> {
+
+        @Override
+        public Long convert(ZonedDateTime source) {
+            if (source == null) {
+                return null;
+            }
+            return source.toInstant().toEpochMilli();
+        }
+    }
+
+    @ReadingConverter
+    static class ZonedDateTimeEpochMillisReadingConverter implements Converter<Long, ZonedDateTime> {
+
+        @Override
+        public ZonedDateTime convert(Long source) {
+            if (source == null) {
+                return null;
+            }
+            return Instant.ofEpochMilli(source).atZone(ZoneId.systemDefault());
+        }
+    }
+
+    @WritingConverter
+    static class InstantEpochMillisWritingConverter implements Converter<Instant, Long> {
+
+        @Override
+        public Long convert(Instant source) {
+            if (source == null) {
+                return null;
+            }
+            return source.toEpochMilli();
+        }
+    }
+
+    @ReadingConverter
+    static class InstantEpochMillisReadingConverter implements Converter<Long, Instant> {
+
+        @Override
+        public Instant convert(Long source) {
+            if (source == null) {
+                return null;
+            }
+            return Instant.ofEpochMilli(source);
+        }
+    }
+
     @WritingConverter
     static class LocalDateWritingConverter implements Converter<LocalDate, String> {
 
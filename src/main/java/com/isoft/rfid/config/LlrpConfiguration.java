@@ -0,0 +1,33 @@
+package com.isoft.rfid.config;
+
+import com.isoft.rfid.service.TagReadIngestService;
+import com.isoft.rfid.service.llrp.LlrpReaderListener;
+import com.isoft.rfid.service.llrp.LlrpReaderSimulator;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Starts the native LLRP reader connectivity, and the local reader simulator when it is enabled.
+ */
+@Configuration
+public class LlrpConfiguration {
+
+    @Bean(initMethod = "start", destroyMethod = "close")
+    @ConditionalOnProperty(prefix = "application.llrp.simulator", name = "enabled", havingValue = "true")
+    public LlrpReaderSimulator llrpReaderSimulator(ApplicationProperties applicationProperties) {
+        ApplicationProperties.Llrp.Simulator simulator = applicationProperties.getLlrp().getSimulator();
+        return new LlrpReaderSimulator(
+            simulator.getPort(),
+            simulator.getTagPopulation(),
+            simulator.getTagsPerReport(),
+            simulator.getReportInterval()
+        );
+    }
+
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    @ConditionalOnProperty(prefix = "application.llrp", name = "enabled", havingValue = "true")
+    public LlrpReaderListener llrpReaderListener(TagReadIngestService tagReadIngestService, ApplicationProperties applicationProperties) {
+        return new LlrpReaderListener(tagReadIngestService, applicationProperties.getLlrp());
+    }
+}
@@ -0,0 +1,25 @@
+package com.isoft.rfid.config;
+
+import com.isoft.rfid.service.RateLimiter;
+import com.isoft.rfid.web.rest.RateLimitInterceptor;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Rate limiting of the API, see {@code application.rate-limit}.
+ */
+@Configuration
+public class RateLimitConfiguration implements WebMvcConfigurer {
+
+    private final RateLimiter rateLimiter;
+
+    public RateLimitConfiguration(RateLimiter rateLimiter) {
+        this.rateLimiter = rateLimiter;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new RateLimitInterceptor(rateLimiter)).addPathPatterns("/api/**");
+    }
+}
@@ -1,6 +1,7 @@
 package com.isoft.rfid.config;
 
 import com.isoft.rfid.security.*;
+import com.isoft.rfid.security.device.*;
 import com.isoft.rfid.security.jwt.*;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Import;
@@ -25,16 +26,20 @@ public class SecurityConfiguration {
 
     private final TokenProvider tokenProvider;
 
+    private final DeviceApiKeys deviceApiKeys;
+
     private final CorsFilter corsFilter;
     private final SecurityProblemSupport problemSupport;
 
     public SecurityConfiguration(
         TokenProvider tokenProvider,
+        DeviceApiKeys deviceApiKeys,
         CorsFilter corsFilter,
         JHipsterProperties jHipsterProperties,
         SecurityProblemSupport problemSupport
     ) {
         this.tokenProvider = tokenProvider;
+        this.deviceApiKeys = deviceApiKeys;
         this.corsFilter = corsFilter;
         this.problemSupport = problemSupport;
         this.jHipsterProperties = jHipsterProperties;
@@ -81,7 +86,9 @@ public class SecurityConfiguration {
         .and()
             .httpBasic()
         .and()
-            .apply(securityConfigurerAdapter());
+            .apply(securityConfigurerAdapter())
+        .and()
+            .apply(new DeviceApiKeyConfigurer(deviceApiKeys));
         return http.build();
         // @formatter:on
     }
@@ -0,0 +1,114 @@
+package com.isoft.rfid.domain;
+
+import java.io.Serializable;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.elasticsearch.annotations.Field;
+import org.springframework.data.elasticsearch.annotations.FieldType;
+
+/**
+ * The item a tag is attached to, identified by the EPC of the tag.
+ */
+@org.springframework.data.elasticsearch.annotations.Document(indexName = "assets")
+public class Asset implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The EPC of the tag, in hex.
+     */
+    @Id
+    private String id;
+
+    @Field(type = FieldType.Keyword)
+    private String sku;
+
+    @Field(type = FieldType.Text)
+    private String description;
+
+    @Field(type = FieldType.Keyword)
+    private String owner;
+
+    // jhipster-needle-entity-add-field - JHipster will add fields here
+
+    public String getId() {
+        return this.id;
+    }
+
+    public Asset id(String id) {
+        this.setId(id);
+        return this;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getSku() {
+        return this.sku;
+    }
+
+    public Asset sku(String sku) {
+        this.setSku(sku);
+        return this;
+    }
+
+    public void setSku(String sku) {
+        this.sku = sku;
+    }
+
+    public String getDescription() {
+        return this.description;
+    }
+
+    public Asset description(String description) {
+        this.setDescription(description);
+        return this;
+    }
+
+    public void setDescription(String description) {
+        this.description = description;
+    }
+
+    public String getOwner() {
+        return this.owner;
+    }
+
+    public Asset owner(String owner) {
+        this.setOwner(owner);
+        return this;
+    }
+
+    public void setOwner(String owner) {
+        this.owner = owner;
+    }
+
+    // jhipster-needle-entity-add-getters-setters - JHipster will add getters and setters here
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Asset)) {
+            return false;
+        }
+        return id != null && id.equals(((Asset) o).id);
+    }
+
+    @Override
+    public int hashCode() {
+        // see https://vladmihalcea.com/how-to-implement-equals-and-hashcode-using-the-jpa-entity-identifier/
+        return getClass().hashCode();
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "Asset{" +
+            "id=" + getId() +
+            ", sku='" + getSku() + "'" +
+            ", description='" + getDescription() + "'" +
+            ", owner='" + getOwner() + "'" +
+            "}";
+    }
+}
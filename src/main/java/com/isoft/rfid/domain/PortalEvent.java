@@ -0,0 +1,186 @@
+package com.isoft.rfid.domain;
+
+import com.isoft.rfid.domain.enumeration.MovementDirection;
+import java.io.Serializable;
+import java.time.Instant;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.elasticsearch.annotations.DateFormat;
+import org.springframework.data.elasticsearch.annotations.Field;
+import org.springframework.data.elasticsearch.annotations.FieldType;
+
+/**
+ * A tag passing through a dock portal, with the direction inferred from the order of its reads.
+ */
+@org.springframework.data.elasticsearch.annotations.Document(indexName = "portal-events")
+public class PortalEvent implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    private String id;
+
+    @Field(type = FieldType.Keyword)
+    private String epc;
+
+    @Field(type = FieldType.Keyword)
+    private String portalId;
+
+    @Field(type = FieldType.Keyword)
+    private MovementDirection direction;
+
+    /**
+     * How consistently the outer antennas read the tag before the inner ones, or after them: from {@code 0} (no order)
+     * to {@code 1} (every read in order).
+     */
+    @Field(type = FieldType.Double)
+    private Double confidence;
+
+    @Field(type = FieldType.Date, format = { DateFormat.strict_date_optional_time, DateFormat.epoch_millis })
+    private Instant firstSeen;
+
+    @Field(type = FieldType.Date, format = { DateFormat.strict_date_optional_time, DateFormat.epoch_millis })
+    private Instant lastSeen;
+
+    @Field(type = FieldType.Integer)
+    private Integer readCount;
+
+    // jhipster-needle-entity-add-field - JHipster will add fields here
+
+    public String getId() {
+        return this.id;
+    }
+
+    public PortalEvent id(String id) {
+        this.setId(id);
+        return this;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getEpc() {
+        return this.epc;
+    }
+
+    public PortalEvent epc(String epc) {
+        this.setEpc(epc);
+        return this;
+    }
+
+    public void setEpc(String epc) {
+        this.epc = epc;
+    }
+
+    public String getPortalId() {
+        return this.portalId;
+    }
+
+    public PortalEvent portalId(String portalId) {
+        this.setPortalId(portalId);
+        return this;
+    }
+
+    public void setPortalId(String portalId) {
+        this.portalId = portalId;
+    }
+
+    public MovementDirection getDirection() {
+        return this.direction;
+    }
+
+    public PortalEvent direction(MovementDirection direction) {
+        this.setDirection(direction);
+        return this;
+    }
+
+    public void setDirection(MovementDirection direction) {
+        this.direction = direction;
+    }
+
+    public Double getConfidence() {
+        return this.confidence;
+    }
+
+    public PortalEvent confidence(Double confidence) {
+        this.setConfidence(confidence);
+        return this;
+    }
+
+    public void setConfidence(Double confidence) {
+        this.confidence = confidence;
+    }
+
+    public Instant getFirstSeen() {
+        return this.firstSeen;
+    }
+
+    public PortalEvent firstSeen(Instant firstSeen) {
+        this.setFirstSeen(firstSeen);
+        return this;
+    }
+
+    public void setFirstSeen(Instant firstSeen) {
+        this.firstSeen = firstSeen;
+    }
+
+    public Instant getLastSeen() {
+        return this.lastSeen;
+    }
+
+    public PortalEvent lastSeen(Instant lastSeen) {
+        this.setLastSeen(lastSeen);
+        return this;
+    }
+
+    public void setLastSeen(Instant lastSeen) {
+        this.lastSeen = lastSeen;
+    }
+
+    public Integer getReadCount() {
+        return this.readCount;
+    }
+
+    public PortalEvent readCount(Integer readCount) {
+        this.setReadCount(readCount);
+        return this;
+    }
+
+    public void setReadCount(Integer readCount) {
+        this.readCount = readCount;
+    }
+
+    // jhipster-needle-entity-add-getters-setters - JHipster will add getters and setters here
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof PortalEvent)) {
+            return false;
+        }
+        return id != null && id.equals(((PortalEvent) o).id);
+    }
+
+    @Override
+    public int hashCode() {
+        // see https://vladmihalcea.com/how-to-implement-equals-and-hashcode-using-the-jpa-entity-identifier/
+        return getClass().hashCode();
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "PortalEvent{" +
+            "id=" + getId() +
+            ", epc='" + getEpc() + "'" +
+            ", portalId='" + getPortalId() + "'" +
+            ", direction='" + getDirection() + "'" +
+            ", confidence=" + getConfidence() +
+            ", firstSeen='" + getFirstSeen() + "'" +
+            ", lastSeen='" + getLastSeen() + "'" +
+            ", readCount=" + getReadCount() +
+            "}";
+    }
+}
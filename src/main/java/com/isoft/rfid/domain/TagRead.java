@@ -0,0 +1,291 @@
+package com.isoft.rfid.domain;
+
+import java.io.Serializable;
+import java.time.Instant;
+import javax.validation.constraints.NotNull;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.elasticsearch.annotations.Field;
+import org.springframework.data.elasticsearch.annotations.FieldType;
+
+/**
+ * A single observation of a tag by a reader antenna.
+ * <p>
+ * Reads are stored in time-partitioned indices, see {@link com.isoft.rfid.repository.search.TagReadIndices}; the
+ * {@code tag-reads} index name is the alias searching all of them, it must not be created as an index. Their mapping
+ * comes from the {@code config/elasticsearch/tag-reads-template.json} index template, not from this class.
+ */
+@org.springframework.data.elasticsearch.annotations.Document(indexName = "tag-reads", createIndex = false)
+public class TagRead implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    private String id;
+
+    @NotNull
+    @Field(type = FieldType.Keyword)
+    private String epc;
+
+    @NotNull
+    @Field(type = FieldType.Keyword)
+    private String readerId;
+
+    @Field(type = FieldType.Integer)
+    private Integer antenna;
+
+    @Field(type = FieldType.Double)
+    private Double rssi;
+
+    @Field(type = FieldType.Keyword)
+    private String zone;
+
+    private Instant timestamp;
+
+    @Field(type = FieldType.Keyword)
+    private String epcScheme;
+
+    @Field(type = FieldType.Keyword)
+    private String companyPrefix;
+
+    @Field(type = FieldType.Keyword)
+    private String itemReference;
+
+    @Field(type = FieldType.Keyword)
+    private String serialNumber;
+
+    /**
+     * Copied at ingest from the {@link Asset} of the EPC, like {@link #description} and {@link #owner}.
+     */
+    @Field(type = FieldType.Keyword)
+    private String sku;
+
+    @Field(type = FieldType.Keyword)
+    private String description;
+
+    @Field(type = FieldType.Keyword)
+    private String owner;
+
+    // jhipster-needle-entity-add-field - JHipster will add fields here
+
+    public String getId() {
+        return this.id;
+    }
+
+    public TagRead id(String id) {
+        this.setId(id);
+        return this;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getEpc() {
+        return this.epc;
+    }
+
+    public TagRead epc(String epc) {
+        this.setEpc(epc);
+        return this;
+    }
+
+    public void setEpc(String epc) {
+        this.epc = epc;
+    }
+
+    public String getReaderId() {
+        return this.readerId;
+    }
+
+    public TagRead readerId(String readerId) {
+        this.setReaderId(readerId);
+        return this;
+    }
+
+    public void setReaderId(String readerId) {
+        this.readerId = readerId;
+    }
+
+    public Integer getAntenna() {
+        return this.antenna;
+    }
+
+    public TagRead antenna(Integer antenna) {
+        this.setAntenna(antenna);
+        return this;
+    }
+
+    public void setAntenna(Integer antenna) {
+        this.antenna = antenna;
+    }
+
+    public Double getRssi() {
+        return this.rssi;
+    }
+
+    public TagRead rssi(Double rssi) {
+        this.setRssi(rssi);
+        return this;
+    }
+
+    public void setRssi(Double rssi) {
+        this.rssi = rssi;
+    }
+
+    public String getZone() {
+        return this.zone;
+    }
+
+    public TagRead zone(String zone) {
+        this.setZone(zone);
+        return this;
+    }
+
+    public void setZone(String zone) {
+        this.zone = zone;
+    }
+
+    public Instant getTimestamp() {
+        return this.timestamp;
+    }
+
+    public TagRead timestamp(Instant timestamp) {
+        this.setTimestamp(timestamp);
+        return this;
+    }
+
+    public void setTimestamp(Instant timestamp) {
+        this.timestamp = timestamp;
+    }
+
+    public String getEpcScheme() {
+        return this.epcScheme;
+    }
+
+    public TagRead epcScheme(String epcScheme) {
+        this.setEpcScheme(epcScheme);
+        return this;
+    }
+
+    public void setEpcScheme(String epcScheme) {
+        this.epcScheme = epcScheme;
+    }
+
+    public String getCompanyPrefix() {
+        return this.companyPrefix;
+    }
+
+    public TagRead companyPrefix(String companyPrefix) {
+        this.setCompanyPrefix(companyPrefix);
+        return this;
+    }
+
+    public void setCompanyPrefix(String companyPrefix) {
+        this.companyPrefix = companyPrefix;
+    }
+
+    public String getItemReference() {
+        return this.itemReference;
+    }
+
+    public TagRead itemReference(String itemReference) {
+        this.setItemReference(itemReference);
+        return this;
+    }
+
+    public void setItemReference(String itemReference) {
+        this.itemReference = itemReference;
+    }
+
+    public String getSerialNumber() {
+        return this.serialNumber;
+    }
+
+    public TagRead serialNumber(String serialNumber) {
+        this.setSerialNumber(serialNumber);
+        return this;
+    }
+
+    public void setSerialNumber(String serialNumber) {
+        this.serialNumber = serialNumber;
+    }
+
+    public String getSku() {
+        return this.sku;
+    }
+
+    public TagRead sku(String sku) {
+        this.setSku(sku);
+        return this;
+    }
+
+    public void setSku(String sku) {
+        this.sku = sku;
+    }
+
+    public String getDescription() {
+        return this.description;
+    }
+
+    public TagRead description(String description) {
+        this.setDescription(description);
+        return this;
+    }
+
+    public void setDescription(String description) {
+        this.description = description;
+    }
+
+    public String getOwner() {
+        return this.owner;
+    }
+
+    public TagRead owner(String owner) {
+        this.setOwner(owner);
+        return this;
+    }
+
+    public void setOwner(String owner) {
+        this.owner = owner;
+    }
+
+    // jhipster-needle-entity-add-getters-setters - JHipster will add getters and setters here
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof TagRead)) {
+            return false;
+        }
+        return id != null && id.equals(((TagRead) o).id);
+    }
+
+    @Override
+    public int hashCode() {
+        // see https://vladmihalcea.com/how-to-implement-equals-and-hashcode-using-the-jpa-entity-identifier/
+        return getClass().hashCode();
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "TagRead{" +
+            "id=" + getId() +
+            ", epc='" + getEpc() + "'" +
+            ", readerId='" + getReaderId() + "'" +
+            ", antenna=" + getAntenna() +
+            ", rssi=" + getRssi() +
+            ", zone='" + getZone() + "'" +
+            ", timestamp='" + getTimestamp() + "'" +
+            ", epcScheme='" + getEpcScheme() + "'" +
+            ", companyPrefix='" + getCompanyPrefix() + "'" +
+            ", itemReference='" + getItemReference() + "'" +
+            ", serialNumber='" + getSerialNumber() + "'" +
+            ", sku='" + getSku() + "'" +
+            ", description='" + getDescription() + "'" +
+            ", owner='" + getOwner() + "'" +
+            "}";
+    }
+}
@@ -0,0 +1,188 @@
+package com.isoft.rfid.domain;
+
+import com.isoft.rfid.domain.enumeration.ZoneEventType;
+import java.io.Serializable;
+import java.time.Instant;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.elasticsearch.annotations.DateFormat;
+import org.springframework.data.elasticsearch.annotations.Field;
+import org.springframework.data.elasticsearch.annotations.FieldType;
+
+/**
+ * A tag entering, dwelling in or leaving a zone, derived from its reads.
+ */
+@org.springframework.data.elasticsearch.annotations.Document(indexName = "zone-events")
+public class ZoneEvent implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    private String id;
+
+    @Field(type = FieldType.Keyword)
+    private String epc;
+
+    @Field(type = FieldType.Keyword)
+    private String zone;
+
+    @Field(type = FieldType.Keyword)
+    private ZoneEventType type;
+
+    /**
+     * Reader of the read that caused the event, the last read in the zone for a dwell or an exit.
+     */
+    @Field(type = FieldType.Keyword)
+    private String readerId;
+
+    @Field(type = FieldType.Date, format = { DateFormat.strict_date_optional_time, DateFormat.epoch_millis })
+    private Instant timestamp;
+
+    @Field(type = FieldType.Date, format = { DateFormat.strict_date_optional_time, DateFormat.epoch_millis })
+    private Instant enteredAt;
+
+    /**
+     * Time spent in the zone so far, in milliseconds; {@code 0} on enter.
+     */
+    @Field(type = FieldType.Long)
+    private Long dwellMillis;
+
+    // jhipster-needle-entity-add-field - JHipster will add fields here
+
+    public String getId() {
+        return this.id;
+    }
+
+    public ZoneEvent id(String id) {
+        this.setId(id);
+        return this;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getEpc() {
+        return this.epc;
+    }
+
+    public ZoneEvent epc(String epc) {
+        this.setEpc(epc);
+        return this;
+    }
+
+    public void setEpc(String epc) {
+        this.epc = epc;
+    }
+
+    public String getZone() {
+        return this.zone;
+    }
+
+    public ZoneEvent zone(String zone) {
+        this.setZone(zone);
+        return this;
+    }
+
+    public void setZone(String zone) {
+        this.zone = zone;
+    }
+
+    public ZoneEventType getType() {
+        return this.type;
+    }
+
+    public ZoneEvent type(ZoneEventType type) {
+        this.setType(type);
+        return this;
+    }
+
+    public void setType(ZoneEventType type) {
+        this.type = type;
+    }
+
+    public String getReaderId() {
+        return this.readerId;
+    }
+
+    public ZoneEvent readerId(String readerId) {
+        this.setReaderId(readerId);
+        return this;
+    }
+
+    public void setReaderId(String readerId) {
+        this.readerId = readerId;
+    }
+
+    public Instant getTimestamp() {
+        return this.timestamp;
+    }
+
+    public ZoneEvent timestamp(Instant timestamp) {
+        this.setTimestamp(timestamp);
+        return this;
+    }
+
+    public void setTimestamp(Instant timestamp) {
+        this.timestamp = timestamp;
+    }
+
+    public Instant getEnteredAt() {
+        return this.enteredAt;
+    }
+
+    public ZoneEvent enteredAt(Instant enteredAt) {
+        this.setEnteredAt(enteredAt);
+        return this;
+    }
+
+    public void setEnteredAt(Instant enteredAt) {
+        this.enteredAt = enteredAt;
+    }
+
+    public Long getDwellMillis() {
+        return this.dwellMillis;
+    }
+
+    public ZoneEvent dwellMillis(Long dwellMillis) {
+        this.setDwellMillis(dwellMillis);
+        return this;
+    }
+
+    public void setDwellMillis(Long dwellMillis) {
+        this.dwellMillis = dwellMillis;
+    }
+
+    // jhipster-needle-entity-add-getters-setters - JHipster will add getters and setters here
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof ZoneEvent)) {
+            return false;
+        }
+        return id != null && id.equals(((ZoneEvent) o).id);
+    }
+
+    @Override
+    public int hashCode() {
+        // see https://vladmihalcea.com/how-to-implement-equals-and-hashcode-using-the-jpa-entity-identifier/
+        return getClass().hashCode();
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "ZoneEvent{" +
+            "id=" + getId() +
+            ", epc='" + getEpc() + "'" +
+            ", zone='" + getZone() + "'" +
+            ", type='" + getType() + "'" +
+            ", readerId='" + getReaderId() + "'" +
+            ", timestamp='" + getTimestamp() + "'" +
+            ", enteredAt='" + getEnteredAt() + "'" +
+            ", dwellMillis=" + getDwellMillis() +
+            "}";
+    }
+}
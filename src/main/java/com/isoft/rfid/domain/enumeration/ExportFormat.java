@@ -0,0 +1,9 @@
+package com.isoft.rfid.domain.enumeration;
+
+/**
+ * The ExportFormat enumeration.
+ */
+public enum ExportFormat {
+    CSV,
+    NDJSON,
+}
@@ -0,0 +1,10 @@
+package com.isoft.rfid.domain.enumeration;
+
+/**
+ * The MovementDirection enumeration.
+ */
+public enum MovementDirection {
+    IN,
+    OUT,
+    UNKNOWN,
+}
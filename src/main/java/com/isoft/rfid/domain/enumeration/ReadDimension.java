@@ -0,0 +1,9 @@
+package com.isoft.rfid.domain.enumeration;
+
+/**
+ * The ReadDimension enumeration.
+ */
+public enum ReadDimension {
+    READER,
+    ZONE,
+}
@@ -0,0 +1,10 @@
+package com.isoft.rfid.domain.enumeration;
+
+/**
+ * The ZoneEventType enumeration.
+ */
+public enum ZoneEventType {
+    ENTER,
+    DWELL,
+    EXIT,
+}
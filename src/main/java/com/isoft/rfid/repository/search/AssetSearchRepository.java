@@ -0,0 +1,133 @@
+package com.isoft.rfid.repository.search;
+
+import static org.elasticsearch.index.query.QueryBuilders.matchAllQuery;
+import static org.elasticsearch.index.query.QueryBuilders.rangeQuery;
+
+import com.isoft.rfid.domain.Asset;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.function.Predicate;
+import org.elasticsearch.action.search.ClearScrollRequest;
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.action.search.SearchScrollRequest;
+import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.core.TimeValue;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.elasticsearch.search.slice.SliceBuilder;
+import org.elasticsearch.search.sort.SortOrder;
+import org.springframework.data.elasticsearch.core.ElasticsearchRestTemplate;
+import org.springframework.data.elasticsearch.repository.ElasticsearchRepository;
+
+/**
+ * Spring Data Elasticsearch repository for the {@link Asset} entity.
+ */
+public interface AssetSearchRepository extends ElasticsearchRepository<Asset, String>, AssetSearchRepositoryInternal {}
+
+interface AssetSearchRepositoryInternal {
+    void scrollSlice(int slice, int slices, int size, Duration keepAlive, Predicate<SearchHit[]> pages) throws IOException;
+
+    int countShards() throws IOException;
+
+    long findMaxSeqNo(int shard) throws IOException;
+
+    SearchHit[] findChangedSince(int shard, long seqNo, int size) throws IOException;
+}
+
+class AssetSearchRepositoryInternalImpl implements AssetSearchRepositoryInternal {
+
+    private static final String SEQ_NO_FIELD = "_seq_no";
+
+    private static final String[] EXCLUDED_FIELDS = { "_class" };
+
+    private final RestHighLevelClient client;
+
+    private final String indexName;
+
+    AssetSearchRepositoryInternalImpl(ElasticsearchRestTemplate elasticsearchTemplate, RestHighLevelClient client) {
+        this.client = client;
+        this.indexName = elasticsearchTemplate.getIndexCoordinatesFor(Asset.class).getIndexName();
+    }
+
+    /**
+     * Scrolls one slice of all the assets, handing each page of raw hits, with their sequence numbers, to a consumer until
+     * the slice is exhausted or the consumer returns {@code false}. Scrolling the slices in parallel scrolls the whole
+     * index.
+     */
+    @Override
+    public void scrollSlice(int slice, int slices, int size, Duration keepAlive, Predicate<SearchHit[]> pages) throws IOException {
+        TimeValue keepAliveValue = TimeValue.timeValueMillis(keepAlive.toMillis());
+        SearchSourceBuilder source = new SearchSourceBuilder()
+            .query(matchAllQuery())
+            .size(size)
+            .sort("_doc")
+            .fetchSource(null, EXCLUDED_FIELDS)
+            .seqNoAndPrimaryTerm(true);
+        if (slices > 1) {
+            source.slice(new SliceBuilder(slice, slices));
+        }
+        SearchResponse response = client.search(new SearchRequest(indexName).source(source).scroll(keepAliveValue), RequestOptions.DEFAULT);
+        String scrollId = response.getScrollId();
+        try {
+            while (true) {
+                SearchHit[] hits = response.getHits().getHits();
+                if (hits.length == 0 || !pages.test(hits)) {
+                    return;
+                }
+                response = client.scroll(new SearchScrollRequest(scrollId).scroll(keepAliveValue), RequestOptions.DEFAULT);
+                scrollId = response.getScrollId();
+            }
+        } finally {
+            ClearScrollRequest clearScrollRequest = new ClearScrollRequest();
+            clearScrollRequest.addScrollId(scrollId);
+            client.clearScroll(clearScrollRequest, RequestOptions.DEFAULT);
+        }
+    }
+
+    /**
+     * Returns the number of primary shards of the asset index, each with its own sequence numbers.
+     */
+    @Override
+    public int countShards() throws IOException {
+        SearchSourceBuilder source = new SearchSourceBuilder().size(0).trackTotalHits(false);
+        return client.search(new SearchRequest(indexName).source(source), RequestOptions.DEFAULT).getTotalShards();
+    }
+
+    /**
+     * Returns the highest sequence number of the assets of a shard, or {@code -1} if it has none.
+     * <p>
+     * Hits only tell their shard over REST when the search is explained, so the sequence numbers of a shard are read by
+     * searching that shard alone.
+     */
+    @Override
+    public long findMaxSeqNo(int shard) throws IOException {
+        SearchSourceBuilder source = new SearchSourceBuilder()
+            .query(matchAllQuery())
+            .size(1)
+            .sort(SEQ_NO_FIELD, SortOrder.DESC)
+            .fetchSource(false)
+            .seqNoAndPrimaryTerm(true)
+            .trackTotalHits(false);
+        SearchRequest request = new SearchRequest(indexName).source(source).preference("_shards:" + shard);
+        SearchHit[] hits = client.search(request, RequestOptions.DEFAULT).getHits().getHits();
+        return hits.length > 0 ? hits[0].getSeqNo() : -1;
+    }
+
+    /**
+     * Returns the assets of a shard indexed or updated after a sequence number, in the order of their sequence numbers.
+     */
+    @Override
+    public SearchHit[] findChangedSince(int shard, long seqNo, int size) throws IOException {
+        SearchSourceBuilder source = new SearchSourceBuilder()
+            .query(rangeQuery(SEQ_NO_FIELD).gt(seqNo))
+            .size(size)
+            .sort(SEQ_NO_FIELD, SortOrder.ASC)
+            .fetchSource(null, EXCLUDED_FIELDS)
+            .seqNoAndPrimaryTerm(true)
+            .trackTotalHits(false);
+        SearchRequest request = new SearchRequest(indexName).source(source).preference("_shards:" + shard);
+        return client.search(request, RequestOptions.DEFAULT).getHits().getHits();
+    }
+}
@@ -0,0 +1,9 @@
+package com.isoft.rfid.repository.search;
+
+import com.isoft.rfid.domain.PortalEvent;
+import org.springframework.data.elasticsearch.repository.ElasticsearchRepository;
+
+/**
+ * Spring Data Elasticsearch repository for the {@link PortalEvent} entity.
+ */
+public interface PortalEventSearchRepository extends ElasticsearchRepository<PortalEvent, String> {}
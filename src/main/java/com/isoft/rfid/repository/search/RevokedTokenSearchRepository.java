@@ -0,0 +1,67 @@
+package com.isoft.rfid.repository.search;
+
+import static org.elasticsearch.index.query.QueryBuilders.boolQuery;
+import static org.elasticsearch.index.query.QueryBuilders.rangeQuery;
+
+import com.isoft.rfid.domain.RevokedToken;
+import java.time.Instant;
+import java.util.stream.Stream;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.elasticsearch.core.ElasticsearchRestTemplate;
+import org.springframework.data.elasticsearch.core.SearchHit;
+import org.springframework.data.elasticsearch.core.SearchHitsIterator;
+import org.springframework.data.elasticsearch.core.query.NativeSearchQuery;
+import org.springframework.data.elasticsearch.core.query.NativeSearchQueryBuilder;
+import org.springframework.data.elasticsearch.repository.ElasticsearchRepository;
+import org.springframework.data.util.StreamUtils;
+
+/**
+ * Spring Data Elasticsearch repository for the {@link RevokedToken} entity.
+ */
+public interface RevokedTokenSearchRepository extends ElasticsearchRepository<RevokedToken, String>, RevokedTokenSearchRepositoryInternal {}
+
+interface RevokedTokenSearchRepositoryInternal {
+    Stream<RevokedToken> streamRevokedSince(Instant revokedSince, Instant expiringAfter);
+
+    void deleteExpired(Instant now);
+}
+
+class RevokedTokenSearchRepositoryInternalImpl implements RevokedTokenSearchRepositoryInternal {
+
+    private static final int STREAM_BATCH_SIZE = 5000;
+
+    private final ElasticsearchRestTemplate elasticsearchTemplate;
+
+    RevokedTokenSearchRepositoryInternalImpl(ElasticsearchRestTemplate elasticsearchTemplate) {
+        this.elasticsearchTemplate = elasticsearchTemplate;
+    }
+
+    /**
+     * Streams the tokens revoked since a time and not yet expired with a scroll, in no particular order; the stream must be
+     * closed.
+     */
+    @Override
+    public Stream<RevokedToken> streamRevokedSince(Instant revokedSince, Instant expiringAfter) {
+        NativeSearchQuery nativeSearchQuery = new NativeSearchQueryBuilder()
+            .withQuery(
+                boolQuery()
+                    .filter(rangeQuery("revokedAt").gte(revokedSince.toString()))
+                    .filter(rangeQuery("expiresAt").gt(expiringAfter.toString()))
+            )
+            .withPageable(PageRequest.of(0, STREAM_BATCH_SIZE))
+            .build();
+        SearchHitsIterator<RevokedToken> iterator = elasticsearchTemplate.searchForStream(nativeSearchQuery, RevokedToken.class);
+        return StreamUtils.createStreamFromIterator(iterator).map(SearchHit::getContent);
+    }
+
+    /**
+     * Deletes the revoked tokens that have expired since.
+     */
+    @Override
+    public void deleteExpired(Instant now) {
+        NativeSearchQuery nativeSearchQuery = new NativeSearchQueryBuilder()
+            .withQuery(rangeQuery("expiresAt").lte(now.toString()))
+            .build();
+        elasticsearchTemplate.delete(nativeSearchQuery, RevokedToken.class);
+    }
+}
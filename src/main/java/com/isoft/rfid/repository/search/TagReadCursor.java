@@ -0,0 +1,111 @@
+package com.isoft.rfid.repository.search;
+
+import java.io.Serializable;
+import java.time.Instant;
+import java.util.Arrays;
+
+/**
+ * Position of a cursor search through the tag reads: its criteria, the point in time it reads from and the sort values
+ * of the last read returned.
+ * <p>
+ * {@link TagReadSearchRepository#searchAfter(TagReadCursor, int, java.time.Duration)} opens the point in time on the
+ * first page and moves the cursor after each page.
+ */
+public class TagReadCursor implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private Instant from;
+
+    private Instant to;
+
+    private String epc;
+
+    private String readerId;
+
+    private boolean ascending;
+
+    private String pointInTimeId;
+
+    private Object[] searchAfter;
+
+    private long totalHits;
+
+    public Instant getFrom() {
+        return from;
+    }
+
+    public void setFrom(Instant from) {
+        this.from = from;
+    }
+
+    public Instant getTo() {
+        return to;
+    }
+
+    public void setTo(Instant to) {
+        this.to = to;
+    }
+
+    public String getEpc() {
+        return epc;
+    }
+
+    public void setEpc(String epc) {
+        this.epc = epc;
+    }
+
+    public String getReaderId() {
+        return readerId;
+    }
+
+    public void setReaderId(String readerId) {
+        this.readerId = readerId;
+    }
+
+    public boolean isAscending() {
+        return ascending;
+    }
+
+    public void setAscending(boolean ascending) {
+        this.ascending = ascending;
+    }
+
+    public String getPointInTimeId() {
+        return pointInTimeId;
+    }
+
+    public void setPointInTimeId(String pointInTimeId) {
+        this.pointInTimeId = pointInTimeId;
+    }
+
+    public Object[] getSearchAfter() {
+        return searchAfter;
+    }
+
+    public void setSearchAfter(Object[] searchAfter) {
+        this.searchAfter = searchAfter;
+    }
+
+    public long getTotalHits() {
+        return totalHits;
+    }
+
+    public void setTotalHits(long totalHits) {
+        this.totalHits = totalHits;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "TagReadCursor{" +
+            "from='" + getFrom() + "'" +
+            ", to='" + getTo() + "'" +
+            ", epc='" + getEpc() + "'" +
+            ", readerId='" + getReaderId() + "'" +
+            ", ascending=" + isAscending() +
+            ", searchAfter=" + Arrays.toString(getSearchAfter()) +
+            ", totalHits=" + getTotalHits() +
+            "}";
+    }
+}
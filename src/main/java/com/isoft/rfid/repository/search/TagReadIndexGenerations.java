@@ -0,0 +1,150 @@
+package com.isoft.rfid.repository.search;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.isoft.rfid.config.ApplicationProperties;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+import org.elasticsearch.client.Request;
+import org.elasticsearch.client.Response;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.common.xcontent.XContentHelper;
+import org.elasticsearch.xcontent.XContentType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * Tracks the refresh generation of the tag-read indices, telling whether the results of a search may have changed.
+ * <p>
+ * The generation of an index is the number of refreshes that made new writes visible to searches, from the index
+ * stats; as long as the generations of the partitions a search names are the same, the search returns the same results.
+ * The stats are requested for the partitions a search names only, so a search pruned to a few partitions does not read
+ * the stats of every shard, at most once per {@code application.search.cache.generation-check-interval} for the same
+ * partitions, which bounds how stale a generation can be. With the default interval of zero, every call gets the
+ * generations from a request started after it was made, so they are never stale; calls for the same partitions made
+ * while a request is running share the next one.
+ */
+@Component
+public class TagReadIndexGenerations {
+
+    /**
+     * Maximum number of sets of partitions whose generations are kept.
+     */
+    private static final int MAX_SNAPSHOTS = 1024;
+
+    private static final int LOCK_STRIPES = 16;
+
+    private final Logger log = LoggerFactory.getLogger(TagReadIndexGenerations.class);
+
+    private final RestHighLevelClient client;
+
+    private final long checkIntervalNanos;
+
+    /**
+     * Latest generations, keyed by the comma-separated names of the partitions they were requested for.
+     */
+    private final Cache<String, Snapshot> snapshots = Caffeine.newBuilder().maximumSize(MAX_SNAPSHOTS).build();
+
+    private final Object[] locks = new Object[LOCK_STRIPES];
+
+    public TagReadIndexGenerations(RestHighLevelClient client, ApplicationProperties applicationProperties) {
+        this.client = client;
+        this.checkIntervalNanos = applicationProperties.getSearch().getCache().getGenerationCheckInterval().toNanos();
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    /**
+     * Returns the generation of the partitions matched by index names, as given by {@link TagReadIndices#indicesFor}.
+     *
+     * @param indices the names of the indices, or of the partitions followed by a wildcard.
+     * @return a value that changes whenever new reads become visible in one of the partitions, or {@code -1} if the
+     * generations are unknown because Elasticsearch cannot be reached.
+     */
+    public long generation(String[] indices) {
+        Snapshot current = current(String.join(",", indices));
+        if (current.refreshes == null) {
+            return -1;
+        }
+        long generation = 0;
+        for (Map.Entry<String, Long> entry : current.refreshes.entrySet()) {
+            generation += entry.getKey().hashCode() * 0x9E3779B97F4A7C15L + entry.getValue();
+        }
+        return generation & Long.MAX_VALUE;
+    }
+
+    private Snapshot current(String indices) {
+        long now = System.nanoTime();
+        Snapshot current = snapshots.getIfPresent(indices);
+        if (isFresh(current, now)) {
+            return current;
+        }
+        synchronized (locks[(indices.hashCode() & Integer.MAX_VALUE) % LOCK_STRIPES]) {
+            // A request started while this call was waiting for the lock is fresh enough, even with an interval of zero.
+            current = snapshots.getIfPresent(indices);
+            if (isFresh(current, now)) {
+                return current;
+            }
+            long fetchedAt = System.nanoTime();
+            current = new Snapshot(fetchedAt, fetch(indices));
+            snapshots.put(indices, current);
+            return current;
+        }
+    }
+
+    private boolean isFresh(Snapshot current, long now) {
+        return current != null && now - current.fetchedAt < checkIntervalNanos;
+    }
+
+    /**
+     * Fetches the number of external refreshes of the primaries of the partitions matched by index names.
+     */
+    @SuppressWarnings("unchecked")
+    private Map<String, Long> fetch(String indices) {
+        Request request = new Request("GET", "/" + indices + "/_stats/refresh");
+        request.addParameter("level", "indices");
+        request.addParameter("ignore_unavailable", "true");
+        request.addParameter("allow_no_indices", "true");
+        request.addParameter("filter_path", "indices.*.primaries.refresh.external_total");
+        try {
+            Response response = client.getLowLevelClient().performRequest(request);
+            Map<String, Object> body;
+            try (InputStream content = response.getEntity().getContent()) {
+                body = XContentHelper.convertToMap(XContentType.JSON.xContent(), content, false);
+            }
+            Map<String, Object> indices = (Map<String, Object>) body.getOrDefault("indices", Map.of());
+            Map<String, Long> refreshes = new HashMap<>(indices.size() * 2);
+            for (Map.Entry<String, Object> index : indices.entrySet()) {
+                Map<String, Object> primaries = (Map<String, Object>) ((Map<String, Object>) index.getValue()).get("primaries");
+                Map<String, Object> refresh = (Map<String, Object>) primaries.get("refresh");
+                refreshes.put(index.getKey(), ((Number) refresh.get("external_total")).longValue());
+            }
+            return refreshes;
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not get the refresh generations of the tag read indices: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private static final class Snapshot {
+
+        /**
+         * Start of the request, from {@link System#nanoTime()}.
+         */
+        private final long fetchedAt;
+
+        /**
+         * Refreshes of each partition, or {@code null} if they could not be fetched.
+         */
+        private final Map<String, Long> refreshes;
+
+        private Snapshot(long fetchedAt, Map<String, Long> refreshes) {
+            this.fetchedAt = fetchedAt;
+            this.refreshes = refreshes;
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package com.isoft.rfid.repository.search;
+
+import com.isoft.rfid.config.ApplicationProperties;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+import org.elasticsearch.ElasticsearchException;
+import org.elasticsearch.action.admin.indices.alias.Alias;
+import org.elasticsearch.action.admin.indices.alias.IndicesAliasesRequest;
+import org.elasticsearch.action.admin.indices.alias.get.GetAliasesRequest;
+import org.elasticsearch.action.admin.indices.settings.put.UpdateSettingsRequest;
+import org.elasticsearch.client.GetAliasesResponse;
+import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.client.indices.CreateIndexRequest;
+import org.elasticsearch.client.indices.GetIndexRequest;
+import org.elasticsearch.client.indices.GetIndexTemplatesRequest;
+import org.elasticsearch.client.indices.IndexTemplateMetadata;
+import org.elasticsearch.client.indices.IndexTemplatesExistRequest;
+import org.elasticsearch.client.indices.PutIndexTemplateRequest;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.rest.RestStatus;
+import org.elasticsearch.xcontent.XContentType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.util.StreamUtils;
+
+/**
+ * Maintains the time-partitioned tag-read indices described by {@link TagReadIndices}.
+ * <p>
+ * At startup, the index template giving every partition its mapping, its settings and its membership of the search alias
+ * is put, then every minute the partitions of the current and of the next period are created ahead of the first read
+ * that needs them, and the write alias is moved to the current one. Elasticsearch being unavailable only delays this: it
+ * is retried at the next check, and the partitions are otherwise created on the fly from the template by the bulk
+ * requests.
+ * <p>
+ * The template is read from {@value #TEMPLATE_LOCATION}, with the shards, replicas and refresh interval of
+ * {@code application.ingest.index}. It is versioned: a template put by a newer version of the application is left as
+ * is. It only applies to the partitions created after it is put.
+ */
+public class TagReadIndexManager {
+
+    static final String TEMPLATE_LOCATION = "config/elasticsearch/tag-reads-template.json";
+
+    private static final long CHECK_INTERVAL_MS = 60_000;
+
+    private final Logger log = LoggerFactory.getLogger(TagReadIndexManager.class);
+
+    private final RestHighLevelClient client;
+
+    private final TagReadIndices tagReadIndices;
+
+    private final ApplicationProperties.Ingest.Index settings;
+
+    private volatile boolean templateReady;
+
+    private volatile boolean bulkLoad;
+
+    public TagReadIndexManager(RestHighLevelClient client, TagReadIndices tagReadIndices, ApplicationProperties applicationProperties) {
+        this.client = client;
+        this.tagReadIndices = tagReadIndices;
+        this.settings = applicationProperties.getIngest().getIndex();
+    }
+
+    public void initialize() {
+        rollover();
+    }
+
+    /**
+     * Makes sure the template and the current and next partitions exist, and points the write alias to the current one.
+     */
+    @Scheduled(initialDelay = CHECK_INTERVAL_MS, fixedDelay = CHECK_INTERVAL_MS)
+    public void rollover() {
+        try {
+            if (!templateReady) {
+                putTemplate();
+                templateReady = true;
+            }
+            Instant now = Instant.now();
+            String current = tagReadIndices.indexFor(now);
+            createIfMissing(current);
+            createIfMissing(tagReadIndices.nextIndexAfter(now));
+            moveWriteAlias(current);
+        } catch (IOException | ElasticsearchException e) {
+            log.warn("Could not maintain the tag read indices, will retry: {}", e.getMessage());
+        }
+    }
+
+    public boolean isBulkLoad() {
+        return bulkLoad;
+    }
+
+    /**
+     * Switches the partitions being written to the bulk-load replicas and refresh interval, or back to the regular ones.
+     * <p>
+     * Entering a bulk load applies to the current and next partitions, and to the partitions created during it; leaving it
+     * restores every partition.
+     *
+     * @param enabled whether a bulk load starts or ends.
+     * @throws IOException if Elasticsearch cannot be reached.
+     */
+    public void setBulkLoad(boolean enabled) throws IOException {
+        this.bulkLoad = enabled;
+        Instant now = Instant.now();
+        String[] indices = enabled
+            ? new String[] { tagReadIndices.indexFor(now), tagReadIndices.nextIndexAfter(now) }
+            : new String[] { tagReadIndices.getPattern() };
+        UpdateSettingsRequest request = new UpdateSettingsRequest(indices).settings(partitionSettings(enabled));
+        client.indices().putSettings(request, RequestOptions.DEFAULT);
+        log.info("{} bulk load of the tag read indices", enabled ? "Started" : "Ended");
+    }
+
+    private void putTemplate() throws IOException {
+        String name = tagReadIndices.getAlias();
+        PutIndexTemplateRequest request = new PutIndexTemplateRequest(name).source(readTemplate(), XContentType.JSON);
+        Integer installed = installedTemplateVersion(name);
+        if (installed != null && request.version() != null && installed > request.version()) {
+            log.warn("Index template {} has version {}, newer than {}: leaving it as is", name, installed, request.version());
+            return;
+        }
+        request
+            .patterns(List.of(tagReadIndices.getPattern()))
+            .alias(new Alias(name))
+            .settings(
+                Settings
+                    .builder()
+                    .put(request.settings())
+                    .put("index.number_of_shards", settings.getShards())
+                    .put(partitionSettings(false))
+            );
+        client.indices().putTemplate(request, RequestOptions.DEFAULT);
+        log.debug("Put index template {} version {} for {}", name, request.version(), tagReadIndices.getPattern());
+    }
+
+    private Integer installedTemplateVersion(String name) throws IOException {
+        if (!client.indices().existsTemplate(new IndexTemplatesExistRequest(name), RequestOptions.DEFAULT)) {
+            return null;
+        }
+        List<IndexTemplateMetadata> templates = client
+            .indices()
+            .getIndexTemplate(new GetIndexTemplatesRequest(name), RequestOptions.DEFAULT)
+            .getIndexTemplates();
+        return templates.isEmpty() ? null : templates.get(0).version();
+    }
+
+    private static String readTemplate() throws IOException {
+        try (InputStream in = new ClassPathResource(TEMPLATE_LOCATION).getInputStream()) {
+            return StreamUtils.copyToString(in, StandardCharsets.UTF_8);
+        }
+    }
+
+    private Settings partitionSettings(boolean bulkLoad) {
+        return Settings
+            .builder()
+            .put("index.number_of_replicas", bulkLoad ? settings.getBulkLoadReplicas() : settings.getReplicas())
+            .put("index.refresh_interval", bulkLoad ? settings.getBulkLoadRefreshInterval() : settings.getRefreshInterval())
+            .build();
+    }
+
+    private void createIfMissing(String index) throws IOException {
+        if (client.indices().exists(new GetIndexRequest(index), RequestOptions.DEFAULT)) {
+            return;
+        }
+        try {
+            CreateIndexRequest request = new CreateIndexRequest(index);
+            if (bulkLoad) {
+                request.settings(partitionSettings(true));
+            }
+            client.indices().create(request, RequestOptions.DEFAULT);
+            log.info("Created tag read index {}", index);
+        } catch (ElasticsearchException e) {
+            // A bulk request may have created it in the meantime.
+            if (e.status() != RestStatus.BAD_REQUEST || !e.getMessage().contains("resource_already_exists_exception")) {
+                throw e;
+            }
+        }
+    }
+
+    private void moveWriteAlias(String index) throws IOException {
+        String writeAlias = tagReadIndices.getWriteAlias();
+        GetAliasesResponse aliases = client.indices().getAlias(new GetAliasesRequest(writeAlias), RequestOptions.DEFAULT);
+        Set<String> holders = aliases.getAliases().keySet();
+        if (holders.size() == 1 && holders.contains(index)) {
+            return;
+        }
+        IndicesAliasesRequest request = new IndicesAliasesRequest();
+        request.addAliasAction(IndicesAliasesRequest.AliasActions.add().index(index).alias(writeAlias).writeIndex(true));
+        for (String holder : holders) {
+            if (!holder.equals(index)) {
+                request.addAliasAction(IndicesAliasesRequest.AliasActions.remove().index(holder).alias(writeAlias));
+            }
+        }
+        client.indices().updateAliases(request, RequestOptions.DEFAULT);
+        log.info("Moved alias {} to {}", writeAlias, index);
+    }
+}
@@ -0,0 +1,138 @@
+package com.isoft.rfid.repository.search;
+
+import com.isoft.rfid.config.ApplicationProperties;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import org.springframework.stereotype.Component;
+
+/**
+ * Names of the time-partitioned tag-read indices.
+ * <p>
+ * Each read belongs to the index of the day or hour of its timestamp, in UTC: {@code tag-reads-2022.11.08} or
+ * {@code tag-reads-2022.11.08.13}. Every partition joins the {@code tag-reads} alias through the index template, and
+ * the {@code tag-reads-write} alias designates the current one for clients that do not pick the partition themselves.
+ * <p>
+ * A time-bounded search only names the partitions overlapping its range. Each is named with a trailing wildcard, so
+ * partitions that were never created match nothing instead of failing the search.
+ */
+@Component
+public class TagReadIndices {
+
+    /**
+     * Above this number of partitions, a search goes to the alias of all of them rather than listing each one.
+     */
+    static final int MAX_SEARCHED_PARTITIONS = 400;
+
+    private final String alias;
+
+    private final ChronoUnit unit;
+
+    private final DateTimeFormatter formatter;
+
+    private volatile Partition current = new Partition(Instant.EPOCH, Instant.EPOCH, null);
+
+    public TagReadIndices(ApplicationProperties applicationProperties) {
+        ApplicationProperties.Ingest ingest = applicationProperties.getIngest();
+        this.alias = ingest.getIndexName();
+        boolean hourly = ingest.getPartitioning() == ApplicationProperties.Ingest.Partitioning.HOURLY;
+        this.unit = hourly ? ChronoUnit.HOURS : ChronoUnit.DAYS;
+        this.formatter = DateTimeFormatter.ofPattern(hourly ? "yyyy.MM.dd.HH" : "yyyy.MM.dd").withZone(ZoneOffset.UTC);
+    }
+
+    /**
+     * @return the alias searching all the partitions, also the name of the index template.
+     */
+    public String getAlias() {
+        return alias;
+    }
+
+    /**
+     * @return the alias of the partition of the current time.
+     */
+    public String getWriteAlias() {
+        return alias + "-write";
+    }
+
+    /**
+     * @return the pattern matching all the partitions.
+     */
+    public String getPattern() {
+        return alias + "-*";
+    }
+
+    /**
+     * Returns the partition a read belongs to.
+     *
+     * @param timestamp the time of the read, or {@code null} for the current time.
+     * @return the name of the partition index.
+     */
+    public String indexFor(Instant timestamp) {
+        Instant time = timestamp != null ? timestamp : Instant.now();
+        Partition partition = current;
+        if (time.isBefore(partition.start) || !time.isBefore(partition.end)) {
+            Instant start = time.truncatedTo(unit);
+            partition = new Partition(start, start.plus(1, unit), alias + "-" + formatter.format(start));
+            if (!start.isBefore(current.start)) {
+                // Only the newest partition is cached: late reads are the exception.
+                current = partition;
+            }
+        }
+        return partition.name;
+    }
+
+    /**
+     * Returns the partition following the one of {@code timestamp}, to create it before it is needed.
+     */
+    public String nextIndexAfter(Instant timestamp) {
+        return indexFor(timestamp.truncatedTo(unit).plus(1, unit));
+    }
+
+    /**
+     * Returns the indices to search for reads between two times.
+     *
+     * @param from the start of the range, inclusive, or {@code null} for no lower bound.
+     * @param to the end of the range, exclusive, or {@code null} for no upper bound.
+     * @return the patterns of the partitions overlapping the range, or the alias of all of them for an unbounded or
+     * very long range.
+     */
+    public String[] indicesFor(Instant from, Instant to) {
+        if (from == null || to == null) {
+            return new String[] { alias };
+        }
+        if (!from.isBefore(to)) {
+            return new String[] { partitionPattern(from) };
+        }
+        Instant start = from.truncatedTo(unit);
+        if (unit.between(start, to) >= MAX_SEARCHED_PARTITIONS) {
+            return new String[] { alias };
+        }
+        List<String> indices = new ArrayList<>();
+        for (Instant partition = start; partition.isBefore(to); partition = partition.plus(1, unit)) {
+            indices.add(partitionPattern(partition));
+        }
+        return indices.toArray(new String[0]);
+    }
+
+    private String partitionPattern(Instant time) {
+        return alias + "-" + formatter.format(time.truncatedTo(unit)) + "*";
+    }
+
+    private static final class Partition {
+
+        private final Instant start;
+
+        private final Instant end;
+
+        private final String name;
+
+        private Partition(Instant start, Instant end, String name) {
+            this.start = start;
+            this.end = end;
+            this.name = name;
+        }
+    }
+}
@@ -0,0 +1,309 @@
+package com.isoft.rfid.repository.search;
+
+import static org.elasticsearch.index.query.QueryBuilders.boolQuery;
+import static org.elasticsearch.index.query.QueryBuilders.rangeQuery;
+import static org.elasticsearch.index.query.QueryBuilders.termQuery;
+
+import com.isoft.rfid.domain.TagRead;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.elasticsearch.action.search.ClosePointInTimeRequest;
+import org.elasticsearch.action.search.OpenPointInTimeRequest;
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.core.TimeValue;
+import org.elasticsearch.index.query.BoolQueryBuilder;
+import org.elasticsearch.index.query.RangeQueryBuilder;
+import org.elasticsearch.search.aggregations.bucket.composite.CompositeAggregation;
+import org.elasticsearch.search.aggregations.bucket.composite.CompositeAggregationBuilder;
+import org.elasticsearch.search.aggregations.bucket.composite.CompositeValuesSourceBuilder;
+import org.elasticsearch.search.aggregations.bucket.composite.DateHistogramValuesSourceBuilder;
+import org.elasticsearch.search.aggregations.bucket.composite.TermsValuesSourceBuilder;
+import org.elasticsearch.search.aggregations.bucket.histogram.DateHistogramInterval;
+import org.elasticsearch.search.builder.PointInTimeBuilder;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.elasticsearch.search.slice.SliceBuilder;
+import org.elasticsearch.search.sort.SortOrder;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.elasticsearch.core.ElasticsearchRestTemplate;
+import org.springframework.data.elasticsearch.core.SearchHit;
+import org.springframework.data.elasticsearch.core.SearchHits;
+import org.springframework.data.elasticsearch.core.SearchHitsIterator;
+import org.springframework.data.elasticsearch.core.convert.ElasticsearchConverter;
+import org.springframework.data.elasticsearch.core.document.Document;
+import org.springframework.data.elasticsearch.core.mapping.IndexCoordinates;
+import org.springframework.data.elasticsearch.core.query.NativeSearchQuery;
+import org.springframework.data.elasticsearch.core.query.NativeSearchQueryBuilder;
+import org.springframework.data.elasticsearch.repository.ElasticsearchRepository;
+import org.springframework.data.util.StreamUtils;
+
+/**
+ * Spring Data Elasticsearch repository for the {@link TagRead} entity.
+ */
+public interface TagReadSearchRepository extends ElasticsearchRepository<TagRead, String>, TagReadSearchRepositoryInternal {}
+
+interface TagReadSearchRepositoryInternal {
+    Page<TagRead> search(Instant from, Instant to, String epc, String readerId, Pageable pageable);
+
+    Stream<TagRead> streamByTimeRange(Instant from, Instant to);
+
+    List<TagRead> searchAfter(TagReadCursor cursor, int size, Duration keepAlive) throws IOException;
+
+    void openPointInTime(TagReadCursor cursor, Duration keepAlive) throws IOException;
+
+    void scanSlice(
+        TagReadCursor cursor,
+        int slice,
+        int slices,
+        int size,
+        Duration keepAlive,
+        Predicate<org.elasticsearch.search.SearchHit[]> pages
+    ) throws IOException;
+
+    void closePointInTime(String pointInTimeId) throws IOException;
+
+    void countByInterval(
+        Instant from,
+        Instant to,
+        String field,
+        Duration interval,
+        int size,
+        Predicate<List<? extends CompositeAggregation.Bucket>> buckets
+    ) throws IOException;
+}
+
+class TagReadSearchRepositoryInternalImpl implements TagReadSearchRepositoryInternal {
+
+    private static final int STREAM_BATCH_SIZE = 5000;
+
+    private static final String SHARD_DOC_FIELD = "_shard_doc";
+
+    private static final String COUNTS_AGGREGATION = "counts";
+
+    private final ElasticsearchRestTemplate elasticsearchTemplate;
+
+    private final RestHighLevelClient client;
+
+    private final TagReadIndices tagReadIndices;
+
+    TagReadSearchRepositoryInternalImpl(
+        ElasticsearchRestTemplate elasticsearchTemplate,
+        RestHighLevelClient client,
+        TagReadIndices tagReadIndices
+    ) {
+        this.elasticsearchTemplate = elasticsearchTemplate;
+        this.client = client;
+        this.tagReadIndices = tagReadIndices;
+    }
+
+    /**
+     * Searches the reads of a time range, only in the partitions overlapping the range.
+     */
+    @Override
+    public Page<TagRead> search(Instant from, Instant to, String epc, String readerId, Pageable pageable) {
+        NativeSearchQuery nativeSearchQuery = new NativeSearchQueryBuilder()
+            .withQuery(query(from, to, epc, readerId))
+            .withPageable(pageable)
+            .build();
+        SearchHits<TagRead> searchHits = elasticsearchTemplate.search(
+            nativeSearchQuery,
+            TagRead.class,
+            IndexCoordinates.of(tagReadIndices.indicesFor(from, to))
+        );
+        List<TagRead> hits = searchHits.map(SearchHit::getContent).stream().collect(Collectors.toList());
+
+        return new PageImpl<>(hits, pageable, searchHits.getTotalHits());
+    }
+
+    /**
+     * Streams all the reads of a time range with a scroll, in no particular order; the stream must be closed.
+     */
+    @Override
+    public Stream<TagRead> streamByTimeRange(Instant from, Instant to) {
+        NativeSearchQuery nativeSearchQuery = new NativeSearchQueryBuilder()
+            .withQuery(boolQuery().filter(timeRange(from, to)))
+            .withPageable(PageRequest.of(0, STREAM_BATCH_SIZE))
+            .build();
+        SearchHitsIterator<TagRead> iterator = elasticsearchTemplate.searchForStream(
+            nativeSearchQuery,
+            TagRead.class,
+            IndexCoordinates.of(tagReadIndices.indicesFor(from, to))
+        );
+        return StreamUtils.createStreamFromIterator(iterator).map(SearchHit::getContent);
+    }
+
+    /**
+     * Searches the page of reads following the position of a cursor, from a point in time of the partitions overlapping
+     * its range, so that the pages do not shift while new reads are indexed; the cursor is moved after the page.
+     * <p>
+     * The point in time is opened, and the total hits counted, on the first page only. Reads are sorted by timestamp,
+     * ties being broken by the implicit {@code _shard_doc} sort of point-in-time searches.
+     */
+    @Override
+    public List<TagRead> searchAfter(TagReadCursor cursor, int size, Duration keepAlive) throws IOException {
+        TimeValue keepAliveValue = TimeValue.timeValueMillis(keepAlive.toMillis());
+        boolean first = cursor.getPointInTimeId() == null;
+        if (first) {
+            openPointInTime(cursor, keepAlive);
+        }
+        SearchSourceBuilder source = new SearchSourceBuilder()
+            .query(query(cursor.getFrom(), cursor.getTo(), cursor.getEpc(), cursor.getReaderId()))
+            .size(size)
+            .sort("timestamp", cursor.isAscending() ? SortOrder.ASC : SortOrder.DESC)
+            .pointInTimeBuilder(new PointInTimeBuilder(cursor.getPointInTimeId()).setKeepAlive(keepAliveValue))
+            .trackTotalHits(first);
+        if (cursor.getSearchAfter() != null) {
+            source.searchAfter(cursor.getSearchAfter());
+        }
+        SearchResponse response = client.search(new SearchRequest().source(source), RequestOptions.DEFAULT);
+        if (response.pointInTimeId() != null) {
+            cursor.setPointInTimeId(response.pointInTimeId());
+        }
+        if (first) {
+            cursor.setTotalHits(response.getHits().getTotalHits().value);
+        }
+        ElasticsearchConverter converter = elasticsearchTemplate.getElasticsearchConverter();
+        org.elasticsearch.search.SearchHit[] hits = response.getHits().getHits();
+        List<TagRead> reads = new ArrayList<>(hits.length);
+        for (org.elasticsearch.search.SearchHit hit : hits) {
+            Document document = Document.from(hit.getSourceAsMap());
+            document.setId(hit.getId());
+            reads.add(converter.read(TagRead.class, document));
+        }
+        if (hits.length > 0) {
+            cursor.setSearchAfter(hits[hits.length - 1].getSortValues());
+        }
+        return reads;
+    }
+
+    /**
+     * Opens a point in time of the partitions overlapping the range of a cursor.
+     */
+    @Override
+    public void openPointInTime(TagReadCursor cursor, Duration keepAlive) throws IOException {
+        OpenPointInTimeRequest request = new OpenPointInTimeRequest(tagReadIndices.indicesFor(cursor.getFrom(), cursor.getTo()))
+            .keepAlive(TimeValue.timeValueMillis(keepAlive.toMillis()));
+        cursor.setPointInTimeId(client.openPointInTime(request, RequestOptions.DEFAULT).getPointInTimeId());
+    }
+
+    /**
+     * Scans one slice of the reads of the point in time of a cursor, in index order, handing each page of raw hits to a
+     * consumer until the slice is exhausted or the consumer returns {@code false}. The hits hold the source of the reads
+     * without the {@code _class} field. Scanning the slices in parallel scans the whole point in time.
+     */
+    @Override
+    public void scanSlice(
+        TagReadCursor cursor,
+        int slice,
+        int slices,
+        int size,
+        Duration keepAlive,
+        Predicate<org.elasticsearch.search.SearchHit[]> pages
+    ) throws IOException {
+        TimeValue keepAliveValue = TimeValue.timeValueMillis(keepAlive.toMillis());
+        String pointInTimeId = cursor.getPointInTimeId();
+        Object[] searchAfter = null;
+        while (true) {
+            SearchSourceBuilder source = new SearchSourceBuilder()
+                .query(query(cursor.getFrom(), cursor.getTo(), cursor.getEpc(), cursor.getReaderId()))
+                .size(size)
+                .sort(SHARD_DOC_FIELD)
+                .fetchSource(null, new String[] { "_class" })
+                .pointInTimeBuilder(new PointInTimeBuilder(pointInTimeId).setKeepAlive(keepAliveValue))
+                .trackTotalHits(false);
+            if (slices > 1) {
+                source.slice(new SliceBuilder(slice, slices));
+            }
+            if (searchAfter != null) {
+                source.searchAfter(searchAfter);
+            }
+            SearchResponse response = client.search(new SearchRequest().source(source), RequestOptions.DEFAULT);
+            if (response.pointInTimeId() != null) {
+                pointInTimeId = response.pointInTimeId();
+            }
+            org.elasticsearch.search.SearchHit[] hits = response.getHits().getHits();
+            if (hits.length == 0 || !pages.test(hits) || hits.length < size) {
+                return;
+            }
+            searchAfter = hits[hits.length - 1].getSortValues();
+        }
+    }
+
+    @Override
+    public void closePointInTime(String pointInTimeId) throws IOException {
+        client.closePointInTime(new ClosePointInTimeRequest(pointInTimeId), RequestOptions.DEFAULT);
+    }
+
+    /**
+     * Counts the reads of a time range per interval and per value of a field, with a composite aggregation paged after its
+     * last bucket key, so that the number of buckets is not limited. Each page of buckets, ordered by interval then
+     * value, is handed to a consumer until there are no more or the consumer returns {@code false}. A bucket has a
+     * {@code timestamp} key, the start of its interval in epoch milliseconds, and a {@code key} key, the value of the
+     * field; reads without the field are not counted.
+     */
+    @Override
+    public void countByInterval(
+        Instant from,
+        Instant to,
+        String field,
+        Duration interval,
+        int size,
+        Predicate<List<? extends CompositeAggregation.Bucket>> buckets
+    ) throws IOException {
+        List<CompositeValuesSourceBuilder<?>> sources = List.of(
+            new DateHistogramValuesSourceBuilder("timestamp")
+                .field("timestamp")
+                .fixedInterval(new DateHistogramInterval(interval.toMillis() + "ms")),
+            new TermsValuesSourceBuilder("key").field(field)
+        );
+        String[] indices = tagReadIndices.indicesFor(from, to);
+        Map<String, Object> afterKey = null;
+        while (true) {
+            CompositeAggregationBuilder aggregation = new CompositeAggregationBuilder(COUNTS_AGGREGATION, sources).size(size);
+            if (afterKey != null) {
+                aggregation.aggregateAfter(afterKey);
+            }
+            SearchSourceBuilder source = new SearchSourceBuilder()
+                .query(boolQuery().filter(timeRange(from, to)))
+                .size(0)
+                .trackTotalHits(false)
+                .aggregation(aggregation);
+            SearchResponse response = client.search(new SearchRequest(indices).source(source), RequestOptions.DEFAULT);
+            CompositeAggregation counts = response.getAggregations() != null ? response.getAggregations().get(COUNTS_AGGREGATION) : null;
+            if (counts == null || counts.getBuckets().isEmpty() || !buckets.test(counts.getBuckets())) {
+                return;
+            }
+            afterKey = counts.afterKey();
+            if (afterKey == null) {
+                return;
+            }
+        }
+    }
+
+    private static BoolQueryBuilder query(Instant from, Instant to, String epc, String readerId) {
+        BoolQueryBuilder query = boolQuery().filter(timeRange(from, to));
+        if (epc != null) {
+            query.filter(termQuery("epc", epc));
+        }
+        if (readerId != null) {
+            query.filter(termQuery("readerId", readerId));
+        }
+        return query;
+    }
+
+    private static RangeQueryBuilder timeRange(Instant from, Instant to) {
+        return rangeQuery("timestamp").gte(from != null ? from.toString() : null).lt(to != null ? to.toString() : null);
+    }
+}
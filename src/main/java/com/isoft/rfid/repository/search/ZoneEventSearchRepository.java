@@ -0,0 +1,9 @@
+package com.isoft.rfid.repository.search;
+
+import com.isoft.rfid.domain.ZoneEvent;
+import org.springframework.data.elasticsearch.repository.ElasticsearchRepository;
+
+/**
+ * Spring Data Elasticsearch repository for the {@link ZoneEvent} entity.
+ */
+public interface ZoneEventSearchRepository extends ElasticsearchRepository<ZoneEvent, String> {}
@@ -0,0 +1,27 @@
+package com.isoft.rfid.security.device;
+
+import com.isoft.rfid.security.jwt.JWTFilter;
+import org.springframework.security.config.annotation.SecurityConfigurerAdapter;
+import org.springframework.security.config.annotation.web.builders.HttpSecurity;
+import org.springframework.security.web.DefaultSecurityFilterChain;
+
+/**
+ * Adds the {@link DeviceApiKeyFilter} ahead of the {@link JWTFilter}, which must be added first; nothing is added when no
+ * API key is configured.
+ */
+public class DeviceApiKeyConfigurer extends SecurityConfigurerAdapter<DefaultSecurityFilterChain, HttpSecurity> {
+
+    private final DeviceApiKeys deviceApiKeys;
+
+    public DeviceApiKeyConfigurer(DeviceApiKeys deviceApiKeys) {
+        this.deviceApiKeys = deviceApiKeys;
+    }
+
+    @Override
+    public void configure(HttpSecurity http) {
+        if (deviceApiKeys.isEmpty()) {
+            return;
+        }
+        http.addFilterBefore(new DeviceApiKeyFilter(deviceApiKeys), JWTFilter.class);
+    }
+}
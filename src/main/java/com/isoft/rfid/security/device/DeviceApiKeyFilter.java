@@ -0,0 +1,41 @@
+package com.isoft.rfid.security.device;
+
+import java.io.IOException;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.util.StringUtils;
+import org.springframework.web.filter.GenericFilterBean;
+
+/**
+ * Filters incoming requests and installs the principal of a device if an API key header valid for the request is found,
+ * see {@link DeviceApiKeys}.
+ */
+public class DeviceApiKeyFilter extends GenericFilterBean {
+
+    public static final String API_KEY_HEADER = "X-Api-Key";
+
+    private final DeviceApiKeys deviceApiKeys;
+
+    public DeviceApiKeyFilter(DeviceApiKeys deviceApiKeys) {
+        this.deviceApiKeys = deviceApiKeys;
+    }
+
+    @Override
+    public void doFilter(ServletRequest servletRequest, ServletResponse servletResponse, FilterChain filterChain)
+        throws IOException, ServletException {
+        HttpServletRequest httpServletRequest = (HttpServletRequest) servletRequest;
+        String apiKey = httpServletRequest.getHeader(API_KEY_HEADER);
+        if (StringUtils.hasText(apiKey)) {
+            Authentication authentication = deviceApiKeys.authenticate(apiKey, httpServletRequest);
+            if (authentication != null) {
+                SecurityContextHolder.getContext().setAuthentication(authentication);
+            }
+        }
+        filterChain.doFilter(servletRequest, servletResponse);
+    }
+}
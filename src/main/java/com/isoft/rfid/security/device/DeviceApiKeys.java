@@ -0,0 +1,136 @@
+package com.isoft.rfid.security.device;
+
+import com.isoft.rfid.config.ApplicationProperties;
+import com.isoft.rfid.security.AuthoritiesConstants;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.servlet.http.HttpServletRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.stereotype.Component;
+
+/**
+ * In-memory index of the device API keys of {@code application.devices.api-keys}.
+ * <p>
+ * A key is {@code <id>.<secret>}: the id finds the device in a map, then the SHA-256 digest of the secret is compared
+ * in constant time with the configured one. The secrets are random, so a single unsalted digest is as strong as a slow
+ * password hash while costing about a microsecond. The principal and the authorities of each device are built once;
+ * every request gets a new authentication holding them.
+ */
+@Component
+public class DeviceApiKeys {
+
+    private static final int SHA_256_LENGTH = 32;
+
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(DeviceApiKeys::sha256);
+
+    private final Logger log = LoggerFactory.getLogger(DeviceApiKeys.class);
+
+    private final Map<String, Device> devices = new HashMap<>();
+
+    public DeviceApiKeys(ApplicationProperties applicationProperties) {
+        List<GrantedAuthority> authorities = List.of(new SimpleGrantedAuthority(AuthoritiesConstants.DEVICE));
+        for (ApplicationProperties.Devices.ApiKey apiKey : applicationProperties.getDevices().getApiKeys()) {
+            byte[] secretHash = decodeHex(apiKey.getSecretHash());
+            if (apiKey.getId() == null || apiKey.getId().indexOf('.') >= 0 || secretHash == null) {
+                throw new IllegalArgumentException("Invalid device API key " + apiKey.getId() + ": needs an id without dots and a SHA-256");
+            }
+            Set<DeviceScope> scopes = EnumSet.noneOf(DeviceScope.class);
+            for (String scope : apiKey.getScopes()) {
+                scopes.add(DeviceScope.valueOf(scope));
+            }
+            devices.put(apiKey.getId(), new Device(secretHash, scopes, new User(apiKey.getId(), "", authorities), authorities));
+        }
+        log.debug("Loaded {} device API keys", devices.size());
+    }
+
+    public boolean isEmpty() {
+        return devices.isEmpty();
+    }
+
+    /**
+     * Returns the authentication of the device of an API key, if the key is valid and one of its scopes covers a
+     * request.
+     *
+     * @param apiKey the API key, {@code <id>.<secret>}.
+     * @param request the request.
+     * @return the authentication, or {@code null} if the key is unknown, wrong or out of its scopes.
+     */
+    public Authentication authenticate(String apiKey, HttpServletRequest request) {
+        int separator = apiKey.indexOf('.');
+        if (separator <= 0) {
+            return null;
+        }
+        Device device = devices.get(apiKey.substring(0, separator));
+        if (device == null) {
+            return null;
+        }
+        MessageDigest digest = SHA_256.get();
+        digest.reset();
+        byte[] secretHash = digest.digest(apiKey.substring(separator + 1).getBytes(StandardCharsets.UTF_8));
+        if (!MessageDigest.isEqual(secretHash, device.secretHash)) {
+            log.debug("Wrong secret for device {}", device.principal.getUsername());
+            return null;
+        }
+        for (DeviceScope scope : device.scopes) {
+            if (scope.covers(request)) {
+                return new UsernamePasswordAuthenticationToken(device.principal, null, device.authorities);
+            }
+        }
+        log.debug("Device {} is not allowed to {} {}", device.principal.getUsername(), request.getMethod(), request.getRequestURI());
+        return null;
+    }
+
+    private static byte[] decodeHex(String hex) {
+        if (hex == null || hex.length() != SHA_256_LENGTH * 2) {
+            return null;
+        }
+        byte[] bytes = new byte[SHA_256_LENGTH];
+        for (int i = 0; i < bytes.length; i++) {
+            int high = Character.digit(hex.charAt(2 * i), 16);
+            int low = Character.digit(hex.charAt(2 * i + 1), 16);
+            if (high < 0 || low < 0) {
+                return null;
+            }
+            bytes[i] = (byte) ((high << 4) | low);
+        }
+        return bytes;
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static final class Device {
+
+        private final byte[] secretHash;
+
+        private final Set<DeviceScope> scopes;
+
+        private final User principal;
+
+        private final List<GrantedAuthority> authorities;
+
+        private Device(byte[] secretHash, Set<DeviceScope> scopes, User principal, List<GrantedAuthority> authorities) {
+            this.secretHash = secretHash;
+            this.scopes = scopes;
+            this.principal = principal;
+            this.authorities = authorities;
+        }
+    }
+}
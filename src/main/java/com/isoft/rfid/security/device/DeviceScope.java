@@ -0,0 +1,26 @@
+package com.isoft.rfid.security.device;
+
+import javax.servlet.http.HttpServletRequest;
+import org.springframework.http.HttpMethod;
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcher;
+
+/**
+ * The endpoints a device API key can give access to.
+ */
+public enum DeviceScope {
+    /**
+     * Posting tag reads.
+     */
+    INGEST(new AntPathRequestMatcher("/api/tag-reads/_bulk", HttpMethod.POST.name()));
+
+    private final RequestMatcher matcher;
+
+    DeviceScope(RequestMatcher matcher) {
+        this.matcher = matcher;
+    }
+
+    public boolean covers(HttpServletRequest request) {
+        return matcher.matches(request);
+    }
+}
@@ -0,0 +1,76 @@
+package com.isoft.rfid.security.jwt;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bloom filter of 64-bit hashes: a hash that was added is always reported, one that was not is reported at the false
+ * positive rate the filter was sized for.
+ * <p>
+ * The positions of a hash are derived from its two halves, so that a lookup reads a few words of the bit array and
+ * allocates nothing. Bits are set with compare-and-set, so hashes can be added while the filter is read.
+ */
+final class BloomFilter {
+
+    private final AtomicLongArray words;
+
+    private final long bitCount;
+
+    private final int hashCount;
+
+    /**
+     * @param expectedInsertions the number of hashes the filter is sized for.
+     * @param falsePositiveRate the rate of false positives once the expected hashes are added.
+     */
+    BloomFilter(long expectedInsertions, double falsePositiveRate) {
+        long insertions = Math.max(1, expectedInsertions);
+        long bits = (long) Math.ceil(-insertions * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        int wordCount = (int) Math.min(Integer.MAX_VALUE - 8, Math.max(1, (bits + 63) >>> 6));
+        this.words = new AtomicLongArray(wordCount);
+        this.bitCount = (long) wordCount << 6;
+        this.hashCount = (int) Math.max(1, Math.min(16, Math.round((double) bits / insertions * Math.log(2))));
+    }
+
+    /**
+     * Returns the 64-bit hash of a string, computed from its characters without encoding it.
+     */
+    static long hash(CharSequence value) {
+        // FNV-1a, then the MurmurHash3 finalizer so that both halves are well mixed.
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    void add(long hash) {
+        long low = (int) hash;
+        long high = hash >>> 32;
+        for (int i = 1; i <= hashCount; i++) {
+            long bit = Math.floorMod(low + i * high, bitCount);
+            int index = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long word = words.get(index);
+            while ((word & mask) == 0 && !words.compareAndSet(index, word, word | mask)) {
+                word = words.get(index);
+            }
+        }
+    }
+
+    boolean mightContain(long hash) {
+        long low = (int) hash;
+        long high = hash >>> 32;
+        for (int i = 1; i <= hashCount; i++) {
+            long bit = Math.floorMod(low + i * high, bitCount);
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -1,5 +1,8 @@
 package com.isoft.rfid.security.jwt;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import com.isoft.rfid.management.SecurityMetersService;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.io.Decoders;
@@ -7,7 +10,10 @@ import io.jsonwebtoken.security.Keys;
 import io.jsonwebtoken.security.SignatureException;
 import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -29,6 +35,13 @@ public class TokenProvider {
 
     private static final String INVALID_JWT_TOKEN = "Invalid JWT token.";
 
+    /**
+     * Maximum number of verified tokens whose authentication is kept.
+     */
+    private static final int VERIFIED_TOKENS_CACHE_SIZE = 10_000;
+
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(TokenProvider::sha256);
+
     private final Key key;
 
     private final JwtParser jwtParser;
@@ -39,7 +52,23 @@ public class TokenProvider {
 
     private final SecurityMetersService securityMetersService;
 
-    public TokenProvider(JHipsterProperties jHipsterProperties, SecurityMetersService securityMetersService) {
+    private final TokenRevocationService tokenRevocationService;
+
+    /**
+     * Principals and authorities of the tokens already verified, keyed by the SHA-256 digest of the token so that the
+     * tokens themselves are not kept; each one expires with its token.
+     */
+    private final Cache<String, VerifiedToken> verifiedTokens = Caffeine
+        .newBuilder()
+        .maximumSize(VERIFIED_TOKENS_CACHE_SIZE)
+        .expireAfter(new UntilTokenExpiration())
+        .build();
+
+    public TokenProvider(
+        JHipsterProperties jHipsterProperties,
+        SecurityMetersService securityMetersService,
+        TokenRevocationService tokenRevocationService
+    ) {
         byte[] keyBytes;
         String secret = jHipsterProperties.getSecurity().getAuthentication().getJwt().getBase64Secret();
         if (!ObjectUtils.isEmpty(secret)) {
@@ -60,6 +89,7 @@ public class TokenProvider {
             1000 * jHipsterProperties.getSecurity().getAuthentication().getJwt().getTokenValidityInSecondsForRememberMe();
 
         this.securityMetersService = securityMetersService;
+        this.tokenRevocationService = tokenRevocationService;
     }
 
     public String createToken(Authentication authentication, boolean rememberMe) {
@@ -73,8 +103,11 @@ public class TokenProvider {
             validity = new Date(now + this.tokenValidityInMilliseconds);
         }
 
+        String id = UUID.randomUUID().toString();
+        log.info("Issuing token {} to {}", id, authentication.getName());
         return Jwts
             .builder()
+            .setId(id)
             .setSubject(authentication.getName())
             .claim(AUTHORITIES_KEY, authorities)
             .signWith(key, SignatureAlgorithm.HS512)
@@ -84,23 +117,105 @@ public class TokenProvider {
 
     public Authentication getAuthentication(String token) {
         Claims claims = jwtParser.parseClaimsJws(token).getBody();
+        Collection<? extends GrantedAuthority> authorities = getAuthorities(claims);
+        return new UsernamePasswordAuthenticationToken(new User(claims.getSubject(), "", authorities), token, authorities);
+    }
 
-        Collection<? extends GrantedAuthority> authorities = Arrays
+    /**
+     * Returns the authentication of a token if it is valid, parsing and verifying it only the first time it is seen.
+     * <p>
+     * This replaces {@link #validateToken(String)} followed by {@link #getAuthentication(String)}, which parse and
+     * verify the token twice. The principal and the authorities are cached until the token expires, so that clients
+     * polling with the same token are authenticated with a single digest of the token; each call returns a new
+     * authentication holding the token as credentials. Invalid tokens are not cached: they are tracked by the
+     * {@link SecurityMetersService} each time.
+     * <p>
+     * A cached token is checked again against the {@link TokenRevocationService} only when revocations changed since its
+     * last check; a revoked token is dropped from the cache.
+     *
+     * @param token the JWT.
+     * @return the authentication, or {@code null} if the token is not valid.
+     */
+    public Authentication authenticate(String token) {
+        String digest = digest(token);
+        VerifiedToken verified = verifiedTokens.getIfPresent(digest);
+        if (verified == null) {
+            Claims claims = parseClaims(token);
+            if (claims == null) {
+                return null;
+            }
+            Date expiration = claims.getExpiration();
+            long expiresAt = expiration != null ? expiration.getTime() : System.currentTimeMillis() + tokenValidityInMilliseconds;
+            Collection<? extends GrantedAuthority> authorities = getAuthorities(claims);
+            verified = new VerifiedToken(new User(claims.getSubject(), "", authorities), authorities, expiresAt, claims.getId());
+            verifiedTokens.put(digest, verified);
+        }
+        if (isRevoked(verified)) {
+            verifiedTokens.invalidate(digest);
+            return null;
+        }
+        return new UsernamePasswordAuthenticationToken(verified.principal, token, verified.authorities);
+    }
+
+    /**
+     * Revokes a valid token, so that it is refused on all the nodes although it has not expired.
+     *
+     * @param token the JWT.
+     * @return whether the token was revoked; tokens that are not valid, or issued without an ID, cannot be.
+     */
+    public boolean revokeToken(String token) {
+        Claims claims = parseClaims(token);
+        if (claims == null || claims.getId() == null) {
+            return false;
+        }
+        Date expiration = claims.getExpiration();
+        tokenRevocationService.revoke(claims.getId(), claims.getSubject(), expiration != null ? expiration.toInstant() : null);
+        verifiedTokens.invalidate(digest(token));
+        return true;
+    }
+
+    private static Collection<? extends GrantedAuthority> getAuthorities(Claims claims) {
+        return Arrays
             .stream(claims.get(AUTHORITIES_KEY).toString().split(","))
             .filter(auth -> !auth.trim().isEmpty())
             .map(SimpleGrantedAuthority::new)
-            .collect(Collectors.toList());
-
-        User principal = new User(claims.getSubject(), "", authorities);
-
-        return new UsernamePasswordAuthenticationToken(principal, token, authorities);
+            .collect(Collectors.toUnmodifiableList());
     }
 
     public boolean validateToken(String authToken) {
-        try {
-            jwtParser.parseClaimsJws(authToken);
+        Claims claims = parseClaims(authToken);
+        if (claims == null) {
+            return false;
+        }
+        String id = claims.getId();
+        return id == null || !tokenRevocationService.isRevoked(id, TokenRevocationService.hash(id));
+    }
 
+    private boolean isRevoked(VerifiedToken verified) {
+        if (verified.tokenId == null) {
+            // Issued before tokens had an ID.
+            return false;
+        }
+        long generation = tokenRevocationService.generation();
+        if (verified.checkedGeneration == generation) {
+            return false;
+        }
+        if (tokenRevocationService.isRevoked(verified.tokenId, verified.tokenIdHash)) {
+            log.debug("Refusing revoked token {}", verified.tokenId);
             return true;
+        }
+        verified.checkedGeneration = generation;
+        return false;
+    }
+
+    /**
+     * Parses and verifies a token, tracking why it is invalid.
+     *
+     * @return the claims of the token, or {@code null} if it is not valid.
+     */
+    private Claims parseClaims(String authToken) {
+        try {
+            return jwtParser.parseClaimsJws(authToken).getBody();
         } catch (ExpiredJwtException e) {
             this.securityMetersService.trackTokenExpired();
 
@@ -121,6 +236,64 @@ public class TokenProvider {
             log.error("Token validation error {}", e.getMessage());
         }
 
-        return false;
+        return null;
+    }
+
+    private static String digest(String token) {
+        MessageDigest digest = SHA_256.get();
+        digest.reset();
+        return Base64.getEncoder().encodeToString(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static final class VerifiedToken {
+
+        private final User principal;
+
+        private final Collection<? extends GrantedAuthority> authorities;
+
+        private final long expiresAt;
+
+        private final String tokenId;
+
+        private final long tokenIdHash;
+
+        /**
+         * Generation of the revocations at which the token was last found not revoked.
+         */
+        private volatile long checkedGeneration = -1;
+
+        private VerifiedToken(User principal, Collection<? extends GrantedAuthority> authorities, long expiresAt, String tokenId) {
+            this.principal = principal;
+            this.authorities = authorities;
+            this.expiresAt = expiresAt;
+            this.tokenId = tokenId;
+            this.tokenIdHash = tokenId != null ? TokenRevocationService.hash(tokenId) : 0;
+        }
+    }
+
+    private static final class UntilTokenExpiration implements Expiry<String, VerifiedToken> {
+
+        @Override
+        public long expireAfterCreate(String digest, VerifiedToken verified, long currentTime) {
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(0, verified.expiresAt - System.currentTimeMillis()));
+        }
+
+        @Override
+        public long expireAfterUpdate(String digest, VerifiedToken verified, long currentTime, long currentDuration) {
+            return expireAfterCreate(digest, verified, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String digest, VerifiedToken verified, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
     }
 }
@@ -0,0 +1,201 @@
+package com.isoft.rfid.security.jwt;
+
+import com.isoft.rfid.config.ApplicationProperties;
+import com.isoft.rfid.domain.RevokedToken;
+import com.isoft.rfid.repository.search.RevokedTokenSearchRepository;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import tech.jhipster.config.JHipsterProperties;
+
+/**
+ * Service for revoking JWTs before they expire, by their {@code jti} claim.
+ * <p>
+ * Revoked token IDs are stored in the {@code revoked-tokens} index, and mirrored in a {@link BloomFilter} on each node:
+ * the filter is built when the application is ready, then fed with the tokens revoked since the previous poll every
+ * {@code application.token-revocation.refresh-interval}, and rebuilt without the expired tokens every
+ * {@code application.token-revocation.rebuild-interval}. Checking a token that is not revoked is then a few reads of
+ * the filter; only the tokens it reports, revoked or false positives, are looked up in Elasticsearch.
+ * <p>
+ * A token revoked on this node is refused at once, one revoked on another node after the next poll. Until the filter
+ * has been built, tokens are not checked.
+ */
+@Service
+public class TokenRevocationService {
+
+    private final Logger log = LoggerFactory.getLogger(TokenRevocationService.class);
+
+    private final RevokedTokenSearchRepository revokedTokenSearchRepository;
+
+    private final boolean enabled;
+
+    private final long expectedRevocations;
+
+    private final double falsePositiveRate;
+
+    private final Duration refreshOverlap;
+
+    private final Duration maxTokenValidity;
+
+    /**
+     * Changes each time a token may have been added to the filter, so that the checks made before can be told apart.
+     */
+    private final AtomicLong generation = new AtomicLong();
+
+    private volatile BloomFilter filter;
+
+    /**
+     * Start of the last poll or rebuild, {@code null} until the filter has been built.
+     */
+    private Instant polledAt;
+
+    public TokenRevocationService(
+        RevokedTokenSearchRepository revokedTokenSearchRepository,
+        JHipsterProperties jHipsterProperties,
+        ApplicationProperties applicationProperties
+    ) {
+        ApplicationProperties.TokenRevocation properties = applicationProperties.getTokenRevocation();
+        this.revokedTokenSearchRepository = revokedTokenSearchRepository;
+        this.enabled = properties.isEnabled();
+        this.expectedRevocations = properties.getExpectedRevocations();
+        this.falsePositiveRate = properties.getFalsePositiveRate();
+        this.refreshOverlap = properties.getRefreshOverlap();
+        JHipsterProperties.Security.Authentication.Jwt jwt = jHipsterProperties.getSecurity().getAuthentication().getJwt();
+        this.maxTokenValidity = Duration.ofSeconds(Math.max(jwt.getTokenValidityInSeconds(), jwt.getTokenValidityInSecondsForRememberMe()));
+        this.filter = new BloomFilter(expectedRevocations, falsePositiveRate);
+    }
+
+    /**
+     * Returns the 64-bit hash of a token ID, to be kept with the token and given to {@link #isRevoked(String, long)}.
+     */
+    public static long hash(String tokenId) {
+        return BloomFilter.hash(tokenId);
+    }
+
+    /**
+     * Returns the generation of the revocations: a token found not revoked needs no new check until it changes.
+     */
+    public long generation() {
+        return generation.get();
+    }
+
+    /**
+     * Returns whether a token is revoked.
+     *
+     * @param tokenId the ID of the token.
+     * @param tokenIdHash the {@link #hash(String)} of the ID.
+     * @return whether the token is revoked; {@code true} if it might be but Elasticsearch cannot be reached.
+     */
+    public boolean isRevoked(String tokenId, long tokenIdHash) {
+        if (!enabled || !filter.mightContain(tokenIdHash)) {
+            return false;
+        }
+        try {
+            return revokedTokenSearchRepository.existsById(tokenId);
+        } catch (RuntimeException e) {
+            log.warn("Could not check whether token {} is revoked, refusing it: {}", tokenId, e.getMessage());
+            return true;
+        }
+    }
+
+    /**
+     * Revokes a token.
+     *
+     * @param tokenId the ID of the token.
+     * @param login the subject of the token, if known.
+     * @param expiresAt the expiration of the token, or {@code null} if unknown, in which case it is kept revoked for the
+     * longest validity of a token.
+     */
+    public void revoke(String tokenId, String login, Instant expiresAt) {
+        Instant now = Instant.now();
+        log.debug("Request to revoke token {} of {}", tokenId, login);
+        revokedTokenSearchRepository.save(
+            new RevokedToken().id(tokenId).login(login).revokedAt(now).expiresAt(expiresAt != null ? expiresAt : now.plus(maxTokenValidity))
+        );
+        filter.add(hash(tokenId));
+        generation.incrementAndGet();
+    }
+
+    /**
+     * Builds the filter once the application is ready. If the index cannot be read, it is retried at the next refresh.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        rebuild();
+    }
+
+    /**
+     * Adds the tokens revoked since the last poll to the filter, or builds it if it was not yet.
+     */
+    @Scheduled(
+        initialDelayString = "${application.token-revocation.refresh-interval:PT10S}",
+        fixedDelayString = "${application.token-revocation.refresh-interval:PT10S}"
+    )
+    public synchronized void refresh() {
+        if (!enabled) {
+            return;
+        }
+        if (polledAt == null) {
+            rebuild();
+            return;
+        }
+        Instant start = Instant.now();
+        try (Stream<RevokedToken> revokedTokens = revokedTokenSearchRepository.streamRevokedSince(polledAt.minus(refreshOverlap), start)) {
+            long added = addAll(revokedTokens, filter);
+            if (added > 0) {
+                generation.incrementAndGet();
+            }
+            polledAt = start;
+            log.debug("Polled {} revoked tokens", added);
+        } catch (RuntimeException e) {
+            log.warn("Could not poll the revoked tokens: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Deletes the expired tokens, and replaces the filter by one of the tokens still revoked.
+     */
+    @Scheduled(
+        initialDelayString = "${application.token-revocation.rebuild-interval:PT1H}",
+        fixedDelayString = "${application.token-revocation.rebuild-interval:PT1H}"
+    )
+    public synchronized void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        Instant start = Instant.now();
+        try {
+            revokedTokenSearchRepository.deleteExpired(start);
+            // Sized for twice the tokens already revoked, so that the rate of false positives holds until the next rebuild.
+            long expected = Math.max(expectedRevocations, 2 * revokedTokenSearchRepository.count());
+            BloomFilter rebuilt = new BloomFilter(expected, falsePositiveRate);
+            long revoked;
+            try (Stream<RevokedToken> revokedTokens = revokedTokenSearchRepository.streamRevokedSince(Instant.EPOCH, start)) {
+                revoked = addAll(revokedTokens, rebuilt);
+            }
+            filter = rebuilt;
+            generation.incrementAndGet();
+            // Tokens revoked during the rebuild are caught up by the next poll.
+            polledAt = start;
+            log.debug("Rebuilt the revoked token filter with {} tokens", revoked);
+        } catch (RuntimeException e) {
+            log.warn("Could not load the revoked tokens, will retry: {}", e.getMessage());
+        }
+    }
+
+    private static long addAll(Stream<RevokedToken> revokedTokens, BloomFilter filter) {
+        long added = 0;
+        for (Iterator<RevokedToken> iterator = revokedTokens.iterator(); iterator.hasNext(); added++) {
+            filter.add(hash(iterator.next().getId()));
+        }
+        return added;
+    }
+}
@@ -0,0 +1,150 @@
+package com.isoft.rfid.service;
+
+import com.isoft.rfid.config.ApplicationProperties;
+import java.util.concurrent.Semaphore;
+
+/**
+ * AIMD controller of the size and concurrency of the bulk requests.
+ * <p>
+ * While bulks come back within {@code application.ingest.adaptive.target-latency} and reads are queued behind them, the
+ * batch size grows by a fixed step and, once a single bulk no longer absorbs the queue, so does the number of bulks in
+ * flight. A slow bulk shrinks the batch size multiplicatively; an {@code es_rejected_execution_exception} (HTTP 429)
+ * halves both. Decreases are applied at most once per target latency, so the responses of bulks sent before the first
+ * decrease do not shrink the limits again. When the queue is drained, the concurrency falls back to one bulk at a time.
+ * <p>
+ * The concurrency limit is enforced with a semaphore whose permits follow the limit.
+ */
+class AdaptiveBulkController {
+
+    private static final double LATENCY_DECREASE_FACTOR = 0.75;
+
+    private final boolean enabled;
+
+    private final int minBatchSize;
+
+    private final int maxBatchSize;
+
+    private final int increment;
+
+    private final int maxConcurrency;
+
+    private final long targetLatencyNanos;
+
+    private final AdjustableSemaphore permits;
+
+    private volatile int batchSize;
+
+    private volatile int concurrency;
+
+    private long lastDecrease;
+
+    AdaptiveBulkController(ApplicationProperties.Ingest ingest) {
+        ApplicationProperties.Ingest.Adaptive adaptive = ingest.getAdaptive();
+        this.enabled = adaptive.isEnabled();
+        this.minBatchSize = Math.max(1, adaptive.getMinActions());
+        this.maxBatchSize = Math.max(minBatchSize, adaptive.getMaxActions());
+        this.increment = minBatchSize;
+        this.maxConcurrency = enabled ? Math.max(1, adaptive.getMaxConcurrency()) : 1;
+        this.targetLatencyNanos = adaptive.getTargetLatency().toNanos();
+        int initial = Math.max(1, ingest.getBulkActions());
+        this.batchSize = enabled ? Math.min(maxBatchSize, Math.max(minBatchSize, initial)) : initial;
+        this.concurrency = 1;
+        this.permits = new AdjustableSemaphore(concurrency);
+        this.lastDecrease = System.nanoTime() - targetLatencyNanos;
+    }
+
+    int getBatchSize() {
+        return batchSize;
+    }
+
+    int getConcurrency() {
+        return concurrency;
+    }
+
+    int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    /**
+     * Waits until a bulk may be sent without exceeding the concurrency limit.
+     */
+    void acquire() {
+        permits.acquireUninterruptibly();
+    }
+
+    void release() {
+        permits.release();
+    }
+
+    /**
+     * Records a successful bulk.
+     *
+     * @param size the number of reads of the bulk.
+     * @param roundTripNanos the time the bulk took.
+     * @param queued the number of reads waiting behind the bulk.
+     */
+    synchronized void onSuccess(int size, long roundTripNanos, long queued) {
+        if (!enabled) {
+            return;
+        }
+        long now = System.nanoTime();
+        if (roundTripNanos > targetLatencyNanos) {
+            if (canDecrease(now)) {
+                batchSize = Math.max(minBatchSize, (int) (batchSize * LATENCY_DECREASE_FACTOR));
+                setConcurrency(concurrency - 1);
+            }
+            return;
+        }
+        if (size >= batchSize && queued > 0) {
+            batchSize = Math.min(maxBatchSize, batchSize + increment);
+        }
+        if (queued > (long) batchSize * concurrency) {
+            setConcurrency(concurrency + 1);
+        } else if (queued < batchSize) {
+            setConcurrency(concurrency - 1);
+        }
+    }
+
+    /**
+     * Records a bulk rejected because the cluster is overloaded.
+     */
+    synchronized void onRejected() {
+        if (!enabled || !canDecrease(System.nanoTime())) {
+            return;
+        }
+        batchSize = Math.max(minBatchSize, batchSize / 2);
+        setConcurrency(concurrency / 2);
+    }
+
+    private boolean canDecrease(long now) {
+        if (now - lastDecrease < targetLatencyNanos) {
+            return false;
+        }
+        lastDecrease = now;
+        return true;
+    }
+
+    private void setConcurrency(int value) {
+        int next = Math.max(1, Math.min(maxConcurrency, value));
+        if (next > concurrency) {
+            permits.release(next - concurrency);
+        } else if (next < concurrency) {
+            permits.reducePermits(concurrency - next);
+        }
+        concurrency = next;
+    }
+
+    private static final class AdjustableSemaphore extends Semaphore {
+
+        private static final long serialVersionUID = 1L;
+
+        AdjustableSemaphore(int permits) {
+            super(permits);
+        }
+
+        @Override
+        protected void reducePermits(int reduction) {
+            super.reducePermits(reduction);
+        }
+    }
+}
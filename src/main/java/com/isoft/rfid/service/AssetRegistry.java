@@ -0,0 +1,377 @@
+package com.isoft.rfid.service;
+
+import com.isoft.rfid.config.ApplicationProperties;
+import com.isoft.rfid.domain.TagRead;
+import com.isoft.rfid.repository.search.AssetSearchRepository;
+import com.isoft.rfid.service.util.EpcHex;
+import com.isoft.rfid.service.util.StringDictionary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import org.elasticsearch.search.SearchHit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * In-memory registry of the {@link com.isoft.rfid.domain.Asset}s, copying the SKU, description and owner of their EPC
+ * onto the reads at ingest without querying Elasticsearch.
+ * <p>
+ * Assets are held in an open-addressing table of primitive arrays keyed on the EPC as two {@code long}s, with the SKU,
+ * the description and the owner as dictionary codes: about 29 bytes per slot, plus the distinct strings. At boot the
+ * highest sequence number of each shard is read, then the asset index is scrolled in
+ * {@code application.assets.warm-up-slices} parallel slices; every {@code application.assets.refresh-interval} after
+ * that, the assets of each shard with a higher sequence number are fetched, so only the changes are read. Deleted assets
+ * are kept until a restart.
+ * <p>
+ * The warm-up time is published as {@code rfid.assets.warmup}, the number of assets and the estimated memory per asset
+ * as {@code rfid.assets.entries} and {@code rfid.assets.entry.bytes}.
+ */
+@Service
+public class AssetRegistry {
+
+    /**
+     * Writes still in flight when a shard is refreshed can become visible after writes with a higher sequence number, so
+     * each poll goes back this many sequence numbers; assets fetched twice are simply applied twice.
+     */
+    static final long SEQ_NO_OVERLAP = 1024;
+
+    private static final double MAX_LOAD_FACTOR = 0.75;
+
+    private static final int SLOT_BYTES = 8 + 8 + 1 + 4 + 4 + 4;
+
+    /**
+     * Estimated size of a dictionary string besides its characters: the string, its array, and the map entry and boxed
+     * code of the dictionary.
+     */
+    private static final int DICTIONARY_ENTRY_BYTES = 112;
+
+    private static final Duration SCROLL_KEEP_ALIVE = Duration.ofMinutes(1);
+
+    private final Logger log = LoggerFactory.getLogger(AssetRegistry.class);
+
+    private final boolean enabled;
+
+    private final int initialCapacity;
+
+    private final int slices;
+
+    private final int batchSize;
+
+    private final AssetSearchRepository assetSearchRepository;
+
+    private final Timer warmUpTimer;
+
+    private final StringDictionary skus = new StringDictionary();
+
+    private final StringDictionary descriptions = new StringDictionary();
+
+    private final StringDictionary owners = new StringDictionary();
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private long[] keyHigh;
+
+    private long[] keyLow;
+
+    /**
+     * Number of hex digits of the EPC; {@code 0} marks a free slot.
+     */
+    private byte[] keyLength;
+
+    /**
+     * Dictionary codes plus one; {@code 0} when the asset has no such value.
+     */
+    private int[] sku;
+
+    private int[] description;
+
+    private int[] owner;
+
+    private int mask;
+
+    private int maxSize;
+
+    private volatile int size;
+
+    /**
+     * Highest sequence number applied for each shard of the asset index, or {@code null} before the warm-up.
+     */
+    private long[] seqNos;
+
+    public AssetRegistry(
+        AssetSearchRepository assetSearchRepository,
+        MeterRegistry meterRegistry,
+        ApplicationProperties applicationProperties
+    ) {
+        ApplicationProperties.Assets properties = applicationProperties.getAssets();
+        this.enabled = properties.isEnabled();
+        this.initialCapacity = Integer.highestOneBit(Math.max(16, properties.getInitialCapacity() - 1)) << 1;
+        this.slices = Math.max(1, properties.getWarmUpSlices());
+        this.batchSize = Math.max(1, properties.getBatchSize());
+        this.assetSearchRepository = assetSearchRepository;
+        allocate(enabled ? initialCapacity : 16);
+        this.warmUpTimer =
+            Timer.builder("rfid.assets.warmup").description("Time to load the asset registry at boot").register(meterRegistry);
+        Gauge
+            .builder("rfid.assets.entries", this, AssetRegistry::size)
+            .description("Assets in the registry")
+            .baseUnit("assets")
+            .register(meterRegistry);
+        Gauge
+            .builder("rfid.assets.entry.bytes", this, AssetRegistry::bytesPerEntry)
+            .description("Estimated memory used by the asset registry per asset")
+            .baseUnit("bytes")
+            .register(meterRegistry);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Copies the SKU, description and owner of the asset of each read, if its EPC has one.
+     *
+     * @param reads validated reads, with an EPC.
+     */
+    public void enrich(List<TagRead> reads) {
+        if (!enabled || size == 0 || reads.isEmpty()) {
+            return;
+        }
+        lock.readLock().lock();
+        try {
+            for (int i = 0, n = reads.size(); i < n; i++) {
+                TagRead read = reads.get(i);
+                String epc = read.getEpc();
+                if (epc == null || !EpcHex.isValid(epc)) {
+                    continue;
+                }
+                int slot = find(EpcHex.high(epc), EpcHex.low(epc), (byte) epc.length());
+                if (keyLength[slot] == 0) {
+                    continue;
+                }
+                read.setSku(skus.decode(sku[slot] - 1));
+                read.setDescription(descriptions.decode(description[slot] - 1));
+                read.setOwner(owners.decode(owner[slot] - 1));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Loads all the assets, scrolling the slices of the asset index in parallel, before the application is reported
+     * ready. If the index cannot be read, the warm-up is retried at the next refresh.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void warmUp() {
+        if (!enabled) {
+            return;
+        }
+        long start = System.nanoTime();
+        ExecutorService executor = Executors.newFixedThreadPool(slices);
+        try {
+            // Read before scrolling: the assets changed during the scroll have higher sequence numbers, and are polled again.
+            long[] warmUpSeqNos = new long[assetSearchRepository.countShards()];
+            for (int shard = 0; shard < warmUpSeqNos.length; shard++) {
+                warmUpSeqNos[shard] = assetSearchRepository.findMaxSeqNo(shard);
+            }
+            CompletableFuture<?>[] scrolls = new CompletableFuture<?>[slices];
+            for (int slice = 0; slice < slices; slice++) {
+                int id = slice;
+                scrolls[slice] = CompletableFuture.runAsync(() -> scroll(id), executor);
+            }
+            CompletableFuture.allOf(scrolls).join();
+            seqNos = warmUpSeqNos;
+        } catch (IOException | RuntimeException e) {
+            Throwable cause = e instanceof CompletionException ? e.getCause() : e;
+            log.warn("Could not load the asset registry, will retry: {}", cause.getMessage());
+            return;
+        } finally {
+            executor.shutdownNow();
+        }
+        long elapsed = System.nanoTime() - start;
+        warmUpTimer.record(Duration.ofNanos(elapsed));
+        log.info("Loaded {} assets in {} ms, about {} bytes each", size, elapsed / 1_000_000, (long) bytesPerEntry());
+    }
+
+    /**
+     * Applies the assets indexed or updated since the last poll, or runs the warm-up if it did not succeed yet.
+     */
+    @Scheduled(
+        initialDelayString = "${application.assets.refresh-interval:PT10S}",
+        fixedDelayString = "${application.assets.refresh-interval:PT10S}"
+    )
+    public synchronized void refresh() {
+        if (!enabled) {
+            return;
+        }
+        if (seqNos == null) {
+            warmUp();
+            return;
+        }
+        int changed = 0;
+        try {
+            for (int shard = 0; shard < seqNos.length; shard++) {
+                long after = Math.max(-1, seqNos[shard] - SEQ_NO_OVERLAP);
+                SearchHit[] hits;
+                do {
+                    hits = assetSearchRepository.findChangedSince(shard, after, batchSize);
+                    if (hits.length > 0) {
+                        apply(hits);
+                        after = hits[hits.length - 1].getSeqNo();
+                        seqNos[shard] = Math.max(seqNos[shard], after);
+                        changed += hits.length;
+                    }
+                } while (hits.length == batchSize);
+            }
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not refresh the asset registry: {}", e.getMessage());
+        }
+        log.debug("Applied {} changed assets, {} assets known", changed, size);
+    }
+
+    private void scroll(int slice) {
+        try {
+            assetSearchRepository.scrollSlice(
+                slice,
+                slices,
+                batchSize,
+                SCROLL_KEEP_ALIVE,
+                hits -> {
+                    apply(hits);
+                    return true;
+                }
+            );
+        } catch (IOException e) {
+            throw new CompletionException(e);
+        }
+    }
+
+    /**
+     * Sets the assets of a page of hits.
+     */
+    private void apply(SearchHit[] hits) {
+        lock.writeLock().lock();
+        try {
+            for (SearchHit hit : hits) {
+                String epc = hit.getId();
+                if (!EpcHex.isValid(epc)) {
+                    continue;
+                }
+                Map<String, Object> source = hit.getSourceAsMap();
+                put(
+                    EpcHex.high(epc),
+                    EpcHex.low(epc),
+                    (byte) epc.length(),
+                    encode(skus, source.get("sku")),
+                    encode(descriptions, source.get("description")),
+                    encode(owners, source.get("owner"))
+                );
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static int encode(StringDictionary dictionary, Object value) {
+        return value == null ? 0 : dictionary.encode(value.toString()) + 1;
+    }
+
+    private double bytesPerEntry() {
+        int entries = size;
+        if (entries == 0) {
+            return Double.NaN;
+        }
+        long bytes = (long) keyLength.length * SLOT_BYTES + dictionaryBytes(skus) + dictionaryBytes(descriptions) + dictionaryBytes(owners);
+        return (double) bytes / entries;
+    }
+
+    private static long dictionaryBytes(StringDictionary dictionary) {
+        long bytes = 0;
+        for (int code = 0, n = dictionary.size(); code < n; code++) {
+            String value = dictionary.decode(code);
+            bytes += DICTIONARY_ENTRY_BYTES + (value != null ? value.length() : 0);
+        }
+        return bytes;
+    }
+
+    /**
+     * Sets the asset of an EPC. Must hold the write lock.
+     */
+    private void put(long high, long low, byte length, int skuCode, int descriptionCode, int ownerCode) {
+        int slot = find(high, low, length);
+        if (keyLength[slot] == 0) {
+            if (size >= maxSize) {
+                grow();
+                slot = find(high, low, length);
+            }
+            keyHigh[slot] = high;
+            keyLow[slot] = low;
+            keyLength[slot] = length;
+            size++;
+        }
+        sku[slot] = skuCode;
+        description[slot] = descriptionCode;
+        owner[slot] = ownerCode;
+    }
+
+    /**
+     * Returns the slot of an EPC, or the free slot where it would go.
+     */
+    private int find(long high, long low, byte length) {
+        int slot = (int) EpcHex.hash(high, low, length) & mask;
+        while (keyLength[slot] != 0 && (keyLength[slot] != length || keyHigh[slot] != high || keyLow[slot] != low)) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void grow() {
+        long[] oldHigh = keyHigh;
+        long[] oldLow = keyLow;
+        byte[] oldLength = keyLength;
+        int[] oldSku = sku;
+        int[] oldDescription = description;
+        int[] oldOwner = owner;
+        allocate(oldLength.length << 1);
+        for (int i = 0; i < oldLength.length; i++) {
+            if (oldLength[i] != 0) {
+                int slot = find(oldHigh[i], oldLow[i], oldLength[i]);
+                keyHigh[slot] = oldHigh[i];
+                keyLow[slot] = oldLow[i];
+                keyLength[slot] = oldLength[i];
+                sku[slot] = oldSku[i];
+                description[slot] = oldDescription[i];
+                owner[slot] = oldOwner[i];
+                size++;
+            }
+        }
+        log.debug("Asset table grown to {} slots", keyLength.length);
+    }
+
+    private void allocate(int capacity) {
+        keyHigh = new long[capacity];
+        keyLow = new long[capacity];
+        keyLength = new byte[capacity];
+        sku = new int[capacity];
+        description = new int[capacity];
+        owner = new int[capacity];
+        mask = capacity - 1;
+        maxSize = (int) (capacity * MAX_LOAD_FACTOR);
+        size = 0;
+    }
+}
@@ -0,0 +1,161 @@
+package com.isoft.rfid.service;
+
+/**
+ * Mutable holder for the GS1 fields of an EPC, filled by {@link EpcDecoder}.
+ * <p>
+ * Instances are meant to be reused from one read to the next; the {@code append*} methods render the fields with their
+ * leading zeros without creating intermediate strings.
+ */
+public class DecodedEpc {
+
+    /**
+     * EPC binary encoding schemes understood by {@link EpcDecoder}.
+     */
+    public enum Scheme {
+        SGTIN_96("sgtin"),
+        SSCC_96("sscc"),
+        UNKNOWN(null);
+
+        private final String pureIdentityName;
+
+        Scheme(String pureIdentityName) {
+            this.pureIdentityName = pureIdentityName;
+        }
+
+        public String getPureIdentityName() {
+            return pureIdentityName;
+        }
+    }
+
+    private Scheme scheme = Scheme.UNKNOWN;
+
+    private int header;
+
+    private int filter;
+
+    private int partition;
+
+    private long companyPrefix;
+
+    private int companyPrefixDigits;
+
+    private long reference;
+
+    private int referenceDigits;
+
+    private long serial;
+
+    void set(Scheme scheme, int header, int filter, int partition) {
+        this.scheme = scheme;
+        this.header = header;
+        this.filter = filter;
+        this.partition = partition;
+    }
+
+    void setCompanyPrefix(long companyPrefix, int digits) {
+        this.companyPrefix = companyPrefix;
+        this.companyPrefixDigits = digits;
+    }
+
+    void setReference(long reference, int digits) {
+        this.reference = reference;
+        this.referenceDigits = digits;
+    }
+
+    void setSerial(long serial) {
+        this.serial = serial;
+    }
+
+    void clear() {
+        set(Scheme.UNKNOWN, -1, 0, 0);
+        setCompanyPrefix(0, 0);
+        setReference(0, 0);
+        setSerial(-1);
+    }
+
+    public Scheme getScheme() {
+        return scheme;
+    }
+
+    /**
+     * @return the 8-bit EPC header, or {@code -1} if the EPC could not be read at all.
+     */
+    public int getHeader() {
+        return header;
+    }
+
+    public int getFilter() {
+        return filter;
+    }
+
+    public int getPartition() {
+        return partition;
+    }
+
+    public long getCompanyPrefix() {
+        return companyPrefix;
+    }
+
+    public int getCompanyPrefixDigits() {
+        return companyPrefixDigits;
+    }
+
+    /**
+     * @return the item reference (with its indicator digit) of an SGTIN, or the serial reference of an SSCC.
+     */
+    public long getReference() {
+        return reference;
+    }
+
+    public int getReferenceDigits() {
+        return referenceDigits;
+    }
+
+    /**
+     * @return the serial number of an SGTIN, or {@code -1} for schemes without one.
+     */
+    public long getSerial() {
+        return serial;
+    }
+
+    public StringBuilder appendCompanyPrefix(StringBuilder sb) {
+        return appendPadded(sb, companyPrefix, companyPrefixDigits);
+    }
+
+    public StringBuilder appendReference(StringBuilder sb) {
+        return appendPadded(sb, reference, referenceDigits);
+    }
+
+    /**
+     * Appends the pure identity URI, such as {@code urn:epc:id:sgtin:0614141.812345.6789}.
+     *
+     * @param sb the builder to append to.
+     * @return the builder.
+     */
+    public StringBuilder appendPureIdentityUri(StringBuilder sb) {
+        if (scheme == Scheme.UNKNOWN) {
+            return sb;
+        }
+        sb.append("urn:epc:id:").append(scheme.getPureIdentityName()).append(':');
+        appendCompanyPrefix(sb).append('.');
+        appendReference(sb);
+        if (serial >= 0) {
+            sb.append('.').append(serial);
+        }
+        return sb;
+    }
+
+    private static StringBuilder appendPadded(StringBuilder sb, long value, int digits) {
+        for (long bound = 10, i = 1; i < digits; i++, bound *= 10) {
+            if (value < bound) {
+                sb.append('0');
+            }
+        }
+        return digits == 0 ? sb : sb.append(value);
+    }
+
+    @Override
+    public String toString() {
+        return appendPureIdentityUri(new StringBuilder("DecodedEpc{")).append('}').toString();
+    }
+}
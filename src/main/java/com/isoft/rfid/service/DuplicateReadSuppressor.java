@@ -0,0 +1,246 @@
+package com.isoft.rfid.service;
+
+import com.isoft.rfid.config.ApplicationProperties;
+import com.isoft.rfid.domain.TagRead;
+import com.isoft.rfid.service.util.EpcHex;
+import com.isoft.rfid.service.util.StringDictionary;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+/**
+ * Drops repeated reads of the same (EPC, reader, antenna) inside a time window.
+ * <p>
+ * A tag standing in front of an antenna is reported many times per second; only the first read of each
+ * {@code application.ingest.dedup.window} is kept. The last kept read of every key is held in an open-addressing table
+ * of primitive arrays, keyed on the EPC as two {@code long}s, so filtering a read creates no objects. When the table
+ * fills up, keys not seen for a whole window are purged; if it is still full, it is cleared and a few duplicates go
+ * through rather than blocking ingestion. Reads of readers beyond the first {@code application.ingest.max-readers} are
+ * not deduplicated either.
+ * <p>
+ * Reads that could not be handed over after all are {@linkplain #forget(List) forgotten}, so that the client retrying
+ * them within the window is not told they are duplicates.
+ */
+@Service
+public class DuplicateReadSuppressor {
+
+    private static final double MAX_LOAD_FACTOR = 0.75;
+
+    /**
+     * Last kept timestamp of a forgotten key, out of the window of any read.
+     */
+    private static final long FORGOTTEN = Long.MIN_VALUE / 2;
+
+    private final Logger log = LoggerFactory.getLogger(DuplicateReadSuppressor.class);
+
+    private final boolean enabled;
+
+    private final long windowMillis;
+
+    private final int capacity;
+
+    private final int mask;
+
+    private final int maxSize;
+
+    private final StringDictionary readers;
+
+    private final Counter suppressedCounter;
+
+    private long[] keyHigh;
+
+    private long[] keyLow;
+
+    /**
+     * Reader code, antenna and EPC length packed together; {@code 0} marks a free slot.
+     */
+    private long[] keyMeta;
+
+    private long[] lastKept;
+
+    private int size;
+
+    private long newestTimestamp;
+
+    public DuplicateReadSuppressor(ApplicationProperties applicationProperties, MeterRegistry meterRegistry) {
+        ApplicationProperties.Ingest.Dedup dedup = applicationProperties.getIngest().getDedup();
+        this.enabled = dedup.isEnabled();
+        this.windowMillis = dedup.getWindow().toMillis();
+        this.capacity = Integer.highestOneBit(Math.max(16, dedup.getCapacity() - 1)) << 1;
+        this.mask = capacity - 1;
+        this.maxSize = (int) (capacity * MAX_LOAD_FACTOR);
+        this.readers = new StringDictionary("reader ids", applicationProperties.getIngest().getMaxReaders());
+        this.suppressedCounter =
+            Counter
+                .builder("rfid.ingest.duplicates.suppressed")
+                .description("Tag reads dropped because the same EPC, reader and antenna was already seen in the window")
+                .baseUnit("reads")
+                .register(meterRegistry);
+        allocate();
+    }
+
+    /**
+     * Removes the duplicates from a list of reads, keeping their order.
+     *
+     * @param reads validated reads, with an EPC, a reader id and a timestamp; modified in place.
+     */
+    public void removeDuplicates(List<TagRead> reads) {
+        if (!enabled) {
+            return;
+        }
+        int kept = 0;
+        synchronized (this) {
+            for (int i = 0, n = reads.size(); i < n; i++) {
+                TagRead read = reads.get(i);
+                if (!isDuplicate(read)) {
+                    reads.set(kept++, read);
+                }
+            }
+        }
+        int suppressed = reads.size() - kept;
+        if (suppressed > 0) {
+            reads.subList(kept, reads.size()).clear();
+            suppressedCounter.increment(suppressed);
+        }
+    }
+
+    /**
+     * Forgets the reads kept by {@link #removeDuplicates(List)}, so that they are kept again when they are retried.
+     *
+     * @param reads reads returned by {@link #removeDuplicates(List)} that could not be ingested.
+     */
+    public void forget(List<TagRead> reads) {
+        if (!enabled) {
+            return;
+        }
+        synchronized (this) {
+            for (TagRead read : reads) {
+                String epc = read.getEpc();
+                if (!EpcHex.isValid(epc)) {
+                    continue;
+                }
+                long meta = meta(read);
+                if (meta < 0) {
+                    continue;
+                }
+                long high = EpcHex.high(epc);
+                long low = EpcHex.low(epc);
+                int slot = (int) EpcHex.hash(high, low, meta) & mask;
+                while (keyMeta[slot] != 0) {
+                    if (keyMeta[slot] == meta && keyHigh[slot] == high && keyLow[slot] == low) {
+                        if (lastKept[slot] == read.getTimestamp().toEpochMilli()) {
+                            lastKept[slot] = FORGOTTEN;
+                        }
+                        break;
+                    }
+                    slot = (slot + 1) & mask;
+                }
+            }
+        }
+    }
+
+    private boolean isDuplicate(TagRead read) {
+        String epc = read.getEpc();
+        if (!EpcHex.isValid(epc)) {
+            return false;
+        }
+        long meta = meta(read);
+        if (meta < 0) {
+            return false;
+        }
+        long high = EpcHex.high(epc);
+        long low = EpcHex.low(epc);
+        long timestamp = read.getTimestamp().toEpochMilli();
+        if (timestamp > newestTimestamp) {
+            newestTimestamp = timestamp;
+        }
+
+        int slot = (int) EpcHex.hash(high, low, meta) & mask;
+        while (keyMeta[slot] != 0) {
+            if (keyMeta[slot] == meta && keyHigh[slot] == high && keyLow[slot] == low) {
+                long last = lastKept[slot];
+                if (Math.abs(timestamp - last) < windowMillis) {
+                    return true;
+                }
+                if (timestamp > last) {
+                    lastKept[slot] = timestamp;
+                }
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+        if (size >= maxSize) {
+            purge();
+            slot = (int) EpcHex.hash(high, low, meta) & mask;
+            while (keyMeta[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+        }
+        keyHigh[slot] = high;
+        keyLow[slot] = low;
+        keyMeta[slot] = meta;
+        lastKept[slot] = timestamp;
+        size++;
+        return false;
+    }
+
+    /**
+     * Packs the reader code, the antenna and the EPC length of a read.
+     *
+     * @return the packed key, or {@code -1} if the reader is not tracked.
+     */
+    private long meta(TagRead read) {
+        int reader = readers.encode(read.getReaderId());
+        if (reader < 0) {
+            return -1;
+        }
+        int antenna = read.getAntenna() == null ? 0 : read.getAntenna();
+        return ((long) (reader + 1) << 32) | ((antenna & 0xFFFFL) << 8) | read.getEpc().length();
+    }
+
+    /**
+     * Rebuilds the table without the keys that are out of the window, clearing it if that does not free enough room.
+     */
+    private void purge() {
+        long[] oldHigh = keyHigh;
+        long[] oldLow = keyLow;
+        long[] oldMeta = keyMeta;
+        long[] oldLastKept = lastKept;
+        allocate();
+        long horizon = newestTimestamp - windowMillis;
+        int live = 0;
+        for (int i = 0; i < oldMeta.length; i++) {
+            if (oldMeta[i] != 0 && oldLastKept[i] > horizon) {
+                live++;
+            }
+        }
+        if (live >= maxSize / 2) {
+            log.warn("Duplicate read table is full with {} live keys, clearing it; consider a larger capacity", live);
+            return;
+        }
+        for (int i = 0; i < oldMeta.length; i++) {
+            if (oldMeta[i] != 0 && oldLastKept[i] > horizon) {
+                int slot = (int) EpcHex.hash(oldHigh[i], oldLow[i], oldMeta[i]) & mask;
+                while (keyMeta[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                keyHigh[slot] = oldHigh[i];
+                keyLow[slot] = oldLow[i];
+                keyMeta[slot] = oldMeta[i];
+                lastKept[slot] = oldLastKept[i];
+                size++;
+            }
+        }
+    }
+
+    private void allocate() {
+        keyHigh = new long[capacity];
+        keyLow = new long[capacity];
+        keyMeta = new long[capacity];
+        lastKept = new long[capacity];
+        size = 0;
+    }
+}
@@ -0,0 +1,116 @@
+package com.isoft.rfid.service;
+
+import com.isoft.rfid.service.util.EpcHex;
+
+/**
+ * Decodes the binary EPC of a tag, given as hex, into its GS1 fields.
+ * <p>
+ * The SGTIN-96 and SSCC-96 schemes of the GS1 EPC Tag Data Standard are supported; a 128-bit EPC is decoded from its
+ * first 96 bits. Decoding reads the hex digits directly and writes into a caller-provided {@link DecodedEpc}, so it
+ * neither uses regular expressions nor creates any object: it runs on every ingested read.
+ */
+public final class EpcDecoder {
+
+    public static final int HEADER_SGTIN_96 = 0x30;
+
+    public static final int HEADER_SSCC_96 = 0x31;
+
+    private static final int EPC_96_DIGITS = 24;
+
+    /**
+     * Company prefix bits for each partition value; the same table applies to SGTIN-96 and SSCC-96.
+     */
+    private static final int[] COMPANY_PREFIX_BITS = { 40, 37, 34, 30, 27, 24, 20 };
+
+    private static final int[] SGTIN_ITEM_REFERENCE_BITS = { 4, 7, 10, 14, 17, 20, 24 };
+
+    private static final int[] SSCC_SERIAL_REFERENCE_BITS = { 18, 21, 24, 28, 31, 34, 38 };
+
+    private static final long[] POWERS_OF_TEN = new long[19];
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    private EpcDecoder() {}
+
+    /**
+     * Decodes an EPC.
+     *
+     * @param epc the EPC as 24 or 32 hex digits.
+     * @param result the holder to fill; it is reset first.
+     * @return {@code true} if the EPC is a valid SGTIN-96 or SSCC-96, {@code false} otherwise, in which case only the
+     * header of {@code result} may be set.
+     */
+    public static boolean decode(CharSequence epc, DecodedEpc result) {
+        result.clear();
+        int length = epc.length();
+        if (length < EPC_96_DIGITS || length > EpcHex.MAX_DIGITS || !EpcHex.isValid(epc)) {
+            return false;
+        }
+        // The first 96 bits, left-aligned: bits 0-63 in w0 and bits 64-95 in the top half of w1.
+        long w0 = EpcHex.parse(epc, 0, 16);
+        long w1 = EpcHex.parse(epc, 16, EPC_96_DIGITS) << 32;
+
+        int header = (int) bits(w0, w1, 0, 8);
+        int filter = (int) bits(w0, w1, 8, 3);
+        int partition = (int) bits(w0, w1, 11, 3);
+        result.set(DecodedEpc.Scheme.UNKNOWN, header, filter, partition);
+        if (partition >= COMPANY_PREFIX_BITS.length) {
+            return false;
+        }
+        int companyPrefixBits = COMPANY_PREFIX_BITS[partition];
+        int companyPrefixDigits = 12 - partition;
+        long companyPrefix = bits(w0, w1, 14, companyPrefixBits);
+        if (companyPrefix >= POWERS_OF_TEN[companyPrefixDigits]) {
+            return false;
+        }
+        int offset = 14 + companyPrefixBits;
+
+        if (header == HEADER_SGTIN_96) {
+            int itemReferenceBits = SGTIN_ITEM_REFERENCE_BITS[partition];
+            int itemReferenceDigits = 13 - companyPrefixDigits;
+            long itemReference = bits(w0, w1, offset, itemReferenceBits);
+            if (itemReference >= POWERS_OF_TEN[itemReferenceDigits]) {
+                return false;
+            }
+            result.set(DecodedEpc.Scheme.SGTIN_96, header, filter, partition);
+            result.setCompanyPrefix(companyPrefix, companyPrefixDigits);
+            result.setReference(itemReference, itemReferenceDigits);
+            result.setSerial(bits(w0, w1, offset + itemReferenceBits, 38));
+            return true;
+        }
+        if (header == HEADER_SSCC_96) {
+            int serialReferenceBits = SSCC_SERIAL_REFERENCE_BITS[partition];
+            int serialReferenceDigits = 17 - companyPrefixDigits;
+            long serialReference = bits(w0, w1, offset, serialReferenceBits);
+            if (serialReference >= POWERS_OF_TEN[serialReferenceDigits]) {
+                return false;
+            }
+            result.set(DecodedEpc.Scheme.SSCC_96, header, filter, partition);
+            result.setCompanyPrefix(companyPrefix, companyPrefixDigits);
+            result.setReference(serialReference, serialReferenceDigits);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Extracts {@code length} bits (1 to 64) starting at bit {@code offset} of the 128-bit value {@code w0:w1}.
+     */
+    static long bits(long w0, long w1, int offset, int length) {
+        int end = offset + length;
+        if (end <= 64) {
+            return (w0 << offset) >>> (64 - length);
+        }
+        if (offset >= 64) {
+            return (w1 << (offset - 64)) >>> (64 - length);
+        }
+        int lowBits = end - 64;
+        long high = (w0 << offset) >>> offset;
+        return (high << lowBits) | (w1 >>> (64 - lowBits));
+    }
+}
@@ -0,0 +1,13 @@
+package com.isoft.rfid.service;
+
+/**
+ * Thrown when an export cannot start because the maximum number of exports are already running.
+ */
+public class ExportLimitException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public ExportLimitException(int maxConcurrentExports) {
+        super("Too many exports running (at most " + maxConcurrentExports + "), try again later");
+    }
+}
@@ -0,0 +1,13 @@
+package com.isoft.rfid.service;
+
+/**
+ * Thrown when the cursor of a cursor search cannot be decoded, or its point in time has expired.
+ */
+public class InvalidCursorException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public InvalidCursorException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
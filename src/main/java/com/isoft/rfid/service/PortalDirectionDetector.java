@@ -0,0 +1,436 @@
+package com.isoft.rfid.service;
+
+import com.isoft.rfid.config.ApplicationProperties;
+import com.isoft.rfid.domain.PortalEvent;
+import com.isoft.rfid.domain.TagRead;
+import com.isoft.rfid.domain.enumeration.MovementDirection;
+import com.isoft.rfid.repository.search.PortalEventSearchRepository;
+import com.isoft.rfid.service.util.TimingWheel;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Detects the direction of the tags passing through the dock portals, and indexes it into the {@code portal-events} index.
+ * <p>
+ * A portal is a reader with antennas facing the outside and antennas facing the inside, see
+ * {@code application.direction.portals}. The reads of a tag by a portal form a passage, which ends once the portal has not
+ * read the tag for {@code application.direction.window}. The direction is told from the timestamps of the reads, but
+ * the end of a passage is timed from when its reads are received: readers upload in batches and their clocks drift, so
+ * a passage stays open until no read of it has been received for the window, and a read stamped a window or more after
+ * the last one starts a new passage. The passage goes {@link MovementDirection#IN} when the outer
+ * antennas read the tag before the inner ones, {@link MovementDirection#OUT} in the other case; the confidence is how
+ * consistent that order is over all the pairs of outer and inner reads, and below
+ * {@code application.direction.min-confidence}, or when only one side read the tag, the direction is
+ * {@link MovementDirection#UNKNOWN}.
+ * <p>
+ * The EPCs are sharded by hash over {@code application.direction.workers} threads, each owning the passages of its EPCs
+ * and their timeouts in its own {@link TimingWheel}, so no state is shared between workers. The ingest path only queues
+ * the portal reads; when a worker falls behind and its queue is full, its reads are dropped rather than slowing
+ * ingestion down. It is fed the reads before duplicates and noise are dropped, so that every antenna reading a tag
+ * during a passage counts, however often and however weakly.
+ */
+@Service
+public class PortalDirectionDetector {
+
+    private static final long TICK_MILLIS = 100;
+
+    private static final long FLUSH_INTERVAL_MS = 1000;
+
+    private static final int MAX_PENDING_EVENTS = 100_000;
+
+    /**
+     * Reads of a passage kept for the direction; later ones only extend the passage.
+     */
+    private static final int MAX_OBSERVATIONS = 1024;
+
+    private static final byte INNER = 1;
+
+    private static final byte OUTER = 2;
+
+    private final Logger log = LoggerFactory.getLogger(PortalDirectionDetector.class);
+
+    private final boolean enabled;
+
+    private final long windowMillis;
+
+    private final double minConfidence;
+
+    private final Map<String, PortalLayout> portalsByReader = new HashMap<>();
+
+    private final Shard[] shards;
+
+    private final PortalEventSearchRepository portalEventSearchRepository;
+
+    private final Queue<PortalEvent> pending = new ConcurrentLinkedQueue<>();
+
+    private final AtomicInteger pendingCount = new AtomicInteger();
+
+    private final Map<MovementDirection, Counter> eventCounters = new EnumMap<>(MovementDirection.class);
+
+    private final Counter droppedReadsCounter;
+
+    private volatile boolean running;
+
+    public PortalDirectionDetector(
+        ApplicationProperties applicationProperties,
+        PortalEventSearchRepository portalEventSearchRepository,
+        MeterRegistry meterRegistry
+    ) {
+        ApplicationProperties.Direction direction = applicationProperties.getDirection();
+        this.windowMillis = direction.getWindow().toMillis();
+        this.minConfidence = direction.getMinConfidence();
+        this.portalEventSearchRepository = portalEventSearchRepository;
+        List<ApplicationProperties.Direction.Portal> portals = direction.getPortals();
+        for (int i = 0; i < portals.size(); i++) {
+            ApplicationProperties.Direction.Portal portal = portals.get(i);
+            portalsByReader.put(portal.getReaderId(), new PortalLayout(i, portal));
+        }
+        this.enabled = direction.isEnabled() && !portalsByReader.isEmpty();
+        int workers = direction.getWorkers() > 0 ? direction.getWorkers() : Runtime.getRuntime().availableProcessors();
+        this.shards = new Shard[enabled ? workers : 0];
+        for (int i = 0; i < shards.length; i++) {
+            shards[i] = new Shard(portals.size(), Math.max(1, direction.getQueueCapacity()));
+        }
+        for (MovementDirection type : MovementDirection.values()) {
+            eventCounters.put(
+                type,
+                Counter
+                    .builder("rfid.portal.events")
+                    .description("Passages through a portal")
+                    .tag("direction", type.name().toLowerCase())
+                    .register(meterRegistry)
+            );
+        }
+        this.droppedReadsCounter =
+            Counter
+                .builder("rfid.portal.reads.dropped")
+                .description("Portal reads dropped because their worker was behind")
+                .baseUnit("reads")
+                .register(meterRegistry);
+        Gauge
+            .builder("rfid.portal.queue", this, PortalDirectionDetector::queuedBatches)
+            .description("Batches of portal reads waiting for a worker")
+            .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        for (int i = 0; i < shards.length; i++) {
+            Thread thread = new Thread(shards[i], "portal-direction-" + (i + 1));
+            thread.setDaemon(true);
+            shards[i].thread = thread;
+            thread.start();
+        }
+        log.info("Detecting the direction through {} portals with {} workers", portalsByReader.size(), shards.length);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (!running) {
+            return;
+        }
+        running = false;
+        for (Shard shard : shards) {
+            shard.thread.interrupt();
+        }
+        for (Shard shard : shards) {
+            shard.thread.join(TimeUnit.SECONDS.toMillis(5));
+        }
+        flush();
+    }
+
+    /**
+     * Hands the portal reads of a batch to the workers owning their EPCs.
+     *
+     * @param reads validated reads, with an EPC, a reader id and a timestamp, duplicates and noise included; the list is
+     * not kept, so it may be modified afterwards.
+     */
+    public void process(List<TagRead> reads) {
+        if (!enabled) {
+            return;
+        }
+        @SuppressWarnings("unchecked")
+        List<TagRead>[] byShard = new List[shards.length];
+        for (int i = 0, n = reads.size(); i < n; i++) {
+            TagRead read = reads.get(i);
+            PortalLayout portal = portalsByReader.get(read.getReaderId());
+            if (portal == null || portal.side(read.getAntenna()) == 0 || read.getEpc() == null || read.getTimestamp() == null) {
+                continue;
+            }
+            int shard = (read.getEpc().hashCode() & Integer.MAX_VALUE) % shards.length;
+            if (byShard[shard] == null) {
+                byShard[shard] = new ArrayList<>();
+            }
+            byShard[shard].add(read);
+        }
+        for (int shard = 0; shard < byShard.length; shard++) {
+            if (byShard[shard] != null && !shards[shard].queue.offer(byShard[shard])) {
+                droppedReadsCounter.increment(byShard[shard].size());
+            }
+        }
+    }
+
+    /**
+     * Indexes the passages that ended; on failure they are kept for the next flush.
+     */
+    @Scheduled(fixedDelay = FLUSH_INTERVAL_MS)
+    public void flush() {
+        List<PortalEvent> batch = new ArrayList<>();
+        PortalEvent event;
+        while ((event = pending.poll()) != null) {
+            batch.add(event);
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+        pendingCount.addAndGet(-batch.size());
+        try {
+            portalEventSearchRepository.saveAll(batch);
+        } catch (DataAccessException e) {
+            log.warn("Could not index {} portal events, will retry: {}", batch.size(), e.getMessage());
+            batch.forEach(this::enqueue);
+        }
+    }
+
+    /**
+     * Returns the share of the (outer read, inner read) pairs where the outer read came first, reads at the same time
+     * counting for half.
+     *
+     * @param times the time of each read, in milliseconds.
+     * @param sides the side of each read, {@link #INNER} or {@link #OUTER}.
+     * @param count the number of reads.
+     * @return the share, or {@code NaN} if one of the sides never read the tag.
+     */
+    static double outerFirstRatio(long[] times, byte[] sides, int count) {
+        long[] keys = new long[count];
+        for (int i = 0; i < count; i++) {
+            keys[i] = (times[i] << 1) | (sides[i] == INNER ? 1 : 0);
+        }
+        Arrays.sort(keys);
+        double outerFirst = 0;
+        long outerBefore = 0;
+        long inner = 0;
+        int i = 0;
+        while (i < count) {
+            long time = keys[i] >> 1;
+            long groupOuter = 0;
+            long groupInner = 0;
+            for (; i < count && keys[i] >> 1 == time; i++) {
+                if ((keys[i] & 1) == 1) {
+                    groupInner++;
+                } else {
+                    groupOuter++;
+                }
+            }
+            outerFirst += groupInner * outerBefore + 0.5 * groupInner * groupOuter;
+            outerBefore += groupOuter;
+            inner += groupInner;
+        }
+        long pairs = outerBefore * inner;
+        return pairs == 0 ? Double.NaN : outerFirst / pairs;
+    }
+
+    private PortalEvent toEvent(Passage passage) {
+        double ratio = outerFirstRatio(passage.times, passage.sides, passage.count);
+        double confidence = Double.isNaN(ratio) ? 0 : Math.abs(2 * ratio - 1);
+        MovementDirection direction;
+        if (confidence < minConfidence || confidence == 0) {
+            direction = MovementDirection.UNKNOWN;
+        } else {
+            direction = ratio > 0.5 ? MovementDirection.IN : MovementDirection.OUT;
+        }
+        return new PortalEvent()
+            .id(UUID.randomUUID().toString())
+            .epc(passage.epc)
+            .portalId(passage.portal.id)
+            .direction(direction)
+            .confidence(confidence)
+            .firstSeen(Instant.ofEpochMilli(passage.firstSeen))
+            .lastSeen(Instant.ofEpochMilli(passage.lastSeen))
+            .readCount(passage.readCount);
+    }
+
+    private void enqueue(PortalEvent event) {
+        pending.add(event);
+        if (pendingCount.incrementAndGet() > MAX_PENDING_EVENTS && pending.poll() != null) {
+            pendingCount.decrementAndGet();
+        }
+    }
+
+    private double queuedBatches() {
+        int queued = 0;
+        for (Shard shard : shards) {
+            queued += shard.queue.size();
+        }
+        return queued;
+    }
+
+    /**
+     * Worker owning the passages of one shard of the EPCs.
+     */
+    private final class Shard implements Runnable {
+
+        private final BlockingQueue<List<TagRead>> queue;
+
+        private final Map<String, Passage>[] passages;
+
+        private final TimingWheel<Passage> wheel = new TimingWheel<>(TICK_MILLIS, System.currentTimeMillis());
+
+        private Thread thread;
+
+        @SuppressWarnings("unchecked")
+        private Shard(int portals, int queueCapacity) {
+            this.queue = new ArrayBlockingQueue<>(queueCapacity);
+            this.passages = new Map[portals];
+            for (int i = 0; i < portals; i++) {
+                passages[i] = new HashMap<>();
+            }
+        }
+
+        @Override
+        public void run() {
+            while (running) {
+                try {
+                    List<TagRead> batch = queue.poll(TICK_MILLIS, TimeUnit.MILLISECONDS);
+                    if (batch != null) {
+                        long receivedAt = System.currentTimeMillis();
+                        for (TagRead read : batch) {
+                            observe(read, receivedAt);
+                        }
+                    }
+                    wheel.advance(System.currentTimeMillis(), this::close);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                } catch (RuntimeException e) {
+                    log.error("Portal direction worker failed on a batch", e);
+                }
+            }
+        }
+
+        /**
+         * Adds a read to the passage of its tag, which then ends a window after the read was received.
+         *
+         * @param read the read.
+         * @param receivedAt when the batch of the read was taken from the queue, in server time.
+         */
+        private void observe(TagRead read, long receivedAt) {
+            PortalLayout portal = portalsByReader.get(read.getReaderId());
+            Map<String, Passage> open = passages[portal.index];
+            long time = read.getTimestamp().toEpochMilli();
+            Passage passage = open.get(read.getEpc());
+            if (passage != null && time - passage.lastSeen >= windowMillis) {
+                // The reads of two passages received together, as in a batch uploaded late.
+                wheel.cancel(passage);
+                close(passage);
+                passage = null;
+            }
+            if (passage == null) {
+                passage = new Passage(read.getEpc(), portal);
+                open.put(read.getEpc(), passage);
+            }
+            passage.add(time, portal.side(read.getAntenna()));
+            wheel.schedule(passage, receivedAt + windowMillis);
+        }
+
+        private void close(Passage passage) {
+            passages[passage.portal.index].remove(passage.epc);
+            PortalEvent event = toEvent(passage);
+            eventCounters.get(event.getDirection()).increment();
+            enqueue(event);
+        }
+    }
+
+    /**
+     * The reads of a tag by a portal, until the portal stops reading it.
+     */
+    private static final class Passage extends TimingWheel.Timeout {
+
+        private final String epc;
+
+        private final PortalLayout portal;
+
+        private long[] times = new long[16];
+
+        private byte[] sides = new byte[16];
+
+        private int count;
+
+        private int readCount;
+
+        private long firstSeen = Long.MAX_VALUE;
+
+        private long lastSeen = Long.MIN_VALUE;
+
+        private Passage(String epc, PortalLayout portal) {
+            this.epc = epc;
+            this.portal = portal;
+        }
+
+        private void add(long time, byte side) {
+            readCount++;
+            firstSeen = Math.min(firstSeen, time);
+            lastSeen = Math.max(lastSeen, time);
+            if (count == MAX_OBSERVATIONS) {
+                return;
+            }
+            if (count == times.length) {
+                times = Arrays.copyOf(times, count * 2);
+                sides = Arrays.copyOf(sides, count * 2);
+            }
+            times[count] = time;
+            sides[count] = side;
+            count++;
+        }
+    }
+
+    private static final class PortalLayout {
+
+        private final int index;
+
+        private final String id;
+
+        private final Map<Integer, Byte> sides = new HashMap<>();
+
+        private PortalLayout(int index, ApplicationProperties.Direction.Portal portal) {
+            this.index = index;
+            this.id = portal.getId();
+            portal.getInnerAntennas().forEach(antenna -> sides.put(antenna, INNER));
+            portal.getOuterAntennas().forEach(antenna -> sides.put(antenna, OUTER));
+        }
+
+        /**
+         * Returns the side of an antenna, or {@code 0} if it is not one of the portal antennas.
+         */
+        private byte side(Integer antenna) {
+            Byte side = antenna == null ? null : sides.get(antenna);
+            return side == null ? 0 : side;
+        }
+    }
+}
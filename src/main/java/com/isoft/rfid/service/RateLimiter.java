@@ -0,0 +1,194 @@
+package com.isoft.rfid.service;
+
+import com.isoft.rfid.config.ApplicationProperties;
+import com.isoft.rfid.service.util.TokenBucket;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.AntPathMatcher;
+
+/**
+ * Rate limiter of the API, with one {@link TokenBucket} per client and per endpoint group of
+ * {@code application.rate-limit.groups}.
+ * <p>
+ * The buckets of a group are spread over independent maps by the hash of the client, so that a burst of new clients,
+ * such as many anonymous addresses, only resizes one stripe at a time and admitting a known client is a lookup and a
+ * compare-and-set. Buckets that are full again are dropped by {@link #sweep()}: they would behave as new ones anyway.
+ * <p>
+ * Rejections are counted in {@code rfid.ratelimit.rejected}, per group and per client; anonymous clients, limited per
+ * remote address, are counted together so that the number of series stays bounded.
+ */
+@Service
+public class RateLimiter {
+
+    public static final String ANONYMOUS_CLIENT = "anonymous";
+
+    private final Logger log = LoggerFactory.getLogger(RateLimiter.class);
+
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+
+    private final MeterRegistry meterRegistry;
+
+    private final boolean enabled;
+
+    private final Group[] groups;
+
+    public RateLimiter(MeterRegistry meterRegistry, ApplicationProperties applicationProperties) {
+        ApplicationProperties.RateLimit properties = applicationProperties.getRateLimit();
+        this.meterRegistry = meterRegistry;
+        this.enabled = properties.isEnabled();
+        int stripes = Integer.highestOneBit(Math.max(1, properties.getStripes()) * 2 - 1);
+        this.groups = properties.getGroups().stream().map(group -> new Group(group, stripes)).toArray(Group[]::new);
+        log.debug("Rate limiting {} endpoint groups", enabled ? groups.length : 0);
+    }
+
+    /**
+     * Takes a token from the bucket of a client for the endpoint group of a path.
+     *
+     * @param path the path of the request, within the application.
+     * @param client the name of the principal or device, or the remote address of an anonymous client.
+     * @param anonymous whether the client is anonymous.
+     * @return {@code 0} if the request is admitted, otherwise the nanoseconds until it would be.
+     */
+    public long acquire(String path, String client, boolean anonymous) {
+        return acquire(path, client, anonymous, System.nanoTime());
+    }
+
+    long acquire(String path, String client, boolean anonymous, long nowNanos) {
+        if (!enabled) {
+            return 0;
+        }
+        Group group = groupFor(path);
+        return group != null ? group.acquire(client, anonymous, nowNanos) : 0;
+    }
+
+    /**
+     * Forget the buckets that are full again.
+     */
+    @Scheduled(fixedDelayString = "${application.rate-limit.sweep-interval:PT1M}")
+    public void sweep() {
+        sweep(System.nanoTime());
+    }
+
+    void sweep(long nowNanos) {
+        for (Group group : groups) {
+            group.sweep(nowNanos);
+        }
+    }
+
+    private Group groupFor(String path) {
+        for (Group group : groups) {
+            for (String pattern : group.paths) {
+                if (pathMatcher.match(pattern, path)) {
+                    return group;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * The buckets of the clients of an endpoint group.
+     */
+    private final class Group {
+
+        private final String name;
+
+        private final List<String> paths;
+
+        private final int capacity;
+
+        private final double refillPerSecond;
+
+        private final ConcurrentHashMap<String, Client>[] stripes;
+
+        private Counter anonymousRejected;
+
+        @SuppressWarnings("unchecked")
+        private Group(ApplicationProperties.RateLimit.Group properties, int stripeCount) {
+            this.name = properties.getName();
+            this.paths = List.copyOf(properties.getPaths());
+            this.capacity = properties.getCapacity();
+            this.refillPerSecond = properties.getRefillPerSecond();
+            this.stripes = new ConcurrentHashMap[stripeCount];
+            for (int i = 0; i < stripeCount; i++) {
+                stripes[i] = new ConcurrentHashMap<>();
+            }
+            Gauge
+                .builder("rfid.ratelimit.clients", this, Group::size)
+                .description("Clients with a bucket, until it is full again and swept")
+                .tag("group", name)
+                .register(meterRegistry);
+        }
+
+        private long acquire(String client, boolean anonymous, long nowNanos) {
+            // The maps use the low bits of the hash, so the stripe is picked from the high bits of a scrambled one.
+            ConcurrentHashMap<String, Client> stripe = stripes[(client.hashCode() * 0x9E3779B9 >>> 16) & (stripes.length - 1)];
+            Client state = stripe.get(client);
+            if (state == null) {
+                state = stripe.computeIfAbsent(client, key -> new Client(new TokenBucket(capacity, refillPerSecond, nowNanos)));
+            }
+            long wait = state.bucket.tryAcquire(nowNanos);
+            if (wait > 0) {
+                rejected(state, client, anonymous).increment();
+            }
+            return wait;
+        }
+
+        private Counter rejected(Client state, String client, boolean anonymous) {
+            if (anonymous) {
+                if (anonymousRejected == null) {
+                    anonymousRejected = counter(ANONYMOUS_CLIENT);
+                }
+                return anonymousRejected;
+            }
+            if (state.rejected == null) {
+                state.rejected = counter(client);
+            }
+            return state.rejected;
+        }
+
+        private Counter counter(String client) {
+            // Registering again returns the same counter, so racing threads and swept clients keep counting in one series.
+            return Counter
+                .builder("rfid.ratelimit.rejected")
+                .description("Requests rejected for exceeding the rate limit of their client")
+                .baseUnit("requests")
+                .tag("group", name)
+                .tag("client", client)
+                .register(meterRegistry);
+        }
+
+        private void sweep(long nowNanos) {
+            // A token taken while its bucket is being removed is forgotten with it, which only errs on the side of the client.
+            for (ConcurrentHashMap<String, Client> stripe : stripes) {
+                stripe.values().removeIf(client -> client.bucket.isFull(nowNanos));
+            }
+        }
+
+        private double size() {
+            long size = 0;
+            for (ConcurrentHashMap<String, Client> stripe : stripes) {
+                size += stripe.size();
+            }
+            return size;
+        }
+    }
+
+    private static final class Client {
+
+        private final TokenBucket bucket;
+
+        private Counter rejected;
+
+        private Client(TokenBucket bucket) {
+            this.bucket = bucket;
+        }
+    }
+}
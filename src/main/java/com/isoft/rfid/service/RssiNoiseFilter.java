@@ -0,0 +1,335 @@
+package com.isoft.rfid.service;
+
+import com.isoft.rfid.config.ApplicationProperties;
+import com.isoft.rfid.domain.TagRead;
+import com.isoft.rfid.service.util.EpcHex;
+import com.isoft.rfid.service.util.StringDictionary;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.ArrayList;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+/**
+ * Drops the ghost reads and the cross-reads, from the RSSI of each tag.
+ * <p>
+ * Every tag has a moving estimate of its RSSI, the exponentially weighted mean and variance of its reads. A read weaker
+ * than {@code application.ingest.filter.min-rssi}, or weaker than the estimate of its tag by more than
+ * {@code application.ingest.filter.deviations} standard deviations, is a ghost read. A tag is also attributed to the
+ * antenna reading it the strongest: for {@code application.ingest.filter.attribution-window} after the last read by that
+ * antenna, reads by other antennas more than {@code application.ingest.filter.cross-read-margin} dB weaker are
+ * cross-reads from a neighbouring portal. Dropped reads still update the estimate, so a tag moving away is followed
+ * rather than filtered out; reads without an RSSI are kept.
+ * <p>
+ * The state of the tags is held in an open-addressing table of primitive arrays, keyed on the EPC as two {@code long}s,
+ * purged of the tags not read for {@code application.ingest.filter.idle-timeout} when it fills up; the reads of readers
+ * beyond the first {@code application.ingest.max-readers} are only checked against the minimum RSSI. The share of dropped
+ * reads of each reader is exposed as the {@code rfid.ingest.filter.drop.ratio} gauge; reader ids come from the clients,
+ * so only the first {@code application.ingest.filter.max-tagged-readers} readers get their own series, and the others
+ * share the {@value #OTHER_READERS} one.
+ */
+@Service
+public class RssiNoiseFilter implements TagReadFilter {
+
+    private static final double MAX_LOAD_FACTOR = 0.75;
+
+    /**
+     * Floor of the standard deviation, in dB, so that a very steady tag does not lose every slightly weaker read.
+     */
+    private static final double MIN_DEVIATION = 1;
+
+    static final String OTHER_READERS = "other";
+
+    private final Logger log = LoggerFactory.getLogger(RssiNoiseFilter.class);
+
+    private final boolean enabled;
+
+    private final double alpha;
+
+    private final double deviations;
+
+    private final double minRssi;
+
+    private final int warmUpReads;
+
+    private final long attributionWindowMillis;
+
+    private final double crossReadMargin;
+
+    private final long idleTimeoutMillis;
+
+    private final int maxTaggedReaders;
+
+    private final int capacity;
+
+    private final int mask;
+
+    private final int maxSize;
+
+    private final MeterRegistry meterRegistry;
+
+    private final StringDictionary readers;
+
+    private final List<ReaderStats> readerStats = new ArrayList<>();
+
+    private ReaderStats otherReaderStats;
+
+    private long[] keyHigh;
+
+    private long[] keyLow;
+
+    /**
+     * Length of the EPC; {@code 0} marks a free slot.
+     */
+    private byte[] keyLength;
+
+    private double[] mean;
+
+    private double[] variance;
+
+    private int[] readCount;
+
+    private long[] lastSeen;
+
+    /**
+     * Reader code and antenna of the antenna the tag is attributed to.
+     */
+    private long[] bestSource;
+
+    private double[] bestRssi;
+
+    private long[] bestSeen;
+
+    private int size;
+
+    private long newestTimestamp;
+
+    public RssiNoiseFilter(ApplicationProperties applicationProperties, MeterRegistry meterRegistry) {
+        ApplicationProperties.Ingest.Filter filter = applicationProperties.getIngest().getFilter();
+        this.enabled = filter.isEnabled();
+        this.alpha = filter.getAlpha();
+        this.deviations = filter.getDeviations();
+        this.minRssi = filter.getMinRssi();
+        this.warmUpReads = filter.getWarmUpReads();
+        this.attributionWindowMillis = filter.getAttributionWindow().toMillis();
+        this.crossReadMargin = filter.getCrossReadMargin();
+        this.idleTimeoutMillis = filter.getIdleTimeout().toMillis();
+        this.maxTaggedReaders = Math.max(0, filter.getMaxTaggedReaders());
+        this.readers = new StringDictionary("reader ids", applicationProperties.getIngest().getMaxReaders());
+        this.capacity = Integer.highestOneBit(Math.max(16, filter.getCapacity() - 1)) << 1;
+        this.mask = capacity - 1;
+        this.maxSize = (int) (capacity * MAX_LOAD_FACTOR);
+        this.meterRegistry = meterRegistry;
+        allocate();
+    }
+
+    @Override
+    public void filter(List<TagRead> reads) {
+        if (!enabled) {
+            return;
+        }
+        int kept = 0;
+        synchronized (this) {
+            for (int i = 0, n = reads.size(); i < n; i++) {
+                TagRead read = reads.get(i);
+                ReaderStats stats = stats(read.getReaderId());
+                stats.seen++;
+                if (isNoise(read)) {
+                    stats.dropped++;
+                    stats.droppedCounter.increment();
+                } else {
+                    reads.set(kept++, read);
+                }
+            }
+        }
+        if (kept < reads.size()) {
+            reads.subList(kept, reads.size()).clear();
+        }
+    }
+
+    private boolean isNoise(TagRead read) {
+        String epc = read.getEpc();
+        Double value = read.getRssi();
+        if (value == null) {
+            return false;
+        }
+        double rssi = value;
+        if (rssi < minRssi) {
+            return true;
+        }
+        if (!EpcHex.isValid(epc)) {
+            return false;
+        }
+        int reader = readers.encode(read.getReaderId());
+        if (reader < 0) {
+            return false;
+        }
+        long high = EpcHex.high(epc);
+        long low = EpcHex.low(epc);
+        int antenna = read.getAntenna() == null ? 0 : read.getAntenna();
+        long source = ((long) reader << 16) | (antenna & 0xFFFFL);
+        long time = read.getTimestamp().toEpochMilli();
+        if (time > newestTimestamp) {
+            newestTimestamp = time;
+        }
+
+        int slot = find(high, low, epc.length());
+        if (keyLength[slot] == 0 || time - lastSeen[slot] > idleTimeoutMillis) {
+            if (keyLength[slot] == 0) {
+                if (size >= maxSize) {
+                    purge();
+                    slot = find(high, low, epc.length());
+                }
+                keyHigh[slot] = high;
+                keyLow[slot] = low;
+                keyLength[slot] = (byte) epc.length();
+                size++;
+            }
+            mean[slot] = rssi;
+            variance[slot] = 0;
+            readCount[slot] = 1;
+            lastSeen[slot] = time;
+            bestSource[slot] = source;
+            bestRssi[slot] = rssi;
+            bestSeen[slot] = time;
+            return false;
+        }
+
+        boolean noise =
+            readCount[slot] >= warmUpReads && rssi < mean[slot] - deviations * Math.max(MIN_DEVIATION, Math.sqrt(variance[slot]));
+        if (bestSource[slot] == source) {
+            bestRssi[slot] += alpha * (rssi - bestRssi[slot]);
+            bestSeen[slot] = Math.max(bestSeen[slot], time);
+        } else if (time - bestSeen[slot] > attributionWindowMillis || rssi > bestRssi[slot]) {
+            bestSource[slot] = source;
+            bestRssi[slot] = rssi;
+            bestSeen[slot] = time;
+        } else if (rssi < bestRssi[slot] - crossReadMargin) {
+            noise = true;
+        }
+
+        double delta = rssi - mean[slot];
+        double increment = alpha * delta;
+        mean[slot] += increment;
+        variance[slot] = (1 - alpha) * (variance[slot] + delta * increment);
+        readCount[slot]++;
+        lastSeen[slot] = Math.max(lastSeen[slot], time);
+        return noise;
+    }
+
+    /**
+     * Returns the slot of a tag, or the free slot where it goes.
+     */
+    private int find(long high, long low, int length) {
+        int slot = (int) EpcHex.hash(high, low, length) & mask;
+        while (keyLength[slot] != 0) {
+            if (keyLength[slot] == length && keyHigh[slot] == high && keyLow[slot] == low) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Rebuilds the table without the idle tags, clearing it if that does not free enough room.
+     */
+    private void purge() {
+        long[] oldHigh = keyHigh;
+        long[] oldLow = keyLow;
+        byte[] oldLength = keyLength;
+        double[] oldMean = mean;
+        double[] oldVariance = variance;
+        int[] oldReadCount = readCount;
+        long[] oldLastSeen = lastSeen;
+        long[] oldBestSource = bestSource;
+        double[] oldBestRssi = bestRssi;
+        long[] oldBestSeen = bestSeen;
+        allocate();
+        long horizon = newestTimestamp - idleTimeoutMillis;
+        int live = 0;
+        for (int i = 0; i < oldLength.length; i++) {
+            if (oldLength[i] != 0 && oldLastSeen[i] > horizon) {
+                live++;
+            }
+        }
+        if (live >= maxSize / 2) {
+            log.warn("RSSI filter table is full with {} live tags, clearing it; consider a larger capacity", live);
+            return;
+        }
+        for (int i = 0; i < oldLength.length; i++) {
+            if (oldLength[i] != 0 && oldLastSeen[i] > horizon) {
+                int slot = find(oldHigh[i], oldLow[i], oldLength[i]);
+                keyHigh[slot] = oldHigh[i];
+                keyLow[slot] = oldLow[i];
+                keyLength[slot] = oldLength[i];
+                mean[slot] = oldMean[i];
+                variance[slot] = oldVariance[i];
+                readCount[slot] = oldReadCount[i];
+                lastSeen[slot] = oldLastSeen[i];
+                bestSource[slot] = oldBestSource[i];
+                bestRssi[slot] = oldBestRssi[i];
+                bestSeen[slot] = oldBestSeen[i];
+                size++;
+            }
+        }
+    }
+
+    private void allocate() {
+        keyHigh = new long[capacity];
+        keyLow = new long[capacity];
+        keyLength = new byte[capacity];
+        mean = new double[capacity];
+        variance = new double[capacity];
+        readCount = new int[capacity];
+        lastSeen = new long[capacity];
+        bestSource = new long[capacity];
+        bestRssi = new double[capacity];
+        bestSeen = new long[capacity];
+        size = 0;
+    }
+
+    private ReaderStats stats(String readerId) {
+        int code = readers.encode(readerId);
+        if (code < 0 || code >= maxTaggedReaders) {
+            if (otherReaderStats == null) {
+                otherReaderStats = new ReaderStats(OTHER_READERS);
+            }
+            return otherReaderStats;
+        }
+        while (readerStats.size() <= code) {
+            readerStats.add(new ReaderStats(readers.decode(readerStats.size())));
+        }
+        return readerStats.get(code);
+    }
+
+    /**
+     * Reads seen and dropped for one reader, or for all the readers beyond the tagged ones, since the start.
+     */
+    private final class ReaderStats {
+
+        private final Counter droppedCounter;
+
+        private volatile long seen;
+
+        private volatile long dropped;
+
+        private ReaderStats(String readerId) {
+            this.droppedCounter =
+                Counter
+                    .builder("rfid.ingest.filter.dropped")
+                    .description("Tag reads dropped as ghost reads or cross-reads")
+                    .baseUnit("reads")
+                    .tag("reader", readerId)
+                    .register(meterRegistry);
+            Gauge
+                .builder("rfid.ingest.filter.drop.ratio", this, stats -> stats.seen == 0 ? 0 : (double) stats.dropped / stats.seen)
+                .description("Share of the reads dropped as ghost reads or cross-reads")
+                .tag("reader", readerId)
+                .register(meterRegistry);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.isoft.rfid.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.isoft.rfid.config.ApplicationProperties;
+import com.isoft.rfid.domain.TagRead;
+import com.isoft.rfid.repository.search.TagReadIndexGenerations;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.util.function.Supplier;
+import org.springframework.data.domain.Page;
+import org.springframework.stereotype.Service;
+
+/**
+ * Cache of the pages of {@link TagRead}s returned by searches, bounded by their estimated size.
+ * <p>
+ * A page is cached under its normalized query and the refresh generation of the partitions it was searched in, so
+ * that it is never served once new reads became visible there: a refresh changes the generation, and the stale pages
+ * are simply no longer looked up, until they are evicted. Pages are only as stale as the generations, which are checked
+ * at most once per {@code application.search.cache.generation-check-interval}: with the default of zero, before every
+ * lookup, so a page is never served after a refresh made new reads visible; with an interval, a page may be served for
+ * up to that long after such a refresh. Searches are run without the cache when the generations are unknown.
+ * <p>
+ * Hits, misses and evictions are published as the {@code cache.*} metrics of the {@code tag-read-search} cache.
+ */
+@Service
+public class SearchResultCache {
+
+    /**
+     * Estimated size of a cached read, in bytes.
+     */
+    static final int READ_WEIGHT = 300;
+
+    private static final String CACHE_NAME = "tag-read-search";
+
+    private final TagReadIndexGenerations tagReadIndexGenerations;
+
+    private final boolean enabled;
+
+    private final Cache<String, Page<TagRead>> cache;
+
+    public SearchResultCache(
+        TagReadIndexGenerations tagReadIndexGenerations,
+        MeterRegistry meterRegistry,
+        ApplicationProperties applicationProperties
+    ) {
+        ApplicationProperties.Search.Cache properties = applicationProperties.getSearch().getCache();
+        this.tagReadIndexGenerations = tagReadIndexGenerations;
+        this.enabled = properties.isEnabled();
+        this.cache =
+            Caffeine
+                .newBuilder()
+                .maximumWeight(properties.getMaxSize().toBytes())
+                .<String, Page<TagRead>>weigher((key, page) -> key.length() * 2 + page.getNumberOfElements() * READ_WEIGHT)
+                .expireAfterAccess(properties.getExpireAfterAccess())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    /**
+     * Returns the cached page of a query, searching and caching it if there is none for the current generation.
+     *
+     * @param query the normalized query, equal for all the searches returning the same page.
+     * @param indices the indices searched, as given by {@link com.isoft.rfid.repository.search.TagReadIndices#indicesFor}.
+     * @param search runs the search.
+     * @return the page of reads.
+     */
+    public Page<TagRead> get(String query, String[] indices, Supplier<Page<TagRead>> search) {
+        if (!enabled) {
+            return search.get();
+        }
+        long generation = tagReadIndexGenerations.generation(indices);
+        if (generation < 0) {
+            return search.get();
+        }
+        String key = query + '#' + generation;
+        Page<TagRead> page = cache.getIfPresent(key);
+        if (page == null) {
+            // Searched outside of the cache, which would otherwise lock other keys while waiting for Elasticsearch;
+            // identical searches are coalesced by the caller.
+            page = search.get();
+            cache.put(key, page);
+        }
+        return page;
+    }
+}
@@ -0,0 +1,472 @@
+package com.isoft.rfid.service;
+
+import com.isoft.rfid.config.ApplicationProperties;
+import com.isoft.rfid.domain.TagRead;
+import com.isoft.rfid.repository.search.TagReadSearchRepository;
+import com.isoft.rfid.service.dto.TagLocationDTO;
+import com.isoft.rfid.service.util.EpcHex;
+import com.isoft.rfid.service.util.StringDictionary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * In-memory view of the last known location of every tag, updated on the ingest path.
+ * <p>
+ * Each EPC maps to the reader, antenna, zone and timestamp of its newest read, held in an open-addressing table of
+ * primitive arrays keyed on the EPC as two {@code long}s, with the reader and the zone as dictionary codes: about 33
+ * bytes per slot, so 20 million tags fit in about 1 GB. Reads older than the known location are ignored, so reads may be
+ * applied in any order and more than once. EPCs that are not hexadecimal are not tracked, nor are the reads of readers
+ * beyond the first {@code application.ingest.max-readers} or of zones beyond the first
+ * {@code application.location.max-zones}, as reader ids and zones come from the clients.
+ * <p>
+ * The table is written to a snapshot file every {@code application.location.snapshot-interval} and at shutdown. At boot,
+ * the snapshot is restored, then the reads from {@code application.location.replay-margin} before its newest read are
+ * replayed from Elasticsearch before the application is reported ready, but no more than the last
+ * {@code application.location.max-replay} of them. The newest read is taken no later than the time of the snapshot, so
+ * that a read stamped in the future by a skewed clock does not make the replay skip the reads before it.
+ */
+@Service
+public class TagLocationView {
+
+    static final String SNAPSHOT_FILE = "tag-locations.snapshot";
+
+    private static final int SNAPSHOT_MAGIC = 0x544C4F43;
+
+    private static final int SNAPSHOT_VERSION = 1;
+
+    private static final int SNAPSHOT_CHUNK = 1 << 16;
+
+    private static final int REPLAY_BATCH_SIZE = 5000;
+
+    private static final double MAX_LOAD_FACTOR = 0.75;
+
+    /**
+     * Largest reader code plus one that fits in the packed location, leaving its sign bit clear.
+     */
+    private static final long MAX_READER = (1L << 23) - 1;
+
+    /**
+     * Largest zone code plus one that fits in the packed location.
+     */
+    private static final long MAX_ZONE = (1L << 24) - 1;
+
+    private final Logger log = LoggerFactory.getLogger(TagLocationView.class);
+
+    private final boolean enabled;
+
+    private final int initialCapacity;
+
+    private final Path snapshotFile;
+
+    private final Duration replayMargin;
+
+    private final Duration initialReplay;
+
+    private final Duration maxReplay;
+
+    private final TagReadSearchRepository tagReadSearchRepository;
+
+    private final StringDictionary readers;
+
+    private final StringDictionary zones;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private long[] keyHigh;
+
+    private long[] keyLow;
+
+    /**
+     * Number of hex digits of the EPC; {@code 0} marks a free slot.
+     */
+    private byte[] keyLength;
+
+    /**
+     * Reader code, zone code and antenna packed together, see {@link #pack(TagRead)}.
+     */
+    private long[] location;
+
+    private long[] timestamp;
+
+    private int mask;
+
+    private int maxSize;
+
+    private volatile int size;
+
+    private volatile long newestTimestamp = Long.MIN_VALUE;
+
+    private Instant restoredUpTo;
+
+    public TagLocationView(
+        ApplicationProperties applicationProperties,
+        TagReadSearchRepository tagReadSearchRepository,
+        MeterRegistry meterRegistry
+    ) {
+        ApplicationProperties.Location properties = applicationProperties.getLocation();
+        this.enabled = properties.isEnabled();
+        this.initialCapacity = Integer.highestOneBit(Math.max(16, properties.getInitialCapacity() - 1)) << 1;
+        this.snapshotFile = Paths.get(properties.getSnapshotDirectory()).resolve(SNAPSHOT_FILE);
+        this.replayMargin = properties.getReplayMargin();
+        this.initialReplay = properties.getInitialReplay();
+        this.maxReplay = properties.getMaxReplay();
+        this.tagReadSearchRepository = tagReadSearchRepository;
+        this.readers = new StringDictionary("reader ids", (int) Math.min(applicationProperties.getIngest().getMaxReaders(), MAX_READER));
+        this.zones = new StringDictionary("zones", (int) Math.min(properties.getMaxZones(), MAX_ZONE));
+        allocate(enabled ? initialCapacity : 16);
+        Gauge
+            .builder("rfid.location.tags", this, TagLocationView::size)
+            .description("Tags whose last location is known")
+            .baseUnit("tags")
+            .register(meterRegistry);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Applies a batch of reads, keeping for each EPC the newest one.
+     *
+     * @param reads validated reads, with an EPC, a reader id and a timestamp.
+     */
+    public void update(List<TagRead> reads) {
+        if (!enabled || reads.isEmpty()) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            for (int i = 0, n = reads.size(); i < n; i++) {
+                TagRead read = reads.get(i);
+                String epc = read.getEpc();
+                if (epc == null || read.getReaderId() == null || read.getTimestamp() == null || !EpcHex.isValid(epc)) {
+                    continue;
+                }
+                long packed = pack(read);
+                if (packed < 0) {
+                    continue;
+                }
+                put(EpcHex.high(epc), EpcHex.low(epc), (byte) epc.length(), packed, read.getTimestamp().toEpochMilli());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the last known location of a tag.
+     *
+     * @param epc the EPC, in hex.
+     * @return the location, or empty if the tag was never read.
+     */
+    public Optional<TagLocationDTO> findLocation(String epc) {
+        if (!EpcHex.isValid(epc)) {
+            return Optional.empty();
+        }
+        long packed;
+        long time;
+        lock.readLock().lock();
+        try {
+            int slot = find(EpcHex.high(epc), EpcHex.low(epc), (byte) epc.length());
+            if (keyLength[slot] == 0) {
+                return Optional.empty();
+            }
+            packed = location[slot];
+            time = timestamp[slot];
+        } finally {
+            lock.readLock().unlock();
+        }
+        int antenna = (int) (packed & 0xFFFF);
+        int zone = (int) ((packed >>> 16) & 0xFFFFFF) - 1;
+        return Optional.of(
+            new TagLocationDTO(
+                epc,
+                readers.decode((int) (packed >>> 40) - 1),
+                antenna == 0 ? null : antenna,
+                zone < 0 ? null : zones.decode(zone),
+                Instant.ofEpochMilli(time)
+            )
+        );
+    }
+
+    /**
+     * Restores the table from the snapshot file, before any read is applied.
+     */
+    @PostConstruct
+    public void restore() {
+        if (!enabled || !Files.exists(snapshotFile)) {
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(snapshotFile), 1 << 16))) {
+            if (in.readInt() != SNAPSHOT_MAGIC || in.readInt() != SNAPSHOT_VERSION) {
+                log.warn("Ignoring {}: not a tag location snapshot of this version", snapshotFile);
+                return;
+            }
+            long watermark = in.readLong();
+            lock.writeLock().lock();
+            try {
+                byte length;
+                while ((length = in.readByte()) != 0) {
+                    put(in.readLong(), in.readLong(), length, in.readLong(), in.readLong());
+                }
+                readDictionary(in, readers);
+                readDictionary(in, zones);
+            } finally {
+                lock.writeLock().unlock();
+            }
+            if (watermark != Long.MIN_VALUE) {
+                // Snapshots written before the watermark was capped may hold a future one.
+                restoredUpTo = Instant.ofEpochMilli(Math.min(watermark, System.currentTimeMillis()));
+            }
+            log.info("Restored {} tag locations from {}", size, snapshotFile);
+        } catch (IOException e) {
+            log.warn("Could not restore the tag locations from {}, starting empty: {}", snapshotFile, e.getMessage());
+            lock.writeLock().lock();
+            try {
+                allocate(initialCapacity);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * Replays the reads indexed since the snapshot, or the last {@code application.location.initial-replay} of reads
+     * without one, up to {@code application.location.max-replay}.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void replay() {
+        if (!enabled) {
+            return;
+        }
+        Instant to = Instant.now();
+        Instant from = restoredUpTo != null ? restoredUpTo.minus(replayMargin) : to.minus(initialReplay);
+        if (from.isBefore(to.minus(maxReplay))) {
+            log.warn("Replaying only the last {} of tag reads, locations of the tags read before may be stale", maxReplay);
+            from = to.minus(maxReplay);
+        }
+        long replayed = 0;
+        try (Stream<TagRead> reads = tagReadSearchRepository.streamByTimeRange(from, to)) {
+            List<TagRead> batch = new ArrayList<>(REPLAY_BATCH_SIZE);
+            for (Iterator<TagRead> iterator = reads.iterator(); iterator.hasNext();) {
+                batch.add(iterator.next());
+                if (batch.size() == REPLAY_BATCH_SIZE || !iterator.hasNext()) {
+                    update(batch);
+                    replayed += batch.size();
+                    batch.clear();
+                }
+            }
+            log.info("Replayed {} tag reads since {}, {} tag locations known", replayed, from, size);
+        } catch (DataAccessException e) {
+            log.warn("Could not replay the tag reads since {}, locations may be stale: {}", from, e.getMessage());
+        }
+    }
+
+    /**
+     * Writes the table to the snapshot file, replacing the previous one only once the new one is complete.
+     * <p>
+     * The table is copied a chunk of slots at a time, so reads are only held back for the time of one chunk. Reads applied
+     * meanwhile may or may not be in the snapshot, which is harmless as they are newer than its watermark. A snapshot that
+     * overlaps a resize of the table is abandoned until the next interval.
+     */
+    @Scheduled(
+        initialDelayString = "${application.location.snapshot-interval:PT5M}",
+        fixedDelayString = "${application.location.snapshot-interval:PT5M}"
+    )
+    @PreDestroy
+    public synchronized void snapshot() {
+        if (!enabled) {
+            return;
+        }
+        Path temporary = snapshotFile.resolveSibling(SNAPSHOT_FILE + ".tmp");
+        try {
+            Files.createDirectories(snapshotFile.toAbsolutePath().getParent());
+            boolean complete;
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary), 1 << 16))) {
+                complete = writeSnapshot(out);
+            }
+            if (!complete) {
+                Files.deleteIfExists(temporary);
+                log.debug("Tag location table resized during the snapshot, will retry");
+                return;
+            }
+            Files.move(temporary, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log.debug("Wrote {} tag locations to {}", size, snapshotFile);
+        } catch (IOException e) {
+            log.warn("Could not write the tag location snapshot {}: {}", snapshotFile, e.getMessage());
+        }
+    }
+
+    private boolean writeSnapshot(DataOutputStream out) throws IOException {
+        long watermark = Math.min(newestTimestamp, System.currentTimeMillis());
+        int capacity;
+        lock.readLock().lock();
+        try {
+            capacity = keyLength.length;
+        } finally {
+            lock.readLock().unlock();
+        }
+        out.writeInt(SNAPSHOT_MAGIC);
+        out.writeInt(SNAPSHOT_VERSION);
+        out.writeLong(watermark);
+        for (int start = 0; start < capacity; start += SNAPSHOT_CHUNK) {
+            lock.readLock().lock();
+            try {
+                if (keyLength.length != capacity) {
+                    return false;
+                }
+                for (int i = start, end = Math.min(capacity, start + SNAPSHOT_CHUNK); i < end; i++) {
+                    if (keyLength[i] != 0) {
+                        out.writeByte(keyLength[i]);
+                        out.writeLong(keyHigh[i]);
+                        out.writeLong(keyLow[i]);
+                        out.writeLong(location[i]);
+                        out.writeLong(timestamp[i]);
+                    }
+                }
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+        out.writeByte(0);
+        // Codes are only ever added, so the dictionaries written last cover every code of the table.
+        writeDictionary(out, readers);
+        writeDictionary(out, zones);
+        return true;
+    }
+
+    private static void writeDictionary(DataOutputStream out, StringDictionary dictionary) throws IOException {
+        int size = dictionary.size();
+        out.writeInt(size);
+        for (int code = 0; code < size; code++) {
+            out.writeUTF(dictionary.decode(code));
+        }
+    }
+
+    /**
+     * Reads a dictionary into an empty one, so that the strings get back the codes stored in the table.
+     */
+    private static void readDictionary(DataInputStream in, StringDictionary dictionary) throws IOException {
+        int size = in.readInt();
+        for (int code = 0; code < size; code++) {
+            int assigned = dictionary.encode(in.readUTF());
+            if (assigned < 0) {
+                throw new IOException("Dictionary of " + size + " entries is over the maximum size");
+            }
+            if (assigned != code) {
+                throw new IOException("Duplicate dictionary entry " + code);
+            }
+        }
+    }
+
+    /**
+     * Packs the reader code in the top 23 bits, the zone code in the next 24 bits and the antenna in the low 16 bits.
+     *
+     * @return the packed location, or {@code -1} if the reader or the zone is not tracked, or its code does not fit.
+     */
+    private long pack(TagRead read) {
+        long reader = readers.encode(read.getReaderId()) + 1;
+        long zone = read.getZone() == null ? 0 : zones.encode(read.getZone()) + 1;
+        if (reader == 0 || reader > MAX_READER || (zone == 0 && read.getZone() != null) || zone > MAX_ZONE) {
+            return -1;
+        }
+        long antenna = read.getAntenna() == null ? 0 : read.getAntenna() & 0xFFFF;
+        return (reader << 40) | (zone << 16) | antenna;
+    }
+
+    /**
+     * Sets the location of an EPC, unless it already has a newer one. Must hold the write lock.
+     */
+    private void put(long high, long low, byte length, long packed, long time) {
+        if (time > newestTimestamp) {
+            newestTimestamp = time;
+        }
+        int slot = find(high, low, length);
+        if (keyLength[slot] != 0) {
+            if (timestamp[slot] > time) {
+                return;
+            }
+        } else {
+            if (size >= maxSize) {
+                grow();
+                slot = find(high, low, length);
+            }
+            keyHigh[slot] = high;
+            keyLow[slot] = low;
+            keyLength[slot] = length;
+            size++;
+        }
+        location[slot] = packed;
+        timestamp[slot] = time;
+    }
+
+    /**
+     * Returns the slot of an EPC, or the free slot where it would go.
+     */
+    private int find(long high, long low, byte length) {
+        int slot = (int) EpcHex.hash(high, low, length) & mask;
+        while (keyLength[slot] != 0 && (keyLength[slot] != length || keyHigh[slot] != high || keyLow[slot] != low)) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void grow() {
+        long[] oldHigh = keyHigh;
+        long[] oldLow = keyLow;
+        byte[] oldLength = keyLength;
+        long[] oldLocation = location;
+        long[] oldTimestamp = timestamp;
+        allocate(oldLength.length << 1);
+        for (int i = 0; i < oldLength.length; i++) {
+            if (oldLength[i] != 0) {
+                int slot = find(oldHigh[i], oldLow[i], oldLength[i]);
+                keyHigh[slot] = oldHigh[i];
+                keyLow[slot] = oldLow[i];
+                keyLength[slot] = oldLength[i];
+                location[slot] = oldLocation[i];
+                timestamp[slot] = oldTimestamp[i];
+                size++;
+            }
+        }
+        log.debug("Tag location table grown to {} slots", keyLength.length);
+    }
+
+    private void allocate(int capacity) {
+        keyHigh = new long[capacity];
+        keyLow = new long[capacity];
+        keyLength = new byte[capacity];
+        location = new long[capacity];
+        timestamp = new long[capacity];
+        mask = capacity - 1;
+        maxSize = (int) (capacity * MAX_LOAD_FACTOR);
+        size = 0;
+    }
+}
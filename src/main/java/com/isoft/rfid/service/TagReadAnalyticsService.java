@@ -0,0 +1,136 @@
+package com.isoft.rfid.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.isoft.rfid.config.ApplicationProperties;
+import com.isoft.rfid.domain.enumeration.ReadDimension;
+import com.isoft.rfid.repository.search.TagReadSearchRepository;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.Instant;
+import org.elasticsearch.search.aggregations.bucket.composite.CompositeAggregation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+/**
+ * Service computing time series of {@link com.isoft.rfid.domain.TagRead} counts, per reader or per zone.
+ * <p>
+ * Counts come from a composite aggregation paged after its last bucket, so that long ranges at a fine resolution are not
+ * limited by the maximum number of buckets of a search; each page is written to the stream as soon as it is fetched,
+ * as newline-delimited JSON ordered by time then by reader or zone. The buckets are the coarsest of {@link #INTERVALS}
+ * that is no coarser than the requested resolution, so that Elasticsearch computes as few buckets as possible.
+ */
+@Service
+public class TagReadAnalyticsService {
+
+    /**
+     * Bucket intervals, from the finest to the coarsest; each one divides the ones after it up to a day.
+     */
+    static final Duration[] INTERVALS = {
+        Duration.ofSeconds(1),
+        Duration.ofSeconds(5),
+        Duration.ofSeconds(10),
+        Duration.ofSeconds(30),
+        Duration.ofMinutes(1),
+        Duration.ofMinutes(5),
+        Duration.ofMinutes(10),
+        Duration.ofMinutes(30),
+        Duration.ofHours(1),
+        Duration.ofHours(3),
+        Duration.ofHours(6),
+        Duration.ofHours(12),
+        Duration.ofDays(1),
+    };
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Logger log = LoggerFactory.getLogger(TagReadAnalyticsService.class);
+
+    private final TagReadSearchRepository tagReadSearchRepository;
+
+    private final ObjectMapper objectMapper;
+
+    private final int pageSize;
+
+    public TagReadAnalyticsService(
+        TagReadSearchRepository tagReadSearchRepository,
+        ObjectMapper objectMapper,
+        ApplicationProperties applicationProperties
+    ) {
+        this.tagReadSearchRepository = tagReadSearchRepository;
+        this.objectMapper = objectMapper;
+        this.pageSize = Math.max(1, applicationProperties.getSearch().getAnalyticsPageSize());
+    }
+
+    /**
+     * Returns the coarsest bucket interval that still gives a resolution.
+     *
+     * @param resolution the longest acceptable interval between two points of the series.
+     * @return the interval of the buckets; the finest one if the resolution is finer than all of them.
+     */
+    public static Duration bucketInterval(Duration resolution) {
+        Duration interval = INTERVALS[0];
+        for (Duration candidate : INTERVALS) {
+            if (candidate.compareTo(resolution) > 0) {
+                break;
+            }
+            interval = candidate;
+        }
+        return interval;
+    }
+
+    /**
+     * Write the number of reads of a time range per bucket interval and per reader or zone, one JSON object per line with
+     * the start of the interval as {@code timestamp}, the reader as {@code readerId} or the zone as {@code zone}, and the
+     * {@code count}. Empty buckets are left out, as are reads without a zone when counting per zone.
+     *
+     * @param from the start of the range, inclusive; defaults to {@link TagReadSearchService#DEFAULT_RANGE} before its end.
+     * @param to the end of the range, exclusive; defaults to the current time.
+     * @param dimension what the reads are counted per, besides time.
+     * @param interval the interval of the buckets, see {@link #bucketInterval(Duration)}.
+     * @param outputStream the stream to write to; it is flushed but not closed.
+     * @throws IOException if Elasticsearch cannot be reached or the stream cannot be written.
+     */
+    public void countReads(
+        Instant from,
+        Instant to,
+        ReadDimension dimension,
+        Duration interval,
+        OutputStream outputStream
+    ) throws IOException {
+        Instant end = to != null ? to : Instant.now();
+        Instant start = from != null ? from : end.minus(TagReadSearchService.DEFAULT_RANGE);
+        String field = dimension == ReadDimension.ZONE ? "zone" : "readerId";
+        log.debug("Request to count the TagReads between {} and {} per {} and per {}", start, end, field, interval);
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(new BufferedOutputStream(outputStream, BUFFER_SIZE))) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            // Lines are ended explicitly, instead of separated by a space.
+            generator.setRootValueSeparator(null);
+            tagReadSearchRepository.countByInterval(start, end, field, interval, pageSize, buckets -> write(buckets, field, generator));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static boolean write(Iterable<? extends CompositeAggregation.Bucket> buckets, String field, JsonGenerator generator) {
+        try {
+            for (CompositeAggregation.Bucket bucket : buckets) {
+                generator.writeStartObject();
+                long timestamp = ((Number) bucket.getKey().get("timestamp")).longValue();
+                generator.writeStringField("timestamp", Instant.ofEpochMilli(timestamp).toString());
+                generator.writeStringField(field, String.valueOf(bucket.getKey().get("key")));
+                generator.writeNumberField("count", bucket.getDocCount());
+                generator.writeEndObject();
+                generator.writeRaw('\n');
+            }
+            generator.flush();
+            return true;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
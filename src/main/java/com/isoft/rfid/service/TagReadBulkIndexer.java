@@ -0,0 +1,267 @@
+package com.isoft.rfid.service;
+
+import com.isoft.rfid.config.ApplicationProperties;
+import com.isoft.rfid.domain.TagRead;
+import com.isoft.rfid.repository.search.TagReadIndices;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.PreDestroy;
+import org.elasticsearch.ElasticsearchStatusException;
+import org.elasticsearch.rest.RestStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.elasticsearch.BulkFailureException;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.mapping.IndexCoordinates;
+import org.springframework.data.elasticsearch.core.query.IndexQuery;
+import org.springframework.data.elasticsearch.core.query.IndexQueryBuilder;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Buffers {@link TagRead}s and writes them to Elasticsearch through the bulk API.
+ * <p>
+ * A batch is sent as soon as it is full, on the thread that filled it. Partially filled batches are flushed every
+ * {@code application.ingest.flush-interval}, so a quiet reader never waits longer than that for its reads to become
+ * searchable.
+ * <p>
+ * The batch size starts at {@code application.ingest.bulk-actions} and, like the number of bulks in flight, is then
+ * tuned from the round-trip time of the bulks, the rejections of the cluster and the reads queued behind them, see
+ * {@link AdaptiveBulkController}.
+ * <p>
+ * Each read is written to the partition index of its timestamp, see {@link TagReadIndices}, so reads replayed late
+ * still land where a search for their time range looks for them.
+ */
+@Service
+public class TagReadBulkIndexer {
+
+    /**
+     * Types of the item failures that go away by themselves: the cluster was overloaded, or a shard or node was
+     * unavailable. Any other item failure, such as a mapping error, fails again for as long as the read is sent.
+     */
+    private static final String[] RETRIABLE_FAILURES = {
+        "es_rejected_execution_exception",
+        "circuit_breaking_exception",
+        "unavailable_shards_exception",
+        "no_shard_available_action_exception",
+        "cluster_block_exception",
+        "node_disconnected_exception",
+        "node_not_connected_exception",
+        "connect_transport_exception",
+        "process_cluster_event_timeout_exception",
+    };
+
+    private final Logger log = LoggerFactory.getLogger(TagReadBulkIndexer.class);
+
+    private final ElasticsearchOperations elasticsearchOperations;
+
+    private final TagReadIndices tagReadIndices;
+
+    private final AdaptiveBulkController controller;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private final Object lock = new Object();
+
+    private List<TagRead> pending;
+
+    public TagReadBulkIndexer(
+        ElasticsearchOperations elasticsearchOperations,
+        TagReadIndices tagReadIndices,
+        ApplicationProperties applicationProperties,
+        MeterRegistry meterRegistry
+    ) {
+        this.elasticsearchOperations = elasticsearchOperations;
+        this.tagReadIndices = tagReadIndices;
+        this.controller = new AdaptiveBulkController(applicationProperties.getIngest());
+        this.pending = new ArrayList<>(controller.getBatchSize());
+        Gauge
+            .builder("rfid.ingest.bulk.size", controller, AdaptiveBulkController::getBatchSize)
+            .description("Current number of tag reads per bulk request")
+            .baseUnit("reads")
+            .register(meterRegistry);
+        Gauge
+            .builder("rfid.ingest.bulk.concurrency", controller, AdaptiveBulkController::getConcurrency)
+            .description("Current limit of bulk requests in flight")
+            .register(meterRegistry);
+        Gauge
+            .builder("rfid.ingest.bulk.in-flight", inFlight, AtomicInteger::get)
+            .description("Bulk requests in flight")
+            .register(meterRegistry);
+    }
+
+    /**
+     * @return the number of reads a bulk request should currently hold.
+     */
+    public int getBatchSize() {
+        return controller.getBatchSize();
+    }
+
+    /**
+     * @return the number of bulk requests that may currently be in flight.
+     */
+    public int getConcurrency() {
+        return controller.getConcurrency();
+    }
+
+    /**
+     * @return the largest number of bulk requests ever allowed in flight.
+     */
+    public int getMaxConcurrency() {
+        return controller.getMaxConcurrency();
+    }
+
+    /**
+     * Adds reads to the current batch, sending every batch that becomes full.
+     *
+     * @param reads the reads to index.
+     */
+    public void addAll(Collection<TagRead> reads) {
+        List<List<TagRead>> full = null;
+        long queued;
+        synchronized (lock) {
+            int batchSize = controller.getBatchSize();
+            for (TagRead read : reads) {
+                pending.add(read);
+                if (pending.size() >= batchSize) {
+                    if (full == null) {
+                        full = new ArrayList<>();
+                    }
+                    full.add(pending);
+                    pending = new ArrayList<>(batchSize);
+                }
+            }
+            queued = pending.size();
+        }
+        if (full != null) {
+            for (int i = 0; i < full.size(); i++) {
+                bulkIndex(full.get(i), queued + (long) (full.size() - 1 - i) * full.get(i).size());
+            }
+        }
+    }
+
+    /**
+     * Sends the partially filled batch, if any.
+     * <p>
+     * This is scheduled to run every {@code application.ingest.flush-interval}.
+     */
+    @Scheduled(fixedDelayString = "${application.ingest.flush-interval:PT1S}")
+    public void flush() {
+        List<TagRead> batch;
+        synchronized (lock) {
+            if (pending.isEmpty()) {
+                return;
+            }
+            batch = pending;
+            pending = new ArrayList<>(controller.getBatchSize());
+        }
+        try {
+            bulkIndex(batch, 0);
+        } catch (DataAccessException e) {
+            log.error("Could not index {} buffered tag reads: {}", batch.size(), e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        flush();
+    }
+
+    /**
+     * Sends reads in a single bulk request, on the calling thread, once the concurrency limit allows it.
+     *
+     * @param batch the reads to index.
+     * @param queued the number of reads waiting behind this batch, used to tune the batch size and the concurrency.
+     * @throws org.springframework.dao.DataAccessException if a request failed.
+     * @throws BulkFailureException if some items failed, once all the partitions were sent; the other items are indexed.
+     */
+    public void bulkIndex(List<TagRead> batch, long queued) {
+        // Almost always a single partition; two around the turn of a day or an hour.
+        Map<String, List<IndexQuery>> queriesByIndex = new LinkedHashMap<>(4);
+        for (TagRead read : batch) {
+            queriesByIndex
+                .computeIfAbsent(tagReadIndices.indexFor(read.getTimestamp()), index -> new ArrayList<>(batch.size()))
+                .add(new IndexQueryBuilder().withObject(read).build());
+        }
+        controller.acquire();
+        inFlight.incrementAndGet();
+        try {
+            long start = System.nanoTime();
+            Map<String, String> failedDocuments = null;
+            for (Map.Entry<String, List<IndexQuery>> queries : queriesByIndex.entrySet()) {
+                try {
+                    elasticsearchOperations.bulkIndex(queries.getValue(), IndexCoordinates.of(queries.getKey()));
+                } catch (BulkFailureException e) {
+                    // The other partitions are still sent, so that only the failed items have to be sent again.
+                    if (failedDocuments == null) {
+                        failedDocuments = new HashMap<>();
+                    }
+                    failedDocuments.putAll(e.getFailedDocuments());
+                }
+            }
+            if (failedDocuments != null) {
+                throw new BulkFailureException(
+                    "Bulk indexing of " + failedDocuments.size() + " of " + batch.size() + " tag reads failed: " + failedDocuments,
+                    failedDocuments
+                );
+            }
+            long roundTrip = System.nanoTime() - start;
+            controller.onSuccess(batch.size(), roundTrip, queued);
+            if (log.isDebugEnabled()) {
+                log.debug("Bulk indexed {} tag reads in {} ms", batch.size(), TimeUnit.NANOSECONDS.toMillis(roundTrip));
+            }
+        } catch (RuntimeException e) {
+            if (isRejection(e)) {
+                controller.onRejected();
+            }
+            throw e;
+        } finally {
+            inFlight.decrementAndGet();
+            controller.release();
+        }
+    }
+
+    /**
+     * Tells whether a bulk failed because the cluster rejected it, either as a whole (HTTP 429) or item by item: the
+     * failures of the items are only reported in the message of the exception.
+     */
+    static boolean isRejection(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (
+                cause instanceof ElasticsearchStatusException &&
+                ((ElasticsearchStatusException) cause).status() == RestStatus.TOO_MANY_REQUESTS
+            ) {
+                return true;
+            }
+            if (cause.getMessage() != null && cause.getMessage().contains("es_rejected_execution_exception")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Tells whether the failure of a bulk item, as reported by {@link BulkFailureException#getFailedDocuments()}, may
+     * succeed if the item is sent again.
+     */
+    public static boolean isRetriable(String failure) {
+        if (failure == null) {
+            return true;
+        }
+        for (String type : RETRIABLE_FAILURES) {
+            if (failure.contains(type)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
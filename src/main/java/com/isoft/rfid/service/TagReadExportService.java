@@ -0,0 +1,313 @@
+package com.isoft.rfid.service;
+
+import com.isoft.rfid.config.ApplicationProperties;
+import com.isoft.rfid.domain.enumeration.ExportFormat;
+import com.isoft.rfid.repository.search.TagReadCursor;
+import com.isoft.rfid.repository.search.TagReadSearchRepository;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.PreDestroy;
+import org.elasticsearch.search.SearchHit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+/**
+ * Service exporting all the {@link com.isoft.rfid.domain.TagRead}s of a time range to a stream, whatever their number.
+ * <p>
+ * The export reads from a point in time of the partitions overlapping the range, split in
+ * {@code application.search.export-slices} slices scanned in parallel. The slices hand their pages of raw hits to the
+ * writing thread through a small bounded queue, so memory use only depends on the number of slices and the batch size,
+ * and a slow client slows the scan down instead of buffering it. NDJSON lines are the stored source of the reads,
+ * copied as is; CSV rows are written field by field, with the timestamp in ISO-8601 however it is stored. Reads come in
+ * no particular order.
+ * <p>
+ * At most {@code application.search.max-concurrent-exports} exports run at once, on a pool of as many times the slices
+ * threads; further exports are refused with an {@link ExportLimitException}.
+ */
+@Service
+public class TagReadExportService {
+
+    private static final String[] CSV_COLUMNS = {
+        "id",
+        "epc",
+        "readerId",
+        "antenna",
+        "rssi",
+        "zone",
+        "timestamp",
+        "epcScheme",
+        "companyPrefix",
+        "itemReference",
+        "serialNumber",
+        "sku",
+        "description",
+        "owner",
+    };
+
+    /**
+     * Marks the end of a slice in the queue.
+     */
+    private static final SearchHit[] END_OF_SLICE = new SearchHit[0];
+
+    private static final long OFFER_TIMEOUT_MS = 100;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final int TIMESTAMP_COLUMN = Arrays.asList(CSV_COLUMNS).indexOf("timestamp");
+
+    private final Logger log = LoggerFactory.getLogger(TagReadExportService.class);
+
+    private final TagReadSearchRepository tagReadSearchRepository;
+
+    private final Duration keepAlive;
+
+    private final int slices;
+
+    private final int batchSize;
+
+    private final int maxConcurrentExports;
+
+    private final Semaphore exports;
+
+    private final ThreadPoolExecutor executor;
+
+    public TagReadExportService(TagReadSearchRepository tagReadSearchRepository, ApplicationProperties applicationProperties) {
+        ApplicationProperties.Search search = applicationProperties.getSearch();
+        this.tagReadSearchRepository = tagReadSearchRepository;
+        this.keepAlive = search.getCursorKeepAlive();
+        this.slices = Math.max(1, search.getExportSlices());
+        this.batchSize = Math.max(1, search.getExportBatchSize());
+        this.maxConcurrentExports = Math.max(1, search.getMaxConcurrentExports());
+        this.exports = new Semaphore(maxConcurrentExports);
+        AtomicInteger threads = new AtomicInteger();
+        int poolSize = maxConcurrentExports * slices;
+        this.executor =
+            new ThreadPoolExecutor(
+                poolSize,
+                poolSize,
+                60,
+                TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "tag-read-export-" + threads.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            );
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Checks that an export can start, so that it is refused before its response is committed. The export may still be
+     * refused by {@link #export} if others started meanwhile.
+     *
+     * @throws ExportLimitException if the maximum number of exports are running.
+     */
+    public void checkExportAvailable() {
+        if (exports.availablePermits() == 0) {
+            throw new ExportLimitException(maxConcurrentExports);
+        }
+    }
+
+    /**
+     * Export the reads of a time range.
+     *
+     * @param from the start of the range, inclusive; defaults to {@link TagReadSearchService#DEFAULT_RANGE} before its end.
+     * @param to the end of the range, exclusive; defaults to the current time.
+     * @param epc the EPC to filter on, or {@code null}.
+     * @param readerId the reader to filter on, or {@code null}.
+     * @param format the format of the export.
+     * @param outputStream the stream to write to; it is flushed but not closed.
+     * @throws IOException if Elasticsearch cannot be reached or the stream cannot be written.
+     * @throws ExportLimitException if the maximum number of exports are running.
+     */
+    public void export(
+        Instant from,
+        Instant to,
+        String epc,
+        String readerId,
+        ExportFormat format,
+        OutputStream outputStream
+    ) throws IOException {
+        TagReadCursor criteria = new TagReadCursor();
+        criteria.setTo(to != null ? to : Instant.now());
+        criteria.setFrom(from != null ? from : criteria.getTo().minus(TagReadSearchService.DEFAULT_RANGE));
+        criteria.setEpc(epc);
+        criteria.setReaderId(readerId);
+        log.debug("Request to export the TagReads {} as {}", criteria, format);
+        if (!exports.tryAcquire()) {
+            throw new ExportLimitException(maxConcurrentExports);
+        }
+        try {
+            tagReadSearchRepository.openPointInTime(criteria, keepAlive);
+            Export export = new Export(criteria);
+            try {
+                for (int slice = 0; slice < slices; slice++) {
+                    int id = slice;
+                    executor.execute(() -> export.scan(id));
+                }
+                export.write(format, new BufferedOutputStream(outputStream, BUFFER_SIZE));
+            } finally {
+                export.cancelled = true;
+                try {
+                    tagReadSearchRepository.closePointInTime(criteria.getPointInTimeId());
+                } catch (IOException | RuntimeException e) {
+                    // It expires on its own anyway.
+                    log.debug("Could not close point in time: {}", e.getMessage());
+                }
+            }
+        } finally {
+            // The slices of a cancelled export end at their next page, so the next export may briefly wait for threads.
+            exports.release();
+        }
+    }
+
+    /**
+     * One running export: the slices scanning the point in time and the queue of pages between them and the writer.
+     */
+    private final class Export {
+
+        private final TagReadCursor criteria;
+
+        private final BlockingQueue<SearchHit[]> pages = new ArrayBlockingQueue<>(slices * 2);
+
+        private volatile boolean cancelled;
+
+        private volatile Exception failure;
+
+        private Export(TagReadCursor criteria) {
+            this.criteria = criteria;
+        }
+
+        private void scan(int slice) {
+            try {
+                tagReadSearchRepository.scanSlice(criteria, slice, slices, batchSize, keepAlive, this::offer);
+            } catch (IOException | RuntimeException e) {
+                failure = e;
+            } finally {
+                offer(END_OF_SLICE);
+            }
+        }
+
+        /**
+         * Queues a page, waiting for room; returns whether the export goes on.
+         */
+        private boolean offer(SearchHit[] page) {
+            try {
+                while (!cancelled) {
+                    if (pages.offer(page, OFFER_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                        return true;
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return false;
+        }
+
+        private void write(ExportFormat format, OutputStream out) throws IOException {
+            if (format == ExportFormat.CSV) {
+                writeCsvHeader(out);
+            }
+            int finished = 0;
+            while (finished < slices) {
+                SearchHit[] page;
+                try {
+                    page = pages.take();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Export interrupted");
+                }
+                if (page == END_OF_SLICE) {
+                    if (failure != null) {
+                        throw new IOException("Export of the tag reads failed", failure);
+                    }
+                    finished++;
+                    continue;
+                }
+                for (SearchHit hit : page) {
+                    if (format == ExportFormat.CSV) {
+                        writeCsvRow(hit, out);
+                    } else {
+                        hit.getSourceRef().writeTo(out);
+                        out.write('\n');
+                    }
+                }
+                out.flush();
+            }
+        }
+    }
+
+    private static void writeCsvHeader(OutputStream out) throws IOException {
+        out.write(String.join(",", CSV_COLUMNS).getBytes(StandardCharsets.UTF_8));
+        out.write('\n');
+    }
+
+    private static void writeCsvRow(SearchHit hit, OutputStream out) throws IOException {
+        Map<String, Object> source = hit.getSourceAsMap();
+        for (int i = 0; i < CSV_COLUMNS.length; i++) {
+            if (i > 0) {
+                out.write(',');
+            }
+            Object value = i == 0 ? hit.getId() : source.get(CSV_COLUMNS[i]);
+            if (i == TIMESTAMP_COLUMN && value != null) {
+                value = isoTimestamp(value);
+            }
+            if (value != null) {
+                out.write(csvEscape(value.toString()).getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        out.write('\n');
+    }
+
+    /**
+     * Returns a stored timestamp in ISO-8601, whether it was written as a date string or as epoch milliseconds, see
+     * {@code application.elasticsearch.date-storage}; a value that is neither is returned as is.
+     */
+    static String isoTimestamp(Object value) {
+        if (value instanceof Number) {
+            return Instant.ofEpochMilli(((Number) value).longValue()).toString();
+        }
+        String text = value.toString();
+        try {
+            if (!text.isEmpty() && text.chars().allMatch(Character::isDigit)) {
+                return Instant.ofEpochMilli(Long.parseLong(text)).toString();
+            }
+            return DateTimeFormatter.ISO_DATE_TIME.parse(text, Instant::from).toString();
+        } catch (DateTimeParseException | NumberFormatException e) {
+            return text;
+        }
+    }
+
+    private static String csvEscape(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                return '"' + value.replace("\"", "\"\"") + '"';
+            }
+        }
+        return value;
+    }
+}
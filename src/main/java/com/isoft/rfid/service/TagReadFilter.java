@@ -0,0 +1,20 @@
+package com.isoft.rfid.service;
+
+import com.isoft.rfid.domain.TagRead;
+import java.util.List;
+
+/**
+ * A stage of the ingest pipeline dropping reads before they are spooled and handed to the views, see
+ * {@link TagReadIngestService}.
+ * <p>
+ * All the beans implementing this interface are applied in their {@link org.springframework.core.annotation.Order}, before
+ * the duplicates are suppressed: they see every repeat of a tag.
+ */
+public interface TagReadFilter {
+    /**
+     * Removes the reads to drop from a chunk, keeping the order of the others.
+     *
+     * @param reads validated reads, with an EPC, a reader id and a timestamp; modified in place.
+     */
+    void filter(List<TagRead> reads);
+}
@@ -0,0 +1,186 @@
+package com.isoft.rfid.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.isoft.rfid.config.ApplicationProperties;
+import com.isoft.rfid.domain.TagRead;
+import com.isoft.rfid.service.dto.IngestResultDTO;
+import com.isoft.rfid.service.spool.TagReadSpool;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+/**
+ * Service validating incoming {@link TagRead}s, dropping duplicates and noise, decoding the GS1 fields of the EPCs, copying
+ * the metadata of their assets from the {@link AssetRegistry} and appending the reads to the {@link TagReadSpool}, from
+ * which they are indexed, to the {@link TagLocationView} and to the {@link ZoneEventEngine}.
+ * <p>
+ * The {@link PortalDirectionDetector} is handed every valid read instead, before duplicates and noise are dropped: it
+ * tells the direction from the order in which the antennas of a portal read a tag, which the repeats within the
+ * duplicate window and the weaker reads of the far side carry.
+ */
+@Service
+public class TagReadIngestService {
+
+    private final Logger log = LoggerFactory.getLogger(TagReadIngestService.class);
+
+    private final TagReadSpool tagReadSpool;
+
+    private final DuplicateReadSuppressor duplicateReadSuppressor;
+
+    private final List<TagReadFilter> tagReadFilters;
+
+    private final AssetRegistry assetRegistry;
+
+    private final TagLocationView tagLocationView;
+
+    private final ZoneEventEngine zoneEventEngine;
+
+    private final PortalDirectionDetector portalDirectionDetector;
+
+    private final ObjectMapper objectMapper;
+
+    private final ObjectReader tagReadReader;
+
+    private final int streamChunkSize;
+
+    public TagReadIngestService(
+        TagReadSpool tagReadSpool,
+        DuplicateReadSuppressor duplicateReadSuppressor,
+        List<TagReadFilter> tagReadFilters,
+        AssetRegistry assetRegistry,
+        TagLocationView tagLocationView,
+        ZoneEventEngine zoneEventEngine,
+        PortalDirectionDetector portalDirectionDetector,
+        ObjectMapper objectMapper,
+        ApplicationProperties applicationProperties
+    ) {
+        this.tagReadSpool = tagReadSpool;
+        this.duplicateReadSuppressor = duplicateReadSuppressor;
+        this.tagReadFilters = tagReadFilters;
+        this.assetRegistry = assetRegistry;
+        this.tagLocationView = tagLocationView;
+        this.zoneEventEngine = zoneEventEngine;
+        this.portalDirectionDetector = portalDirectionDetector;
+        this.objectMapper = objectMapper;
+        this.tagReadReader = objectMapper.readerFor(TagRead.class);
+        this.streamChunkSize = Math.max(1, applicationProperties.getIngest().getStreamChunkSize());
+    }
+
+    /**
+     * Ingest a batch of reads.
+     * <p>
+     * Reads without an EPC or a reader id are rejected; reads without a timestamp are stamped with the current time.
+     * The valid reads are queued for the {@link PortalDirectionDetector}, then the noise is dropped by the
+     * {@link TagReadFilter}s and the repeats within the duplicate window are suppressed, see
+     * {@link DuplicateReadSuppressor}: filtering first keeps a dropped read from opening a window that would suppress the
+     * next good ones. The reads are acknowledged once they are spooled, before they are indexed; if they cannot be
+     * spooled, they are forgotten by the {@link DuplicateReadSuppressor}, so that the client can retry them.
+     *
+     * @param reads the reads to ingest.
+     * @return the ingest result.
+     */
+    public IngestResultDTO ingest(List<TagRead> reads) {
+        Instant now = Instant.now();
+        List<TagRead> accepted = new ArrayList<>(reads.size());
+        for (TagRead read : reads) {
+            if (read == null || !StringUtils.hasText(read.getEpc()) || !StringUtils.hasText(read.getReaderId())) {
+                continue;
+            }
+            if (read.getTimestamp() == null) {
+                read.setTimestamp(now);
+            }
+            accepted.add(read);
+        }
+        int rejected = reads.size() - accepted.size();
+        if (rejected > 0) {
+            log.debug("Rejected {} of {} tag reads without EPC or reader id", rejected, reads.size());
+        }
+        int valid = accepted.size();
+        portalDirectionDetector.process(accepted);
+        for (TagReadFilter tagReadFilter : tagReadFilters) {
+            tagReadFilter.filter(accepted);
+        }
+        duplicateReadSuppressor.removeDuplicates(accepted);
+        decodeEpcs(accepted);
+        assetRegistry.enrich(accepted);
+        try {
+            tagReadSpool.append(accepted);
+        } catch (RuntimeException e) {
+            duplicateReadSuppressor.forget(accepted);
+            throw e;
+        }
+        tagLocationView.update(accepted);
+        zoneEventEngine.process(accepted);
+        return new IngestResultDTO(reads.size(), accepted.size(), rejected, valid - accepted.size());
+    }
+
+    /**
+     * Ingest newline-delimited JSON reads from a stream.
+     * <p>
+     * The stream is parsed one read at a time and handed over in chunks of {@code application.ingest.stream-chunk-size},
+     * so memory use does not depend on the size of the upload. Chunks parsed before a malformed line are kept.
+     *
+     * @param inputStream the NDJSON stream, one read per line.
+     * @return the ingest result.
+     * @throws IOException if the stream cannot be read or contains malformed JSON.
+     */
+    public IngestResultDTO ingest(InputStream inputStream) throws IOException {
+        IngestResultDTO total = new IngestResultDTO();
+        List<TagRead> chunk = new ArrayList<>(streamChunkSize);
+        try (
+            JsonParser parser = objectMapper.getFactory().createParser(inputStream);
+            MappingIterator<TagRead> iterator = tagReadReader.readValues(parser)
+        ) {
+            while (iterator.hasNextValue()) {
+                chunk.add(iterator.nextValue());
+                if (chunk.size() == streamChunkSize) {
+                    add(total, ingest(chunk));
+                    chunk.clear();
+                }
+            }
+        }
+        if (!chunk.isEmpty()) {
+            add(total, ingest(chunk));
+        }
+        return total;
+    }
+
+    /**
+     * Fills the GS1 fields of the reads whose EPC is a supported GS1 code, reusing one holder for the whole chunk.
+     */
+    private static void decodeEpcs(List<TagRead> reads) {
+        DecodedEpc decoded = new DecodedEpc();
+        StringBuilder sb = new StringBuilder(16);
+        for (TagRead read : reads) {
+            if (!EpcDecoder.decode(read.getEpc(), decoded)) {
+                continue;
+            }
+            read.setEpcScheme(decoded.getScheme().getPureIdentityName());
+            sb.setLength(0);
+            read.setCompanyPrefix(decoded.appendCompanyPrefix(sb).toString());
+            sb.setLength(0);
+            if (decoded.getScheme() == DecodedEpc.Scheme.SGTIN_96) {
+                read.setItemReference(decoded.appendReference(sb).toString());
+                read.setSerialNumber(Long.toString(decoded.getSerial()));
+            } else {
+                read.setSerialNumber(decoded.appendReference(sb).toString());
+            }
+        }
+    }
+
+    private static void add(IngestResultDTO total, IngestResultDTO chunk) {
+        total.setReceived(total.getReceived() + chunk.getReceived());
+        total.setAccepted(total.getAccepted() + chunk.getAccepted());
+        total.setRejected(total.getRejected() + chunk.getRejected());
+        total.setSuppressed(total.getSuppressed() + chunk.getSuppressed());
+    }
+}
@@ -0,0 +1,209 @@
+package com.isoft.rfid.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.isoft.rfid.config.ApplicationProperties;
+import com.isoft.rfid.domain.TagRead;
+import com.isoft.rfid.repository.search.TagReadCursor;
+import com.isoft.rfid.repository.search.TagReadIndices;
+import com.isoft.rfid.repository.search.TagReadSearchRepository;
+import com.isoft.rfid.service.dto.CursorPageDTO;
+import com.isoft.rfid.service.util.SingleFlight;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.List;
+import org.elasticsearch.ElasticsearchStatusException;
+import org.elasticsearch.rest.RestStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+
+/**
+ * Service for searching {@link TagRead}s.
+ * <p>
+ * Searches are always bounded in time, so that only the partitions overlapping the range are queried: a missing end
+ * is the current time and a missing start is {@link #DEFAULT_RANGE} before the end.
+ * <p>
+ * Pages of reads are served from the {@link SearchResultCache} while no new reads became visible in the partitions they
+ * come from. For searches ending now to share their pages, the current time is rounded up to the end of a
+ * {@code application.search.cache.time-bucket}.
+ * <p>
+ * Identical searches running at the same time, such as handhelds all asking for the same zone at the start of a shift,
+ * are coalesced: one of them queries Elasticsearch or the cache, the others wait for its page. The number of searches
+ * made and coalesced is published as {@code rfid.search.requests}.
+ */
+@Service
+public class TagReadSearchService {
+
+    public static final Duration DEFAULT_RANGE = Duration.ofMinutes(15);
+
+    private final Logger log = LoggerFactory.getLogger(TagReadSearchService.class);
+
+    private final TagReadSearchRepository tagReadSearchRepository;
+
+    private final TagReadIndices tagReadIndices;
+
+    private final SearchResultCache searchResultCache;
+
+    private final ObjectMapper objectMapper;
+
+    private final Duration cursorKeepAlive;
+
+    private final long timeBucketMillis;
+
+    private final SingleFlight<String, Page<TagRead>> searches = new SingleFlight<>();
+
+    public TagReadSearchService(
+        TagReadSearchRepository tagReadSearchRepository,
+        TagReadIndices tagReadIndices,
+        SearchResultCache searchResultCache,
+        ObjectMapper objectMapper,
+        MeterRegistry meterRegistry,
+        ApplicationProperties applicationProperties
+    ) {
+        this.tagReadSearchRepository = tagReadSearchRepository;
+        this.tagReadIndices = tagReadIndices;
+        this.searchResultCache = searchResultCache;
+        this.objectMapper = objectMapper;
+        this.cursorKeepAlive = applicationProperties.getSearch().getCursorKeepAlive();
+        this.timeBucketMillis = applicationProperties.getSearch().getCache().getTimeBucket().toMillis();
+        FunctionCounter
+            .builder("rfid.search.requests", searches, SingleFlight::executed)
+            .description("Searches of tag reads, made or coalesced with an identical one in flight")
+            .tag("outcome", "executed")
+            .register(meterRegistry);
+        FunctionCounter
+            .builder("rfid.search.requests", searches, SingleFlight::coalesced)
+            .description("Searches of tag reads, made or coalesced with an identical one in flight")
+            .tag("outcome", "coalesced")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Search the reads of a time range, newest first unless the page asks for another order.
+     *
+     * @param from the start of the range, inclusive.
+     * @param to the end of the range, exclusive.
+     * @param epc the EPC to filter on, or {@code null}.
+     * @param readerId the reader to filter on, or {@code null}.
+     * @param pageable the pagination information.
+     * @return the page of reads.
+     */
+    public Page<TagRead> search(Instant from, Instant to, String epc, String readerId, Pageable pageable) {
+        Instant end = to != null ? to : bucketEnd(Instant.now());
+        Instant start = from != null ? from : end.minus(DEFAULT_RANGE);
+        log.debug("Request to search for a page of TagReads between {} and {}", start, end);
+        Pageable page = pageable.getSort().isUnsorted()
+            ? PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), Sort.by(Sort.Direction.DESC, "timestamp"))
+            : pageable;
+        String query = String.join(
+            "|",
+            start.toString(),
+            end.toString(),
+            String.valueOf(epc),
+            String.valueOf(readerId),
+            String.valueOf(page.getPageNumber()),
+            String.valueOf(page.getPageSize()),
+            page.getSort().toString()
+        );
+        String[] indices = tagReadIndices.indicesFor(start, end);
+        return searches.execute(
+            query,
+            () -> searchResultCache.get(query, indices, () -> tagReadSearchRepository.search(start, end, epc, readerId, page))
+        );
+    }
+
+    /**
+     * Search the reads of a time range one page after the other, at any depth.
+     * <p>
+     * The first page opens a point in time of the partitions overlapping the range, and each page returns the cursor
+     * of the next one, holding the criteria, the point in time and the position after the page; a cursor stays valid for
+     * {@code application.search.cursor-keep-alive} after its page. The point in time is closed with the last page.
+     *
+     * @param cursor the cursor returned with the previous page, or {@code null} for the first page.
+     * @param from the start of the range, inclusive; ignored with a cursor.
+     * @param to the end of the range, exclusive; ignored with a cursor.
+     * @param epc the EPC to filter on, or {@code null}; ignored with a cursor.
+     * @param readerId the reader to filter on, or {@code null}; ignored with a cursor.
+     * @param ascending whether the oldest reads come first; ignored with a cursor.
+     * @param size the number of reads of the page.
+     * @return the page of reads.
+     * @throws InvalidCursorException if the cursor is malformed or has expired.
+     * @throws IOException if Elasticsearch cannot be reached.
+     */
+    public CursorPageDTO<TagRead> searchAfter(
+        String cursor,
+        Instant from,
+        Instant to,
+        String epc,
+        String readerId,
+        boolean ascending,
+        int size
+    ) throws IOException {
+        TagReadCursor position;
+        if (cursor != null) {
+            position = decode(cursor);
+        } else {
+            position = new TagReadCursor();
+            position.setTo(to != null ? to : Instant.now());
+            position.setFrom(from != null ? from : position.getTo().minus(DEFAULT_RANGE));
+            position.setEpc(epc);
+            position.setReaderId(readerId);
+            position.setAscending(ascending);
+        }
+        log.debug("Request to search for a page of TagReads after {}", position);
+        List<TagRead> reads;
+        try {
+            reads = tagReadSearchRepository.searchAfter(position, size, cursorKeepAlive);
+        } catch (ElasticsearchStatusException e) {
+            if (cursor != null && e.status() == RestStatus.NOT_FOUND) {
+                throw new InvalidCursorException("The cursor has expired", e);
+            }
+            throw e;
+        }
+        if (reads.size() < size) {
+            closeQuietly(position.getPointInTimeId());
+            return new CursorPageDTO<>(reads, position.getTotalHits(), null);
+        }
+        return new CursorPageDTO<>(reads, position.getTotalHits(), encode(position));
+    }
+
+    /**
+     * Rounds an instant up to the end of its time bucket.
+     */
+    private Instant bucketEnd(Instant instant) {
+        if (timeBucketMillis <= 1) {
+            return instant;
+        }
+        long millis = instant.toEpochMilli();
+        return Instant.ofEpochMilli(millis - Math.floorMod(millis, timeBucketMillis) + timeBucketMillis);
+    }
+
+    private String encode(TagReadCursor position) throws IOException {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(objectMapper.writeValueAsBytes(position));
+    }
+
+    private TagReadCursor decode(String cursor) {
+        try {
+            return objectMapper.readValue(Base64.getUrlDecoder().decode(cursor), TagReadCursor.class);
+        } catch (IllegalArgumentException | IOException e) {
+            throw new InvalidCursorException("The cursor is malformed", e);
+        }
+    }
+
+    private void closeQuietly(String pointInTimeId) {
+        try {
+            tagReadSearchRepository.closePointInTime(pointInTimeId);
+        } catch (IOException | RuntimeException e) {
+            // It expires on its own anyway.
+            log.debug("Could not close point in time: {}", e.getMessage());
+        }
+    }
+}
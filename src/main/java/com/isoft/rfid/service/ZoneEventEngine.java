@@ -0,0 +1,259 @@
+package com.isoft.rfid.service;
+
+import com.isoft.rfid.config.ApplicationProperties;
+import com.isoft.rfid.domain.TagRead;
+import com.isoft.rfid.domain.ZoneEvent;
+import com.isoft.rfid.domain.enumeration.ZoneEventType;
+import com.isoft.rfid.repository.search.ZoneEventSearchRepository;
+import com.isoft.rfid.service.util.TimingWheel;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import javax.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Derives zone events from the stream of reads, and indexes them into the {@code zone-events} index.
+ * <p>
+ * Each tag seen in a zone has a small state machine: its first read in a zone raises an {@link ZoneEventType#ENTER},
+ * staying there for {@code application.zones.dwell-threshold} a {@link ZoneEventType#DWELL}, and a read in another zone
+ * or no read for {@code application.zones.exit-timeout} an {@link ZoneEventType#EXIT} dated from its last read in the
+ * zone. The timeouts of all the tags are held in one {@link TimingWheel} advanced every second, instead of one scheduled
+ * task per tag. Reads without a zone are ignored, as are reads older than the last read of their tag in another zone.
+ * <p>
+ * Timeouts are measured against the wall clock, so reads are expected to be stamped close to the time they are ingested.
+ * The state is not persisted: after a restart, tags present in a zone raise a new enter event.
+ */
+@Service
+public class ZoneEventEngine {
+
+    private static final long TICK_MILLIS = 1000;
+
+    private final Logger log = LoggerFactory.getLogger(ZoneEventEngine.class);
+
+    private final boolean enabled;
+
+    private final long exitTimeoutMillis;
+
+    private final long dwellThresholdMillis;
+
+    private final int maxPendingEvents;
+
+    private final ZoneEventSearchRepository zoneEventSearchRepository;
+
+    private final Map<String, TagZoneState> states = new HashMap<>();
+
+    private final TimingWheel<TagZoneState> wheel = new TimingWheel<>(TICK_MILLIS, System.currentTimeMillis());
+
+    private final Deque<ZoneEvent> pending = new ArrayDeque<>();
+
+    private final Map<ZoneEventType, Counter> eventCounters = new EnumMap<>(ZoneEventType.class);
+
+    private final Counter droppedCounter;
+
+    private volatile int trackedTags;
+
+    public ZoneEventEngine(
+        ApplicationProperties applicationProperties,
+        ZoneEventSearchRepository zoneEventSearchRepository,
+        MeterRegistry meterRegistry
+    ) {
+        ApplicationProperties.Zones zones = applicationProperties.getZones();
+        this.enabled = zones.isEnabled();
+        this.exitTimeoutMillis = zones.getExitTimeout().toMillis();
+        this.dwellThresholdMillis = zones.getDwellThreshold().toMillis();
+        this.maxPendingEvents = zones.getMaxPendingEvents();
+        this.zoneEventSearchRepository = zoneEventSearchRepository;
+        for (ZoneEventType type : ZoneEventType.values()) {
+            eventCounters.put(
+                type,
+                Counter
+                    .builder("rfid.zone.events")
+                    .description("Zone events raised")
+                    .tag("type", type.name().toLowerCase())
+                    .register(meterRegistry)
+            );
+        }
+        this.droppedCounter =
+            Counter
+                .builder("rfid.zone.events.dropped")
+                .description("Zone events dropped because Elasticsearch was unavailable for too long")
+                .register(meterRegistry);
+        Gauge.builder("rfid.zone.tags", this, engine -> engine.trackedTags).description("Tags currently in a zone").register(meterRegistry);
+    }
+
+    /**
+     * Applies a batch of reads to the state of their tags.
+     *
+     * @param reads validated reads, with an EPC and a timestamp.
+     */
+    public void process(List<TagRead> reads) {
+        if (!enabled) {
+            return;
+        }
+        synchronized (this) {
+            for (int i = 0, n = reads.size(); i < n; i++) {
+                TagRead read = reads.get(i);
+                if (read.getZone() != null && read.getEpc() != null && read.getTimestamp() != null) {
+                    onRead(read);
+                }
+            }
+            trackedTags = states.size();
+        }
+    }
+
+    /**
+     * Expires the timeouts that are due and indexes the pending events.
+     */
+    @Scheduled(fixedDelay = TICK_MILLIS)
+    public void tick() {
+        if (!enabled) {
+            return;
+        }
+        advance(System.currentTimeMillis());
+        flush();
+    }
+
+    @PreDestroy
+    public void stop() {
+        flush();
+    }
+
+    synchronized void advance(long nowMillis) {
+        wheel.advance(nowMillis, state -> onTimeout(state, nowMillis));
+        trackedTags = states.size();
+    }
+
+    /**
+     * Indexes the pending events; on failure they are kept for the next tick.
+     */
+    void flush() {
+        List<ZoneEvent> batch;
+        synchronized (this) {
+            if (pending.isEmpty()) {
+                return;
+            }
+            batch = new ArrayList<>(pending);
+            pending.clear();
+        }
+        try {
+            zoneEventSearchRepository.saveAll(batch);
+        } catch (DataAccessException e) {
+            log.warn("Could not index {} zone events, will retry: {}", batch.size(), e.getMessage());
+            synchronized (this) {
+                for (int i = batch.size() - 1; i >= 0; i--) {
+                    pending.addFirst(batch.get(i));
+                }
+                while (pending.size() > maxPendingEvents) {
+                    pending.removeFirst();
+                    droppedCounter.increment();
+                }
+            }
+        }
+    }
+
+    private void onRead(TagRead read) {
+        String epc = read.getEpc();
+        long time = read.getTimestamp().toEpochMilli();
+        TagZoneState state = states.get(epc);
+        if (state != null && !state.zone.equals(read.getZone())) {
+            if (time < state.lastSeen) {
+                return;
+            }
+            exit(state);
+            state = null;
+        }
+        if (state == null) {
+            state = new TagZoneState(epc, read.getZone(), time, read.getReaderId());
+            states.put(epc, state);
+            emit(state, ZoneEventType.ENTER, time);
+        } else if (time > state.lastSeen) {
+            state.lastSeen = time;
+            state.readerId = read.getReaderId();
+        } else {
+            return;
+        }
+        schedule(state);
+    }
+
+    private void onTimeout(TagZoneState state, long nowMillis) {
+        if (nowMillis >= state.lastSeen + exitTimeoutMillis) {
+            exit(state);
+            return;
+        }
+        if (!state.dwellReported && nowMillis >= state.enteredAt + dwellThresholdMillis) {
+            state.dwellReported = true;
+            emit(state, ZoneEventType.DWELL, state.enteredAt + dwellThresholdMillis);
+        }
+        schedule(state);
+    }
+
+    private void exit(TagZoneState state) {
+        wheel.cancel(state);
+        states.remove(state.epc);
+        emit(state, ZoneEventType.EXIT, state.lastSeen);
+    }
+
+    private void schedule(TagZoneState state) {
+        long deadline = state.lastSeen + exitTimeoutMillis;
+        if (!state.dwellReported) {
+            deadline = Math.min(deadline, state.enteredAt + dwellThresholdMillis);
+        }
+        wheel.schedule(state, deadline);
+    }
+
+    private void emit(TagZoneState state, ZoneEventType type, long time) {
+        pending.addLast(
+            new ZoneEvent()
+                .id(UUID.randomUUID().toString())
+                .epc(state.epc)
+                .zone(state.zone)
+                .type(type)
+                .readerId(state.readerId)
+                .timestamp(Instant.ofEpochMilli(time))
+                .enteredAt(Instant.ofEpochMilli(state.enteredAt))
+                .dwellMillis(time - state.enteredAt)
+        );
+        eventCounters.get(type).increment();
+        if (pending.size() > maxPendingEvents) {
+            pending.removeFirst();
+            droppedCounter.increment();
+        }
+    }
+
+    private static final class TagZoneState extends TimingWheel.Timeout {
+
+        private final String epc;
+
+        private final String zone;
+
+        private final long enteredAt;
+
+        private long lastSeen;
+
+        private String readerId;
+
+        private boolean dwellReported;
+
+        private TagZoneState(String epc, String zone, long enteredAt, String readerId) {
+            this.epc = epc;
+            this.zone = zone;
+            this.enteredAt = enteredAt;
+            this.lastSeen = enteredAt;
+            this.readerId = readerId;
+        }
+    }
+}
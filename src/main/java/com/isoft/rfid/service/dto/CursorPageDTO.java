@@ -0,0 +1,55 @@
+package com.isoft.rfid.service.dto;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * A page of a cursor search: its content, the total number of results and the opaque cursor of the next page.
+ *
+ * @param <T> the type of the results.
+ */
+public class CursorPageDTO<T> implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final List<T> content;
+
+    private final long totalCount;
+
+    private final String nextCursor;
+
+    public CursorPageDTO(List<T> content, long totalCount, String nextCursor) {
+        this.content = content;
+        this.totalCount = totalCount;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<T> getContent() {
+        return content;
+    }
+
+    public long getTotalCount() {
+        return totalCount;
+    }
+
+    /**
+     * @return the cursor of the next page, or {@code null} if this page is the last one.
+     */
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "CursorPageDTO{" +
+            "content=" + getContent().size() + " results" +
+            ", totalCount=" + getTotalCount() +
+            ", nextCursor='" + getNextCursor() + "'" +
+            "}";
+    }
+}
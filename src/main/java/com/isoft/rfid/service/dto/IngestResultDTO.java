@@ -0,0 +1,72 @@
+package com.isoft.rfid.service.dto;
+
+import java.io.Serializable;
+
+/**
+ * Outcome of an ingest request: how many reads were received, handed to the indexer, rejected as invalid or suppressed
+ * as duplicates or noise.
+ */
+public class IngestResultDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private long received;
+
+    private long accepted;
+
+    private long rejected;
+
+    private long suppressed;
+
+    public IngestResultDTO() {}
+
+    public IngestResultDTO(long received, long accepted, long rejected, long suppressed) {
+        this.received = received;
+        this.accepted = accepted;
+        this.rejected = rejected;
+        this.suppressed = suppressed;
+    }
+
+    public long getReceived() {
+        return received;
+    }
+
+    public void setReceived(long received) {
+        this.received = received;
+    }
+
+    public long getAccepted() {
+        return accepted;
+    }
+
+    public void setAccepted(long accepted) {
+        this.accepted = accepted;
+    }
+
+    public long getRejected() {
+        return rejected;
+    }
+
+    public void setRejected(long rejected) {
+        this.rejected = rejected;
+    }
+
+    public long getSuppressed() {
+        return suppressed;
+    }
+
+    public void setSuppressed(long suppressed) {
+        this.suppressed = suppressed;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "IngestResultDTO{" +
+            "received=" + getReceived() +
+            ", accepted=" + getAccepted() +
+            ", rejected=" + getRejected() +
+            ", suppressed=" + getSuppressed() +
+            "}";
+    }
+}
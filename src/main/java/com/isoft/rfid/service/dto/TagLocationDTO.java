@@ -0,0 +1,84 @@
+package com.isoft.rfid.service.dto;
+
+import java.io.Serializable;
+import java.time.Instant;
+
+/**
+ * Last known location of a tag: the reader, antenna and zone of its newest read.
+ */
+public class TagLocationDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private String epc;
+
+    private String readerId;
+
+    private Integer antenna;
+
+    private String zone;
+
+    private Instant timestamp;
+
+    public TagLocationDTO() {}
+
+    public TagLocationDTO(String epc, String readerId, Integer antenna, String zone, Instant timestamp) {
+        this.epc = epc;
+        this.readerId = readerId;
+        this.antenna = antenna;
+        this.zone = zone;
+        this.timestamp = timestamp;
+    }
+
+    public String getEpc() {
+        return epc;
+    }
+
+    public void setEpc(String epc) {
+        this.epc = epc;
+    }
+
+    public String getReaderId() {
+        return readerId;
+    }
+
+    public void setReaderId(String readerId) {
+        this.readerId = readerId;
+    }
+
+    public Integer getAntenna() {
+        return antenna;
+    }
+
+    public void setAntenna(Integer antenna) {
+        this.antenna = antenna;
+    }
+
+    public String getZone() {
+        return zone;
+    }
+
+    public void setZone(String zone) {
+        this.zone = zone;
+    }
+
+    public Instant getTimestamp() {
+        return timestamp;
+    }
+
+    public void setTimestamp(Instant timestamp) {
+        this.timestamp = timestamp;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "TagLocationDTO{" +
+            "epc='" + getEpc() + "'" +
+            ", readerId='" + getReaderId() + "'" +
+            ", antenna=" + getAntenna() +
+            ", zone='" + getZone() + "'" +
+            ", timestamp='" + getTimestamp() + "'" +
+            "}";
+    }
+}
@@ -0,0 +1,129 @@
+package com.isoft.rfid.service.llrp;
+
+import com.isoft.rfid.config.ApplicationProperties;
+import com.isoft.rfid.domain.TagRead;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.List;
+
+/**
+ * State of one reader connection, only ever touched by the selector thread of {@link LlrpReaderListener}.
+ */
+class LlrpConnection implements LlrpMessageDecoder.Listener {
+
+    private static final int INITIAL_BUFFER_SIZE = 64 * 1024;
+
+    private final SocketChannel channel;
+
+    private final String readerId;
+
+    /**
+     * The configured reader this connection was opened to, {@code null} for reader-initiated connections.
+     */
+    private final ApplicationProperties.Llrp.Reader target;
+
+    private final List<TagRead> reads;
+
+    private final ArrayDeque<ByteBuffer> outbound = new ArrayDeque<>();
+
+    private SelectionKey key;
+
+    private ByteBuffer inbound = ByteBuffer.allocate(INITIAL_BUFFER_SIZE);
+
+    LlrpConnection(SocketChannel channel, String readerId, ApplicationProperties.Llrp.Reader target, List<TagRead> reads) {
+        this.channel = channel;
+        this.readerId = readerId;
+        this.target = target;
+        this.reads = reads;
+    }
+
+    void setKey(SelectionKey key) {
+        this.key = key;
+    }
+
+    SocketChannel getChannel() {
+        return channel;
+    }
+
+    String getReaderId() {
+        return readerId;
+    }
+
+    ApplicationProperties.Llrp.Reader getTarget() {
+        return target;
+    }
+
+    /**
+     * Completes a non-blocking connect, then asks the reader to start sending its reports.
+     */
+    void finishConnect(int messageId) throws IOException {
+        channel.finishConnect();
+        key.interestOps(SelectionKey.OP_READ);
+        send(LlrpMessages.enableEventsAndReports(messageId));
+    }
+
+    /**
+     * Reads what is available and decodes every complete message.
+     *
+     * @return {@code false} if the connection was closed by the reader or sent invalid data.
+     */
+    boolean read() throws IOException {
+        if (channel.read(inbound) < 0) {
+            return false;
+        }
+        inbound.flip();
+        if (!LlrpMessageDecoder.decode(inbound, readerId, this)) {
+            return false;
+        }
+        int pending = LlrpMessageDecoder.peekMessageLength(inbound);
+        if (pending > inbound.capacity()) {
+            ByteBuffer larger = ByteBuffer.allocate(pending);
+            larger.put(inbound);
+            inbound = larger;
+        } else {
+            inbound.compact();
+        }
+        return true;
+    }
+
+    void send(ByteBuffer message) {
+        outbound.add(message);
+        key.interestOps(key.interestOps() | SelectionKey.OP_WRITE);
+    }
+
+    void flush() throws IOException {
+        while (!outbound.isEmpty()) {
+            ByteBuffer message = outbound.peek();
+            channel.write(message);
+            if (message.hasRemaining()) {
+                return;
+            }
+            outbound.poll();
+        }
+        key.interestOps(key.interestOps() & ~SelectionKey.OP_WRITE);
+    }
+
+    void close() {
+        if (key != null) {
+            key.cancel();
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            // Nothing more to do with this connection.
+        }
+    }
+
+    @Override
+    public void onTagRead(TagRead read) {
+        reads.add(read);
+    }
+
+    @Override
+    public void onKeepalive(int messageId) {
+        send(LlrpMessages.keepaliveAck(messageId));
+    }
+}
@@ -0,0 +1,173 @@
+package com.isoft.rfid.service.llrp;
+
+import com.isoft.rfid.domain.TagRead;
+import java.nio.ByteBuffer;
+import java.time.Instant;
+
+/**
+ * Decodes the LLRP messages received from a reader into {@link TagRead}s.
+ * <p>
+ * Only RO_ACCESS_REPORT and KEEPALIVE matter to the ingest pipeline; other messages are skipped. Inside a report, each
+ * TagReportData parameter becomes one read, with its EPC, antenna, peak RSSI and last (or first) seen time.
+ */
+public final class LlrpMessageDecoder {
+
+    /**
+     * Largest message accepted from a reader; anything longer is treated as a framing error.
+     */
+    public static final int MAX_MESSAGE_LENGTH = 16 * 1024 * 1024;
+
+    private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+
+    /**
+     * Receives what was decoded from a reader connection.
+     */
+    public interface Listener {
+        void onTagRead(TagRead read);
+
+        void onKeepalive(int messageId);
+    }
+
+    private LlrpMessageDecoder() {}
+
+    /**
+     * Returns the total length of the message at the position of the buffer, if its header is complete.
+     *
+     * @param buffer the received bytes, ready to be read.
+     * @return the length of the message, {@code 0} if the header is incomplete, or {@code -1} if it is invalid.
+     */
+    public static int peekMessageLength(ByteBuffer buffer) {
+        if (buffer.remaining() < LlrpMessages.HEADER_LENGTH) {
+            return 0;
+        }
+        int position = buffer.position();
+        int version = (buffer.get(position) >> 2) & 0x07;
+        int length = buffer.getInt(position + 2);
+        if (version != LlrpMessages.VERSION || length < LlrpMessages.HEADER_LENGTH || length > MAX_MESSAGE_LENGTH) {
+            return -1;
+        }
+        return length;
+    }
+
+    /**
+     * Decodes every complete message of the buffer, leaving the position at the start of the first incomplete one.
+     *
+     * @param buffer the received bytes, ready to be read.
+     * @param readerId the id of the reader the bytes come from.
+     * @param listener the listener to notify.
+     * @return {@code false} if the stream is not valid LLRP and the connection should be closed.
+     */
+    public static boolean decode(ByteBuffer buffer, String readerId, Listener listener) {
+        while (true) {
+            int length = peekMessageLength(buffer);
+            if (length < 0) {
+                return false;
+            }
+            if (length == 0 || buffer.remaining() < length) {
+                return true;
+            }
+            int start = buffer.position();
+            int type = buffer.getShort(start) & 0x03FF;
+            int messageId = buffer.getInt(start + 6);
+            if (type == LlrpMessages.RO_ACCESS_REPORT) {
+                decodeParameters(buffer, start + LlrpMessages.HEADER_LENGTH, start + length, readerId, listener);
+            } else if (type == LlrpMessages.KEEPALIVE) {
+                listener.onKeepalive(messageId);
+            }
+            buffer.position(start + length);
+        }
+    }
+
+    private static void decodeParameters(ByteBuffer buffer, int from, int to, String readerId, Listener listener) {
+        int position = from;
+        while (position + 4 <= to) {
+            if ((buffer.get(position) & 0x80) != 0) {
+                // Only TLV parameters are expected at the top level of a report.
+                return;
+            }
+            int type = buffer.getShort(position) & 0x03FF;
+            int length = buffer.getShort(position + 2) & 0xFFFF;
+            if (length < 4 || position + length > to) {
+                return;
+            }
+            if (type == LlrpMessages.PARAM_TAG_REPORT_DATA) {
+                TagRead read = decodeTagReportData(buffer, position + 4, position + length, readerId);
+                if (read != null) {
+                    listener.onTagRead(read);
+                }
+            }
+            position += length;
+        }
+    }
+
+    private static TagRead decodeTagReportData(ByteBuffer buffer, int from, int to, String readerId) {
+        String epc = null;
+        Integer antenna = null;
+        Double rssi = null;
+        long firstSeenMicros = 0;
+        long lastSeenMicros = 0;
+        int position = from;
+        while (position < to) {
+            int first = buffer.get(position) & 0xFF;
+            if ((first & 0x80) != 0) {
+                int type = first & 0x7F;
+                int length = LlrpMessages.tvValueLength(type);
+                if (length < 0 || position + 1 + length > to) {
+                    // An unknown TV parameter cannot be skipped: keep what was decoded so far.
+                    break;
+                }
+                int value = position + 1;
+                switch (type) {
+                    case LlrpMessages.TV_EPC_96:
+                        epc = hex(buffer, value, 12);
+                        break;
+                    case LlrpMessages.TV_ANTENNA_ID:
+                        antenna = buffer.getShort(value) & 0xFFFF;
+                        break;
+                    case LlrpMessages.TV_PEAK_RSSI:
+                        rssi = (double) buffer.get(value);
+                        break;
+                    case LlrpMessages.TV_FIRST_SEEN_TIMESTAMP_UTC:
+                        firstSeenMicros = buffer.getLong(value);
+                        break;
+                    case LlrpMessages.TV_LAST_SEEN_TIMESTAMP_UTC:
+                        lastSeenMicros = buffer.getLong(value);
+                        break;
+                    default:
+                        break;
+                }
+                position = value + length;
+            } else {
+                if (position + 4 > to) {
+                    break;
+                }
+                int type = buffer.getShort(position) & 0x03FF;
+                int length = buffer.getShort(position + 2) & 0xFFFF;
+                if (length < 4 || position + length > to) {
+                    break;
+                }
+                if (type == LlrpMessages.PARAM_EPC_DATA && length >= 6) {
+                    int bits = buffer.getShort(position + 4) & 0xFFFF;
+                    epc = hex(buffer, position + 6, Math.min((bits + 7) / 8, length - 6));
+                }
+                position += length;
+            }
+        }
+        if (epc == null) {
+            return null;
+        }
+        long micros = lastSeenMicros != 0 ? lastSeenMicros : firstSeenMicros;
+        Instant timestamp = micros != 0 ? Instant.ofEpochSecond(micros / 1_000_000, (micros % 1_000_000) * 1000) : Instant.now();
+        return new TagRead().epc(epc).readerId(readerId).antenna(antenna).rssi(rssi).timestamp(timestamp);
+    }
+
+    private static String hex(ByteBuffer buffer, int from, int length) {
+        char[] chars = new char[length * 2];
+        for (int i = 0; i < length; i++) {
+            int b = buffer.get(from + i) & 0xFF;
+            chars[2 * i] = HEX_DIGITS[b >>> 4];
+            chars[2 * i + 1] = HEX_DIGITS[b & 0x0F];
+        }
+        return new String(chars);
+    }
+}
@@ -0,0 +1,176 @@
+package com.isoft.rfid.service.llrp;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Constants of the LLRP 1.0.1 binary protocol, and encoders for the few messages exchanged with readers.
+ * <p>
+ * Every message starts with a 10-byte header: 3 reserved bits, a 3-bit version and a 10-bit type, then the length of
+ * the whole message and its id, both unsigned 32-bit big-endian integers.
+ */
+public final class LlrpMessages {
+
+    public static final int VERSION = 1;
+
+    public static final int HEADER_LENGTH = 10;
+
+    public static final int DEFAULT_PORT = 5084;
+
+    public static final int CLOSE_CONNECTION_RESPONSE = 4;
+
+    public static final int CLOSE_CONNECTION = 14;
+
+    public static final int RO_ACCESS_REPORT = 61;
+
+    public static final int KEEPALIVE = 62;
+
+    public static final int READER_EVENT_NOTIFICATION = 63;
+
+    public static final int ENABLE_EVENTS_AND_REPORTS = 64;
+
+    public static final int KEEPALIVE_ACK = 72;
+
+    public static final int ERROR_MESSAGE = 100;
+
+    public static final int PARAM_UTC_TIMESTAMP = 128;
+
+    public static final int PARAM_TAG_REPORT_DATA = 240;
+
+    public static final int PARAM_EPC_DATA = 241;
+
+    public static final int PARAM_READER_EVENT_NOTIFICATION_DATA = 246;
+
+    public static final int PARAM_CONNECTION_ATTEMPT_EVENT = 256;
+
+    public static final int TV_ANTENNA_ID = 1;
+
+    public static final int TV_FIRST_SEEN_TIMESTAMP_UTC = 2;
+
+    public static final int TV_LAST_SEEN_TIMESTAMP_UTC = 4;
+
+    public static final int TV_PEAK_RSSI = 6;
+
+    public static final int TV_EPC_96 = 13;
+
+    /**
+     * Length of the value of each TV-encoded parameter, indexed by parameter type; {@code -1} for unknown types.
+     */
+    private static final int[] TV_VALUE_LENGTHS = { -1, 2, 8, 8, 8, 8, 1, 2, 2, 4, 2, 2, 2, 12, 2, 2, 4, 2, 4 };
+
+    private LlrpMessages() {}
+
+    /**
+     * Returns the length of the value of a TV parameter.
+     *
+     * @param type the 7-bit TV parameter type.
+     * @return the length in bytes, or {@code -1} if the type is unknown.
+     */
+    public static int tvValueLength(int type) {
+        return type < TV_VALUE_LENGTHS.length ? TV_VALUE_LENGTHS[type] : -1;
+    }
+
+    public static ByteBuffer keepalive(int messageId) {
+        return emptyMessage(KEEPALIVE, messageId);
+    }
+
+    public static ByteBuffer keepaliveAck(int messageId) {
+        return emptyMessage(KEEPALIVE_ACK, messageId);
+    }
+
+    public static ByteBuffer enableEventsAndReports(int messageId) {
+        return emptyMessage(ENABLE_EVENTS_AND_REPORTS, messageId);
+    }
+
+    public static ByteBuffer closeConnection(int messageId) {
+        return emptyMessage(CLOSE_CONNECTION, messageId);
+    }
+
+    /**
+     * Encodes the notification a reader sends when a client connection is accepted.
+     *
+     * @param messageId the message id.
+     * @param timestampMicros the reader clock, in microseconds since the epoch.
+     * @return the message, ready to be written.
+     */
+    public static ByteBuffer connectionAttemptSucceeded(int messageId, long timestampMicros) {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_LENGTH + 4 + 12 + 6);
+        int start = putHeader(buffer, READER_EVENT_NOTIFICATION, messageId);
+        int data = putTlvHeader(buffer, PARAM_READER_EVENT_NOTIFICATION_DATA);
+        int timestamp = putTlvHeader(buffer, PARAM_UTC_TIMESTAMP);
+        buffer.putLong(timestampMicros);
+        endTlv(buffer, timestamp);
+        int event = putTlvHeader(buffer, PARAM_CONNECTION_ATTEMPT_EVENT);
+        buffer.putShort((short) 0);
+        endTlv(buffer, event);
+        endTlv(buffer, data);
+        return endMessage(buffer, start);
+    }
+
+    /**
+     * Starts an RO_ACCESS_REPORT; add tags with {@link #putTagReportData} and finish with {@link #endMessage}.
+     *
+     * @param buffer the buffer to write to.
+     * @param messageId the message id.
+     * @return the position of the message, to pass to {@link #endMessage}.
+     */
+    public static int startRoAccessReport(ByteBuffer buffer, int messageId) {
+        return putHeader(buffer, RO_ACCESS_REPORT, messageId);
+    }
+
+    /**
+     * Appends a TagReportData parameter holding the EPC, antenna, peak RSSI and last-seen time of a tag.
+     *
+     * @param buffer the buffer to write to.
+     * @param epc the EPC bytes; 96-bit EPCs use the compact EPC-96 encoding.
+     * @param antenna the antenna id.
+     * @param peakRssi the peak RSSI, in dBm.
+     * @param timestampMicros the last-seen time, in microseconds since the epoch.
+     */
+    public static void putTagReportData(ByteBuffer buffer, byte[] epc, int antenna, int peakRssi, long timestampMicros) {
+        int report = putTlvHeader(buffer, PARAM_TAG_REPORT_DATA);
+        if (epc.length == 12) {
+            buffer.put((byte) (0x80 | TV_EPC_96)).put(epc);
+        } else {
+            int epcData = putTlvHeader(buffer, PARAM_EPC_DATA);
+            buffer.putShort((short) (epc.length * 8)).put(epc);
+            endTlv(buffer, epcData);
+        }
+        buffer.put((byte) (0x80 | TV_ANTENNA_ID)).putShort((short) antenna);
+        buffer.put((byte) (0x80 | TV_PEAK_RSSI)).put((byte) peakRssi);
+        buffer.put((byte) (0x80 | TV_LAST_SEEN_TIMESTAMP_UTC)).putLong(timestampMicros);
+        endTlv(buffer, report);
+    }
+
+    /**
+     * Writes the length of a message started at {@code start} and flips the buffer for writing to a channel.
+     *
+     * @param buffer the buffer holding the message.
+     * @param start the position returned when the message was started.
+     * @return the buffer.
+     */
+    public static ByteBuffer endMessage(ByteBuffer buffer, int start) {
+        buffer.putInt(start + 2, buffer.position() - start);
+        return buffer.flip();
+    }
+
+    private static ByteBuffer emptyMessage(int type, int messageId) {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_LENGTH);
+        return endMessage(buffer, putHeader(buffer, type, messageId));
+    }
+
+    private static int putHeader(ByteBuffer buffer, int type, int messageId) {
+        int start = buffer.position();
+        buffer.putShort((short) ((VERSION << 10) | type)).putInt(0).putInt(messageId);
+        return start;
+    }
+
+    private static int putTlvHeader(ByteBuffer buffer, int type) {
+        int start = buffer.position();
+        buffer.putShort((short) type).putShort((short) 0);
+        return start;
+    }
+
+    private static void endTlv(ByteBuffer buffer, int start) {
+        buffer.putShort(start + 2, (short) (buffer.position() - start));
+    }
+}
@@ -0,0 +1,266 @@
+package com.isoft.rfid.service.llrp;
+
+import com.isoft.rfid.config.ApplicationProperties;
+import com.isoft.rfid.domain.TagRead;
+import com.isoft.rfid.service.TagReadIngestService;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Receives tag reports from LLRP readers over TCP and feeds them to the {@link TagReadIngestService}.
+ * <p>
+ * A single selector thread serves every reader: the ones listed in {@code application.llrp.readers}, which are
+ * connected to (and reconnected after {@code application.llrp.reconnect-delay}), and the ones connecting by themselves
+ * to {@code application.llrp.listen-port}. The reads decoded in one selector pass are ingested as one batch on a
+ * separate thread; when ingestion falls behind, the selector thread ingests itself, which stops reading the sockets
+ * and lets TCP push back on the readers.
+ */
+public class LlrpReaderListener implements Runnable {
+
+    private static final long SELECT_TIMEOUT_MS = 200;
+
+    private static final int INGEST_QUEUE_CAPACITY = 16;
+
+    private final Logger log = LoggerFactory.getLogger(LlrpReaderListener.class);
+
+    private final TagReadIngestService tagReadIngestService;
+
+    private final ApplicationProperties.Llrp properties;
+
+    private final AtomicInteger messageIds = new AtomicInteger();
+
+    private final List<Reconnect> reconnects = new ArrayList<>();
+
+    private final ThreadPoolExecutor ingestExecutor;
+
+    private final List<TagRead> reads = new ArrayList<>();
+
+    private Selector selector;
+
+    private ServerSocketChannel serverChannel;
+
+    private Thread selectorThread;
+
+    private volatile boolean running;
+
+    public LlrpReaderListener(TagReadIngestService tagReadIngestService, ApplicationProperties.Llrp properties) {
+        this.tagReadIngestService = tagReadIngestService;
+        this.properties = properties;
+        this.ingestExecutor =
+            new ThreadPoolExecutor(
+                1,
+                1,
+                0,
+                TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(INGEST_QUEUE_CAPACITY),
+                runnable -> new Thread(runnable, "llrp-ingest"),
+                new ThreadPoolExecutor.CallerRunsPolicy()
+            );
+    }
+
+    public synchronized void start() throws IOException {
+        if (running) {
+            return;
+        }
+        selector = Selector.open();
+        if (properties.getListenPort() > 0) {
+            serverChannel = ServerSocketChannel.open();
+            serverChannel.bind(new InetSocketAddress(properties.getListenPort()));
+            serverChannel.configureBlocking(false);
+            serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+            log.info("Accepting LLRP reader connections on port {}", properties.getListenPort());
+        }
+        long now = System.currentTimeMillis();
+        for (ApplicationProperties.Llrp.Reader reader : properties.getReaders()) {
+            reconnects.add(new Reconnect(reader, now));
+        }
+        running = true;
+        selectorThread = new Thread(this, "llrp-selector");
+        selectorThread.setDaemon(true);
+        selectorThread.start();
+    }
+
+    public synchronized void stop() throws InterruptedException {
+        if (!running) {
+            return;
+        }
+        running = false;
+        selector.wakeup();
+        selectorThread.join(TimeUnit.SECONDS.toMillis(5));
+        ingestExecutor.shutdown();
+        ingestExecutor.awaitTermination(30, TimeUnit.SECONDS);
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (running) {
+                connectDueReaders();
+                selector.select(SELECT_TIMEOUT_MS);
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (key.isValid()) {
+                        handle(key);
+                    }
+                }
+                dispatchReads();
+            }
+        } catch (IOException e) {
+            log.error("LLRP selector loop failed", e);
+        } finally {
+            closeAll();
+        }
+    }
+
+    /**
+     * Serves a selected key. Whatever goes wrong with a connection only closes it, and reconnects to it if it is a
+     * configured reader, so that one reader cannot stop the selector loop for the others.
+     */
+    private void handle(SelectionKey key) {
+        if (key.isAcceptable()) {
+            accept();
+            return;
+        }
+        LlrpConnection connection = (LlrpConnection) key.attachment();
+        try {
+            if (key.isConnectable()) {
+                connection.finishConnect(messageIds.incrementAndGet());
+                log.info("Connected to LLRP reader {}", connection.getReaderId());
+            }
+            if (key.isValid() && key.isReadable() && !connection.read()) {
+                log.warn("LLRP reader {} closed the connection or sent invalid data", connection.getReaderId());
+                close(connection);
+                return;
+            }
+            if (key.isValid() && key.isWritable()) {
+                connection.flush();
+            }
+        } catch (IOException e) {
+            log.warn("LLRP connection to reader {} failed: {}", connection.getReaderId(), e.getMessage());
+            close(connection);
+        } catch (RuntimeException e) {
+            log.error("Could not handle the data of LLRP reader {}, closing the connection", connection.getReaderId(), e);
+            close(connection);
+        }
+    }
+
+    private void accept() {
+        try {
+            SocketChannel channel = serverChannel.accept();
+            if (channel == null) {
+                return;
+            }
+            channel.configureBlocking(false);
+            InetSocketAddress remote = (InetSocketAddress) channel.getRemoteAddress();
+            LlrpConnection connection = new LlrpConnection(channel, remote.getHostString(), null, reads);
+            connection.setKey(channel.register(selector, SelectionKey.OP_READ, connection));
+            connection.send(LlrpMessages.enableEventsAndReports(messageIds.incrementAndGet()));
+            log.info("Accepted LLRP connection from reader {}", connection.getReaderId());
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not accept LLRP connection: {}", e.getMessage());
+        }
+    }
+
+    private void connectDueReaders() {
+        long now = System.currentTimeMillis();
+        for (Iterator<Reconnect> it = reconnects.iterator(); it.hasNext();) {
+            Reconnect reconnect = it.next();
+            if (reconnect.dueAt > now) {
+                continue;
+            }
+            it.remove();
+            ApplicationProperties.Llrp.Reader reader = reconnect.reader;
+            SocketChannel channel = null;
+            try {
+                channel = SocketChannel.open();
+                channel.configureBlocking(false);
+                LlrpConnection connection = new LlrpConnection(channel, reader.getId(), reader, reads);
+                connection.setKey(channel.register(selector, SelectionKey.OP_CONNECT, connection));
+                channel.connect(new InetSocketAddress(reader.getHost(), reader.getPort()));
+            } catch (IOException | RuntimeException e) {
+                // Including an unresolved host, which is unchecked.
+                log.warn("Could not connect to LLRP reader {}: {}", reader.getId(), e.getMessage());
+                if (channel != null) {
+                    try {
+                        channel.close();
+                    } catch (IOException ignored) {
+                        // The channel was never usable.
+                    }
+                }
+                scheduleReconnect(reader);
+            }
+        }
+    }
+
+    private void close(LlrpConnection connection) {
+        connection.close();
+        if (connection.getTarget() != null && running) {
+            scheduleReconnect(connection.getTarget());
+        }
+    }
+
+    private void scheduleReconnect(ApplicationProperties.Llrp.Reader reader) {
+        reconnects.add(new Reconnect(reader, System.currentTimeMillis() + properties.getReconnectDelay().toMillis()));
+    }
+
+    private void dispatchReads() {
+        if (reads.isEmpty()) {
+            return;
+        }
+        List<TagRead> batch = new ArrayList<>(reads);
+        reads.clear();
+        ingestExecutor.execute(() -> ingest(batch));
+    }
+
+    private void ingest(List<TagRead> batch) {
+        try {
+            tagReadIngestService.ingest(batch);
+        } catch (RuntimeException e) {
+            log.error("Could not ingest {} LLRP tag reads: {}", batch.size(), e.getMessage());
+        }
+    }
+
+    private void closeAll() {
+        for (SelectionKey key : selector.keys()) {
+            if (key.attachment() instanceof LlrpConnection) {
+                ((LlrpConnection) key.attachment()).close();
+            }
+        }
+        try {
+            if (serverChannel != null) {
+                serverChannel.close();
+            }
+            selector.close();
+        } catch (IOException e) {
+            log.debug("Error while closing the LLRP selector: {}", e.getMessage());
+        }
+        dispatchReads();
+    }
+
+    private static final class Reconnect {
+
+        private final ApplicationProperties.Llrp.Reader reader;
+
+        private final long dueAt;
+
+        private Reconnect(ApplicationProperties.Llrp.Reader reader, long dueAt) {
+            this.reader = reader;
+            this.dueAt = dueAt;
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.isoft.rfid.service.llrp;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Local stand-in for an LLRP reader, to run the LLRP listener without hardware.
+ * <p>
+ * It accepts client connections like a reader in server mode, announces a successful connection attempt, then sends an
+ * RO_ACCESS_REPORT every {@code reportInterval} with {@code tagsPerReport} tags drawn from a population of SGTIN-96
+ * EPCs, on random antennas, plus a KEEPALIVE every few seconds.
+ */
+public class LlrpReaderSimulator implements AutoCloseable {
+
+    private static final long KEEPALIVE_INTERVAL_MS = 5000;
+
+    private static final int ANTENNAS = 4;
+
+    private final Logger log = LoggerFactory.getLogger(LlrpReaderSimulator.class);
+
+    private final int port;
+
+    private final int tagPopulation;
+
+    private final int tagsPerReport;
+
+    private final Duration reportInterval;
+
+    private final AtomicInteger messageIds = new AtomicInteger();
+
+    private ServerSocketChannel serverChannel;
+
+    private volatile boolean running;
+
+    public LlrpReaderSimulator(int port, int tagPopulation, int tagsPerReport, Duration reportInterval) {
+        this.port = port;
+        this.tagPopulation = Math.max(1, tagPopulation);
+        this.tagsPerReport = Math.max(1, tagsPerReport);
+        this.reportInterval = reportInterval;
+    }
+
+    public synchronized void start() throws IOException {
+        if (running) {
+            return;
+        }
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(new InetSocketAddress(port));
+        running = true;
+        Thread acceptor = new Thread(this::acceptLoop, "llrp-simulator");
+        acceptor.setDaemon(true);
+        acceptor.start();
+        log.info("LLRP reader simulator listening on port {}", getPort());
+    }
+
+    /**
+     * @return the port the simulator listens on, useful when it was started on port {@code 0}.
+     */
+    public int getPort() {
+        return serverChannel.socket().getLocalPort();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        running = false;
+        if (serverChannel != null) {
+            serverChannel.close();
+        }
+    }
+
+    /**
+     * Builds the 96-bit EPC of the n-th simulated tag: an SGTIN-96 with a fixed GTIN and {@code n} as serial number.
+     *
+     * @param n the tag number.
+     * @return the 12 EPC bytes.
+     */
+    public static byte[] epc(long n) {
+        long high = (0x30L << 56) | (1L << 53) | (5L << 50) | (614141L << 26) | (812345L << 6) | (n >>> 32);
+        ByteBuffer buffer = ByteBuffer.allocate(12);
+        buffer.putLong(high).putInt((int) n);
+        return buffer.array();
+    }
+
+    private void acceptLoop() {
+        while (running) {
+            try {
+                SocketChannel client = serverChannel.accept();
+                Thread thread = new Thread(() -> serve(client), "llrp-simulator-" + client.getRemoteAddress());
+                thread.setDaemon(true);
+                thread.start();
+            } catch (IOException e) {
+                if (running) {
+                    log.warn("LLRP simulator could not accept a connection: {}", e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void serve(SocketChannel client) {
+        ByteBuffer report = ByteBuffer.allocate(LlrpMessages.HEADER_LENGTH + tagsPerReport * 64);
+        ByteBuffer drain = ByteBuffer.allocate(1024);
+        try (client) {
+            client.configureBlocking(false);
+            write(client, LlrpMessages.connectionAttemptSucceeded(messageIds.incrementAndGet(), nowMicros()));
+            long nextKeepalive = System.currentTimeMillis() + KEEPALIVE_INTERVAL_MS;
+            while (running) {
+                // The client only sends small control messages and acknowledgements: read and ignore them.
+                int read;
+                while ((read = client.read(drain)) > 0) {
+                    drain.clear();
+                }
+                if (read < 0) {
+                    break;
+                }
+                report.clear();
+                int start = LlrpMessages.startRoAccessReport(report, messageIds.incrementAndGet());
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                long now = nowMicros();
+                for (int i = 0; i < tagsPerReport; i++) {
+                    byte[] epc = epc(random.nextInt(tagPopulation));
+                    LlrpMessages.putTagReportData(report, epc, 1 + random.nextInt(ANTENNAS), -40 - random.nextInt(35), now);
+                }
+                write(client, LlrpMessages.endMessage(report, start));
+                if (System.currentTimeMillis() >= nextKeepalive) {
+                    write(client, LlrpMessages.keepalive(messageIds.incrementAndGet()));
+                    nextKeepalive += KEEPALIVE_INTERVAL_MS;
+                }
+                Thread.sleep(reportInterval.toMillis());
+            }
+        } catch (IOException e) {
+            log.debug("LLRP simulator client disconnected: {}", e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void write(SocketChannel channel, ByteBuffer message) throws IOException, InterruptedException {
+        while (message.hasRemaining()) {
+            if (channel.write(message) == 0) {
+                Thread.sleep(1);
+            }
+        }
+    }
+
+    private static long nowMicros() {
+        return System.currentTimeMillis() * 1000;
+    }
+}
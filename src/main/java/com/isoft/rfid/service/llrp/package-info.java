@@ -0,0 +1,4 @@
+/**
+ * Native LLRP (Low Level Reader Protocol) connectivity to fixed RFID readers.
+ */
+package com.isoft.rfid.service.llrp;
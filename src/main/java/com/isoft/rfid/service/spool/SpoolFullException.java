@@ -0,0 +1,13 @@
+package com.isoft.rfid.service.spool;
+
+/**
+ * Thrown when a batch cannot be spooled because all the segments allowed on disk are in use.
+ */
+public class SpoolFullException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public SpoolFullException(int maxSegments) {
+        super("Tag read spool is full (" + maxSegments + " segments waiting to be indexed)");
+    }
+}
@@ -0,0 +1,29 @@
+package com.isoft.rfid.service.spool;
+
+/**
+ * Immutable position in the spool: a segment id and a byte offset inside that segment.
+ */
+final class SpoolPosition {
+
+    private final long segment;
+
+    private final int offset;
+
+    SpoolPosition(long segment, int offset) {
+        this.segment = segment;
+        this.offset = offset;
+    }
+
+    long getSegment() {
+        return segment;
+    }
+
+    int getOffset() {
+        return offset;
+    }
+
+    @Override
+    public String toString() {
+        return segment + ":" + offset;
+    }
+}
@@ -0,0 +1,154 @@
+package com.isoft.rfid.service.spool;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * One fixed-size, memory-mapped spool file holding a sequence of records.
+ * <p>
+ * A record is its payload length and the CRC32 of its payload, both 32-bit big-endian integers, followed by the payload.
+ * A zero length ends the sequence: it is written after every record before the record itself becomes visible, so a
+ * recycled file never exposes the records of its previous life. A record whose checksum does not match, as left by a
+ * crash in the middle of a write, also ends the sequence.
+ * <p>
+ * Appends are made by a single writer, reads by a single reader; each uses its own view of the mapping.
+ */
+final class SpoolSegment {
+
+    static final String SUFFIX = ".seg";
+
+    static final int RECORD_HEADER_LENGTH = 8;
+
+    private final long id;
+
+    private final Path path;
+
+    private final MappedByteBuffer buffer;
+
+    private final ByteBuffer writeView;
+
+    private final ByteBuffer readView;
+
+    private SpoolSegment(long id, Path path, MappedByteBuffer buffer) {
+        this.id = id;
+        this.path = path;
+        this.buffer = buffer;
+        this.writeView = buffer.duplicate();
+        this.readView = buffer.duplicate();
+    }
+
+    /**
+     * Maps a segment file, creating it (sparse) or growing it to {@code size} bytes if needed.
+     */
+    static SpoolSegment open(Path directory, long id, int size) throws IOException {
+        Path path = path(directory, id);
+        try (
+            FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)
+        ) {
+            return new SpoolSegment(id, path, channel.map(FileChannel.MapMode.READ_WRITE, 0, size));
+        }
+    }
+
+    static Path path(Path directory, long id) {
+        return directory.resolve(String.format("%020d%s", id, SUFFIX));
+    }
+
+    /**
+     * Parses the id of a segment from its file name.
+     *
+     * @return the id, or {@code -1} if the file is not a segment.
+     */
+    static long parseId(Path path) {
+        String name = path.getFileName().toString();
+        if (!name.endsWith(SUFFIX)) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(name.substring(0, name.length() - SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    long getId() {
+        return id;
+    }
+
+    Path getPath() {
+        return path;
+    }
+
+    int capacity() {
+        return buffer.capacity();
+    }
+
+    /**
+     * Marks {@code position} as the end of the records.
+     */
+    void terminate(int position) {
+        if (position + 4 <= buffer.capacity()) {
+            buffer.putInt(position, 0);
+        }
+    }
+
+    /**
+     * Appends a record at {@code position}.
+     *
+     * @return the position following the record, or {@code -1} if the record does not fit in the segment.
+     */
+    int append(int position, byte[] payload, CRC32 crc) {
+        int next = position + RECORD_HEADER_LENGTH + payload.length;
+        if (payload.length == 0 || next > buffer.capacity()) {
+            return -1;
+        }
+        crc.reset();
+        crc.update(payload);
+        writeView.position(position + RECORD_HEADER_LENGTH);
+        writeView.put(payload);
+        buffer.putInt(position + 4, (int) crc.getValue());
+        terminate(next);
+        buffer.putInt(position, payload.length);
+        return next;
+    }
+
+    /**
+     * Reads the record at {@code position}.
+     *
+     * @return its payload, or {@code null} if there is no valid record at this position.
+     */
+    byte[] read(int position, CRC32 crc) {
+        if (position + RECORD_HEADER_LENGTH > buffer.capacity()) {
+            return null;
+        }
+        int length = buffer.getInt(position);
+        if (length <= 0 || length > buffer.capacity() - position - RECORD_HEADER_LENGTH) {
+            return null;
+        }
+        byte[] payload = new byte[length];
+        readView.position(position + RECORD_HEADER_LENGTH);
+        readView.get(payload);
+        crc.reset();
+        crc.update(payload);
+        return (int) crc.getValue() == buffer.getInt(position + 4) ? payload : null;
+    }
+
+    /**
+     * Returns the end of the valid records, scanning from {@code position}.
+     */
+    int scan(int position, CRC32 crc) {
+        byte[] payload;
+        while ((payload = read(position, crc)) != null) {
+            position += RECORD_HEADER_LENGTH + payload.length;
+        }
+        return position;
+    }
+
+    void force() {
+        buffer.force();
+    }
+}
@@ -0,0 +1,593 @@
+package com.isoft.rfid.service.spool;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.isoft.rfid.config.ApplicationProperties;
+import com.isoft.rfid.domain.TagRead;
+import com.isoft.rfid.service.TagReadBulkIndexer;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.elasticsearch.BulkFailureException;
+import org.springframework.stereotype.Service;
+
+/**
+ * Write-ahead spool between ingestion and Elasticsearch.
+ * <p>
+ * Accepted reads are appended as JSON records to memory-mapped segment files under
+ * {@code application.ingest.spool.directory}; a batch is acknowledged as soon as it is in the spool, whatever the state
+ * of the cluster. A drainer thread replays the spool in order into the {@link TagReadBulkIndexer}, with as many bulks in
+ * flight and as many reads per bulk as the indexer currently allows. A failed bulk is retried until it succeeds, and the
+ * checkpoint file records the end of the oldest bulks that are all done, so it only ever moves forward over indexed
+ * reads. Drained segments are recycled for new writes instead of being deleted and re-allocated.
+ * <p>
+ * When only some reads of a bulk fail, only those that may succeed later are retried. The reads Elasticsearch refuses
+ * for good, such as ones that do not fit the mapping, would otherwise stall the spool: they are appended with their
+ * failure to the {@code dead-letters.jsonl} file of the spool directory, counted in {@code rfid.ingest.spool.dead-letters},
+ * and drained like the indexed ones.
+ * <p>
+ * Every read gets its id when it is spooled, so a batch replayed after a failure or a restart overwrites the documents
+ * indexed the first time instead of duplicating them.
+ */
+@Service
+public class TagReadSpool {
+
+    static final String CHECKPOINT_FILE = "checkpoint";
+
+    static final String DEAD_LETTER_FILE = "dead-letters.jsonl";
+
+    private static final int MAX_RECYCLED_SEGMENTS = 2;
+
+    private static final long INITIAL_BACKOFF_MS = 100;
+
+    private static final long MAX_BACKOFF_MS = 30_000;
+
+    private final Logger log = LoggerFactory.getLogger(TagReadSpool.class);
+
+    private final TagReadBulkIndexer tagReadBulkIndexer;
+
+    private final ObjectWriter tagReadWriter;
+
+    private final ObjectReader tagReadReader;
+
+    private final ObjectWriter deadLetterWriter;
+
+    private final Counter deadLetters;
+
+    private final boolean enabled;
+
+    private final Path directory;
+
+    private final int segmentSize;
+
+    private final int maxSegments;
+
+    private final boolean sync;
+
+    private final long flushIntervalNanos;
+
+    private final ConcurrentNavigableMap<Long, SpoolSegment> segments = new ConcurrentSkipListMap<>();
+
+    private final Deque<Path> recycled = new ArrayDeque<>();
+
+    private final Object writeLock = new Object();
+
+    private final CRC32 writeCrc = new CRC32();
+
+    private final CRC32 readCrc = new CRC32();
+
+    private final Object deadLetterLock = new Object();
+
+    private SpoolSegment writeSegment;
+
+    private int writePosition;
+
+    /**
+     * End of the records the drainer may read.
+     */
+    private volatile SpoolPosition published;
+
+    /**
+     * Start of the records not yet indexed.
+     */
+    private volatile SpoolPosition checkpoint;
+
+    private volatile boolean running;
+
+    private Thread drainer;
+
+    private ExecutorService bulkExecutor;
+
+    public TagReadSpool(
+        TagReadBulkIndexer tagReadBulkIndexer,
+        ObjectMapper objectMapper,
+        ApplicationProperties applicationProperties,
+        MeterRegistry meterRegistry
+    ) {
+        ApplicationProperties.Ingest ingest = applicationProperties.getIngest();
+        ApplicationProperties.Ingest.Spool spool = ingest.getSpool();
+        this.tagReadBulkIndexer = tagReadBulkIndexer;
+        this.tagReadWriter = objectMapper.writerFor(TagRead.class);
+        this.tagReadReader = objectMapper.readerFor(TagRead.class);
+        this.deadLetterWriter = objectMapper.writer();
+        this.enabled = spool.isEnabled();
+        this.directory = Paths.get(spool.getDirectory());
+        this.segmentSize = (int) Math.min(Integer.MAX_VALUE, spool.getSegmentSize().toBytes());
+        this.maxSegments = Math.max(2, spool.getMaxSegments());
+        this.sync = spool.isSync();
+        this.flushIntervalNanos = ingest.getFlushInterval().toNanos();
+        Gauge
+            .builder("rfid.ingest.spool.backlog", this, TagReadSpool::backlogBytes)
+            .description("Bytes of spooled tag reads waiting to be indexed")
+            .baseUnit("bytes")
+            .register(meterRegistry);
+        this.deadLetters =
+            Counter
+                .builder("rfid.ingest.spool.dead-letters")
+                .description("Spooled tag reads refused for good by Elasticsearch, and written to the dead-letter file")
+                .baseUnit("reads")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        Files.createDirectories(directory);
+        recover();
+        running = true;
+        AtomicInteger bulkThreads = new AtomicInteger();
+        bulkExecutor =
+            Executors.newFixedThreadPool(
+                tagReadBulkIndexer.getMaxConcurrency(),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "tag-read-spool-bulk-" + bulkThreads.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            );
+        drainer = new Thread(this::drain, "tag-read-spool-drainer");
+        drainer.setDaemon(true);
+        drainer.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (!running) {
+            return;
+        }
+        running = false;
+        drainer.interrupt();
+        drainer.join(TimeUnit.SECONDS.toMillis(10));
+        // Bulks still in flight are not checkpointed any more: they are replayed at the next start.
+        bulkExecutor.shutdownNow();
+        synchronized (writeLock) {
+            for (SpoolSegment segment : segments.values()) {
+                segment.force();
+            }
+        }
+        log.info("Tag read spool stopped at {}, {} bytes left to index", checkpoint, (long) backlogBytes());
+    }
+
+    /**
+     * Appends reads to the spool, or hands them straight to the {@link TagReadBulkIndexer} when the spool is disabled.
+     * <p>
+     * The whole batch is spooled or, if the spool is full, none of it.
+     *
+     * @param reads the reads to index.
+     * @throws SpoolFullException if the spool has no room left for the batch.
+     */
+    public void append(List<TagRead> reads) {
+        if (!enabled) {
+            tagReadBulkIndexer.addAll(reads);
+            return;
+        }
+        if (reads.isEmpty()) {
+            return;
+        }
+        List<byte[]> records = new ArrayList<>(reads.size());
+        for (TagRead read : reads) {
+            if (read.getId() == null) {
+                read.setId(newId());
+            }
+            try {
+                records.add(tagReadWriter.writeValueAsBytes(read));
+            } catch (JsonProcessingException e) {
+                throw new IllegalStateException("Could not serialize tag read " + read.getId(), e);
+            }
+        }
+        synchronized (writeLock) {
+            SpoolPosition start = new SpoolPosition(writeSegment.getId(), writePosition);
+            try {
+                for (byte[] record : records) {
+                    int next = writeSegment.append(writePosition, record, writeCrc);
+                    if (next < 0) {
+                        roll();
+                        next = writeSegment.append(writePosition, record, writeCrc);
+                        if (next < 0) {
+                            throw new IllegalArgumentException("Tag read of " + record.length + " bytes does not fit in a spool segment");
+                        }
+                    }
+                    writePosition = next;
+                }
+                if (sync) {
+                    writeSegment.force();
+                }
+            } catch (IOException e) {
+                rollback(start);
+                throw new UncheckedIOException("Could not write to the tag read spool", e);
+            } catch (RuntimeException e) {
+                rollback(start);
+                throw e;
+            }
+            published = new SpoolPosition(writeSegment.getId(), writePosition);
+        }
+        LockSupport.unpark(drainer);
+    }
+
+    /**
+     * Starts writing to a new segment, taking a recycled file when there is one.
+     */
+    private void roll() throws IOException {
+        if (segments.size() >= maxSegments) {
+            throw new SpoolFullException(maxSegments);
+        }
+        if (sync) {
+            writeSegment.force();
+        }
+        long id = writeSegment.getId() + 1;
+        Path free;
+        synchronized (recycled) {
+            free = recycled.poll();
+        }
+        if (free != null) {
+            try {
+                Files.move(free, SpoolSegment.path(directory, id));
+            } catch (IOException e) {
+                log.debug("Could not recycle spool segment {}: {}", free, e.getMessage());
+                Files.deleteIfExists(free);
+            }
+        }
+        SpoolSegment segment = SpoolSegment.open(directory, id, segmentSize);
+        segment.terminate(0);
+        segments.put(id, segment);
+        writeSegment = segment;
+        writePosition = 0;
+    }
+
+    /**
+     * Drops what was written of a batch that could not be spooled entirely.
+     */
+    private void rollback(SpoolPosition start) {
+        for (SpoolSegment segment : segments.tailMap(start.getSegment(), false).values()) {
+            segments.remove(segment.getId());
+            recycle(segment);
+        }
+        writeSegment = segments.get(start.getSegment());
+        writePosition = start.getOffset();
+        writeSegment.terminate(writePosition);
+    }
+
+    private void recover() throws IOException {
+        List<Long> ids = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.mapToLong(SpoolSegment::parseId).filter(id -> id >= 0).sorted().forEach(ids::add);
+        }
+        SpoolPosition start = readCheckpoint();
+        for (long id : ids) {
+            if (start != null && id < start.getSegment()) {
+                Files.deleteIfExists(SpoolSegment.path(directory, id));
+            } else {
+                segments.put(id, SpoolSegment.open(directory, id, segmentSize));
+            }
+        }
+        if (start == null || !segments.containsKey(start.getSegment())) {
+            start = new SpoolPosition(segments.isEmpty() ? 0 : segments.firstKey(), 0);
+        }
+        if (segments.isEmpty()) {
+            SpoolSegment segment = SpoolSegment.open(directory, start.getSegment(), segmentSize);
+            segment.terminate(0);
+            segments.put(segment.getId(), segment);
+        }
+        writeSegment = segments.lastEntry().getValue();
+        writePosition = writeSegment.scan(writeSegment.getId() == start.getSegment() ? start.getOffset() : 0, writeCrc);
+        published = new SpoolPosition(writeSegment.getId(), writePosition);
+        checkpoint = start;
+        log.info(
+            "Tag read spool recovered {} segments, resuming at {} with {} bytes to index",
+            segments.size(),
+            start,
+            (long) backlogBytes()
+        );
+    }
+
+    private void drain() {
+        Deque<InFlightBatch> inFlight = new ArrayDeque<>();
+        List<TagRead> batch = new ArrayList<>();
+        SpoolPosition batchFrom = checkpoint;
+        SpoolPosition next = checkpoint;
+        long batchStart = 0;
+        while (running) {
+            if (!commitCompleted(inFlight)) {
+                return;
+            }
+            if (inFlight.size() >= tagReadBulkIndexer.getConcurrency()) {
+                LockSupport.parkNanos(flushIntervalNanos);
+                continue;
+            }
+            int batchSize = tagReadBulkIndexer.getBatchSize();
+            next = read(next, batch, batchSize);
+            if (batch.isEmpty()) {
+                batchFrom = next;
+                LockSupport.parkNanos(flushIntervalNanos);
+                continue;
+            }
+            long now = System.nanoTime();
+            if (batchStart == 0) {
+                batchStart = now;
+            }
+            long wait = batchStart + flushIntervalNanos - now;
+            if (batch.size() < batchSize && wait > 0) {
+                LockSupport.parkNanos(wait);
+                continue;
+            }
+            List<TagRead> sent = batch;
+            long queued = bytesBetween(next, published) * sent.size() / Math.max(1, bytesBetween(batchFrom, next));
+            CompletableFuture<Void> future = CompletableFuture.runAsync(
+                () -> {
+                    if (!index(sent, queued)) {
+                        throw new CancellationException("Tag read spool stopped");
+                    }
+                },
+                bulkExecutor
+            );
+            future.whenComplete((result, e) -> LockSupport.unpark(drainer));
+            inFlight.add(new InFlightBatch(future, next));
+            batch = new ArrayList<>(batchSize);
+            batchFrom = next;
+            batchStart = 0;
+        }
+    }
+
+    /**
+     * Checkpoints the end of the oldest bulks that are done, stopping at the first one still in flight.
+     *
+     * @return {@code false} if a bulk was abandoned because the spool is stopping.
+     */
+    private boolean commitCompleted(Deque<InFlightBatch> inFlight) {
+        SpoolPosition committed = null;
+        while (!inFlight.isEmpty() && inFlight.peek().future.isDone()) {
+            InFlightBatch done = inFlight.poll();
+            if (done.future.isCompletedExceptionally()) {
+                return false;
+            }
+            committed = done.end;
+        }
+        if (committed != null) {
+            commit(committed);
+        }
+        return true;
+    }
+
+    /**
+     * Reads the published records following {@code from} until the batch is full.
+     *
+     * @return the position following the last record read.
+     */
+    private SpoolPosition read(SpoolPosition from, List<TagRead> batch, int batchSize) {
+        SpoolPosition end = published;
+        long id = from.getSegment();
+        int position = from.getOffset();
+        while (batch.size() < batchSize && (id < end.getSegment() || position < end.getOffset())) {
+            byte[] record = segments.get(id).read(position, readCrc);
+            if (record == null) {
+                if (id < end.getSegment()) {
+                    id = segments.higherKey(id);
+                    position = 0;
+                } else {
+                    log.error("Corrupted tag read spool record at {}:{}, skipping to {}", id, position, end);
+                    position = end.getOffset();
+                }
+                continue;
+            }
+            position += SpoolSegment.RECORD_HEADER_LENGTH + record.length;
+            try {
+                batch.add(tagReadReader.readValue(record));
+            } catch (IOException e) {
+                log.error("Skipping unreadable tag read spool record at {}:{}: {}", id, position, e.getMessage());
+            }
+        }
+        return new SpoolPosition(id, position);
+    }
+
+    /**
+     * Indexes a batch, retrying with an exponential backoff until it succeeds or the spool is stopped. When some reads
+     * of the batch fail, only the ones that may succeed later are retried, and the others are dead-lettered.
+     */
+    private boolean index(List<TagRead> batch, long queued) {
+        List<TagRead> remaining = batch;
+        long backoff = INITIAL_BACKOFF_MS;
+        while (running) {
+            try {
+                tagReadBulkIndexer.bulkIndex(remaining, queued);
+                return true;
+            } catch (BulkFailureException e) {
+                remaining = retriable(remaining, e.getFailedDocuments());
+                if (remaining.isEmpty()) {
+                    return true;
+                }
+                log.warn("Could not index {} spooled tag reads, retrying them in {} ms", remaining.size(), backoff);
+            } catch (RuntimeException e) {
+                log.warn("Could not index {} spooled tag reads, retrying in {} ms: {}", remaining.size(), backoff, e.getMessage());
+            }
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(backoff));
+            backoff = Math.min(backoff * 2, MAX_BACKOFF_MS);
+        }
+        return false;
+    }
+
+    /**
+     * Dead-letters the reads of a bulk that failed for good.
+     *
+     * @return the reads that failed but may succeed if sent again.
+     */
+    private List<TagRead> retriable(List<TagRead> batch, Map<String, String> failedDocuments) {
+        List<TagRead> retriable = new ArrayList<>(failedDocuments.size());
+        for (TagRead read : batch) {
+            String failure = failedDocuments.get(read.getId());
+            if (failure == null) {
+                continue;
+            }
+            if (TagReadBulkIndexer.isRetriable(failure)) {
+                retriable.add(read);
+            } else {
+                deadLetter(read, failure);
+            }
+        }
+        return retriable;
+    }
+
+    private void deadLetter(TagRead read, String failure) {
+        deadLetters.increment();
+        log.error("Elasticsearch refused spooled tag read {}, writing it to the dead-letter file: {}", read.getId(), failure);
+        Map<String, Object> entry = new LinkedHashMap<>();
+        entry.put("failure", failure);
+        entry.put("read", read);
+        try {
+            byte[] json = deadLetterWriter.writeValueAsBytes(entry);
+            byte[] line = Arrays.copyOf(json, json.length + 1);
+            line[json.length] = '\n';
+            synchronized (deadLetterLock) {
+                Files.write(directory.resolve(DEAD_LETTER_FILE), line, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            }
+        } catch (IOException e) {
+            log.error("Could not write tag read {} to the dead-letter file: {}", read.getId(), e.getMessage());
+        }
+    }
+
+    private void commit(SpoolPosition next) {
+        try {
+            writeCheckpoint(next);
+        } catch (IOException e) {
+            log.error("Could not write the tag read spool checkpoint: {}", e.getMessage());
+            return;
+        }
+        checkpoint = next;
+        for (Map.Entry<Long, SpoolSegment> drained : segments.headMap(next.getSegment()).entrySet()) {
+            segments.remove(drained.getKey());
+            recycle(drained.getValue());
+        }
+    }
+
+    private void recycle(SpoolSegment segment) {
+        synchronized (recycled) {
+            if (recycled.size() < MAX_RECYCLED_SEGMENTS) {
+                recycled.add(segment.getPath());
+                return;
+            }
+        }
+        try {
+            Files.deleteIfExists(segment.getPath());
+        } catch (IOException e) {
+            log.warn("Could not delete spool segment {}: {}", segment.getPath(), e.getMessage());
+        }
+    }
+
+    private SpoolPosition readCheckpoint() throws IOException {
+        Path path = directory.resolve(CHECKPOINT_FILE);
+        if (!Files.exists(path)) {
+            return null;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(path));
+        if (buffer.remaining() < Long.BYTES + Integer.BYTES) {
+            log.warn("Ignoring truncated tag read spool checkpoint {}", path);
+            return null;
+        }
+        return new SpoolPosition(buffer.getLong(), buffer.getInt());
+    }
+
+    private void writeCheckpoint(SpoolPosition position) throws IOException {
+        Path temporary = directory.resolve(CHECKPOINT_FILE + ".tmp");
+        ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES + Integer.BYTES);
+        buffer.putLong(position.getSegment()).putInt(position.getOffset()).flip();
+        try (
+            FileChannel channel = FileChannel.open(
+                temporary,
+                StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING
+            )
+        ) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            if (sync) {
+                channel.force(true);
+            }
+        }
+        Files.move(temporary, directory.resolve(CHECKPOINT_FILE), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private double backlogBytes() {
+        SpoolPosition start = checkpoint;
+        SpoolPosition end = published;
+        return start == null || end == null ? 0 : bytesBetween(start, end);
+    }
+
+    private long bytesBetween(SpoolPosition from, SpoolPosition to) {
+        return (to.getSegment() - from.getSegment()) * segmentSize + to.getOffset() - from.getOffset();
+    }
+
+    private static final class InFlightBatch {
+
+        private final CompletableFuture<Void> future;
+
+        private final SpoolPosition end;
+
+        private InFlightBatch(CompletableFuture<Void> future, SpoolPosition end) {
+            this.future = future;
+            this.end = end;
+        }
+    }
+
+    private static String newId() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return new UUID(random.nextLong(), random.nextLong()).toString();
+    }
+}
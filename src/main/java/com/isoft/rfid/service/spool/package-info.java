@@ -0,0 +1,4 @@
+/**
+ * Durable write-ahead spool decoupling tag-read ingestion from Elasticsearch.
+ */
+package com.isoft.rfid.service.spool;
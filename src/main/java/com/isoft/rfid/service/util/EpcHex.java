@@ -0,0 +1,111 @@
+package com.isoft.rfid.service.util;
+
+/**
+ * Utility class to read a hexadecimal EPC as a 128-bit number held in two {@code long}s, without creating objects.
+ * <p>
+ * The value is right-aligned: a 96-bit EPC occupies the low 32 bits of {@link #high(CharSequence)} and all of
+ * {@link #low(CharSequence)}.
+ */
+public final class EpcHex {
+
+    /**
+     * Longest EPC, in hex digits, that fits in two {@code long}s.
+     */
+    public static final int MAX_DIGITS = 32;
+
+    private EpcHex() {}
+
+    /**
+     * Checks that the EPC is made of 1 to {@link #MAX_DIGITS} hex digits.
+     *
+     * @param epc the EPC.
+     * @return {@code true} if the EPC can be read by this class.
+     */
+    public static boolean isValid(CharSequence epc) {
+        int length = epc.length();
+        if (length == 0 || length > MAX_DIGITS) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (digit(epc.charAt(i)) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the 64 most significant bits of the EPC.
+     *
+     * @param epc a valid EPC, see {@link #isValid(CharSequence)}.
+     * @return the high word.
+     */
+    public static long high(CharSequence epc) {
+        return parse(epc, 0, Math.max(0, epc.length() - 16));
+    }
+
+    /**
+     * Returns the 64 least significant bits of the EPC.
+     *
+     * @param epc a valid EPC, see {@link #isValid(CharSequence)}.
+     * @return the low word.
+     */
+    public static long low(CharSequence epc) {
+        return parse(epc, Math.max(0, epc.length() - 16), epc.length());
+    }
+
+    /**
+     * Parses {@code epc[from, to)} as an unsigned hex number of at most 16 digits.
+     *
+     * @param epc the EPC.
+     * @param from first digit, inclusive.
+     * @param to last digit, exclusive.
+     * @return the parsed value.
+     */
+    public static long parse(CharSequence epc, int from, int to) {
+        long value = 0;
+        for (int i = from; i < to; i++) {
+            value = (value << 4) | digit(epc.charAt(i));
+        }
+        return value;
+    }
+
+    /**
+     * Returns the value of a hex digit.
+     *
+     * @param c the character.
+     * @return the value of the digit, or {@code -1} if {@code c} is not a hex digit.
+     */
+    public static int digit(char c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        }
+        if (c >= 'A' && c <= 'F') {
+            return c - 'A' + 10;
+        }
+        if (c >= 'a' && c <= 'f') {
+            return c - 'a' + 10;
+        }
+        return -1;
+    }
+
+    /**
+     * Mixes a 128-bit EPC and an extra word into a well-distributed hash, for open-addressing tables.
+     *
+     * @param high the high word.
+     * @param low the low word.
+     * @param extra any other part of the key, {@code 0} if none.
+     * @return the hash.
+     */
+    public static long hash(long high, long low, long extra) {
+        long h = high * 0x9E3779B97F4A7C15L;
+        h ^= low + 0x632BE59BD9B4E019L + (h << 6) + (h >>> 2);
+        h ^= extra * 0xC2B2AE3D27D4EB4FL;
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,82 @@
+package com.isoft.rfid.service.util;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent identical calls: while a call for a key is in flight, the callers asking for the same key wait
+ * for its result instead of making the call again.
+ * <p>
+ * Only calls overlapping in time are coalesced, nothing is kept once a call has returned: a caller arriving after that
+ * makes a new call, so results are never older than the request. A failure is thrown to all the callers of the flight.
+ *
+ * @param <K> the type of the keys identifying identical calls.
+ * @param <V> the type of the results.
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentHashMap<K, CompletableFuture<V>> flights = new ConcurrentHashMap<>();
+
+    private final LongAdder executed = new LongAdder();
+
+    private final LongAdder coalesced = new LongAdder();
+
+    /**
+     * Makes a call, or waits for the identical one in flight.
+     *
+     * @param key the key of the call.
+     * @param call makes the call, in the calling thread.
+     * @return the result of the call.
+     */
+    public V execute(K key, Supplier<V> call) {
+        CompletableFuture<V> flight = new CompletableFuture<>();
+        CompletableFuture<V> inFlight = flights.putIfAbsent(key, flight);
+        if (inFlight != null) {
+            coalesced.increment();
+            return await(inFlight);
+        }
+        executed.increment();
+        try {
+            V value = call.get();
+            flight.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            flights.remove(key, flight);
+        }
+    }
+
+    /**
+     * Returns the number of calls made.
+     */
+    public long executed() {
+        return executed.sum();
+    }
+
+    /**
+     * Returns the number of calls answered by another one in flight.
+     */
+    public long coalesced() {
+        return coalesced.sum();
+    }
+
+    private static <V> V await(CompletableFuture<V> flight) {
+        try {
+            return flight.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.isoft.rfid.service.util;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Thread-safe dictionary assigning a dense {@code int} code to each distinct string, such as reader ids or zones.
+ * <p>
+ * Looking up a known string does not allocate, so hot-path structures can store the code in a primitive array instead
+ * of holding a reference to the string. The dictionary only grows: it is meant for low-cardinality values. When the
+ * values come from clients, such as reader ids, give it a maximum size: once full, it assigns no more codes.
+ */
+public class StringDictionary {
+
+    private static final Logger log = LoggerFactory.getLogger(StringDictionary.class);
+
+    private final String name;
+
+    private final int maxSize;
+
+    private final ConcurrentHashMap<String, Integer> codes = new ConcurrentHashMap<>();
+
+    private volatile String[] values = new String[16];
+
+    private boolean full;
+
+    public StringDictionary() {
+        this(null, Integer.MAX_VALUE);
+    }
+
+    /**
+     * @param name what the strings are, for the warning logged when the dictionary is full.
+     * @param maxSize the maximum number of strings.
+     */
+    public StringDictionary(String name, int maxSize) {
+        this.name = name;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Returns the code of a string, assigning the next free one if it was never seen.
+     *
+     * @param value the string.
+     * @return its code, starting at {@code 0}, or {@code -1} if the string was never seen and the dictionary is full.
+     */
+    public int encode(String value) {
+        Integer code = codes.get(value);
+        if (code != null) {
+            return code;
+        }
+        return add(value);
+    }
+
+    /**
+     * Returns the code of a string without assigning one.
+     *
+     * @param value the string.
+     * @return its code, or {@code -1} if the string was never encoded.
+     */
+    public int lookup(String value) {
+        Integer code = codes.get(value);
+        return code == null ? -1 : code;
+    }
+
+    /**
+     * Returns the string of a code.
+     *
+     * @param code the code.
+     * @return the string, or {@code null} if the code was never assigned.
+     */
+    public String decode(int code) {
+        String[] current = values;
+        return code >= 0 && code < current.length ? current[code] : null;
+    }
+
+    public int size() {
+        return codes.size();
+    }
+
+    private synchronized int add(String value) {
+        Integer code = codes.get(value);
+        if (code != null) {
+            return code;
+        }
+        int next = codes.size();
+        if (next >= maxSize) {
+            if (!full) {
+                full = true;
+                log.warn("Dictionary of {} is full with {} values, further ones are not tracked", name, maxSize);
+            }
+            return -1;
+        }
+        String[] current = values;
+        if (next == current.length) {
+            current = Arrays.copyOf(current, current.length * 2);
+        }
+        current[next] = value;
+        values = current;
+        codes.put(value, next);
+        return next;
+    }
+}
@@ -0,0 +1,177 @@
+package com.isoft.rfid.service.util;
+
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timing wheel, holding millions of timeouts with constant-time scheduling, rescheduling and cancelling.
+ * <p>
+ * Time is cut in ticks. Level 0 has one bucket per tick for the next {@value #WHEEL_SIZE} ticks, each higher level one
+ * bucket per full turn of the level below; a timeout goes in the lowest level whose range covers its deadline and is
+ * moved down a level each time the level below wraps around, until it expires from level 0. Timeouts are intrusive
+ * doubly-linked nodes, so a timeout that is pushed back at every read of a tag costs no allocation.
+ * <p>
+ * This class is not thread-safe.
+ *
+ * @param <T> the type of the timeouts.
+ */
+public class TimingWheel<T extends TimingWheel.Timeout> {
+
+    private static final int WHEEL_BITS = 6;
+
+    private static final int WHEEL_SIZE = 1 << WHEEL_BITS;
+
+    private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+
+    private static final int LEVELS = 4;
+
+    /**
+     * Furthest deadline, in ticks from now, that the levels can hold; later ones are parked at the last level and
+     * rescheduled when they come down.
+     */
+    private static final long MAX_DELAY_TICKS = (1L << (WHEEL_BITS * LEVELS)) - 1;
+
+    private final long tickMillis;
+
+    private final Timeout[][] buckets = new Timeout[LEVELS][WHEEL_SIZE];
+
+    private long currentTick;
+
+    private int size;
+
+    /**
+     * @param tickMillis the resolution of the wheel.
+     * @param startMillis the current time.
+     */
+    public TimingWheel(long tickMillis, long startMillis) {
+        this.tickMillis = tickMillis;
+        this.currentTick = Math.floorDiv(startMillis, tickMillis);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Schedules a timeout, or reschedules it if it is already scheduled.
+     *
+     * @param timeout the timeout.
+     * @param deadlineMillis when it expires; a deadline already past expires at the next tick.
+     */
+    public void schedule(T timeout, long deadlineMillis) {
+        cancel(timeout);
+        Timeout node = timeout;
+        node.deadlineTick = Math.max(currentTick + 1, Math.floorDiv(deadlineMillis, tickMillis));
+        insert(node);
+        size++;
+    }
+
+    /**
+     * Cancels a timeout; does nothing if it is not scheduled.
+     *
+     * @param timeout the timeout.
+     */
+    public void cancel(T timeout) {
+        Timeout node = timeout;
+        if (node.bucketLevel < 0) {
+            return;
+        }
+        unlink(node);
+        size--;
+    }
+
+    /**
+     * Advances the wheel to the given time, expiring the timeouts whose deadline has passed.
+     *
+     * @param nowMillis the current time.
+     * @param expired called with each expired timeout, in deadline order; it may schedule timeouts again.
+     */
+    @SuppressWarnings("unchecked")
+    public void advance(long nowMillis, Consumer<? super T> expired) {
+        long target = Math.floorDiv(nowMillis, tickMillis);
+        while (currentTick < target) {
+            currentTick++;
+            cascade();
+            int slot = (int) (currentTick & WHEEL_MASK);
+            Timeout timeout;
+            while ((timeout = buckets[0][slot]) != null) {
+                unlink(timeout);
+                if (timeout.deadlineTick > currentTick) {
+                    insert(timeout);
+                } else {
+                    size--;
+                    expired.accept((T) timeout);
+                }
+            }
+        }
+    }
+
+    /**
+     * Moves down the timeouts of the higher-level buckets whose turn starts at the current tick.
+     */
+    private void cascade() {
+        for (int level = 1; level < LEVELS; level++) {
+            if (((currentTick >>> (WHEEL_BITS * level - WHEEL_BITS)) & WHEEL_MASK) != 0) {
+                return;
+            }
+            int slot = (int) ((currentTick >>> (WHEEL_BITS * level)) & WHEEL_MASK);
+            Timeout timeout;
+            while ((timeout = buckets[level][slot]) != null) {
+                unlink(timeout);
+                insert(timeout);
+            }
+        }
+    }
+
+    private void insert(Timeout timeout) {
+        long delay = Math.max(0, Math.min(timeout.deadlineTick - currentTick, MAX_DELAY_TICKS));
+        int level = 0;
+        while (level < LEVELS - 1 && delay >= 1L << (WHEEL_BITS * (level + 1))) {
+            level++;
+        }
+        long tick = currentTick + delay;
+        int slot = (int) ((tick >>> (WHEEL_BITS * level)) & WHEEL_MASK);
+        Timeout head = buckets[level][slot];
+        timeout.prev = null;
+        timeout.next = head;
+        if (head != null) {
+            head.prev = timeout;
+        }
+        buckets[level][slot] = timeout;
+        timeout.bucketLevel = level;
+        timeout.bucketSlot = slot;
+    }
+
+    private void unlink(Timeout timeout) {
+        if (timeout.prev != null) {
+            timeout.prev.next = timeout.next;
+        } else {
+            buckets[timeout.bucketLevel][timeout.bucketSlot] = timeout.next;
+        }
+        if (timeout.next != null) {
+            timeout.next.prev = timeout.prev;
+        }
+        timeout.prev = null;
+        timeout.next = null;
+        timeout.bucketLevel = -1;
+    }
+
+    /**
+     * Base class of the objects that can be scheduled on a {@link TimingWheel}.
+     */
+    public abstract static class Timeout {
+
+        private long deadlineTick;
+
+        private Timeout prev;
+
+        private Timeout next;
+
+        private int bucketLevel = -1;
+
+        private int bucketSlot;
+
+        public boolean isScheduled() {
+            return bucketLevel >= 0;
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.isoft.rfid.service.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket, refilled continuously at a fixed rate up to its capacity.
+ * <p>
+ * The bucket is kept as a single timestamp, the time at which it will be full again: taking a token pushes it back by the
+ * refill period of a token, and a token is available as long as that time is less than a full bucket ahead of now. Taking
+ * a token is then one compare-and-set, retried only when another thread took one meanwhile, and an idle bucket is simply a
+ * timestamp in the past.
+ */
+public class TokenBucket {
+
+    private final long nanosPerToken;
+
+    private final long burstNanos;
+
+    private final AtomicLong fullAt;
+
+    /**
+     * @param capacity the number of tokens of a full bucket, taken at once by a burst.
+     * @param tokensPerSecond the refill rate.
+     * @param nowNanos the current time, from {@link System#nanoTime()}; the bucket starts full.
+     */
+    public TokenBucket(int capacity, double tokensPerSecond, long nowNanos) {
+        if (capacity < 1 || !(tokensPerSecond > 0)) {
+            throw new IllegalArgumentException("Invalid token bucket: capacity " + capacity + ", refill " + tokensPerSecond + "/s");
+        }
+        this.nanosPerToken = Math.max(1, Math.round(1_000_000_000L / tokensPerSecond));
+        this.burstNanos = nanosPerToken * capacity;
+        this.fullAt = new AtomicLong(nowNanos);
+    }
+
+    /**
+     * Takes a token if there is one.
+     *
+     * @param nowNanos the current time, from {@link System#nanoTime()}.
+     * @return {@code 0} if a token was taken, otherwise the nanoseconds until one is available.
+     */
+    public long tryAcquire(long nowNanos) {
+        while (true) {
+            long current = fullAt.get();
+            // An idle bucket is full, however long ago it was.
+            long next = (current - nowNanos < 0 ? nowNanos : current) + nanosPerToken;
+            long wait = next - nowNanos - burstNanos;
+            if (wait > 0) {
+                return wait;
+            }
+            if (fullAt.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Returns whether the bucket is full, in which case it behaves as a new one.
+     *
+     * @param nowNanos the current time, from {@link System#nanoTime()}.
+     */
+    public boolean isFull(long nowNanos) {
+        return fullAt.get() - nowNanos <= 0;
+    }
+}
@@ -0,0 +1,4 @@
+/**
+ * Helpers shared by the services: allocation-free structures for the ingest pipeline, and request coalescing.
+ */
+package com.isoft.rfid.service.util;
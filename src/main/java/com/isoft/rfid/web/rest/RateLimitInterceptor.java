@@ -0,0 +1,43 @@
+package com.isoft.rfid.web.rest;
+
+import com.isoft.rfid.service.RateLimiter;
+import com.isoft.rfid.web.rest.errors.TooManyRequestsException;
+import java.util.concurrent.TimeUnit;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.util.UrlPathHelper;
+
+/**
+ * Admits the API requests through the {@link RateLimiter}, per principal or device once authenticated and per remote
+ * address otherwise.
+ * <p>
+ * It runs after the security filters, so that the client is known, but before the body of the request is read: a
+ * rejected bulk ingest costs no parsing.
+ */
+public class RateLimitInterceptor implements HandlerInterceptor {
+
+    private final RateLimiter rateLimiter;
+
+    public RateLimitInterceptor(RateLimiter rateLimiter) {
+        this.rateLimiter = rateLimiter;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        boolean anonymous =
+            authentication == null || authentication instanceof AnonymousAuthenticationToken || !authentication.isAuthenticated();
+        String client = anonymous ? request.getRemoteAddr() : authentication.getName();
+        String path = UrlPathHelper.defaultInstance.getPathWithinApplication(request);
+        long waitNanos = rateLimiter.acquire(path, client, anonymous);
+        if (waitNanos > 0) {
+            // Retry-After is in whole seconds, rounded up so that a retry on time is admitted.
+            throw new TooManyRequestsException(TimeUnit.NANOSECONDS.toSeconds(waitNanos - 1) + 1);
+        }
+        return true;
+    }
+}
@@ -0,0 +1,44 @@
+package com.isoft.rfid.web.rest;
+
+import com.isoft.rfid.security.AuthoritiesConstants;
+import com.isoft.rfid.security.jwt.TokenRevocationService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * REST controller for revoking the JWTs of other users, such as the token of a lost handheld.
+ */
+@RestController
+@RequestMapping("/api/admin")
+public class RevokedTokenResource {
+
+    private final Logger log = LoggerFactory.getLogger(RevokedTokenResource.class);
+
+    private final TokenRevocationService tokenRevocationService;
+
+    public RevokedTokenResource(TokenRevocationService tokenRevocationService) {
+        this.tokenRevocationService = tokenRevocationService;
+    }
+
+    /**
+     * {@code PUT  /admin/revoked-tokens/:id} : revoke a token by its ID, as logged when the token was issued.
+     * <p>
+     * The expiration of the token is not known, so it is kept revoked for the longest validity of a token.
+     *
+     * @param id the {@code jti} of the token to revoke.
+     * @return the {@link ResponseEntity} with status {@code 204 (No Content)}.
+     */
+    @PutMapping("/revoked-tokens/{id}")
+    @PreAuthorize("hasAuthority(\"" + AuthoritiesConstants.ADMIN + "\")")
+    public ResponseEntity<Void> revokeToken(@PathVariable String id) {
+        log.debug("REST request to revoke token {}", id);
+        tokenRevocationService.revoke(id, null, null);
+        return ResponseEntity.noContent().build();
+    }
+}
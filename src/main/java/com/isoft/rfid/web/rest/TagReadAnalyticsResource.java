@@ -0,0 +1,73 @@
+package com.isoft.rfid.web.rest;
+
+import com.isoft.rfid.domain.enumeration.ReadDimension;
+import com.isoft.rfid.service.TagReadAnalyticsService;
+import com.isoft.rfid.web.rest.errors.BadRequestAlertException;
+import java.time.Duration;
+import java.time.Instant;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+/**
+ * REST controller for the time series of {@link com.isoft.rfid.domain.TagRead} counts feeding the dashboards.
+ */
+@RestController
+@RequestMapping("/api/analytics")
+public class TagReadAnalyticsResource {
+
+    private final Logger log = LoggerFactory.getLogger(TagReadAnalyticsResource.class);
+
+    private static final String ENTITY_NAME = "tagRead";
+
+    private static final String HEADER_X_BUCKET_INTERVAL = "X-Bucket-Interval";
+
+    private final TagReadAnalyticsService tagReadAnalyticsService;
+
+    public TagReadAnalyticsResource(TagReadAnalyticsService tagReadAnalyticsService) {
+        this.tagReadAnalyticsService = tagReadAnalyticsService;
+    }
+
+    /**
+     * {@code GET  /analytics/tag-reads} : count the tag reads of a time range per interval and per reader or zone.
+     * <p>
+     * The counts are streamed as newline-delimited JSON, ordered by time then by reader or zone, whatever the number of
+     * buckets. The interval is the coarsest one giving the requested resolution, returned in the
+     * {@code X-Bucket-Interval} header. The range defaults to the last 15 minutes.
+     *
+     * @param from the start of the range, inclusive.
+     * @param to the end of the range, exclusive.
+     * @param dimension what the reads are counted per, besides time: {@code READER} by default, or {@code ZONE}.
+     * @param resolution the longest acceptable interval between two points, one minute by default.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the streamed counts in body,
+     * or with status {@code 400 (Bad Request)} if the range is empty or the resolution is not positive.
+     */
+    @GetMapping("/tag-reads")
+    public ResponseEntity<StreamingResponseBody> countTagReads(
+        @RequestParam(required = false) Instant from,
+        @RequestParam(required = false) Instant to,
+        @RequestParam(defaultValue = "READER") ReadDimension dimension,
+        @RequestParam(defaultValue = "PT1M") Duration resolution
+    ) {
+        log.debug("REST request to count the TagReads from {} to {} per {} every {}", from, to, dimension, resolution);
+        if (from != null && to != null && !from.isBefore(to)) {
+            throw new BadRequestAlertException("The start of the range must be before its end", ENTITY_NAME, "rangeinvalid");
+        }
+        if (resolution.isNegative() || resolution.isZero()) {
+            throw new BadRequestAlertException("The resolution must be positive", ENTITY_NAME, "resolutioninvalid");
+        }
+        Duration interval = TagReadAnalyticsService.bucketInterval(resolution);
+        StreamingResponseBody body = outputStream -> tagReadAnalyticsService.countReads(from, to, dimension, interval, outputStream);
+        return ResponseEntity
+            .ok()
+            .contentType(MediaType.APPLICATION_NDJSON)
+            .header(HEADER_X_BUCKET_INTERVAL, interval.toString())
+            .body(body);
+    }
+}
@@ -0,0 +1,59 @@
+package com.isoft.rfid.web.rest;
+
+import com.isoft.rfid.repository.search.TagReadIndexManager;
+import com.isoft.rfid.security.AuthoritiesConstants;
+import java.io.IOException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * REST controller for administering the tag-read indices.
+ */
+@RestController
+@RequestMapping("/api/admin")
+public class TagReadIndexResource {
+
+    private final Logger log = LoggerFactory.getLogger(TagReadIndexResource.class);
+
+    private final TagReadIndexManager tagReadIndexManager;
+
+    public TagReadIndexResource(TagReadIndexManager tagReadIndexManager) {
+        this.tagReadIndexManager = tagReadIndexManager;
+    }
+
+    /**
+     * {@code GET  /admin/tag-read-indices/bulk-load} : get whether a bulk load is in progress.
+     *
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and whether a bulk load is in progress in body.
+     */
+    @GetMapping("/tag-read-indices/bulk-load")
+    @PreAuthorize("hasAuthority(\"" + AuthoritiesConstants.ADMIN + "\")")
+    public ResponseEntity<Boolean> getBulkLoad() {
+        return ResponseEntity.ok(tagReadIndexManager.isBulkLoad());
+    }
+
+    /**
+     * {@code PUT  /admin/tag-read-indices/bulk-load} : start or end a bulk load.
+     * <p>
+     * During a bulk load, the partitions being written have the {@code application.ingest.index.bulk-load-*} replicas
+     * and refresh interval, trading durability and search freshness for indexing throughput.
+     *
+     * @param enabled whether the bulk load starts or ends.
+     * @return the {@link ResponseEntity} with status {@code 204 (No Content)}.
+     * @throws IOException if Elasticsearch cannot be reached.
+     */
+    @PutMapping("/tag-read-indices/bulk-load")
+    @PreAuthorize("hasAuthority(\"" + AuthoritiesConstants.ADMIN + "\")")
+    public ResponseEntity<Void> setBulkLoad(@RequestParam boolean enabled) throws IOException {
+        log.debug("REST request to set the bulk load of the tag read indices to {}", enabled);
+        tagReadIndexManager.setBulkLoad(enabled);
+        return ResponseEntity.noContent().build();
+    }
+}
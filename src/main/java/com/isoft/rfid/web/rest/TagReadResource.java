@@ -0,0 +1,221 @@
+package com.isoft.rfid.web.rest;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.isoft.rfid.domain.TagRead;
+import com.isoft.rfid.domain.enumeration.ExportFormat;
+import com.isoft.rfid.service.InvalidCursorException;
+import com.isoft.rfid.service.TagReadExportService;
+import com.isoft.rfid.service.TagReadIngestService;
+import com.isoft.rfid.service.TagReadSearchService;
+import com.isoft.rfid.service.dto.CursorPageDTO;
+import com.isoft.rfid.service.dto.IngestResultDTO;
+import com.isoft.rfid.web.rest.errors.BadRequestAlertException;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.List;
+import javax.servlet.http.HttpServletRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+import tech.jhipster.web.util.PaginationUtil;
+
+/**
+ * REST controller for ingesting and searching {@link com.isoft.rfid.domain.TagRead}s.
+ */
+@RestController
+@RequestMapping("/api")
+public class TagReadResource {
+
+    private final Logger log = LoggerFactory.getLogger(TagReadResource.class);
+
+    private static final String ENTITY_NAME = "tagRead";
+
+    private static final String HEADER_X_TOTAL_COUNT = "X-Total-Count";
+
+    private final TagReadIngestService tagReadIngestService;
+
+    private final TagReadSearchService tagReadSearchService;
+
+    private final TagReadExportService tagReadExportService;
+
+    public TagReadResource(
+        TagReadIngestService tagReadIngestService,
+        TagReadSearchService tagReadSearchService,
+        TagReadExportService tagReadExportService
+    ) {
+        this.tagReadIngestService = tagReadIngestService;
+        this.tagReadSearchService = tagReadSearchService;
+        this.tagReadExportService = tagReadExportService;
+    }
+
+    /**
+     * {@code POST  /tag-reads/_bulk} : ingest a batch of tag reads.
+     *
+     * @param tagReads the tag reads to ingest.
+     * @return the {@link ResponseEntity} with status {@code 202 (Accepted)} and the ingest result in body.
+     */
+    @PostMapping(value = "/tag-reads/_bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<IngestResultDTO> bulkIngest(@RequestBody List<TagRead> tagReads) {
+        log.debug("REST request to bulk ingest {} TagReads", tagReads.size());
+        IngestResultDTO result = tagReadIngestService.ingest(tagReads);
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(result);
+    }
+
+    /**
+     * {@code POST  /tag-reads/_bulk} : ingest a stream of newline-delimited JSON tag reads.
+     * <p>
+     * The request body is parsed as it arrives instead of being bound to a list, so uploads of any size are ingested with
+     * constant memory.
+     *
+     * @param request the HTTP request whose body holds one tag read per line.
+     * @return the {@link ResponseEntity} with status {@code 202 (Accepted)} and the ingest result in body,
+     * or with status {@code 400 (Bad Request)} if a line is not a valid tag read.
+     * @throws IOException if the request body cannot be read.
+     */
+    @PostMapping(value = "/tag-reads/_bulk", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<IngestResultDTO> streamIngest(HttpServletRequest request) throws IOException {
+        log.debug("REST request to stream ingest TagReads");
+        try {
+            IngestResultDTO result = tagReadIngestService.ingest(request.getInputStream());
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(result);
+        } catch (JsonProcessingException e) {
+            throw new BadRequestAlertException("Invalid NDJSON tag read: " + e.getOriginalMessage(), ENTITY_NAME, "ndjsoninvalid");
+        }
+    }
+
+    /**
+     * {@code GET  /tag-reads} : search the tag reads of a time range.
+     * <p>
+     * Only the indices of the partitions overlapping the range are searched. The range defaults to the last 15 minutes.
+     * Results are cached until new reads become visible in the searched partitions; with a non-zero
+     * {@code application.search.cache.generation-check-interval}, they may be served for up to that long after.
+     *
+     * @param from the start of the range, inclusive.
+     * @param to the end of the range, exclusive.
+     * @param epc the EPC to filter on.
+     * @param readerId the reader to filter on.
+     * @param pageable the pagination information.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of tag reads in body,
+     * or with status {@code 400 (Bad Request)} if the range is empty.
+     */
+    @GetMapping("/tag-reads")
+    public ResponseEntity<List<TagRead>> searchTagReads(
+        @RequestParam(required = false) Instant from,
+        @RequestParam(required = false) Instant to,
+        @RequestParam(required = false) String epc,
+        @RequestParam(required = false) String readerId,
+        @org.springdoc.api.annotations.ParameterObject Pageable pageable
+    ) {
+        log.debug("REST request to search for a page of TagReads from {} to {}", from, to);
+        if (from != null && to != null && !from.isBefore(to)) {
+            throw new BadRequestAlertException("The start of the range must be before its end", ENTITY_NAME, "rangeinvalid");
+        }
+        Page<TagRead> page = tagReadSearchService.search(from, to, epc, readerId, pageable);
+        HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), page);
+        return ResponseEntity.ok().headers(headers).body(page.getContent());
+    }
+
+    /**
+     * {@code GET  /tag-reads/_cursor} : search the tag reads of a time range with a cursor, at any depth.
+     * <p>
+     * The first request takes the same criteria as {@code GET /tag-reads}, sorted by timestamp only; the {@code Link}
+     * header then gives the URL of the next page, whose opaque cursor carries the criteria. There is no next link after
+     * the last page. {@code X-Total-Count} is the number of reads in the range when the search started.
+     *
+     * @param cursor the cursor of the page, from the {@code next} link; absent for the first page.
+     * @param from the start of the range, inclusive.
+     * @param to the end of the range, exclusive.
+     * @param epc the EPC to filter on.
+     * @param readerId the reader to filter on.
+     * @param pageable the size of the page, and the direction of the {@code timestamp} sort.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of tag reads in body,
+     * or with status {@code 400 (Bad Request)} if the range is empty or the cursor is invalid or has expired.
+     * @throws IOException if Elasticsearch cannot be reached.
+     */
+    @GetMapping("/tag-reads/_cursor")
+    public ResponseEntity<List<TagRead>> searchTagReadsAfter(
+        @RequestParam(required = false) String cursor,
+        @RequestParam(required = false) Instant from,
+        @RequestParam(required = false) Instant to,
+        @RequestParam(required = false) String epc,
+        @RequestParam(required = false) String readerId,
+        @org.springdoc.api.annotations.ParameterObject Pageable pageable
+    ) throws IOException {
+        log.debug("REST request to search for a page of TagReads after a cursor");
+        if (cursor == null && from != null && to != null && !from.isBefore(to)) {
+            throw new BadRequestAlertException("The start of the range must be before its end", ENTITY_NAME, "rangeinvalid");
+        }
+        Sort.Order order = pageable.getSort().getOrderFor("timestamp");
+        boolean ascending = order != null && order.isAscending();
+        CursorPageDTO<TagRead> page;
+        try {
+            page = tagReadSearchService.searchAfter(cursor, from, to, epc, readerId, ascending, pageable.getPageSize());
+        } catch (InvalidCursorException e) {
+            throw new BadRequestAlertException(e.getMessage(), ENTITY_NAME, "cursorinvalid");
+        }
+        HttpHeaders headers = new HttpHeaders();
+        headers.add(HEADER_X_TOTAL_COUNT, Long.toString(page.getTotalCount()));
+        if (page.hasNext()) {
+            String next = ServletUriComponentsBuilder
+                .fromCurrentRequestUri()
+                .queryParam("cursor", page.getNextCursor())
+                .queryParam("size", pageable.getPageSize())
+                .toUriString();
+            headers.add(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"");
+        }
+        return ResponseEntity.ok().headers(headers).body(page.getContent());
+    }
+
+    /**
+     * {@code GET  /tag-reads/_export} : export all the tag reads of a time range, as CSV or newline-delimited JSON.
+     * <p>
+     * The reads are streamed as they are fetched, in no particular order, so exports of any size use constant memory.
+     * The range defaults to the last 15 minutes.
+     *
+     * @param from the start of the range, inclusive.
+     * @param to the end of the range, exclusive.
+     * @param epc the EPC to filter on.
+     * @param readerId the reader to filter on.
+     * @param format the format of the export, {@code NDJSON} by default.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the streamed reads in body,
+     * or with status {@code 400 (Bad Request)} if the range is empty,
+     * or with status {@code 503 (Service Unavailable)} if too many exports are running.
+     */
+    @GetMapping("/tag-reads/_export")
+    public ResponseEntity<StreamingResponseBody> exportTagReads(
+        @RequestParam(required = false) Instant from,
+        @RequestParam(required = false) Instant to,
+        @RequestParam(required = false) String epc,
+        @RequestParam(required = false) String readerId,
+        @RequestParam(defaultValue = "NDJSON") ExportFormat format
+    ) {
+        log.debug("REST request to export the TagReads from {} to {} as {}", from, to, format);
+        if (from != null && to != null && !from.isBefore(to)) {
+            throw new BadRequestAlertException("The start of the range must be before its end", ENTITY_NAME, "rangeinvalid");
+        }
+        tagReadExportService.checkExportAvailable();
+        MediaType contentType = format == ExportFormat.CSV ? new MediaType("text", "csv") : MediaType.APPLICATION_NDJSON;
+        String filename = "tag-reads." + format.name().toLowerCase();
+        StreamingResponseBody body = outputStream -> tagReadExportService.export(from, to, epc, readerId, format, outputStream);
+        return ResponseEntity
+            .ok()
+            .contentType(contentType)
+            .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(filename).build().toString())
+            .body(body);
+    }
+}
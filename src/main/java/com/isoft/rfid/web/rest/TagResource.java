@@ -0,0 +1,43 @@
+package com.isoft.rfid.web.rest;
+
+import com.isoft.rfid.service.TagLocationView;
+import com.isoft.rfid.service.dto.TagLocationDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import tech.jhipster.web.util.ResponseUtil;
+
+/**
+ * REST controller for querying the state of tags.
+ */
+@RestController
+@RequestMapping("/api")
+public class TagResource {
+
+    private final Logger log = LoggerFactory.getLogger(TagResource.class);
+
+    private final TagLocationView tagLocationView;
+
+    public TagResource(TagLocationView tagLocationView) {
+        this.tagLocationView = tagLocationView;
+    }
+
+    /**
+     * {@code GET  /tags/:epc/location} : get the last known location of a tag.
+     * <p>
+     * The location is answered from memory, see {@link TagLocationView}.
+     *
+     * @param epc the EPC of the tag.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the location in body,
+     * or with status {@code 404 (Not Found)} if the tag was never read.
+     */
+    @GetMapping("/tags/{epc}/location")
+    public ResponseEntity<TagLocationDTO> getTagLocation(@PathVariable String epc) {
+        log.debug("REST request to get the location of tag {}", epc);
+        return ResponseUtil.wrapOrNotFound(tagLocationView.findLocation(epc));
+    }
+}
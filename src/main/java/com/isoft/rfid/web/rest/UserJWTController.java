@@ -1,6 +1,7 @@
 package com.isoft.rfid.web.rest;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.isoft.rfid.security.SecurityUtils;
 import com.isoft.rfid.security.jwt.JWTFilter;
 import com.isoft.rfid.security.jwt.TokenProvider;
 import com.isoft.rfid.web.rest.vm.LoginVM;
@@ -45,6 +46,17 @@ public class UserJWTController {
         return new ResponseEntity<>(new JWTToken(jwt), httpHeaders, HttpStatus.OK);
     }
 
+    /**
+     * {@code POST  /logout} : revoke the token of the current user, so that it can no longer be used even if it leaked.
+     *
+     * @return the {@link ResponseEntity} with status {@code 204 (No Content)}.
+     */
+    @PostMapping("/logout")
+    public ResponseEntity<Void> logout() {
+        SecurityUtils.getCurrentUserJWT().ifPresent(tokenProvider::revokeToken);
+        return ResponseEntity.noContent().build();
+    }
+
     /**
      * Object to return as body in JWT Authentication.
      */
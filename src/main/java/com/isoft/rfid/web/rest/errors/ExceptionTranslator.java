@@ -1,5 +1,7 @@
 package com.isoft.rfid.web.rest.errors;
 
+import com.isoft.rfid.service.ExportLimitException;
+import com.isoft.rfid.service.spool.SpoolFullException;
 import java.net.URI;
 import java.util.Arrays;
 import java.util.Collection;
@@ -12,6 +14,7 @@ import javax.servlet.http.HttpServletRequest;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.env.Environment;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageConversionException;
 import org.springframework.validation.BindingResult;
@@ -122,6 +125,23 @@ public class ExceptionTranslator implements ProblemHandling, SecurityAdviceTrait
         );
     }
 
+    @ExceptionHandler
+    public ResponseEntity<Problem> handleSpoolFullException(SpoolFullException ex, NativeWebRequest request) {
+        return create(Status.SERVICE_UNAVAILABLE, ex, request);
+    }
+
+    @ExceptionHandler
+    public ResponseEntity<Problem> handleExportLimitException(ExportLimitException ex, NativeWebRequest request) {
+        return create(Status.SERVICE_UNAVAILABLE, ex, request);
+    }
+
+    @ExceptionHandler
+    public ResponseEntity<Problem> handleTooManyRequestsException(TooManyRequestsException ex, NativeWebRequest request) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()));
+        return create(Status.TOO_MANY_REQUESTS, ex, request, headers);
+    }
+
     @Override
     public ProblemBuilder prepare(final Throwable throwable, final StatusType status, final URI type) {
         Collection<String> activeProfiles = Arrays.asList(env.getActiveProfiles());
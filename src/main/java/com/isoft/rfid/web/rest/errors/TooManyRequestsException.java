@@ -0,0 +1,20 @@
+package com.isoft.rfid.web.rest.errors;
+
+/**
+ * Thrown when a client exceeds the rate limit of an endpoint group; answered 429 with a {@code Retry-After} header.
+ */
+public class TooManyRequestsException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final long retryAfterSeconds;
+
+    public TooManyRequestsException(long retryAfterSeconds) {
+        super("Rate limit exceeded, retry in " + retryAfterSeconds + " s");
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,81 @@
+package com.isoft.rfid.aop.timing;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class TimingAspectTest {
+
+    private MeterRegistry meterRegistry;
+
+    private ProceedingJoinPoint joinPoint;
+
+    @BeforeEach
+    public void setup() throws Exception {
+        meterRegistry = new SimpleMeterRegistry();
+        MethodSignature signature = mock(MethodSignature.class);
+        when(signature.getMethod()).thenReturn(TimedComponent.class.getMethod("search"));
+        when(signature.getDeclaringType()).thenReturn(TimedComponent.class);
+        when(signature.getName()).thenReturn("search");
+        joinPoint = mock(ProceedingJoinPoint.class);
+        when(joinPoint.getSignature()).thenReturn(signature);
+    }
+
+    @Test
+    void testSampledCallsAreTimed() throws Throwable {
+        when(joinPoint.proceed()).thenReturn("result");
+        TimingAspect timingAspect = new TimingAspect(meterRegistry, 1, false);
+
+        assertThat(timingAspect.timeAround(joinPoint)).isEqualTo("result");
+        assertThat(timingAspect.timeAround(joinPoint)).isEqualTo("result");
+
+        assertThat(
+            meterRegistry
+                .get(TimingAspect.TIMER_NAME)
+                .tag("class", "TimedComponent")
+                .tag("method", "search")
+                .tag("exception", "none")
+                .timer()
+                .count()
+        )
+            .isEqualTo(2);
+    }
+
+    @Test
+    void testCallsOutOfTheSampleAreNotTimed() throws Throwable {
+        when(joinPoint.proceed()).thenReturn("result");
+        TimingAspect timingAspect = new TimingAspect(meterRegistry, 0, false);
+
+        assertThat(timingAspect.timeAround(joinPoint)).isEqualTo("result");
+
+        verify(joinPoint).proceed();
+        assertThat(meterRegistry.find(TimingAspect.TIMER_NAME).timer()).isNull();
+    }
+
+    @Test
+    void testFailedCallsAreTimedByException() throws Throwable {
+        when(joinPoint.proceed()).thenThrow(new IllegalStateException("test"));
+        TimingAspect timingAspect = new TimingAspect(meterRegistry, 1, true);
+
+        assertThatThrownBy(() -> timingAspect.timeAround(joinPoint)).isInstanceOf(IllegalStateException.class);
+
+        assertThat(meterRegistry.get(TimingAspect.TIMER_NAME).tag("exception", "IllegalStateException").timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.find(TimingAspect.TIMER_NAME).tag("exception", "none").timer()).isNull();
+    }
+
+    public static class TimedComponent {
+
+        public String search() {
+            return "result";
+        }
+    }
+}
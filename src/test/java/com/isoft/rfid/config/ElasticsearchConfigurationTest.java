@@ -0,0 +1,66 @@
+package com.isoft.rfid.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.isoft.rfid.config.ApplicationProperties.Elasticsearch.DateStorage;
+import com.isoft.rfid.domain.TagRead;
+import java.time.Instant;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.elasticsearch.core.convert.ElasticsearchCustomConversions;
+import org.springframework.data.elasticsearch.core.convert.MappingElasticsearchConverter;
+import org.springframework.data.elasticsearch.core.document.Document;
+import org.springframework.data.elasticsearch.core.mapping.SimpleElasticsearchMappingContext;
+
+/**
+ * Unit tests for the temporal converters of {@link ElasticsearchConfiguration}.
+ */
+class ElasticsearchConfigurationTest {
+
+    private static final Instant TIMESTAMP = Instant.parse("2022-11-08T13:42:17.123456Z");
+
+    @Test
+    void testIsoStorage() {
+        MappingElasticsearchConverter converter = converter(DateStorage.ISO);
+
+        Document document = write(converter, new TagRead().epc("3034257BF7194E4000000001").timestamp(TIMESTAMP));
+
+        assertThat(document.get("timestamp")).isEqualTo("2022-11-08T13:42:17.123456Z");
+        assertThat(converter.read(TagRead.class, document).getTimestamp()).isEqualTo(TIMESTAMP);
+    }
+
+    @Test
+    void testEpochMillisStorage() {
+        MappingElasticsearchConverter converter = converter(DateStorage.EPOCH_MILLIS);
+
+        Document document = write(converter, new TagRead().epc("3034257BF7194E4000000001").timestamp(TIMESTAMP));
+
+        assertThat(document.get("timestamp")).isEqualTo(1667914937123L);
+        assertThat(converter.read(TagRead.class, document).getTimestamp()).isEqualTo(Instant.ofEpochMilli(1667914937123L));
+    }
+
+    @Test
+    void testBothFormatsAreRead() {
+        Document iso = write(converter(DateStorage.ISO), new TagRead().timestamp(TIMESTAMP));
+        Document epochMillis = write(converter(DateStorage.EPOCH_MILLIS), new TagRead().timestamp(TIMESTAMP));
+
+        assertThat(converter(DateStorage.EPOCH_MILLIS).read(TagRead.class, iso).getTimestamp()).isEqualTo(TIMESTAMP);
+        assertThat(converter(DateStorage.ISO).read(TagRead.class, epochMillis).getTimestamp())
+            .isEqualTo(Instant.ofEpochMilli(1667914937123L));
+    }
+
+    static MappingElasticsearchConverter converter(DateStorage dateStorage) {
+        ElasticsearchCustomConversions conversions = ElasticsearchConfiguration.customConversions(dateStorage);
+        SimpleElasticsearchMappingContext mappingContext = new SimpleElasticsearchMappingContext();
+        mappingContext.setSimpleTypeHolder(conversions.getSimpleTypeHolder());
+        MappingElasticsearchConverter converter = new MappingElasticsearchConverter(mappingContext);
+        converter.setConversions(conversions);
+        converter.afterPropertiesSet();
+        return converter;
+    }
+
+    private static Document write(MappingElasticsearchConverter converter, TagRead tagRead) {
+        Document document = Document.create();
+        converter.write(tagRead, document);
+        return document;
+    }
+}
@@ -0,0 +1,96 @@
+package com.isoft.rfid.config;
+
+import com.isoft.rfid.config.ApplicationProperties.Elasticsearch.DateStorage;
+import com.isoft.rfid.domain.TagRead;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.data.elasticsearch.core.convert.MappingElasticsearchConverter;
+import org.springframework.data.elasticsearch.core.document.Document;
+
+/**
+ * JMH benchmark of the ISO-8601 and epoch-millis storage of the temporal fields, through the entity converter used by
+ * the bulk indexer and the searches: {@code write} converts one read to a document as on ingest, {@code readPage}
+ * converts a page of documents back to reads as for a large search result.
+ * <p>
+ * Run the {@link #main(String[])} method from the IDE.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ElasticsearchDateStorageBenchmark {
+
+    private static final int PAGE_SIZE = 1000;
+
+    @Param({ "ISO", "EPOCH_MILLIS" })
+    public DateStorage dateStorage;
+
+    private MappingElasticsearchConverter converter;
+
+    private TagRead tagRead;
+
+    private final List<Document> page = new ArrayList<>();
+
+    @Setup
+    public void setup() {
+        converter = ElasticsearchConfigurationTest.converter(dateStorage);
+        Instant start = Instant.parse("2022-11-08T13:42:17.123456Z");
+        tagRead = read(start);
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            Document document = Document.create();
+            converter.write(read(start.plusMillis(i)), document);
+            page.add(document);
+        }
+    }
+
+    @Benchmark
+    public Document write() {
+        Document document = Document.create();
+        converter.write(tagRead, document);
+        return document;
+    }
+
+    @Benchmark
+    public void readPage(Blackhole blackhole) {
+        for (Document document : page) {
+            blackhole.consume(converter.read(TagRead.class, document));
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(
+            new OptionsBuilder().include(ElasticsearchDateStorageBenchmark.class.getSimpleName()).addProfiler(GCProfiler.class).build()
+        )
+            .run();
+    }
+
+    private static TagRead read(Instant timestamp) {
+        return new TagRead()
+            .id("d3b07384-d9a0-4c9b-8c2e-0c2a1f0f9c1e")
+            .epc("3074257BF7194E4000001A85")
+            .readerId("dock-door-1")
+            .antenna(1)
+            .rssi(-52.0)
+            .timestamp(timestamp);
+    }
+}
@@ -0,0 +1,58 @@
+package com.isoft.rfid.repository.search;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.isoft.rfid.config.ApplicationProperties;
+import java.time.Duration;
+import java.time.Instant;
+import org.junit.jupiter.api.Test;
+
+class TagReadIndicesTest {
+
+    private static final Instant NOW = Instant.parse("2022-11-08T13:05:00Z");
+
+    @Test
+    void testDailyPartitions() {
+        TagReadIndices indices = indices(ApplicationProperties.Ingest.Partitioning.DAILY);
+
+        assertThat(indices.indexFor(NOW)).isEqualTo("tag-reads-2022.11.08");
+        assertThat(indices.indexFor(Instant.parse("2022-11-07T23:59:59.999Z"))).isEqualTo("tag-reads-2022.11.07");
+        assertThat(indices.indexFor(NOW)).isEqualTo("tag-reads-2022.11.08");
+        assertThat(indices.nextIndexAfter(NOW)).isEqualTo("tag-reads-2022.11.09");
+        assertThat(indices.getWriteAlias()).isEqualTo("tag-reads-write");
+    }
+
+    @Test
+    void testHourlyPartitions() {
+        TagReadIndices indices = indices(ApplicationProperties.Ingest.Partitioning.HOURLY);
+
+        assertThat(indices.indexFor(NOW)).isEqualTo("tag-reads-2022.11.08.13");
+        assertThat(indices.nextIndexAfter(NOW)).isEqualTo("tag-reads-2022.11.08.14");
+    }
+
+    @Test
+    void testShortRangeTouchesOnlyOverlappingPartitions() {
+        TagReadIndices indices = indices(ApplicationProperties.Ingest.Partitioning.HOURLY);
+
+        assertThat(indices.indicesFor(NOW.minus(Duration.ofMinutes(5)), NOW)).containsExactly("tag-reads-2022.11.08.13*");
+        assertThat(indices.indicesFor(Instant.parse("2022-11-08T12:50:00Z"), Instant.parse("2022-11-08T13:05:00Z")))
+            .containsExactly("tag-reads-2022.11.08.12*", "tag-reads-2022.11.08.13*");
+        assertThat(indices.indicesFor(Instant.parse("2022-11-08T12:00:00Z"), Instant.parse("2022-11-08T13:00:00Z")))
+            .containsExactly("tag-reads-2022.11.08.12*");
+    }
+
+    @Test
+    void testUnboundedOrLongRangeUsesTheAlias() {
+        TagReadIndices indices = indices(ApplicationProperties.Ingest.Partitioning.DAILY);
+
+        assertThat(indices.indicesFor(null, NOW)).containsExactly("tag-reads");
+        assertThat(indices.indicesFor(NOW.minus(Duration.ofDays(90)), NOW)).hasSize(91);
+        assertThat(indices.indicesFor(NOW.minus(Duration.ofDays(1000)), NOW)).containsExactly("tag-reads");
+    }
+
+    private static TagReadIndices indices(ApplicationProperties.Ingest.Partitioning partitioning) {
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getIngest().setPartitioning(partitioning);
+        return new TagReadIndices(applicationProperties);
+    }
+}
@@ -0,0 +1,116 @@
+package com.isoft.rfid.security.device;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.isoft.rfid.config.ApplicationProperties;
+import com.isoft.rfid.security.AuthoritiesConstants;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+class DeviceApiKeyFilterTest {
+
+    // SHA-256 of "gateway-secret"
+    private static final String SECRET_HASH = "1e0baae50a6e2006d894f9e64c53a1317e6032f4ba67df08199d5378c5948ce6";
+
+    private DeviceApiKeyFilter deviceApiKeyFilter;
+
+    @BeforeEach
+    public void setup() {
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        ApplicationProperties.Devices.ApiKey apiKey = new ApplicationProperties.Devices.ApiKey();
+        apiKey.setId("dock-gateway");
+        apiKey.setSecretHash(SECRET_HASH);
+        apiKey.setScopes(List.of(DeviceScope.INGEST.name()));
+        applicationProperties.getDevices().setApiKeys(List.of(apiKey));
+
+        deviceApiKeyFilter = new DeviceApiKeyFilter(new DeviceApiKeys(applicationProperties));
+        SecurityContextHolder.getContext().setAuthentication(null);
+    }
+
+    @Test
+    void testDeviceApiKeyFilter() throws Exception {
+        MockHttpServletResponse response = filter(request("POST", "/api/tag-reads/_bulk", "dock-gateway.gateway-secret"));
+
+        assertThat(response.getStatus()).isEqualTo(HttpStatus.OK.value());
+        assertThat(SecurityContextHolder.getContext().getAuthentication().getName()).isEqualTo("dock-gateway");
+        assertThat(SecurityContextHolder.getContext().getAuthentication().getAuthorities())
+            .extracting(GrantedAuthority::getAuthority)
+            .containsExactly(AuthoritiesConstants.DEVICE);
+    }
+
+    @Test
+    void testDeviceApiKeyFilterAuthenticatesEachRequestAnew() throws Exception {
+        filter(request("POST", "/api/tag-reads/_bulk", "dock-gateway.gateway-secret"));
+        Authentication first = SecurityContextHolder.getContext().getAuthentication();
+        first.setAuthenticated(false);
+        SecurityContextHolder.getContext().setAuthentication(null);
+
+        filter(request("POST", "/api/tag-reads/_bulk", "dock-gateway.gateway-secret"));
+        Authentication second = SecurityContextHolder.getContext().getAuthentication();
+
+        assertThat(second).isNotSameAs(first);
+        assertThat(second.isAuthenticated()).isTrue();
+        assertThat(second.getPrincipal()).isSameAs(first.getPrincipal());
+    }
+
+    @Test
+    void testDeviceApiKeyFilterWrongSecret() throws Exception {
+        MockHttpServletResponse response = filter(request("POST", "/api/tag-reads/_bulk", "dock-gateway.wrong-secret"));
+
+        assertThat(response.getStatus()).isEqualTo(HttpStatus.OK.value());
+        assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
+    }
+
+    @Test
+    void testDeviceApiKeyFilterUnknownDevice() throws Exception {
+        filter(request("POST", "/api/tag-reads/_bulk", "other-gateway.gateway-secret"));
+
+        assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
+    }
+
+    @Test
+    void testDeviceApiKeyFilterOutOfScope() throws Exception {
+        filter(request("GET", "/api/tag-reads", "dock-gateway.gateway-secret"));
+
+        assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
+    }
+
+    @Test
+    void testDeviceApiKeyFilterMalformedKey() throws Exception {
+        filter(request("POST", "/api/tag-reads/_bulk", "gateway-secret"));
+
+        assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
+    }
+
+    @Test
+    void testDeviceApiKeyFilterMissingKey() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/tag-reads/_bulk");
+        request.setServletPath("/api/tag-reads/_bulk");
+
+        MockHttpServletResponse response = filter(request);
+
+        assertThat(response.getStatus()).isEqualTo(HttpStatus.OK.value());
+        assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
+    }
+
+    private MockHttpServletResponse filter(MockHttpServletRequest request) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        deviceApiKeyFilter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+
+    private static MockHttpServletRequest request(String method, String path, String apiKey) {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, path);
+        request.setServletPath(path);
+        request.addHeader(DeviceApiKeyFilter.API_KEY_HEADER, apiKey);
+        return request;
+    }
+}
@@ -0,0 +1,47 @@
+package com.isoft.rfid.security.jwt;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+
+class BloomFilterTest {
+
+    @Test
+    void testAddedHashesAreAlwaysFound() {
+        BloomFilter filter = new BloomFilter(10_000, 0.001);
+        String[] ids = new String[10_000];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = UUID.randomUUID().toString();
+            filter.add(BloomFilter.hash(ids[i]));
+        }
+
+        for (String id : ids) {
+            assertThat(filter.mightContain(BloomFilter.hash(id))).isTrue();
+        }
+    }
+
+    @Test
+    void testFalsePositiveRateIsBounded() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.add(BloomFilter.hash(UUID.randomUUID().toString()));
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (filter.mightContain(BloomFilter.hash(UUID.randomUUID().toString()))) {
+                falsePositives++;
+            }
+        }
+
+        assertThat(falsePositives).isLessThan(2_000);
+    }
+
+    @Test
+    void testEmptyFilterContainsNothing() {
+        BloomFilter filter = new BloomFilter(100, 0.001);
+
+        assertThat(filter.mightContain(BloomFilter.hash(UUID.randomUUID().toString()))).isFalse();
+    }
+}
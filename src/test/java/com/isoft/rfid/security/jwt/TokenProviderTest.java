@@ -1,8 +1,15 @@
 package com.isoft.rfid.security.jwt;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
+import com.isoft.rfid.config.ApplicationProperties;
+import com.isoft.rfid.domain.RevokedToken;
 import com.isoft.rfid.management.SecurityMetersService;
+import com.isoft.rfid.repository.search.RevokedTokenSearchRepository;
 import com.isoft.rfid.security.AuthoritiesConstants;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
@@ -12,6 +19,7 @@ import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import java.nio.charset.StandardCharsets;
 import java.security.Key;
 import java.util.*;
+import java.util.stream.Stream;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
@@ -27,6 +35,8 @@ class TokenProviderTest {
 
     private Key key;
     private TokenProvider tokenProvider;
+    private RevokedTokenSearchRepository revokedTokenSearchRepository;
+    private TokenRevocationService tokenRevocationService;
 
     @BeforeEach
     public void setup() {
@@ -36,7 +46,10 @@ class TokenProviderTest {
 
         SecurityMetersService securityMetersService = new SecurityMetersService(new SimpleMeterRegistry());
 
-        tokenProvider = new TokenProvider(jHipsterProperties, securityMetersService);
+        revokedTokenSearchRepository = mock(RevokedTokenSearchRepository.class);
+        tokenRevocationService = new TokenRevocationService(revokedTokenSearchRepository, jHipsterProperties, new ApplicationProperties());
+
+        tokenProvider = new TokenProvider(jHipsterProperties, securityMetersService, tokenRevocationService);
         key = Keys.hmacShaKeyFor(Decoders.BASE64.decode(base64Secret));
 
         ReflectionTestUtils.setField(tokenProvider, "key", key);
@@ -88,6 +101,74 @@ class TokenProviderTest {
         assertThat(isTokenValid).isFalse();
     }
 
+    @Test
+    void testAuthenticateReusesCachedPrincipalInNewAuthentication() {
+        String token = tokenProvider.createToken(createAuthentication(), false);
+
+        Authentication first = tokenProvider.authenticate(token);
+        Authentication second = tokenProvider.authenticate(token);
+
+        assertThat(first).isNotNull();
+        assertThat(first.getName()).isEqualTo("anonymous");
+        assertThat(first.getAuthorities()).extracting(GrantedAuthority::getAuthority).containsExactly(AuthoritiesConstants.ANONYMOUS);
+        assertThat(first.getCredentials()).isEqualTo(token);
+        assertThat(second).isNotSameAs(first);
+        assertThat(second.getPrincipal()).isSameAs(first.getPrincipal());
+        assertThat(second.getCredentials()).isEqualTo(token);
+    }
+
+    @Test
+    void testAuthenticateReturnsNullWhenJWTisInvalid() {
+        assertThat(tokenProvider.authenticate(createTokenWithDifferentSignature())).isNull();
+        assertThat(tokenProvider.authenticate("")).isNull();
+    }
+
+    @Test
+    void testAuthenticateReturnsNullWhenJWTisExpired() {
+        ReflectionTestUtils.setField(tokenProvider, "tokenValidityInMilliseconds", -ONE_MINUTE);
+        String token = tokenProvider.createToken(createAuthentication(), false);
+
+        assertThat(tokenProvider.authenticate(token)).isNull();
+    }
+
+    @Test
+    void testRevokedTokenIsNotAuthenticated() {
+        String token = tokenProvider.createToken(createAuthentication(), false);
+        assertThat(tokenProvider.authenticate(token)).isNotNull();
+        when(revokedTokenSearchRepository.existsById(tokenId(token))).thenReturn(true);
+
+        assertThat(tokenProvider.revokeToken(token)).isTrue();
+
+        verify(revokedTokenSearchRepository).save(any(RevokedToken.class));
+        assertThat(tokenProvider.authenticate(token)).isNull();
+        assertThat(tokenProvider.validateToken(token)).isFalse();
+    }
+
+    @Test
+    void testOtherTokensStayAuthenticated() {
+        String revoked = tokenProvider.createToken(createAuthentication(), false);
+        String token = tokenProvider.createToken(createAuthentication(), false);
+        when(revokedTokenSearchRepository.existsById(tokenId(revoked))).thenReturn(true);
+
+        tokenProvider.revokeToken(revoked);
+
+        assertThat(tokenProvider.authenticate(token)).isNotNull();
+        assertThat(tokenProvider.validateToken(token)).isTrue();
+    }
+
+    @Test
+    void testCachedTokenIsRefusedOnceRevokedOnAnotherNode() {
+        String token = tokenProvider.createToken(createAuthentication(), false);
+        assertThat(tokenProvider.authenticate(token)).isNotNull();
+        when(revokedTokenSearchRepository.streamRevokedSince(any(), any()))
+            .thenReturn(Stream.of(new RevokedToken().id(tokenId(token))));
+        when(revokedTokenSearchRepository.existsById(tokenId(token))).thenReturn(true);
+
+        tokenRevocationService.refresh();
+
+        assertThat(tokenProvider.authenticate(token)).isNull();
+    }
+
     @Test
     void testKeyIsSetFromSecretWhenSecretIsNotEmpty() {
         final String secret = "NwskoUmKHZtzGRKJKVjsJF7BtQMMxNWi";
@@ -96,7 +177,7 @@ class TokenProviderTest {
 
         SecurityMetersService securityMetersService = new SecurityMetersService(new SimpleMeterRegistry());
 
-        TokenProvider tokenProvider = new TokenProvider(jHipsterProperties, securityMetersService);
+        TokenProvider tokenProvider = new TokenProvider(jHipsterProperties, securityMetersService, mock(TokenRevocationService.class));
 
         Key key = (Key) ReflectionTestUtils.getField(tokenProvider, "key");
         assertThat(key).isNotNull().isEqualTo(Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8)));
@@ -110,7 +191,7 @@ class TokenProviderTest {
 
         SecurityMetersService securityMetersService = new SecurityMetersService(new SimpleMeterRegistry());
 
-        TokenProvider tokenProvider = new TokenProvider(jHipsterProperties, securityMetersService);
+        TokenProvider tokenProvider = new TokenProvider(jHipsterProperties, securityMetersService, mock(TokenRevocationService.class));
 
         Key key = (Key) ReflectionTestUtils.getField(tokenProvider, "key");
         assertThat(key).isNotNull().isEqualTo(Keys.hmacShaKeyFor(Decoders.BASE64.decode(base64Secret)));
@@ -122,6 +203,10 @@ class TokenProviderTest {
         return new UsernamePasswordAuthenticationToken("anonymous", "anonymous", authorities);
     }
 
+    private String tokenId(String token) {
+        return Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(token).getBody().getId();
+    }
+
     private String createUnsupportedToken() {
         return Jwts.builder().setPayload("payload").signWith(key, SignatureAlgorithm.HS512).compact();
     }
@@ -0,0 +1,103 @@
+package com.isoft.rfid.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.isoft.rfid.config.ApplicationProperties;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class AdaptiveBulkControllerTest {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(50);
+
+    private static final long SLOW = TimeUnit.SECONDS.toNanos(2);
+
+    private ApplicationProperties.Ingest ingest;
+
+    @BeforeEach
+    public void setup() {
+        ingest = new ApplicationProperties().getIngest();
+        ingest.setBulkActions(1000);
+        ingest.getAdaptive().setMinActions(100);
+        ingest.getAdaptive().setMaxActions(2000);
+        ingest.getAdaptive().setMaxConcurrency(4);
+        ingest.getAdaptive().setTargetLatency(Duration.ofMillis(500));
+    }
+
+    @Test
+    void testBatchSizeGrowsAdditivelyWhileBulksAreFastAndReadsQueue() {
+        AdaptiveBulkController controller = new AdaptiveBulkController(ingest);
+
+        controller.onSuccess(1000, FAST, 500);
+        controller.onSuccess(1100, FAST, 500);
+
+        assertThat(controller.getBatchSize()).isEqualTo(1200);
+        for (int i = 0; i < 100; i++) {
+            controller.onSuccess(controller.getBatchSize(), FAST, 500);
+        }
+        assertThat(controller.getBatchSize()).isEqualTo(2000);
+    }
+
+    @Test
+    void testBatchSizeIsKeptWhenTheQueueIsEmpty() {
+        AdaptiveBulkController controller = new AdaptiveBulkController(ingest);
+
+        controller.onSuccess(1000, FAST, 0);
+        controller.onSuccess(200, FAST, 0);
+
+        assertThat(controller.getBatchSize()).isEqualTo(1000);
+    }
+
+    @Test
+    void testSlowBulkShrinksBatchSize() {
+        AdaptiveBulkController controller = new AdaptiveBulkController(ingest);
+
+        controller.onSuccess(1000, SLOW, 5000);
+
+        assertThat(controller.getBatchSize()).isEqualTo(750);
+    }
+
+    @Test
+    void testRejectionHalvesOncePerTargetLatency() {
+        AdaptiveBulkController controller = new AdaptiveBulkController(ingest);
+        for (int i = 0; i < 3; i++) {
+            controller.onSuccess(controller.getBatchSize(), FAST, 100_000);
+        }
+        assertThat(controller.getConcurrency()).isEqualTo(4);
+
+        controller.onRejected();
+        controller.onRejected();
+
+        assertThat(controller.getBatchSize()).isEqualTo(650);
+        assertThat(controller.getConcurrency()).isEqualTo(2);
+    }
+
+    @Test
+    void testConcurrencyFollowsTheQueue() {
+        AdaptiveBulkController controller = new AdaptiveBulkController(ingest);
+
+        controller.onSuccess(1000, FAST, 10_000);
+        controller.onSuccess(1000, FAST, 10_000);
+        assertThat(controller.getConcurrency()).isEqualTo(3);
+
+        controller.onSuccess(1000, FAST, 0);
+        controller.onSuccess(1000, FAST, 0);
+        controller.onSuccess(1000, FAST, 0);
+        assertThat(controller.getConcurrency()).isEqualTo(1);
+    }
+
+    @Test
+    void testDisabledControllerKeepsFixedLimits() {
+        ingest.getAdaptive().setEnabled(false);
+        AdaptiveBulkController controller = new AdaptiveBulkController(ingest);
+
+        controller.onSuccess(1000, FAST, 100_000);
+        controller.onRejected();
+
+        assertThat(controller.getBatchSize()).isEqualTo(1000);
+        assertThat(controller.getConcurrency()).isEqualTo(1);
+        assertThat(controller.getMaxConcurrency()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,129 @@
+package com.isoft.rfid.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.isoft.rfid.config.ApplicationProperties;
+import com.isoft.rfid.domain.TagRead;
+import com.isoft.rfid.repository.search.AssetSearchRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.search.SearchHit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class AssetRegistryTest {
+
+    private static final String EPC = "3034257BF7194E4000000001";
+
+    private static final String OTHER_EPC = "3034257BF7194E4000000002";
+
+    private AssetSearchRepository assetSearchRepository;
+
+    private MeterRegistry meterRegistry;
+
+    private AssetRegistry assetRegistry;
+
+    @BeforeEach
+    public void setup() throws Exception {
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getAssets().setWarmUpSlices(2);
+        applicationProperties.getAssets().setBatchSize(10);
+        assetSearchRepository = mock(AssetSearchRepository.class);
+        when(assetSearchRepository.countShards()).thenReturn(1);
+        when(assetSearchRepository.findMaxSeqNo(0)).thenReturn(3L);
+        doAnswer(invocation -> {
+                Predicate<SearchHit[]> pages = invocation.getArgument(4);
+                if (invocation.<Integer>getArgument(0) == 0) {
+                    pages.test(new SearchHit[] { hit(EPC, 3, "{\"sku\":\"SKU-1\",\"description\":\"Pallet\",\"owner\":\"acme\"}") });
+                }
+                return null;
+            })
+            .when(assetSearchRepository)
+            .scrollSlice(anyInt(), eq(2), eq(10), any(), any());
+        when(assetSearchRepository.findChangedSince(anyInt(), anyLong(), anyInt())).thenReturn(new SearchHit[0]);
+        meterRegistry = new SimpleMeterRegistry();
+        assetRegistry = new AssetRegistry(assetSearchRepository, meterRegistry, applicationProperties);
+    }
+
+    @Test
+    void testReadsAreEnrichedAfterWarmUp() {
+        assetRegistry.warmUp();
+        List<TagRead> reads = List.of(new TagRead().epc(EPC), new TagRead().epc(OTHER_EPC));
+
+        assetRegistry.enrich(reads);
+
+        assertThat(reads.get(0).getSku()).isEqualTo("SKU-1");
+        assertThat(reads.get(0).getDescription()).isEqualTo("Pallet");
+        assertThat(reads.get(0).getOwner()).isEqualTo("acme");
+        assertThat(reads.get(1).getSku()).isNull();
+        assertThat(meterRegistry.get("rfid.assets.entries").gauge().value()).isEqualTo(1);
+        assertThat(meterRegistry.get("rfid.assets.entry.bytes").gauge().value()).isPositive();
+        assertThat(meterRegistry.get("rfid.assets.warmup").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void testRefreshAppliesChangesAfterHighestSeqNo() throws Exception {
+        assetRegistry.warmUp();
+        when(assetSearchRepository.findChangedSince(0, -1, 10))
+            .thenReturn(
+                new SearchHit[] {
+                    hit(EPC, 4, "{\"sku\":\"SKU-1\",\"description\":\"Pallet\",\"owner\":\"globex\"}"),
+                    hit(OTHER_EPC, 5, "{\"sku\":\"SKU-2\"}"),
+                }
+            );
+        List<TagRead> reads = List.of(new TagRead().epc(EPC), new TagRead().epc(OTHER_EPC));
+
+        assetRegistry.refresh();
+        assetRegistry.enrich(reads);
+
+        assertThat(reads.get(0).getOwner()).isEqualTo("globex");
+        assertThat(reads.get(1).getSku()).isEqualTo("SKU-2");
+        assertThat(reads.get(1).getOwner()).isNull();
+        assertThat(assetRegistry.size()).isEqualTo(2);
+    }
+
+    @Test
+    void testRefreshResumesAfterSeqNosOfHitsWithoutShard() throws Exception {
+        when(assetSearchRepository.findMaxSeqNo(0)).thenReturn(5000L);
+        assetRegistry.warmUp();
+        when(assetSearchRepository.findChangedSince(0, 5000 - AssetRegistry.SEQ_NO_OVERLAP, 10))
+            .thenReturn(new SearchHit[] { hit(OTHER_EPC, 6000, "{\"sku\":\"SKU-2\"}") });
+
+        assetRegistry.refresh();
+        assetRegistry.refresh();
+
+        verify(assetSearchRepository).findChangedSince(0, 5000 - AssetRegistry.SEQ_NO_OVERLAP, 10);
+        verify(assetSearchRepository).findChangedSince(0, 6000 - AssetRegistry.SEQ_NO_OVERLAP, 10);
+        assertThat(assetRegistry.size()).isEqualTo(2);
+    }
+
+    @Test
+    void testRefreshRetriesFailedWarmUp() throws Exception {
+        when(assetSearchRepository.countShards()).thenThrow(new IllegalStateException("Elasticsearch is down")).thenReturn(1);
+
+        assetRegistry.warmUp();
+        assertThat(assetRegistry.size()).isZero();
+        assetRegistry.refresh();
+
+        assertThat(assetRegistry.size()).isEqualTo(1);
+    }
+
+    private static SearchHit hit(String epc, long seqNo, String source) {
+        SearchHit hit = new SearchHit(0, epc, Map.of(), Map.of());
+        hit.sourceRef(new BytesArray(source));
+        hit.setSeqNo(seqNo);
+        return hit;
+    }
+}
@@ -0,0 +1,118 @@
+package com.isoft.rfid.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.isoft.rfid.config.ApplicationProperties;
+import com.isoft.rfid.domain.TagRead;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class DuplicateReadSuppressorTest {
+
+    private static final String EPC = "3034257BF7194E4000000001";
+
+    private static final Instant START = Instant.parse("2022-11-08T10:00:00Z");
+
+    private ApplicationProperties applicationProperties;
+
+    private MeterRegistry meterRegistry;
+
+    private DuplicateReadSuppressor duplicateReadSuppressor;
+
+    @BeforeEach
+    public void setup() {
+        applicationProperties = new ApplicationProperties();
+        applicationProperties.getIngest().getDedup().setWindow(Duration.ofSeconds(2));
+        meterRegistry = new SimpleMeterRegistry();
+        duplicateReadSuppressor = new DuplicateReadSuppressor(applicationProperties, meterRegistry);
+    }
+
+    @Test
+    void testRepeatsInsideWindowAreDropped() {
+        List<TagRead> reads = reads(read(EPC, "dock-1", 1, 0), read(EPC, "dock-1", 1, 500), read(EPC, "dock-1", 1, 1999));
+
+        duplicateReadSuppressor.removeDuplicates(reads);
+
+        assertThat(reads).extracting(TagRead::getTimestamp).containsExactly(START);
+        assertThat(meterRegistry.get("rfid.ingest.duplicates.suppressed").counter().count()).isEqualTo(2);
+    }
+
+    @Test
+    void testReadAfterWindowIsKept() {
+        List<TagRead> reads = reads(read(EPC, "dock-1", 1, 0), read(EPC, "dock-1", 1, 1000), read(EPC, "dock-1", 1, 2000));
+
+        duplicateReadSuppressor.removeDuplicates(reads);
+
+        assertThat(reads).extracting(TagRead::getTimestamp).containsExactly(START, START.plusMillis(2000));
+    }
+
+    @Test
+    void testReadersBeyondTheTrackedOnesAreNotDeduplicated() {
+        applicationProperties.getIngest().setMaxReaders(1);
+        duplicateReadSuppressor = new DuplicateReadSuppressor(applicationProperties, meterRegistry);
+        List<TagRead> reads = reads(
+            read(EPC, "dock-1", 1, 0),
+            read(EPC, "dock-1", 1, 500),
+            read(EPC, "dock-2", 1, 0),
+            read(EPC, "dock-2", 1, 500)
+        );
+
+        duplicateReadSuppressor.removeDuplicates(reads);
+
+        assertThat(reads).extracting(TagRead::getReaderId).containsExactly("dock-1", "dock-2", "dock-2");
+    }
+
+    @Test
+    void testKeyIncludesReaderAndAntenna() {
+        List<TagRead> reads = reads(
+            read(EPC, "dock-1", 1, 0),
+            read(EPC, "dock-1", 2, 0),
+            read(EPC, "dock-2", 1, 0),
+            read("3034257BF7194E4000000002", "dock-1", 1, 0)
+        );
+
+        duplicateReadSuppressor.removeDuplicates(reads);
+
+        assertThat(reads).hasSize(4);
+    }
+
+    @Test
+    void testKeysOutOfWindowArePurgedWhenTableIsFull() {
+        applicationProperties.getIngest().getDedup().setCapacity(16);
+        duplicateReadSuppressor = new DuplicateReadSuppressor(applicationProperties, meterRegistry);
+
+        for (int i = 0; i < 100; i++) {
+            List<TagRead> reads = reads(read(String.format("3034257BF7194E4%09d", i), "dock-1", 1, i * 1000L));
+            duplicateReadSuppressor.removeDuplicates(reads);
+            assertThat(reads).hasSize(1);
+        }
+        List<TagRead> repeat = reads(read(String.format("3034257BF7194E4%09d", 99), "dock-1", 1, 99_500L));
+        duplicateReadSuppressor.removeDuplicates(repeat);
+        assertThat(repeat).isEmpty();
+    }
+
+    @Test
+    void testDisabledSuppressorKeepsEverything() {
+        applicationProperties.getIngest().getDedup().setEnabled(false);
+        duplicateReadSuppressor = new DuplicateReadSuppressor(applicationProperties, meterRegistry);
+        List<TagRead> reads = reads(read(EPC, "dock-1", 1, 0), read(EPC, "dock-1", 1, 0));
+
+        duplicateReadSuppressor.removeDuplicates(reads);
+
+        assertThat(reads).hasSize(2);
+    }
+
+    private static TagRead read(String epc, String readerId, int antenna, long offsetMillis) {
+        return new TagRead().epc(epc).readerId(readerId).antenna(antenna).timestamp(START.plusMillis(offsetMillis));
+    }
+
+    private static List<TagRead> reads(TagRead... reads) {
+        return new ArrayList<>(List.of(reads));
+    }
+}
@@ -0,0 +1,98 @@
+package com.isoft.rfid.service;
+
+import java.math.BigInteger;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * JMH benchmark of {@link EpcDecoder} against a naive decoder built on {@link String#split(String)}.
+ * <p>
+ * Run the {@link #main(String[])} method from the IDE; the GC profiler reports the bytes allocated per decode
+ * ({@code gc.alloc.rate.norm}).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EpcDecoderBenchmark {
+
+    @Param({ "3074257BF7194E4000001A85", "3174257BF4499602D2000000" })
+    public String epc;
+
+    private final DecodedEpc decoded = new DecodedEpc();
+
+    @Benchmark
+    public void decoder(Blackhole blackhole) {
+        EpcDecoder.decode(epc, decoded);
+        blackhole.consume(decoded.getCompanyPrefix());
+        blackhole.consume(decoded.getReference());
+        blackhole.consume(decoded.getSerial());
+    }
+
+    @Benchmark
+    public void naiveSplitDecoder(Blackhole blackhole) {
+        String[] fields = NaiveEpcDecoder.decode(epc);
+        blackhole.consume(fields[0]);
+        blackhole.consume(fields[1]);
+        blackhole.consume(fields.length > 2 ? fields[2] : null);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(EpcDecoderBenchmark.class.getSimpleName()).addProfiler(GCProfiler.class).build()).run();
+    }
+
+    /**
+     * The usual first implementation: go through a binary string, build the pure identity URI and split it again.
+     */
+    static final class NaiveEpcDecoder {
+
+        private static final int[] COMPANY_PREFIX_BITS = { 40, 37, 34, 30, 27, 24, 20 };
+
+        private NaiveEpcDecoder() {}
+
+        static String[] decode(String epc) {
+            String bits = String.format("%96s", new BigInteger(epc, 16).toString(2)).replace(' ', '0');
+            int header = Integer.parseInt(bits.substring(0, 8), 2);
+            int partition = Integer.parseInt(bits.substring(11, 14), 2);
+            int companyPrefixBits = COMPANY_PREFIX_BITS[partition];
+            int companyPrefixDigits = 12 - partition;
+            String companyPrefix = String.format(
+                "%0" + companyPrefixDigits + "d",
+                Long.parseLong(bits.substring(14, 14 + companyPrefixBits), 2)
+            );
+            String uri;
+            if (header == EpcDecoder.HEADER_SGTIN_96) {
+                int referenceEnd = 14 + 44;
+                String itemReference = String.format(
+                    "%0" + (13 - companyPrefixDigits) + "d",
+                    Long.parseLong(bits.substring(14 + companyPrefixBits, referenceEnd), 2)
+                );
+                String serial = Long.toString(Long.parseLong(bits.substring(referenceEnd, 96), 2));
+                uri = "urn:epc:id:sgtin:" + companyPrefix + "." + itemReference + "." + serial;
+            } else {
+                String serialReference = String.format(
+                    "%0" + (17 - companyPrefixDigits) + "d",
+                    Long.parseLong(bits.substring(14 + companyPrefixBits, 14 + 58), 2)
+                );
+                uri = "urn:epc:id:sscc:" + companyPrefix + "." + serialReference;
+            }
+            return uri.split(":")[4].split("\\.");
+        }
+    }
+}
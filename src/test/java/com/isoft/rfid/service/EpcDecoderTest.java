@@ -0,0 +1,67 @@
+package com.isoft.rfid.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class EpcDecoderTest {
+
+    private DecodedEpc decoded;
+
+    @BeforeEach
+    public void setup() {
+        decoded = new DecodedEpc();
+    }
+
+    @Test
+    void testDecodeSgtin96() {
+        assertThat(EpcDecoder.decode("3074257BF7194E4000001A85", decoded)).isTrue();
+
+        assertThat(decoded.getScheme()).isEqualTo(DecodedEpc.Scheme.SGTIN_96);
+        assertThat(decoded.getFilter()).isEqualTo(3);
+        assertThat(decoded.getPartition()).isEqualTo(5);
+        assertThat(decoded.appendCompanyPrefix(new StringBuilder())).hasToString("0614141");
+        assertThat(decoded.appendReference(new StringBuilder())).hasToString("812345");
+        assertThat(decoded.getSerial()).isEqualTo(6789);
+        assertThat(decoded.appendPureIdentityUri(new StringBuilder())).hasToString("urn:epc:id:sgtin:0614141.812345.6789");
+    }
+
+    @Test
+    void testDecodeSgtin96WithLargestSerial() {
+        assertThat(EpcDecoder.decode("3038789004B5A1FFFFFFFFFF", decoded)).isTrue();
+
+        assertThat(decoded.appendPureIdentityUri(new StringBuilder())).hasToString("urn:epc:id:sgtin:123456.1234567.274877906943");
+    }
+
+    @Test
+    void testDecodeSscc96() {
+        assertThat(EpcDecoder.decode("3174257bf4499602d2000000", decoded)).isTrue();
+
+        assertThat(decoded.getScheme()).isEqualTo(DecodedEpc.Scheme.SSCC_96);
+        assertThat(decoded.getSerial()).isEqualTo(-1);
+        assertThat(decoded.appendPureIdentityUri(new StringBuilder())).hasToString("urn:epc:id:sscc:0614141.1234567890");
+    }
+
+    @Test
+    void testDecode128BitEpcUsesFirst96Bits() {
+        assertThat(EpcDecoder.decode("3074257BF7194E4000001A85ABCD1234", decoded)).isTrue();
+
+        assertThat(decoded.appendPureIdentityUri(new StringBuilder())).hasToString("urn:epc:id:sgtin:0614141.812345.6789");
+    }
+
+    @Test
+    void testDecodeNonGs1Epc() {
+        assertThat(EpcDecoder.decode("E2801160600002084C6E2B9F", decoded)).isFalse();
+
+        assertThat(decoded.getScheme()).isEqualTo(DecodedEpc.Scheme.UNKNOWN);
+        assertThat(decoded.getHeader()).isEqualTo(0xE2);
+    }
+
+    @Test
+    void testDecodeInvalidHex() {
+        assertThat(EpcDecoder.decode("3074257BF7194E40000ZZZZZ", decoded)).isFalse();
+        assertThat(EpcDecoder.decode("3074257B", decoded)).isFalse();
+        assertThat(decoded.getHeader()).isEqualTo(-1);
+    }
+}
@@ -0,0 +1,164 @@
+package com.isoft.rfid.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+import com.isoft.rfid.config.ApplicationProperties;
+import com.isoft.rfid.domain.PortalEvent;
+import com.isoft.rfid.domain.TagRead;
+import com.isoft.rfid.domain.enumeration.MovementDirection;
+import com.isoft.rfid.repository.search.PortalEventSearchRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class PortalDirectionDetectorTest {
+
+    private static final byte INNER = 1;
+
+    private static final byte OUTER = 2;
+
+    private PortalEventSearchRepository portalEventSearchRepository;
+
+    private PortalDirectionDetector portalDirectionDetector;
+
+    private final List<PortalEvent> indexed = Collections.synchronizedList(new ArrayList<>());
+
+    @BeforeEach
+    public void setup() {
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        ApplicationProperties.Direction direction = applicationProperties.getDirection();
+        direction.setWindow(Duration.ofMillis(200));
+        direction.setWorkers(2);
+        ApplicationProperties.Direction.Portal portal = new ApplicationProperties.Direction.Portal();
+        portal.setId("dock-door-1");
+        portal.setReaderId("dock-1");
+        portal.setInnerAntennas(List.of(1, 2));
+        portal.setOuterAntennas(List.of(3, 4));
+        direction.setPortals(List.of(portal));
+        portalEventSearchRepository = mock(PortalEventSearchRepository.class);
+        doAnswer(invocation -> {
+                Iterable<PortalEvent> events = invocation.getArgument(0);
+                events.forEach(indexed::add);
+                return events;
+            })
+            .when(portalEventSearchRepository)
+            .saveAll(anyIterable());
+        portalDirectionDetector =
+            new PortalDirectionDetector(applicationProperties, portalEventSearchRepository, new SimpleMeterRegistry());
+        portalDirectionDetector.start();
+    }
+
+    @AfterEach
+    public void destroy() throws InterruptedException {
+        portalDirectionDetector.stop();
+    }
+
+    @Test
+    void testOuterFirstRatio() {
+        long[] times = { 0, 10, 20, 30 };
+        assertThat(PortalDirectionDetector.outerFirstRatio(times, new byte[] { OUTER, OUTER, INNER, INNER }, 4)).isEqualTo(1.0);
+        assertThat(PortalDirectionDetector.outerFirstRatio(times, new byte[] { INNER, INNER, OUTER, OUTER }, 4)).isEqualTo(0.0);
+        assertThat(PortalDirectionDetector.outerFirstRatio(times, new byte[] { OUTER, INNER, OUTER, INNER }, 4)).isEqualTo(0.75);
+    }
+
+    @Test
+    void testOuterFirstRatioCountsSimultaneousReadsForHalf() {
+        long[] times = { 0, 0 };
+        assertThat(PortalDirectionDetector.outerFirstRatio(times, new byte[] { INNER, OUTER }, 2)).isEqualTo(0.5);
+    }
+
+    @Test
+    void testOuterFirstRatioWithOneSide() {
+        long[] times = { 0, 10 };
+        assertThat(PortalDirectionDetector.outerFirstRatio(times, new byte[] { INNER, INNER }, 2)).isNaN();
+    }
+
+    @Test
+    void testDetectDirections() {
+        long now = System.currentTimeMillis();
+        List<TagRead> reads = new ArrayList<>();
+        reads.addAll(passage("3034257BF7194E4000000001", now, 3, 3, 1, 1));
+        reads.addAll(passage("3034257BF7194E4000000002", now, 2, 1, 4, 3));
+        reads.addAll(passage("3034257BF7194E4000000003", now, 1, 2, 1));
+        reads.addAll(passage("3034257BF7194E4000000004", now, 3, 1, 3, 1));
+        reads.add(new TagRead().epc("3034257BF7194E4000000005").readerId("shelf-1").antenna(1).timestamp(Instant.ofEpochMilli(now)));
+        portalDirectionDetector.process(reads);
+
+        Map<String, PortalEvent> events = await()
+            .atMost(Duration.ofSeconds(5))
+            .until(this::flushedEvents, flushed -> flushed.size() == 4)
+            .stream()
+            .collect(Collectors.toMap(PortalEvent::getEpc, Function.identity()));
+
+        PortalEvent in = events.get("3034257BF7194E4000000001");
+        assertThat(in.getPortalId()).isEqualTo("dock-door-1");
+        assertThat(in.getDirection()).isEqualTo(MovementDirection.IN);
+        assertThat(in.getConfidence()).isEqualTo(1.0);
+        assertThat(in.getReadCount()).isEqualTo(4);
+        assertThat(in.getFirstSeen()).isEqualTo(Instant.ofEpochMilli(now));
+        assertThat(in.getLastSeen()).isEqualTo(Instant.ofEpochMilli(now + 30));
+        assertThat(events.get("3034257BF7194E4000000002").getDirection()).isEqualTo(MovementDirection.OUT);
+        assertThat(events.get("3034257BF7194E4000000003").getDirection()).isEqualTo(MovementDirection.UNKNOWN);
+        assertThat(events.get("3034257BF7194E4000000003").getConfidence()).isZero();
+        PortalEvent unsure = events.get("3034257BF7194E4000000004");
+        assertThat(unsure.getDirection()).isEqualTo(MovementDirection.UNKNOWN);
+        assertThat(unsure.getConfidence()).isEqualTo(0.5);
+    }
+
+    @Test
+    void testPassageOfLateReadsSpansBatches() {
+        // Stamped well over a window before they are received, as by a reader uploading late or running slow.
+        long then = System.currentTimeMillis() - 5000;
+        List<TagRead> reads = passage("3034257BF7194E4000000001", then, 3, 4, 1, 2);
+        portalDirectionDetector.process(reads.subList(0, 2));
+        portalDirectionDetector.process(reads.subList(2, 4));
+
+        List<PortalEvent> events = await().atMost(Duration.ofSeconds(5)).until(this::flushedEvents, flushed -> !flushed.isEmpty());
+
+        assertThat(events).singleElement().satisfies(event -> {
+            assertThat(event.getDirection()).isEqualTo(MovementDirection.IN);
+            assertThat(event.getReadCount()).isEqualTo(4);
+        });
+    }
+
+    @Test
+    void testReadsAWindowApartInOneBatchAreTwoPassages() {
+        long then = System.currentTimeMillis() - 5000;
+        List<TagRead> reads = new ArrayList<>();
+        reads.addAll(passage("3034257BF7194E4000000001", then, 3, 1));
+        reads.addAll(passage("3034257BF7194E4000000001", then + 1000, 1, 3));
+        portalDirectionDetector.process(reads);
+
+        List<PortalEvent> events = await().atMost(Duration.ofSeconds(5)).until(this::flushedEvents, flushed -> flushed.size() == 2);
+
+        assertThat(events).extracting(PortalEvent::getDirection).containsExactlyInAnyOrder(MovementDirection.IN, MovementDirection.OUT);
+    }
+
+    private List<PortalEvent> flushedEvents() {
+        portalDirectionDetector.flush();
+        synchronized (indexed) {
+            return new ArrayList<>(indexed);
+        }
+    }
+
+    private static List<TagRead> passage(String epc, long start, int... antennas) {
+        List<TagRead> reads = new ArrayList<>();
+        for (int i = 0; i < antennas.length; i++) {
+            reads.add(new TagRead().epc(epc).readerId("dock-1").antenna(antennas[i]).timestamp(Instant.ofEpochMilli(start + 10L * i)));
+        }
+        return reads;
+    }
+}
@@ -0,0 +1,113 @@
+package com.isoft.rfid.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.isoft.rfid.config.ApplicationProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class RateLimiterTest {
+
+    private static final long START = 1_000_000_000L;
+
+    private MeterRegistry meterRegistry;
+
+    private ApplicationProperties applicationProperties;
+
+    @BeforeEach
+    public void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        applicationProperties = new ApplicationProperties();
+        List<ApplicationProperties.RateLimit.Group> groups = applicationProperties.getRateLimit().getGroups();
+        groups.add(group("ingest", 1, "/api/tag-reads/_bulk"));
+        groups.add(group("api", 4, "/api/**"));
+    }
+
+    @Test
+    void testClientOverItsLimitIsRejected() {
+        RateLimiter rateLimiter = new RateLimiter(meterRegistry, applicationProperties);
+
+        assertThat(rateLimiter.acquire("/api/tag-reads/_bulk", "dock-gateway", false, START)).isZero();
+        assertThat(rateLimiter.acquire("/api/tag-reads/_bulk", "dock-gateway", false, START)).isZero();
+        assertThat(rateLimiter.acquire("/api/tag-reads/_bulk", "dock-gateway", false, START)).isEqualTo(TimeUnit.SECONDS.toNanos(1));
+        assertThat(rateLimiter.acquire("/api/tag-reads/_bulk", "dock-gateway", false, START + TimeUnit.SECONDS.toNanos(1))).isZero();
+        assertThat(
+            meterRegistry.get("rfid.ratelimit.rejected").tag("group", "ingest").tag("client", "dock-gateway").counter().count()
+        )
+            .isEqualTo(1);
+    }
+
+    @Test
+    void testClientsAndGroupsHaveTheirOwnBuckets() {
+        RateLimiter rateLimiter = new RateLimiter(meterRegistry, applicationProperties);
+
+        rateLimiter.acquire("/api/tags/3034257BF7194E4000000001/location", "user", false, START);
+        rateLimiter.acquire("/api/tags/3034257BF7194E4000000001/location", "user", false, START);
+
+        assertThat(rateLimiter.acquire("/api/tags/3034257BF7194E4000000001/location", "user", false, START)).isPositive();
+        assertThat(rateLimiter.acquire("/api/tags/3034257BF7194E4000000001/location", "admin", false, START)).isZero();
+        assertThat(rateLimiter.acquire("/api/tag-reads/_bulk", "user", false, START)).isZero();
+    }
+
+    @Test
+    void testPathOutOfTheGroupsIsNotLimited() {
+        RateLimiter rateLimiter = new RateLimiter(meterRegistry, applicationProperties);
+
+        for (int i = 0; i < 10; i++) {
+            assertThat(rateLimiter.acquire("/management/health", "user", false, START)).isZero();
+        }
+    }
+
+    @Test
+    void testAnonymousRejectionsAreCountedTogether() {
+        RateLimiter rateLimiter = new RateLimiter(meterRegistry, applicationProperties);
+
+        for (int i = 0; i < 3; i++) {
+            rateLimiter.acquire("/api/authenticate", "10.0.0.1", true, START);
+            rateLimiter.acquire("/api/authenticate", "10.0.0.2", true, START);
+        }
+
+        assertThat(
+            meterRegistry.get("rfid.ratelimit.rejected").tag("group", "api").tag("client", RateLimiter.ANONYMOUS_CLIENT).counter().count()
+        )
+            .isEqualTo(2);
+        assertThat(meterRegistry.find("rfid.ratelimit.rejected").tag("client", "10.0.0.1").counter()).isNull();
+    }
+
+    @Test
+    void testFullBucketsAreSwept() {
+        RateLimiter rateLimiter = new RateLimiter(meterRegistry, applicationProperties);
+        rateLimiter.acquire("/api/tag-reads/_bulk", "dock-gateway", false, START);
+        rateLimiter.acquire("/api/tags/3034257BF7194E4000000001/location", "user", false, START);
+
+        rateLimiter.sweep(START + TimeUnit.MILLISECONDS.toNanos(500));
+        assertThat(meterRegistry.get("rfid.ratelimit.clients").tag("group", "ingest").gauge().value()).isEqualTo(1);
+        assertThat(meterRegistry.get("rfid.ratelimit.clients").tag("group", "api").gauge().value()).isZero();
+
+        rateLimiter.sweep(START + TimeUnit.SECONDS.toNanos(1));
+        assertThat(meterRegistry.get("rfid.ratelimit.clients").tag("group", "ingest").gauge().value()).isZero();
+    }
+
+    @Test
+    void testDisabledLimiterAdmitsEverything() {
+        applicationProperties.getRateLimit().setEnabled(false);
+        RateLimiter rateLimiter = new RateLimiter(meterRegistry, applicationProperties);
+
+        for (int i = 0; i < 10; i++) {
+            assertThat(rateLimiter.acquire("/api/tag-reads/_bulk", "dock-gateway", false, START)).isZero();
+        }
+    }
+
+    private static ApplicationProperties.RateLimit.Group group(String name, double refillPerSecond, String path) {
+        ApplicationProperties.RateLimit.Group group = new ApplicationProperties.RateLimit.Group();
+        group.setName(name);
+        group.setPaths(List.of(path));
+        group.setCapacity(2);
+        group.setRefillPerSecond(refillPerSecond);
+        return group;
+    }
+}
@@ -0,0 +1,139 @@
+package com.isoft.rfid.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.isoft.rfid.config.ApplicationProperties;
+import com.isoft.rfid.domain.TagRead;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class RssiNoiseFilterTest {
+
+    private static final String EPC = "3034257BF7194E4000000001";
+
+    private static final Instant START = Instant.parse("2022-11-08T10:00:00Z");
+
+    private MeterRegistry meterRegistry;
+
+    private RssiNoiseFilter rssiNoiseFilter;
+
+    @BeforeEach
+    public void setup() {
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        ApplicationProperties.Ingest.Filter filter = applicationProperties.getIngest().getFilter();
+        filter.setMinRssi(-85);
+        filter.setWarmUpReads(3);
+        filter.setDeviations(2.5);
+        filter.setAttributionWindow(Duration.ofSeconds(1));
+        filter.setCrossReadMargin(6);
+        meterRegistry = new SimpleMeterRegistry();
+        rssiNoiseFilter = new RssiNoiseFilter(applicationProperties, meterRegistry);
+    }
+
+    @Test
+    void testReadsBelowFloorAreDropped() {
+        List<TagRead> reads = reads(read("dock-1", 1, -90, 0), read("dock-1", 1, -60, 100));
+
+        rssiNoiseFilter.filter(reads);
+
+        assertThat(reads).extracting(TagRead::getRssi).containsExactly(-60.0);
+    }
+
+    @Test
+    void testGhostReadBelowEstimateIsDropped() {
+        List<TagRead> reads = reads(
+            read("dock-1", 1, -50, 0),
+            read("dock-1", 1, -51, 100),
+            read("dock-1", 1, -50, 200),
+            read("dock-1", 1, -78, 300),
+            read("dock-1", 1, -51, 400)
+        );
+
+        rssiNoiseFilter.filter(reads);
+
+        assertThat(reads).extracting(TagRead::getRssi).containsExactly(-50.0, -51.0, -50.0, -51.0);
+    }
+
+    @Test
+    void testEstimateNeedsWarmUp() {
+        List<TagRead> reads = reads(read("dock-1", 1, -50, 0), read("dock-1", 1, -70, 100));
+
+        rssiNoiseFilter.filter(reads);
+
+        assertThat(reads).hasSize(2);
+    }
+
+    @Test
+    void testCrossReadsAreDropped() {
+        List<TagRead> reads = reads(
+            read("dock-1", 1, -50, 0),
+            read("dock-2", 1, -65, 100),
+            read("dock-1", 1, -50, 200),
+            read("dock-2", 1, -64, 1500)
+        );
+
+        rssiNoiseFilter.filter(reads);
+
+        assertThat(reads).extracting(TagRead::getReaderId).containsExactly("dock-1", "dock-1", "dock-2");
+    }
+
+    @Test
+    void testTagIsAttributedToStrongerAntenna() {
+        List<TagRead> reads = reads(read("dock-1", 1, -60, 0), read("dock-1", 2, -52, 100), read("dock-1", 1, -61, 200));
+
+        rssiNoiseFilter.filter(reads);
+
+        assertThat(reads).extracting(TagRead::getAntenna).containsExactly(1, 2);
+    }
+
+    @Test
+    void testReadsWithoutRssiAreKept() {
+        List<TagRead> reads = reads(read("dock-1", 1, -50, 0), new TagRead().epc(EPC).readerId("dock-2").timestamp(START));
+
+        rssiNoiseFilter.filter(reads);
+
+        assertThat(reads).hasSize(2);
+    }
+
+    @Test
+    void testDropRatioPerReader() {
+        rssiNoiseFilter.filter(reads(read("dock-1", 1, -90, 0), read("dock-1", 1, -50, 100), read("dock-2", 1, -50, 200)));
+
+        assertThat(meterRegistry.get("rfid.ingest.filter.drop.ratio").tag("reader", "dock-1").gauge().value()).isEqualTo(0.5);
+        assertThat(meterRegistry.get("rfid.ingest.filter.drop.ratio").tag("reader", "dock-2").gauge().value()).isZero();
+        assertThat(meterRegistry.get("rfid.ingest.filter.dropped").tag("reader", "dock-1").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void testReadersBeyondTheTaggedOnesShareOneSeries() {
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getIngest().getFilter().setMaxTaggedReaders(2);
+        rssiNoiseFilter = new RssiNoiseFilter(applicationProperties, meterRegistry);
+
+        rssiNoiseFilter.filter(
+            reads(read("dock-1", 1, -90, 0), read("dock-2", 1, -90, 100), read("forged-1", 1, -90, 200), read("forged-2", 1, -50, 300))
+        );
+
+        assertThat(meterRegistry.get("rfid.ingest.filter.dropped").tag("reader", "dock-2").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("rfid.ingest.filter.dropped").tag("reader", RssiNoiseFilter.OTHER_READERS).counter().count())
+            .isEqualTo(1);
+        assertThat(meterRegistry.get("rfid.ingest.filter.drop.ratio").tag("reader", RssiNoiseFilter.OTHER_READERS).gauge().value())
+            .isEqualTo(0.5);
+        assertThat(meterRegistry.find("rfid.ingest.filter.dropped").tag("reader", "forged-1").counter()).isNull();
+    }
+
+    private static TagRead read(String readerId, int antenna, double rssi, long offsetMillis) {
+        return new TagRead().epc(EPC).readerId(readerId).antenna(antenna).rssi(rssi).timestamp(START.plusMillis(offsetMillis));
+    }
+
+    private static List<TagRead> reads(TagRead... reads) {
+        return new ArrayList<>(Arrays.asList(reads));
+    }
+}
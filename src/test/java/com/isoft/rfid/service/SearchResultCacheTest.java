@@ -0,0 +1,106 @@
+package com.isoft.rfid.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.isoft.rfid.config.ApplicationProperties;
+import com.isoft.rfid.domain.TagRead;
+import com.isoft.rfid.repository.search.TagReadIndexGenerations;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+
+class SearchResultCacheTest {
+
+    private static final String[] INDICES = { "tag-reads-2022.11.08*" };
+
+    private TagReadIndexGenerations tagReadIndexGenerations;
+
+    private MeterRegistry meterRegistry;
+
+    private ApplicationProperties applicationProperties;
+
+    private AtomicInteger searches;
+
+    private Supplier<Page<TagRead>> search;
+
+    @BeforeEach
+    public void setup() {
+        tagReadIndexGenerations = mock(TagReadIndexGenerations.class);
+        meterRegistry = new SimpleMeterRegistry();
+        applicationProperties = new ApplicationProperties();
+        searches = new AtomicInteger();
+        search =
+            () -> {
+                searches.incrementAndGet();
+                return new PageImpl<>(List.of(new TagRead().epc("3034257BF7194E4000000001")));
+            };
+    }
+
+    @Test
+    void testSameQueryIsSearchedOnce() {
+        when(tagReadIndexGenerations.generation(any())).thenReturn(7L);
+        SearchResultCache cache = new SearchResultCache(tagReadIndexGenerations, meterRegistry, applicationProperties);
+
+        Page<TagRead> first = cache.get("query", INDICES, search);
+        Page<TagRead> second = cache.get("query", INDICES, search);
+
+        assertThat(second).isSameAs(first);
+        assertThat(searches).hasValue(1);
+        assertThat(meterRegistry.get("cache.gets").tag("cache", "tag-read-search").tag("result", "hit").functionCounter().count())
+            .isEqualTo(1);
+    }
+
+    @Test
+    void testOtherQueryIsSearched() {
+        when(tagReadIndexGenerations.generation(any())).thenReturn(7L);
+        SearchResultCache cache = new SearchResultCache(tagReadIndexGenerations, meterRegistry, applicationProperties);
+
+        cache.get("query", INDICES, search);
+        cache.get("other query", INDICES, search);
+
+        assertThat(searches).hasValue(2);
+    }
+
+    @Test
+    void testNewGenerationIsSearchedAgain() {
+        when(tagReadIndexGenerations.generation(any())).thenReturn(7L, 8L);
+        SearchResultCache cache = new SearchResultCache(tagReadIndexGenerations, meterRegistry, applicationProperties);
+
+        cache.get("query", INDICES, search);
+        cache.get("query", INDICES, search);
+
+        assertThat(searches).hasValue(2);
+    }
+
+    @Test
+    void testUnknownGenerationIsNotCached() {
+        when(tagReadIndexGenerations.generation(any())).thenReturn(-1L);
+        SearchResultCache cache = new SearchResultCache(tagReadIndexGenerations, meterRegistry, applicationProperties);
+
+        cache.get("query", INDICES, search);
+        cache.get("query", INDICES, search);
+
+        assertThat(searches).hasValue(2);
+    }
+
+    @Test
+    void testDisabledCacheIsBypassed() {
+        applicationProperties.getSearch().getCache().setEnabled(false);
+        when(tagReadIndexGenerations.generation(any())).thenReturn(7L);
+        SearchResultCache cache = new SearchResultCache(tagReadIndexGenerations, meterRegistry, applicationProperties);
+
+        cache.get("query", INDICES, search);
+        cache.get("query", INDICES, search);
+
+        assertThat(searches).hasValue(2);
+    }
+}
@@ -0,0 +1,173 @@
+package com.isoft.rfid.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.isoft.rfid.config.ApplicationProperties;
+import com.isoft.rfid.domain.TagRead;
+import com.isoft.rfid.repository.search.TagReadSearchRepository;
+import com.isoft.rfid.service.dto.TagLocationDTO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+
+class TagLocationViewTest {
+
+    private static final String EPC = "3034257BF7194E4000000001";
+
+    private static final Instant NOW = Instant.parse("2022-11-08T13:42:17Z");
+
+    @TempDir
+    Path snapshotDirectory;
+
+    private ApplicationProperties applicationProperties;
+
+    private TagReadSearchRepository tagReadSearchRepository;
+
+    @BeforeEach
+    public void setup() {
+        applicationProperties = new ApplicationProperties();
+        applicationProperties.getLocation().setInitialCapacity(16);
+        applicationProperties.getLocation().setSnapshotDirectory(snapshotDirectory.toString());
+        tagReadSearchRepository = mock(TagReadSearchRepository.class);
+        when(tagReadSearchRepository.streamByTimeRange(any(), any())).thenAnswer(invocation -> Stream.empty());
+    }
+
+    @Test
+    void testNewestReadWins() {
+        TagLocationView view = newView();
+
+        view.update(
+            List.of(
+                new TagRead().epc(EPC).readerId("dock-1").antenna(1).zone("inbound").timestamp(NOW),
+                new TagRead().epc(EPC).readerId("shelf-4").antenna(2).timestamp(NOW.plusSeconds(5)),
+                new TagRead().epc(EPC).readerId("dock-2").antenna(3).timestamp(NOW.plusSeconds(1))
+            )
+        );
+
+        TagLocationDTO location = view.findLocation(EPC).orElseThrow();
+        assertThat(location.getReaderId()).isEqualTo("shelf-4");
+        assertThat(location.getAntenna()).isEqualTo(2);
+        assertThat(location.getZone()).isNull();
+        assertThat(location.getTimestamp()).isEqualTo(NOW.plusSeconds(5));
+        assertThat(view.findLocation(EPC.toLowerCase())).isPresent();
+        assertThat(view.findLocation("3034257BF7194E4000000002")).isEmpty();
+        assertThat(view.findLocation("not-an-epc")).isEmpty();
+    }
+
+    @Test
+    void testTableGrows() {
+        TagLocationView view = newView();
+        List<TagRead> reads = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            reads.add(new TagRead().epc(String.format("30340000000000000000%04X", i)).readerId("reader-" + (i % 7)).timestamp(NOW));
+        }
+
+        view.update(reads);
+
+        assertThat(view.size()).isEqualTo(1000);
+        assertThat(view.findLocation("303400000000000000000309").orElseThrow().getReaderId()).isEqualTo("reader-" + (0x309 % 7));
+    }
+
+    @Test
+    void testSnapshotIsRestored() {
+        TagLocationView view = newView();
+        view.update(
+            List.of(
+                new TagRead().epc(EPC).readerId("dock-1").antenna(1).zone("inbound").timestamp(NOW),
+                new TagRead().epc("E2801160600002").readerId("dock-2").antenna(4).timestamp(NOW.plusSeconds(1))
+            )
+        );
+        view.snapshot();
+        assertThat(snapshotDirectory.resolve(TagLocationView.SNAPSHOT_FILE)).exists();
+
+        TagLocationView restored = newView();
+        restored.restore();
+        restored.replay();
+
+        assertThat(restored.size()).isEqualTo(2);
+        TagLocationDTO location = restored.findLocation(EPC).orElseThrow();
+        assertThat(location.getReaderId()).isEqualTo("dock-1");
+        assertThat(location.getAntenna()).isEqualTo(1);
+        assertThat(location.getZone()).isEqualTo("inbound");
+        assertThat(location.getTimestamp()).isEqualTo(NOW);
+        assertThat(restored.findLocation("E2801160600002").orElseThrow().getReaderId()).isEqualTo("dock-2");
+    }
+
+    @Test
+    void testReadsSinceTheSnapshotAreReplayed() {
+        applicationProperties.getLocation().setMaxReplay(Duration.between(NOW, Instant.now()).plusDays(1));
+        TagLocationView view = newView();
+        view.update(List.of(new TagRead().epc(EPC).readerId("dock-1").timestamp(NOW)));
+        view.snapshot();
+        Instant from = NOW.minus(applicationProperties.getLocation().getReplayMargin());
+        when(tagReadSearchRepository.streamByTimeRange(any(), any()))
+            .thenAnswer(invocation ->
+                from.equals(invocation.getArgument(0))
+                    ? Stream.of(new TagRead().epc(EPC).readerId("shelf-4").timestamp(NOW.plusSeconds(30)))
+                    : Stream.empty()
+            );
+
+        TagLocationView restored = newView();
+        restored.restore();
+        restored.replay();
+
+        assertThat(restored.findLocation(EPC).orElseThrow().getReaderId()).isEqualTo("shelf-4");
+    }
+
+    @Test
+    void testFutureReadDoesNotMoveTheReplayPastTheSnapshot() {
+        TagLocationView view = newView();
+        view.update(List.of(new TagRead().epc(EPC).readerId("dock-1").timestamp(Instant.now().plus(Duration.ofDays(1)))));
+        view.snapshot();
+
+        TagLocationView restored = newView();
+        restored.restore();
+        Instant before = Instant.now();
+        restored.replay();
+
+        ArgumentCaptor<Instant> from = ArgumentCaptor.forClass(Instant.class);
+        verify(tagReadSearchRepository).streamByTimeRange(from.capture(), any());
+        assertThat(from.getValue()).isBefore(before.minus(applicationProperties.getLocation().getReplayMargin()).plusSeconds(1));
+    }
+
+    @Test
+    void testReplayIsBounded() {
+        applicationProperties.getLocation().setInitialReplay(Duration.ofDays(1));
+        applicationProperties.getLocation().setMaxReplay(Duration.ofHours(1));
+        TagLocationView view = newView();
+        Instant before = Instant.now();
+
+        view.replay();
+
+        ArgumentCaptor<Instant> from = ArgumentCaptor.forClass(Instant.class);
+        verify(tagReadSearchRepository).streamByTimeRange(from.capture(), any());
+        assertThat(from.getValue()).isAfterOrEqualTo(before.minus(Duration.ofHours(1)));
+    }
+
+    @Test
+    void testCorruptSnapshotIsIgnored() throws Exception {
+        Files.write(snapshotDirectory.resolve(TagLocationView.SNAPSHOT_FILE), new byte[] { 0x54, 0x4C, 0x4F, 0x43, 0, 0, 0, 1, 0 });
+
+        TagLocationView view = newView();
+        view.restore();
+
+        assertThat(view.size()).isZero();
+    }
+
+    private TagLocationView newView() {
+        return new TagLocationView(applicationProperties, tagReadSearchRepository, new SimpleMeterRegistry());
+    }
+}
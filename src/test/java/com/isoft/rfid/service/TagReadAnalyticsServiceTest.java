@@ -0,0 +1,23 @@
+package com.isoft.rfid.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import org.junit.jupiter.api.Test;
+
+class TagReadAnalyticsServiceTest {
+
+    @Test
+    void testBucketIntervalIsCoarsestWithinResolution() {
+        assertThat(TagReadAnalyticsService.bucketInterval(Duration.ofMinutes(1))).isEqualTo(Duration.ofMinutes(1));
+        assertThat(TagReadAnalyticsService.bucketInterval(Duration.ofMinutes(4))).isEqualTo(Duration.ofMinutes(1));
+        assertThat(TagReadAnalyticsService.bucketInterval(Duration.ofMinutes(20))).isEqualTo(Duration.ofMinutes(10));
+        assertThat(TagReadAnalyticsService.bucketInterval(Duration.ofHours(2))).isEqualTo(Duration.ofHours(1));
+    }
+
+    @Test
+    void testBucketIntervalIsBounded() {
+        assertThat(TagReadAnalyticsService.bucketInterval(Duration.ofMillis(200))).isEqualTo(Duration.ofSeconds(1));
+        assertThat(TagReadAnalyticsService.bucketInterval(Duration.ofDays(7))).isEqualTo(Duration.ofDays(1));
+    }
+}
@@ -0,0 +1,148 @@
+package com.isoft.rfid.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import com.isoft.rfid.config.ApplicationProperties;
+import com.isoft.rfid.domain.TagRead;
+import com.isoft.rfid.repository.search.TagReadIndices;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.elasticsearch.ElasticsearchStatusException;
+import org.elasticsearch.rest.RestStatus;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.elasticsearch.BulkFailureException;
+import org.springframework.data.elasticsearch.UncategorizedElasticsearchException;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.mapping.IndexCoordinates;
+import org.springframework.data.elasticsearch.core.query.IndexQuery;
+
+class TagReadBulkIndexerTest {
+
+    private ElasticsearchOperations elasticsearchOperations;
+
+    private TagReadBulkIndexer tagReadBulkIndexer;
+
+    @BeforeEach
+    public void setup() {
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getIngest().setBulkActions(10);
+        applicationProperties.getIngest().getAdaptive().setEnabled(false);
+        elasticsearchOperations = mock(ElasticsearchOperations.class);
+        tagReadBulkIndexer = new TagReadBulkIndexer(
+            elasticsearchOperations,
+            new TagReadIndices(applicationProperties),
+            applicationProperties,
+            new SimpleMeterRegistry()
+        );
+    }
+
+    @Test
+    void testFullBatchesAreSentImmediately() {
+        tagReadBulkIndexer.addAll(reads(25));
+
+        ArgumentCaptor<List<IndexQuery>> captor = queriesCaptor();
+        verify(elasticsearchOperations, times(2)).bulkIndex(captor.capture(), any(IndexCoordinates.class));
+        assertThat(captor.getAllValues()).allSatisfy(batch -> assertThat(batch).hasSize(10));
+    }
+
+    @Test
+    void testFlushSendsPartialBatch() {
+        tagReadBulkIndexer.addAll(reads(3));
+        verify(elasticsearchOperations, never()).bulkIndex(anyList(), any(IndexCoordinates.class));
+
+        tagReadBulkIndexer.flush();
+
+        ArgumentCaptor<List<IndexQuery>> captor = queriesCaptor();
+        verify(elasticsearchOperations).bulkIndex(captor.capture(), any(IndexCoordinates.class));
+        assertThat(captor.getValue()).hasSize(3);
+    }
+
+    @Test
+    void testFlushWithoutPendingReadsDoesNothing() {
+        tagReadBulkIndexer.flush();
+
+        verify(elasticsearchOperations, never()).bulkIndex(anyList(), any(IndexCoordinates.class));
+    }
+
+    @Test
+    void testReadsAreWrittenToThePartitionOfTheirTimestamp() {
+        List<TagRead> reads = reads(10);
+        reads.get(0).setTimestamp(Instant.parse("2022-11-07T23:59:59Z"));
+        reads.subList(1, 10).forEach(read -> read.setTimestamp(Instant.parse("2022-11-08T00:00:00Z")));
+
+        tagReadBulkIndexer.addAll(reads);
+
+        ArgumentCaptor<IndexCoordinates> captor = ArgumentCaptor.forClass(IndexCoordinates.class);
+        verify(elasticsearchOperations, times(2)).bulkIndex(anyList(), captor.capture());
+        assertThat(captor.getAllValues())
+            .extracting(IndexCoordinates::getIndexName)
+            .containsExactly("tag-reads-2022.11.07", "tag-reads-2022.11.08");
+    }
+
+    @Test
+    void testRejectionsAreRecognized() {
+        assertThat(TagReadBulkIndexer.isRejection(new ElasticsearchStatusException("rejected", RestStatus.TOO_MANY_REQUESTS))).isTrue();
+        assertThat(
+            TagReadBulkIndexer.isRejection(
+                new UncategorizedElasticsearchException(
+                    "Bulk operation has failures",
+                    new IllegalStateException("type=es_rejected_execution_exception, reason=rejected execution of coordinating operation")
+                )
+            )
+        )
+            .isTrue();
+        assertThat(TagReadBulkIndexer.isRejection(new ElasticsearchStatusException("mapping", RestStatus.BAD_REQUEST))).isFalse();
+    }
+
+    @Test
+    void testItemFailuresOfAllPartitionsAreReported() {
+        List<TagRead> reads = reads(2);
+        reads.get(0).id("first").setTimestamp(Instant.parse("2022-11-07T23:59:59Z"));
+        reads.get(1).id("second").setTimestamp(Instant.parse("2022-11-08T00:00:00Z"));
+        doThrow(new BulkFailureException("failed", Map.of("first", "type=mapper_parsing_exception")))
+            .when(elasticsearchOperations)
+            .bulkIndex(anyList(), any(IndexCoordinates.class));
+
+        assertThatThrownBy(() -> tagReadBulkIndexer.bulkIndex(reads, 0))
+            .isInstanceOf(BulkFailureException.class)
+            .extracting(e -> ((BulkFailureException) e).getFailedDocuments())
+            .isEqualTo(Map.of("first", "type=mapper_parsing_exception"));
+        verify(elasticsearchOperations, times(2)).bulkIndex(anyList(), any(IndexCoordinates.class));
+    }
+
+    @Test
+    void testRetriableItemFailuresAreRecognized() {
+        assertThat(TagReadBulkIndexer.isRetriable("Elasticsearch exception [type=es_rejected_execution_exception, reason=rejected]"))
+            .isTrue();
+        assertThat(TagReadBulkIndexer.isRetriable("Elasticsearch exception [type=unavailable_shards_exception, reason=primary]")).isTrue();
+        assertThat(TagReadBulkIndexer.isRetriable("Elasticsearch exception [type=mapper_parsing_exception, reason=antenna]")).isFalse();
+        assertThat(TagReadBulkIndexer.isRetriable("Elasticsearch exception [type=illegal_argument_exception, reason=immense term]"))
+            .isFalse();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ArgumentCaptor<List<IndexQuery>> queriesCaptor() {
+        return ArgumentCaptor.forClass(List.class);
+    }
+
+    private static List<TagRead> reads(int count) {
+        List<TagRead> reads = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            reads.add(new TagRead().epc(String.format("3034257BF7194E4%09d", i)).readerId("dock-1").antenna(1).timestamp(Instant.now()));
+        }
+        return reads;
+    }
+}
@@ -0,0 +1,67 @@
+package com.isoft.rfid.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+import com.isoft.rfid.config.ApplicationProperties;
+import com.isoft.rfid.domain.enumeration.ExportFormat;
+import com.isoft.rfid.repository.search.TagReadSearchRepository;
+import java.io.ByteArrayOutputStream;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class TagReadExportServiceTest {
+
+    @Test
+    void testStoredTimestampsAreExportedAsIso() {
+        assertThat(TagReadExportService.isoTimestamp("2022-11-08T10:00:00.123Z")).isEqualTo("2022-11-08T10:00:00.123Z");
+        assertThat(TagReadExportService.isoTimestamp("2022-11-08T12:00:00+02:00")).isEqualTo("2022-11-08T10:00:00Z");
+        assertThat(TagReadExportService.isoTimestamp(1667901600123L)).isEqualTo("2022-11-08T10:00:00.123Z");
+        assertThat(TagReadExportService.isoTimestamp("1667901600123")).isEqualTo("2022-11-08T10:00:00.123Z");
+        assertThat(TagReadExportService.isoTimestamp("yesterday")).isEqualTo("yesterday");
+    }
+
+    @Test
+    void testExportsBeyondTheLimitAreRefused() throws Exception {
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getSearch().setMaxConcurrentExports(1);
+        TagReadSearchRepository tagReadSearchRepository = mock(TagReadSearchRepository.class);
+        CountDownLatch opened = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+                opened.countDown();
+                release.await(5, TimeUnit.SECONDS);
+                return null;
+            })
+            .when(tagReadSearchRepository)
+            .openPointInTime(any(), any(Duration.class));
+        TagReadExportService tagReadExportService = new TagReadExportService(tagReadSearchRepository, applicationProperties);
+        try {
+            CompletableFuture<Void> running = CompletableFuture.runAsync(() -> {
+                try {
+                    tagReadExportService.export(null, null, null, null, ExportFormat.NDJSON, new ByteArrayOutputStream());
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+            assertThat(opened.await(5, TimeUnit.SECONDS)).isTrue();
+
+            assertThatThrownBy(tagReadExportService::checkExportAvailable).isInstanceOf(ExportLimitException.class);
+            assertThatThrownBy(() -> tagReadExportService.export(null, null, null, null, ExportFormat.NDJSON, new ByteArrayOutputStream()))
+                .isInstanceOf(ExportLimitException.class);
+
+            release.countDown();
+            running.get(5, TimeUnit.SECONDS);
+            tagReadExportService.checkExportAvailable();
+        } finally {
+            release.countDown();
+            tagReadExportService.stop();
+        }
+    }
+}
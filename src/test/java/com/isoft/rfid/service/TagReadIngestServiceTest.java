@@ -0,0 +1,252 @@
+package com.isoft.rfid.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.isoft.rfid.config.ApplicationProperties;
+import com.isoft.rfid.domain.PortalEvent;
+import com.isoft.rfid.domain.TagRead;
+import com.isoft.rfid.domain.enumeration.MovementDirection;
+import com.isoft.rfid.repository.search.PortalEventSearchRepository;
+import com.isoft.rfid.service.dto.IngestResultDTO;
+import com.isoft.rfid.service.spool.SpoolFullException;
+import com.isoft.rfid.service.spool.TagReadSpool;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+class TagReadIngestServiceTest {
+
+    private TagReadSpool tagReadSpool;
+
+    private ApplicationProperties applicationProperties;
+
+    private TagReadIngestService tagReadIngestService;
+
+    @BeforeEach
+    public void setup() {
+        applicationProperties = new ApplicationProperties();
+        applicationProperties.getIngest().setStreamChunkSize(100);
+        tagReadSpool = mock(TagReadSpool.class);
+        tagReadIngestService = tagReadIngestService(List.of(), mock(PortalDirectionDetector.class));
+    }
+
+    @Test
+    void testIngestRejectsReadsWithoutEpcOrReader() {
+        List<TagRead> reads = List.of(
+            new TagRead().epc("3034257BF7194E4000000001").readerId("dock-1"),
+            new TagRead().readerId("dock-1"),
+            new TagRead().epc("3034257BF7194E4000000002")
+        );
+
+        IngestResultDTO result = tagReadIngestService.ingest(reads);
+
+        assertThat(result.getReceived()).isEqualTo(3);
+        assertThat(result.getAccepted()).isEqualTo(1);
+        assertThat(result.getRejected()).isEqualTo(2);
+        assertThat(reads.get(0).getTimestamp()).isNotNull();
+    }
+
+    @Test
+    void testIngestSuppressesDuplicates() {
+        Instant now = Instant.now();
+        List<TagRead> reads = List.of(
+            new TagRead().epc("3034257BF7194E4000000001").readerId("dock-1").antenna(1).timestamp(now),
+            new TagRead().epc("3034257BF7194E4000000001").readerId("dock-1").antenna(1).timestamp(now.plusMillis(10)),
+            new TagRead().epc("3034257BF7194E4000000001").readerId("dock-1").antenna(2).timestamp(now.plusMillis(10))
+        );
+
+        IngestResultDTO result = tagReadIngestService.ingest(reads);
+
+        assertThat(result.getAccepted()).isEqualTo(2);
+        assertThat(result.getSuppressed()).isEqualTo(1);
+    }
+
+    @Test
+    void testReadsRefusedBySpoolAreAcceptedWhenRetried() {
+        // The spool is full for the first attempt, and has room again for the retry.
+        doThrow(new SpoolFullException(2)).doNothing().when(tagReadSpool).append(any());
+        Instant now = Instant.now();
+        List<TagRead> reads = List.of(
+            new TagRead().epc("3034257BF7194E4000000001").readerId("dock-1").antenna(1).timestamp(now),
+            new TagRead().epc("3034257BF7194E4000000002").readerId("dock-1").antenna(1).timestamp(now)
+        );
+
+        assertThatThrownBy(() -> tagReadIngestService.ingest(reads)).isInstanceOf(SpoolFullException.class);
+        IngestResultDTO result = tagReadIngestService.ingest(reads);
+
+        assertThat(result.getAccepted()).isEqualTo(2);
+        assertThat(result.getSuppressed()).isZero();
+        ArgumentCaptor<List<TagRead>> captor = chunkCaptor();
+        verify(tagReadSpool, times(2)).append(captor.capture());
+        assertThat(captor.getAllValues().get(1)).containsExactlyElementsOf(reads);
+    }
+
+    @Test
+    void testIngestDecodesGs1Fields() {
+        TagRead sgtin = new TagRead().epc("3074257BF7194E4000001A85").readerId("dock-1");
+        TagRead sscc = new TagRead().epc("3174257BF4499602D2000000").readerId("dock-1");
+
+        tagReadIngestService.ingest(List.of(sgtin, sscc));
+
+        assertThat(sgtin.getEpcScheme()).isEqualTo("sgtin");
+        assertThat(sgtin.getCompanyPrefix()).isEqualTo("0614141");
+        assertThat(sgtin.getItemReference()).isEqualTo("812345");
+        assertThat(sgtin.getSerialNumber()).isEqualTo("6789");
+        assertThat(sscc.getEpcScheme()).isEqualTo("sscc");
+        assertThat(sscc.getSerialNumber()).isEqualTo("1234567890");
+    }
+
+    @Test
+    void testStreamIngestHandsOverFixedSizeChunks() throws Exception {
+        IngestResultDTO result = tagReadIngestService.ingest(ndjson(250));
+
+        ArgumentCaptor<List<TagRead>> captor = chunkCaptor();
+        verify(tagReadSpool, times(3)).append(captor.capture());
+        assertThat(captor.getAllValues()).extracting(List::size).containsExactly(100, 100, 50);
+        assertThat(result.getReceived()).isEqualTo(250);
+        assertThat(result.getAccepted()).isEqualTo(250);
+    }
+
+    @Test
+    void testStreamIngestFailsOnMalformedLine() {
+        InputStream inputStream = new ByteArrayInputStream(
+            "{\"epc\":\"3034257BF7194E4000000001\",\"readerId\":\"dock-1\"}\n{\"epc\":".getBytes(StandardCharsets.UTF_8)
+        );
+
+        assertThatThrownBy(() -> tagReadIngestService.ingest(inputStream)).isInstanceOf(JsonProcessingException.class);
+    }
+
+    @Test
+    void testNoiseDoesNotSuppressTheNextReads() {
+        RssiNoiseFilter rssiNoiseFilter = new RssiNoiseFilter(applicationProperties, new SimpleMeterRegistry());
+        tagReadIngestService = tagReadIngestService(List.of(rssiNoiseFilter), mock(PortalDirectionDetector.class));
+        Instant now = Instant.now();
+        // The first read is below the minimum RSSI, and would open a duplicate window if it were deduplicated first.
+        TagRead noise = new TagRead().epc("3034257BF7194E4000000001").readerId("dock-1").antenna(1).rssi(-95.0).timestamp(now);
+        TagRead valid = new TagRead().epc("3034257BF7194E4000000001").readerId("dock-1").antenna(1).rssi(-50.0);
+        valid.setTimestamp(now.plusMillis(10));
+        List<TagRead> reads = List.of(noise, valid);
+
+        IngestResultDTO result = tagReadIngestService.ingest(reads);
+
+        assertThat(result.getAccepted()).isEqualTo(1);
+        ArgumentCaptor<List<TagRead>> captor = chunkCaptor();
+        verify(tagReadSpool).append(captor.capture());
+        assertThat(captor.getValue()).containsExactly(valid);
+    }
+
+    @Test
+    void testPortalDirectionSeesEveryAntennaRead() throws Exception {
+        List<PortalEvent> events = Collections.synchronizedList(new ArrayList<>());
+        PortalDirectionDetector portalDirectionDetector = portalDirectionDetector(events);
+        tagReadIngestService = tagReadIngestService(List.of(), portalDirectionDetector);
+        Instant now = Instant.now();
+        // Within the duplicate window, only the first read of each antenna is indexed.
+        List<TagRead> reads = List.of(
+            new TagRead().epc("3034257BF7194E4000000001").readerId("dock-1").antenna(3).timestamp(now),
+            new TagRead().epc("3034257BF7194E4000000001").readerId("dock-1").antenna(3).timestamp(now.plusMillis(10)),
+            new TagRead().epc("3034257BF7194E4000000001").readerId("dock-1").antenna(1).timestamp(now.plusMillis(20)),
+            new TagRead().epc("3034257BF7194E4000000001").readerId("dock-1").antenna(1).timestamp(now.plusMillis(30))
+        );
+
+        try {
+            IngestResultDTO result = tagReadIngestService.ingest(reads);
+
+            assertThat(result.getAccepted()).isEqualTo(2);
+            await()
+                .atMost(Duration.ofSeconds(5))
+                .until(
+                    () -> {
+                        portalDirectionDetector.flush();
+                        return !events.isEmpty();
+                    }
+                );
+        } finally {
+            portalDirectionDetector.stop();
+        }
+        assertThat(events).singleElement().satisfies(event -> {
+            assertThat(event.getDirection()).isEqualTo(MovementDirection.IN);
+            assertThat(event.getReadCount()).isEqualTo(4);
+        });
+    }
+
+    private TagReadIngestService tagReadIngestService(List<TagReadFilter> filters, PortalDirectionDetector portalDirectionDetector) {
+        ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+        return new TagReadIngestService(
+            tagReadSpool,
+            new DuplicateReadSuppressor(applicationProperties, new SimpleMeterRegistry()),
+            filters,
+            mock(AssetRegistry.class),
+            mock(TagLocationView.class),
+            mock(ZoneEventEngine.class),
+            portalDirectionDetector,
+            objectMapper,
+            applicationProperties
+        );
+    }
+
+    private PortalDirectionDetector portalDirectionDetector(List<PortalEvent> events) {
+        ApplicationProperties.Direction direction = applicationProperties.getDirection();
+        direction.setWindow(Duration.ofMillis(200));
+        direction.setWorkers(1);
+        ApplicationProperties.Direction.Portal portal = new ApplicationProperties.Direction.Portal();
+        portal.setId("dock-door-1");
+        portal.setReaderId("dock-1");
+        portal.setInnerAntennas(List.of(1, 2));
+        portal.setOuterAntennas(List.of(3, 4));
+        direction.setPortals(List.of(portal));
+        PortalEventSearchRepository portalEventSearchRepository = mock(PortalEventSearchRepository.class);
+        doAnswer(invocation -> {
+                Iterable<PortalEvent> saved = invocation.getArgument(0);
+                saved.forEach(events::add);
+                return saved;
+            })
+            .when(portalEventSearchRepository)
+            .saveAll(anyIterable());
+        PortalDirectionDetector portalDirectionDetector = new PortalDirectionDetector(
+            applicationProperties,
+            portalEventSearchRepository,
+            new SimpleMeterRegistry()
+        );
+        portalDirectionDetector.start();
+        return portalDirectionDetector;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ArgumentCaptor<List<TagRead>> chunkCaptor() {
+        return ArgumentCaptor.forClass(List.class);
+    }
+
+    private static InputStream ndjson(int count) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            sb
+                .append("{\"epc\":\"")
+                .append(String.format("3034257BF7194E4%09d", i))
+                .append("\",\"readerId\":\"dock-1\",\"antenna\":1,\"timestamp\":\"2022-11-08T10:00:00Z\"}\n");
+        }
+        return new ByteArrayInputStream(sb.toString().getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,125 @@
+package com.isoft.rfid.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.Mockito.atLeast;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import com.isoft.rfid.config.ApplicationProperties;
+import com.isoft.rfid.domain.TagRead;
+import com.isoft.rfid.domain.ZoneEvent;
+import com.isoft.rfid.domain.enumeration.ZoneEventType;
+import com.isoft.rfid.repository.search.ZoneEventSearchRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+class ZoneEventEngineTest {
+
+    private static final String EPC = "3034257BF7194E4000000001";
+
+    private ZoneEventSearchRepository zoneEventSearchRepository;
+
+    private ZoneEventEngine zoneEventEngine;
+
+    private long start;
+
+    @BeforeEach
+    public void setup() {
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getZones().setExitTimeout(Duration.ofSeconds(30));
+        applicationProperties.getZones().setDwellThreshold(Duration.ofMinutes(5));
+        zoneEventSearchRepository = mock(ZoneEventSearchRepository.class);
+        zoneEventEngine = new ZoneEventEngine(applicationProperties, zoneEventSearchRepository, new SimpleMeterRegistry());
+        start = System.currentTimeMillis();
+    }
+
+    @Test
+    void testEnterAndExitOnTimeout() {
+        zoneEventEngine.process(List.of(read("dock", 0), read("dock", 10_000), read("dock", 20_000)));
+        zoneEventEngine.advance(start + 49_000);
+        assertThat(types(flushedEvents())).containsExactly(ZoneEventType.ENTER);
+
+        zoneEventEngine.advance(start + 51_000);
+
+        List<ZoneEvent> events = flushedEvents();
+        assertThat(types(events)).containsExactly(ZoneEventType.ENTER, ZoneEventType.EXIT);
+        ZoneEvent exit = events.get(1);
+        assertThat(exit.getZone()).isEqualTo("dock");
+        assertThat(exit.getTimestamp()).isEqualTo(Instant.ofEpochMilli(start + 20_000));
+        assertThat(exit.getDwellMillis()).isEqualTo(20_000);
+    }
+
+    @Test
+    void testZoneTransition() {
+        zoneEventEngine.process(List.of(read("dock", 0), read("dock", 5_000), read("shelf", 8_000)));
+
+        List<ZoneEvent> events = flushedEvents();
+        assertThat(types(events)).containsExactly(ZoneEventType.ENTER, ZoneEventType.EXIT, ZoneEventType.ENTER);
+        assertThat(events.stream().map(ZoneEvent::getZone)).containsExactly("dock", "dock", "shelf");
+        assertThat(events.get(1).getTimestamp()).isEqualTo(Instant.ofEpochMilli(start + 5_000));
+    }
+
+    @Test
+    void testLateReadFromThePreviousZoneIsIgnored() {
+        zoneEventEngine.process(List.of(read("dock", 0), read("shelf", 8_000), read("dock", 6_000)));
+
+        assertThat(types(flushedEvents())).containsExactly(ZoneEventType.ENTER, ZoneEventType.EXIT, ZoneEventType.ENTER);
+    }
+
+    @Test
+    void testDwell() {
+        List<TagRead> reads = new ArrayList<>();
+        for (long offset = 0; offset <= 310_000; offset += 10_000) {
+            reads.add(read("dock", offset));
+        }
+        zoneEventEngine.process(reads);
+
+        zoneEventEngine.advance(start + 301_000);
+
+        List<ZoneEvent> events = flushedEvents();
+        assertThat(types(events)).containsExactly(ZoneEventType.ENTER, ZoneEventType.DWELL);
+        assertThat(events.get(1).getDwellMillis()).isEqualTo(300_000);
+    }
+
+    @Test
+    void testEventsAreKeptWhenIndexingFails() {
+        doThrow(new DataAccessResourceFailureException("unavailable")).when(zoneEventSearchRepository).saveAll(anyIterable());
+        zoneEventEngine.process(List.of(read("dock", 0)));
+        zoneEventEngine.flush();
+        zoneEventEngine.flush();
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Iterable<ZoneEvent>> captor = ArgumentCaptor.forClass(Iterable.class);
+        verify(zoneEventSearchRepository, times(2)).saveAll(captor.capture());
+        assertThat(captor.getAllValues()).allSatisfy(batch -> assertThat(batch).hasSize(1));
+    }
+
+    private TagRead read(String zone, long offset) {
+        return new TagRead().epc(EPC).readerId(zone + "-reader").zone(zone).timestamp(Instant.ofEpochMilli(start + offset));
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<ZoneEvent> flushedEvents() {
+        zoneEventEngine.flush();
+        ArgumentCaptor<Iterable<ZoneEvent>> captor = ArgumentCaptor.forClass(Iterable.class);
+        verify(zoneEventSearchRepository, atLeast(0)).saveAll(captor.capture());
+        List<ZoneEvent> events = new ArrayList<>();
+        captor.getAllValues().forEach(batch -> batch.forEach(events::add));
+        return events;
+    }
+
+    private static List<ZoneEventType> types(List<ZoneEvent> events) {
+        return events.stream().map(ZoneEvent::getType).collect(Collectors.toList());
+    }
+}
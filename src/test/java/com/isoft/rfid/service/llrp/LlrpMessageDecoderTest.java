@@ -0,0 +1,85 @@
+package com.isoft.rfid.service.llrp;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.isoft.rfid.domain.TagRead;
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class LlrpMessageDecoderTest {
+
+    private final List<TagRead> reads = new ArrayList<>();
+
+    private final List<Integer> keepalives = new ArrayList<>();
+
+    private final LlrpMessageDecoder.Listener listener = new LlrpMessageDecoder.Listener() {
+        @Override
+        public void onTagRead(TagRead read) {
+            reads.add(read);
+        }
+
+        @Override
+        public void onKeepalive(int messageId) {
+            keepalives.add(messageId);
+        }
+    };
+
+    @Test
+    void testDecodeRoAccessReport() {
+        long micros = 1_700_000_000_123_456L;
+        ByteBuffer buffer = ByteBuffer.allocate(256);
+        int start = LlrpMessages.startRoAccessReport(buffer, 7);
+        LlrpMessages.putTagReportData(buffer, LlrpReaderSimulator.epc(6789), 3, -52, micros);
+        LlrpMessages.putTagReportData(buffer, new byte[] { 0x30, 0x74, 0x25, 0x7B }, 1, -60, micros);
+        LlrpMessages.endMessage(buffer, start);
+
+        assertThat(LlrpMessageDecoder.decode(buffer, "dock-1", listener)).isTrue();
+
+        assertThat(buffer.hasRemaining()).isFalse();
+        assertThat(reads).hasSize(2);
+        TagRead read = reads.get(0);
+        assertThat(read.getEpc()).isEqualTo("3034257BF7194E4000001A85");
+        assertThat(read.getReaderId()).isEqualTo("dock-1");
+        assertThat(read.getAntenna()).isEqualTo(3);
+        assertThat(read.getRssi()).isEqualTo(-52.0);
+        assertThat(read.getTimestamp()).isEqualTo(Instant.ofEpochSecond(1_700_000_000L, 123_456_000L));
+        assertThat(reads.get(1).getEpc()).isEqualTo("3074257B");
+    }
+
+    @Test
+    void testDecodeWaitsForCompleteMessages() {
+        ByteBuffer message = LlrpMessages.keepalive(42);
+        ByteBuffer buffer = ByteBuffer.allocate(64);
+        buffer.put(message.array(), 0, 6).flip();
+
+        assertThat(LlrpMessageDecoder.decode(buffer, "dock-1", listener)).isTrue();
+        assertThat(keepalives).isEmpty();
+        assertThat(buffer.position()).isZero();
+
+        buffer.compact().put(message.array(), 6, LlrpMessages.HEADER_LENGTH - 6).put(LlrpMessages.keepalive(43)).flip();
+
+        assertThat(LlrpMessageDecoder.decode(buffer, "dock-1", listener)).isTrue();
+        assertThat(keepalives).containsExactly(42, 43);
+    }
+
+    @Test
+    void testDecodeRejectsInvalidFraming() {
+        ByteBuffer buffer = ByteBuffer.allocate(LlrpMessages.HEADER_LENGTH);
+        buffer.putShort((short) ((2 << 10) | LlrpMessages.KEEPALIVE)).putInt(LlrpMessages.HEADER_LENGTH).putInt(1).flip();
+
+        assertThat(LlrpMessageDecoder.decode(buffer, "dock-1", listener)).isFalse();
+    }
+
+    @Test
+    void testDecodeSkipsOtherMessages() {
+        ByteBuffer buffer = ByteBuffer.allocate(64);
+        buffer.put(LlrpMessages.connectionAttemptSucceeded(1, 0)).put(LlrpMessages.keepalive(2)).flip();
+
+        assertThat(LlrpMessageDecoder.decode(buffer, "dock-1", listener)).isTrue();
+        assertThat(reads).isEmpty();
+        assertThat(keepalives).containsExactly(2);
+    }
+}
@@ -0,0 +1,64 @@
+package com.isoft.rfid.service.llrp;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+import com.isoft.rfid.config.ApplicationProperties;
+import com.isoft.rfid.domain.TagRead;
+import com.isoft.rfid.service.TagReadIngestService;
+import java.time.Duration;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+class LlrpReaderListenerTest {
+
+    private LlrpReaderSimulator simulator;
+
+    private LlrpReaderListener listener;
+
+    private TagReadIngestService tagReadIngestService;
+
+    @BeforeEach
+    public void setup() throws Exception {
+        simulator = new LlrpReaderSimulator(0, 10, 5, Duration.ofMillis(20));
+        simulator.start();
+        tagReadIngestService = mock(TagReadIngestService.class);
+        ApplicationProperties.Llrp.Reader reader = new ApplicationProperties.Llrp.Reader();
+        reader.setId("simulator");
+        reader.setHost("localhost");
+        reader.setPort(simulator.getPort());
+        ApplicationProperties.Llrp properties = new ApplicationProperties.Llrp();
+        properties.setReaders(List.of(reader));
+        properties.setReconnectDelay(Duration.ofMillis(100));
+        listener = new LlrpReaderListener(tagReadIngestService, properties);
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        listener.stop();
+        simulator.close();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testReadsFromSimulatorAreIngested() throws Exception {
+        listener.start();
+
+        ArgumentCaptor<List<TagRead>> captor = ArgumentCaptor.forClass(List.class);
+        await().atMost(Duration.ofSeconds(10)).untilAsserted(() -> verify(tagReadIngestService, atLeastOnce()).ingest(anyList()));
+        verify(tagReadIngestService, atLeastOnce()).ingest(captor.capture());
+
+        TagRead read = captor.getValue().get(0);
+        assertThat(read.getReaderId()).isEqualTo("simulator");
+        assertThat(read.getEpc()).hasSize(24).startsWith("3034257BF7194E");
+        assertThat(read.getAntenna()).isBetween(1, 4);
+        assertThat(read.getTimestamp()).isNotNull();
+    }
+}
@@ -0,0 +1,236 @@
+package com.isoft.rfid.service.spool;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.isoft.rfid.config.ApplicationProperties;
+import com.isoft.rfid.domain.TagRead;
+import com.isoft.rfid.service.TagReadBulkIndexer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.elasticsearch.BulkFailureException;
+import org.springframework.util.unit.DataSize;
+
+class TagReadSpoolTest {
+
+    @TempDir
+    Path directory;
+
+    private final List<TagRead> indexed = new CopyOnWriteArrayList<>();
+
+    private final AtomicBoolean available = new AtomicBoolean(true);
+
+    private ApplicationProperties applicationProperties;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private TagReadBulkIndexer tagReadBulkIndexer;
+
+    private TagReadSpool tagReadSpool;
+
+    @BeforeEach
+    public void setup() {
+        applicationProperties = new ApplicationProperties();
+        applicationProperties.getIngest().setBulkActions(10);
+        applicationProperties.getIngest().setFlushInterval(Duration.ofMillis(10));
+        applicationProperties.getIngest().getSpool().setDirectory(directory.toString());
+        applicationProperties.getIngest().getSpool().setSegmentSize(DataSize.ofKilobytes(4));
+        tagReadBulkIndexer = mock(TagReadBulkIndexer.class);
+        when(tagReadBulkIndexer.getBatchSize()).thenReturn(10);
+        when(tagReadBulkIndexer.getConcurrency()).thenReturn(2);
+        when(tagReadBulkIndexer.getMaxConcurrency()).thenReturn(2);
+        doAnswer(invocation -> {
+                if (!available.get()) {
+                    throw new DataAccessResourceFailureException("Elasticsearch is down");
+                }
+                List<TagRead> batch = invocation.getArgument(0);
+                indexed.addAll(batch);
+                return null;
+            })
+            .when(tagReadBulkIndexer)
+            .bulkIndex(anyList(), anyLong());
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        if (tagReadSpool != null) {
+            tagReadSpool.stop();
+        }
+    }
+
+    @Test
+    void testSpooledReadsAreIndexed() throws Exception {
+        startSpool();
+
+        List<TagRead> reads = reads(0, 25);
+        tagReadSpool.append(reads);
+
+        await().atMost(Duration.ofSeconds(10)).until(() -> indexed.size() == 25);
+        assertThat(indexed).extracting(TagRead::getEpc).containsExactlyInAnyOrderElementsOf(epcs(reads));
+        assertThat(indexed).extracting(TagRead::getId).doesNotContainNull().doesNotHaveDuplicates();
+    }
+
+    @Test
+    void testFailedBulkIsRetried() throws Exception {
+        available.set(false);
+        startSpool();
+
+        tagReadSpool.append(reads(0, 5));
+        Thread.sleep(200);
+        assertThat(indexed).isEmpty();
+        available.set(true);
+
+        await().atMost(Duration.ofSeconds(10)).until(() -> indexed.size() == 5);
+    }
+
+    @Test
+    void testUnindexedReadsAreReplayedAfterRestart() throws Exception {
+        available.set(false);
+        startSpool();
+        List<TagRead> reads = reads(0, 30);
+        tagReadSpool.append(reads);
+        tagReadSpool.stop();
+
+        available.set(true);
+        startSpool();
+
+        await().atMost(Duration.ofSeconds(10)).until(() -> indexed.size() == 30);
+        assertThat(indexed)
+            .extracting(TagRead::getId)
+            .containsExactlyInAnyOrderElementsOf(reads.stream().map(TagRead::getId).collect(Collectors.toList()));
+    }
+
+    @Test
+    void testIndexedReadsAreNotReplayedAfterRestart() throws Exception {
+        startSpool();
+        tagReadSpool.append(reads(0, 20));
+        await().atMost(Duration.ofSeconds(10)).until(() -> indexed.size() == 20);
+        await().atMost(Duration.ofSeconds(10)).until(() -> meterRegistry.get("rfid.ingest.spool.backlog").gauge().value() == 0);
+        tagReadSpool.stop();
+
+        startSpool();
+        tagReadSpool.append(reads(20, 5));
+
+        await().atMost(Duration.ofSeconds(10)).until(() -> indexed.size() == 25);
+        Thread.sleep(100);
+        assertThat(indexed).hasSize(25);
+    }
+
+    @Test
+    void testDrainedSegmentsAreRecycled() throws Exception {
+        applicationProperties.getIngest().getSpool().setMaxSegments(1000);
+        startSpool();
+
+        for (int i = 0; i < 50; i++) {
+            tagReadSpool.append(reads(i * 20, 20));
+        }
+
+        await().atMost(Duration.ofSeconds(10)).until(() -> indexed.size() == 1000);
+        // Only the segment being written and the recycled ones are left.
+        await().atMost(Duration.ofSeconds(10)).until(() -> segmentFiles() <= 3);
+    }
+
+    @Test
+    void testFullSpoolRefusesWholeBatch() throws Exception {
+        available.set(false);
+        applicationProperties.getIngest().getSpool().setMaxSegments(2);
+        startSpool();
+        tagReadSpool.append(reads(0, 20));
+
+        assertThatThrownBy(() -> tagReadSpool.append(reads(20, 100))).isInstanceOf(SpoolFullException.class);
+
+        available.set(true);
+        await().atMost(Duration.ofSeconds(10)).until(() -> indexed.size() == 20);
+        Thread.sleep(100);
+        assertThat(indexed).hasSize(20);
+    }
+
+    @Test
+    void testRefusedReadsAreDeadLetteredAndRejectedReadsRetried() throws Exception {
+        List<TagRead> reads = reads(0, 5);
+        reads.get(1).setAntenna(40_000);
+        AtomicInteger rejections = new AtomicInteger(1);
+        doAnswer(invocation -> {
+                List<TagRead> batch = invocation.getArgument(0);
+                Map<String, String> failed = new HashMap<>();
+                for (TagRead read : batch) {
+                    if (read.getAntenna() > Short.MAX_VALUE) {
+                        failed.put(read.getId(), "ElasticsearchException[Elasticsearch exception [type=mapper_parsing_exception]]");
+                    } else if (read.getEpc().equals(reads.get(3).getEpc()) && rejections.getAndDecrement() > 0) {
+                        failed.put(read.getId(), "ElasticsearchException[Elasticsearch exception [type=es_rejected_execution_exception]]");
+                    } else {
+                        indexed.add(read);
+                    }
+                }
+                if (!failed.isEmpty()) {
+                    throw new BulkFailureException("Bulk indexing has errors", failed);
+                }
+                return null;
+            })
+            .when(tagReadBulkIndexer)
+            .bulkIndex(anyList(), anyLong());
+        startSpool();
+
+        tagReadSpool.append(reads);
+
+        await().atMost(Duration.ofSeconds(10)).until(() -> meterRegistry.get("rfid.ingest.spool.backlog").gauge().value() == 0);
+        assertThat(indexed).hasSize(4).doesNotContain(reads.get(1)).extracting(TagRead::getId).doesNotHaveDuplicates();
+        assertThat(meterRegistry.get("rfid.ingest.spool.dead-letters").counter().count()).isEqualTo(1);
+        assertThat(Files.readAllLines(directory.resolve(TagReadSpool.DEAD_LETTER_FILE)))
+            .singleElement()
+            .asString()
+            .contains(reads.get(1).getId(), "mapper_parsing_exception");
+    }
+
+    private void startSpool() throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+        meterRegistry = new SimpleMeterRegistry();
+        tagReadSpool = new TagReadSpool(tagReadBulkIndexer, objectMapper, applicationProperties, meterRegistry);
+        tagReadSpool.start();
+    }
+
+    private long segmentFiles() throws Exception {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.toString().endsWith(SpoolSegment.SUFFIX)).count();
+        }
+    }
+
+    private static List<TagRead> reads(int from, int count) {
+        List<TagRead> reads = new ArrayList<>(count);
+        for (int i = from; i < from + count; i++) {
+            reads.add(
+                new TagRead().epc(String.format("3034257BF7194E4%09d", i)).readerId("dock-1").antenna(1).rssi(-50.0).timestamp(Instant.now())
+            );
+        }
+        return reads;
+    }
+
+    private static List<String> epcs(List<TagRead> reads) {
+        return reads.stream().map(TagRead::getEpc).collect(Collectors.toList());
+    }
+}
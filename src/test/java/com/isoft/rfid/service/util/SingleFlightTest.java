@@ -0,0 +1,81 @@
+package com.isoft.rfid.service.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+class SingleFlightTest {
+
+    @Test
+    void testConcurrentCallsAreCoalesced() throws Exception {
+        SingleFlight<String, String> singleFlight = new SingleFlight<>();
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger calls = new AtomicInteger();
+
+        CompletableFuture<String> leader = CompletableFuture.supplyAsync(() ->
+            singleFlight.execute("zone-a", () -> {
+                calls.incrementAndGet();
+                awaitQuietly(release);
+                return "result";
+            })
+        );
+        await().atMost(Duration.ofSeconds(5)).until(() -> calls.get() == 1);
+        CompletableFuture<String> follower = CompletableFuture.supplyAsync(() -> singleFlight.execute("zone-a", () -> "other result"));
+        await().atMost(Duration.ofSeconds(5)).until(() -> singleFlight.coalesced() == 1);
+        release.countDown();
+
+        assertThat(leader.get(5, TimeUnit.SECONDS)).isEqualTo("result");
+        assertThat(follower.get(5, TimeUnit.SECONDS)).isEqualTo("result");
+        assertThat(calls).hasValue(1);
+        assertThat(singleFlight.executed()).isEqualTo(1);
+    }
+
+    @Test
+    void testSequentialCallsAreNotCoalesced() {
+        SingleFlight<String, Integer> singleFlight = new SingleFlight<>();
+        AtomicInteger calls = new AtomicInteger();
+
+        assertThat(singleFlight.execute("zone-a", calls::incrementAndGet)).isEqualTo(1);
+        assertThat(singleFlight.execute("zone-a", calls::incrementAndGet)).isEqualTo(2);
+        assertThat(singleFlight.executed()).isEqualTo(2);
+        assertThat(singleFlight.coalesced()).isZero();
+    }
+
+    @Test
+    void testFailureIsThrownToAllCallers() {
+        SingleFlight<String, String> singleFlight = new SingleFlight<>();
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger calls = new AtomicInteger();
+
+        CompletableFuture<String> leader = CompletableFuture.supplyAsync(() ->
+            singleFlight.execute("zone-a", () -> {
+                calls.incrementAndGet();
+                awaitQuietly(release);
+                throw new IllegalStateException("Elasticsearch is down");
+            })
+        );
+        await().atMost(Duration.ofSeconds(5)).until(() -> calls.get() == 1);
+        CompletableFuture<String> follower = CompletableFuture.supplyAsync(() -> singleFlight.execute("zone-a", () -> "result"));
+        await().atMost(Duration.ofSeconds(5)).until(() -> singleFlight.coalesced() == 1);
+        release.countDown();
+
+        assertThatThrownBy(() -> leader.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> follower.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(IllegalStateException.class);
+        assertThat(singleFlight.execute("zone-a", () -> "result")).isEqualTo("result");
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
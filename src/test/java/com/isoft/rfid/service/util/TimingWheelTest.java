@@ -0,0 +1,79 @@
+package com.isoft.rfid.service.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class TimingWheelTest {
+
+    @Test
+    void testTimeoutsExpireAtTheirDeadline() {
+        TimingWheel<TestTimeout> wheel = new TimingWheel<>(1, 0);
+        Random random = new Random(42);
+        List<TestTimeout> timeouts = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            TestTimeout timeout = new TestTimeout();
+            timeout.deadline = 1 + random.nextInt(300_000);
+            wheel.schedule(timeout, timeout.deadline);
+            timeouts.add(timeout);
+        }
+
+        for (long now = 1; now <= 300_000; now++) {
+            long expiredAt = now;
+            wheel.advance(now, timeout -> timeout.expiredAt = expiredAt);
+        }
+
+        assertThat(timeouts).allSatisfy(timeout -> assertThat(timeout.expiredAt).isEqualTo(timeout.deadline));
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    void testRescheduleAndCancel() {
+        TimingWheel<TestTimeout> wheel = new TimingWheel<>(10, 1000);
+        TestTimeout rescheduled = new TestTimeout();
+        TestTimeout cancelled = new TestTimeout();
+        wheel.schedule(rescheduled, 1100);
+        wheel.schedule(cancelled, 1100);
+
+        wheel.schedule(rescheduled, 5000);
+        wheel.cancel(cancelled);
+        wheel.advance(4990, timeout -> timeout.expiredAt = 4990);
+
+        assertThat(rescheduled.expiredAt).isEqualTo(-1);
+        assertThat(cancelled.isScheduled()).isFalse();
+        assertThat(wheel.size()).isEqualTo(1);
+
+        wheel.advance(5000, timeout -> timeout.expiredAt = 5000);
+
+        assertThat(rescheduled.expiredAt).isEqualTo(5000);
+        assertThat(cancelled.expiredAt).isEqualTo(-1);
+    }
+
+    @Test
+    void testPastAndDistantDeadlines() {
+        TimingWheel<TestTimeout> wheel = new TimingWheel<>(1000, 1_000_000);
+        TestTimeout past = new TestTimeout();
+        TestTimeout distant = new TestTimeout();
+        long distantDeadline = 1_000_000 + 365L * 24 * 3600 * 1000;
+        wheel.schedule(past, 0);
+        wheel.schedule(distant, distantDeadline);
+
+        wheel.advance(1_001_000, timeout -> timeout.expiredAt = 1_001_000);
+        assertThat(past.expiredAt).isEqualTo(1_001_000);
+
+        wheel.advance(distantDeadline - 1000, timeout -> timeout.expiredAt = 0);
+        assertThat(distant.expiredAt).isEqualTo(-1);
+        wheel.advance(distantDeadline, timeout -> timeout.expiredAt = distantDeadline);
+        assertThat(distant.expiredAt).isEqualTo(distantDeadline);
+    }
+
+    private static final class TestTimeout extends TimingWheel.Timeout {
+
+        private long deadline;
+
+        private long expiredAt = -1;
+    }
+}
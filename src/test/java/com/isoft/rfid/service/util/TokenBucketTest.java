@@ -0,0 +1,79 @@
+package com.isoft.rfid.service.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class TokenBucketTest {
+
+    private static final long START = 1_000_000_000L;
+
+    private static final long TOKEN_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    @Test
+    void testBurstUpToCapacity() {
+        TokenBucket bucket = new TokenBucket(3, 10, START);
+
+        assertThat(bucket.tryAcquire(START)).isZero();
+        assertThat(bucket.tryAcquire(START)).isZero();
+        assertThat(bucket.tryAcquire(START)).isZero();
+        assertThat(bucket.tryAcquire(START)).isEqualTo(TOKEN_NANOS);
+    }
+
+    @Test
+    void testRefillAtRate() {
+        TokenBucket bucket = new TokenBucket(1, 10, START);
+
+        assertThat(bucket.tryAcquire(START)).isZero();
+        assertThat(bucket.tryAcquire(START + TOKEN_NANOS / 2)).isEqualTo(TOKEN_NANOS / 2);
+        assertThat(bucket.tryAcquire(START + TOKEN_NANOS)).isZero();
+    }
+
+    @Test
+    void testIdleBucketIsFullOnlyUpToCapacity() {
+        TokenBucket bucket = new TokenBucket(2, 10, START);
+        long later = START + TimeUnit.HOURS.toNanos(1);
+
+        assertThat(bucket.isFull(later)).isTrue();
+        assertThat(bucket.tryAcquire(later)).isZero();
+        assertThat(bucket.isFull(later)).isFalse();
+        assertThat(bucket.tryAcquire(later)).isZero();
+        assertThat(bucket.tryAcquire(later)).isPositive();
+        assertThat(bucket.isFull(later + 2 * TOKEN_NANOS)).isTrue();
+    }
+
+    @Test
+    void testConcurrentCallersShareTheCapacity() throws Exception {
+        TokenBucket bucket = new TokenBucket(100, 10, START);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Callable<Integer>> callers = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                callers.add(() -> {
+                    int admitted = 0;
+                    for (int j = 0; j < 1000; j++) {
+                        if (bucket.tryAcquire(START) == 0) {
+                            admitted++;
+                        }
+                    }
+                    return admitted;
+                });
+            }
+            int admitted = 0;
+            for (Future<Integer> result : executor.invokeAll(callers)) {
+                admitted += result.get();
+            }
+
+            assertThat(admitted).isEqualTo(100);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.isoft.rfid.web.rest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.isoft.rfid.IntegrationTest;
+import com.isoft.rfid.domain.TagRead;
+import com.isoft.rfid.repository.search.TagReadIndices;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.data.elasticsearch.core.ElasticsearchRestTemplate;
+import org.springframework.data.elasticsearch.core.mapping.IndexCoordinates;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+/**
+ * Integration tests for the {@link TagReadAnalyticsResource} REST controller.
+ */
+@IntegrationTest
+@AutoConfigureMockMvc
+@WithMockUser
+class TagReadAnalyticsResourceIT {
+
+    private static final String DEFAULT_EPC = "3034257BF7194E4000000006";
+
+    private static final String COUNTED_READER_ID = "analytics-door-1";
+
+    @Autowired
+    private MockMvc restTagReadAnalyticsMockMvc;
+
+    @Autowired
+    private ElasticsearchRestTemplate elasticsearchTemplate;
+
+    @Autowired
+    private TagReadIndices tagReadIndices;
+
+    @Test
+    void countTagReadsPerReader() throws Exception {
+        Instant minute = Instant.now().minus(10, ChronoUnit.MINUTES).truncatedTo(ChronoUnit.MINUTES);
+        saveRead(minute);
+        saveRead(minute.plusSeconds(10));
+        saveRead(minute.plusSeconds(70));
+
+        MvcResult result = restTagReadAnalyticsMockMvc
+            .perform(get("/api/analytics/tag-reads?from={from}&to={to}&resolution=PT90S", minute, minute.plusSeconds(120)))
+            .andExpect(request().asyncStarted())
+            .andExpect(header().string("X-Bucket-Interval", "PT1M"))
+            .andReturn();
+        restTagReadAnalyticsMockMvc
+            .perform(asyncDispatch(result))
+            .andExpect(status().isOk())
+            .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON));
+
+        String[] lines = result
+            .getResponse()
+            .getContentAsString()
+            .lines()
+            .filter(line -> line.contains(COUNTED_READER_ID))
+            .toArray(String[]::new);
+        assertThat(lines).hasSize(2);
+        assertThat(lines[0]).contains("\"timestamp\":\"" + minute + "\"").contains("\"count\":2");
+        assertThat(lines[1]).contains("\"timestamp\":\"" + minute.plusSeconds(60) + "\"").contains("\"count\":1");
+    }
+
+    @Test
+    void countTagReadsWithInvalidResolution() throws Exception {
+        restTagReadAnalyticsMockMvc.perform(get("/api/analytics/tag-reads?resolution=PT0S")).andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void countTagReadsWithEmptyRange() throws Exception {
+        Instant now = Instant.now();
+        restTagReadAnalyticsMockMvc
+            .perform(get("/api/analytics/tag-reads?from={from}&to={to}", now, now.minusSeconds(60)))
+            .andExpect(status().isBadRequest());
+    }
+
+    private void saveRead(Instant timestamp) {
+        TagRead tagRead = new TagRead()
+            .id(UUID.randomUUID().toString())
+            .epc(DEFAULT_EPC)
+            .readerId(COUNTED_READER_ID)
+            .antenna(1)
+            .timestamp(timestamp);
+        elasticsearchTemplate.save(tagRead, IndexCoordinates.of(tagReadIndices.indexFor(timestamp)));
+    }
+}
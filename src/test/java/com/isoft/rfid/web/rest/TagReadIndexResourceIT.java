@@ -0,0 +1,74 @@
+package com.isoft.rfid.web.rest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.isoft.rfid.IntegrationTest;
+import com.isoft.rfid.repository.search.TagReadIndices;
+import com.isoft.rfid.security.AuthoritiesConstants;
+import java.time.Instant;
+import org.elasticsearch.action.admin.indices.settings.get.GetSettingsRequest;
+import org.elasticsearch.action.admin.indices.settings.get.GetSettingsResponse;
+import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+/**
+ * Integration tests for the {@link TagReadIndexResource} REST controller.
+ */
+@IntegrationTest
+@AutoConfigureMockMvc
+@WithMockUser(authorities = AuthoritiesConstants.ADMIN)
+class TagReadIndexResourceIT {
+
+    @Autowired
+    private MockMvc restTagReadIndexMockMvc;
+
+    @Autowired
+    private RestHighLevelClient client;
+
+    @Autowired
+    private TagReadIndices tagReadIndices;
+
+    @Test
+    void templateSettingsApplyToPartitions() throws Exception {
+        String current = tagReadIndices.indexFor(Instant.now());
+
+        assertThat(setting(current, "index.codec")).isEqualTo("best_compression");
+        assertThat(setting(current, "index.sort.field")).isEqualTo("timestamp");
+        assertThat(setting(current, "index.number_of_replicas")).isEqualTo("0");
+    }
+
+    @Test
+    void startAndEndBulkLoad() throws Exception {
+        String current = tagReadIndices.indexFor(Instant.now());
+
+        restTagReadIndexMockMvc.perform(put("/api/admin/tag-read-indices/bulk-load?enabled=true")).andExpect(status().isNoContent());
+        restTagReadIndexMockMvc
+            .perform(get("/api/admin/tag-read-indices/bulk-load"))
+            .andExpect(status().isOk())
+            .andExpect(content().string("true"));
+        assertThat(setting(current, "index.refresh_interval")).isEqualTo("-1");
+
+        restTagReadIndexMockMvc.perform(put("/api/admin/tag-read-indices/bulk-load?enabled=false")).andExpect(status().isNoContent());
+        assertThat(setting(current, "index.refresh_interval")).isEqualTo("5s");
+    }
+
+    @Test
+    @WithMockUser
+    void bulkLoadRequiresAdmin() throws Exception {
+        restTagReadIndexMockMvc.perform(put("/api/admin/tag-read-indices/bulk-load?enabled=true")).andExpect(status().isForbidden());
+    }
+
+    private String setting(String index, String name) throws Exception {
+        GetSettingsResponse response = client.indices().getSettings(new GetSettingsRequest().indices(index), RequestOptions.DEFAULT);
+        return response.getSetting(index, name);
+    }
+}
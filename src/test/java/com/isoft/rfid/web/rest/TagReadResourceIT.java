@@ -0,0 +1,234 @@
+package com.isoft.rfid.web.rest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.hasSize;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.isoft.rfid.IntegrationTest;
+import com.isoft.rfid.domain.TagRead;
+import com.isoft.rfid.repository.search.TagReadIndices;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.data.elasticsearch.core.ElasticsearchRestTemplate;
+import org.springframework.data.elasticsearch.core.mapping.IndexCoordinates;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+/**
+ * Integration tests for the {@link TagReadResource} REST controller.
+ */
+@IntegrationTest
+@AutoConfigureMockMvc
+@WithMockUser
+class TagReadResourceIT {
+
+    private static final String DEFAULT_EPC = "3034257BF7194E4000000001";
+
+    private static final String DEFAULT_READER_ID = "dock-door-1";
+
+    private static final String SEARCHED_EPC = "3034257BF7194E4000000002";
+
+    private static final String CURSOR_EPC = "3034257BF7194E4000000003";
+
+    private static final String EXPORTED_EPC = "3034257BF7194E4000000004";
+
+    private static final String EXPORTED_CSV_EPC = "3034257BF7194E4000000005";
+
+    @Autowired
+    private MockMvc restTagReadMockMvc;
+
+    @Autowired
+    private ElasticsearchRestTemplate elasticsearchTemplate;
+
+    @Autowired
+    private TagReadIndices tagReadIndices;
+
+    @Test
+    void bulkIngestTagReads() throws Exception {
+        List<TagRead> tagReads = List.of(
+            new TagRead().epc(DEFAULT_EPC).readerId(DEFAULT_READER_ID).antenna(1).rssi(-52.0).timestamp(Instant.now()),
+            new TagRead().epc(DEFAULT_EPC).antenna(2)
+        );
+
+        restTagReadMockMvc
+            .perform(post("/api/tag-reads/_bulk").contentType(MediaType.APPLICATION_JSON).content(TestUtil.convertObjectToJsonBytes(tagReads)))
+            .andExpect(status().isAccepted())
+            .andExpect(jsonPath("$.received").value(2))
+            .andExpect(jsonPath("$.accepted").value(1))
+            .andExpect(jsonPath("$.rejected").value(1));
+    }
+
+    @Test
+    void streamIngestTagReads() throws Exception {
+        String ndjson =
+            "{\"epc\":\"" + DEFAULT_EPC + "\",\"readerId\":\"" + DEFAULT_READER_ID + "\",\"antenna\":1}\n" +
+            "{\"epc\":\"" + DEFAULT_EPC + "\",\"readerId\":\"" + DEFAULT_READER_ID + "\",\"antenna\":2}\n";
+
+        restTagReadMockMvc
+            .perform(post("/api/tag-reads/_bulk").contentType(MediaType.APPLICATION_NDJSON).content(ndjson))
+            .andExpect(status().isAccepted())
+            .andExpect(jsonPath("$.received").value(2))
+            .andExpect(jsonPath("$.accepted").value(2));
+    }
+
+    @Test
+    void streamIngestMalformedTagReads() throws Exception {
+        restTagReadMockMvc
+            .perform(post("/api/tag-reads/_bulk").contentType(MediaType.APPLICATION_NDJSON).content("{\"epc\":"))
+            .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void searchTagReads() throws Exception {
+        Instant timestamp = Instant.now().minusSeconds(60);
+        TagRead tagRead = new TagRead()
+            .id(UUID.randomUUID().toString())
+            .epc(SEARCHED_EPC)
+            .readerId(DEFAULT_READER_ID)
+            .antenna(1)
+            .timestamp(timestamp);
+        elasticsearchTemplate.save(tagRead, IndexCoordinates.of(tagReadIndices.indexFor(timestamp)));
+
+        restTagReadMockMvc
+            .perform(get("/api/tag-reads?epc={epc}&from={from}", SEARCHED_EPC, timestamp.minusSeconds(1)))
+            .andExpect(status().isOk())
+            .andExpect(header().string("X-Total-Count", "1"))
+            .andExpect(jsonPath("$.[*].epc").value(hasItem(SEARCHED_EPC)))
+            .andExpect(jsonPath("$.[*].readerId").value(hasItem(DEFAULT_READER_ID)));
+    }
+
+    @Test
+    void searchTagReadsWithEmptyRange() throws Exception {
+        Instant now = Instant.now();
+        restTagReadMockMvc.perform(get("/api/tag-reads?from={from}&to={to}", now, now.minusSeconds(60))).andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void searchTagReadsWithCursor() throws Exception {
+        Instant timestamp = Instant.now().minusSeconds(60).truncatedTo(ChronoUnit.MILLIS);
+        for (int i = 0; i < 3; i++) {
+            TagRead tagRead = new TagRead()
+                .id(UUID.randomUUID().toString())
+                .epc(CURSOR_EPC)
+                .readerId(DEFAULT_READER_ID)
+                .antenna(1)
+                .timestamp(timestamp.plusSeconds(i));
+            elasticsearchTemplate.save(tagRead, IndexCoordinates.of(tagReadIndices.indexFor(tagRead.getTimestamp())));
+        }
+
+        MvcResult first = restTagReadMockMvc
+            .perform(get("/api/tag-reads/_cursor?epc={epc}&from={from}&size=2&sort=timestamp,asc", CURSOR_EPC, timestamp.minusSeconds(1)))
+            .andExpect(status().isOk())
+            .andExpect(header().string("X-Total-Count", "3"))
+            .andExpect(header().string("Link", containsString("rel=\"next\"")))
+            .andExpect(jsonPath("$", hasSize(2)))
+            .andExpect(jsonPath("$.[0].timestamp").value(timestamp.toString()))
+            .andReturn();
+        String link = first.getResponse().getHeader("Link");
+        String next = link.substring(link.indexOf('<') + 1, link.indexOf('>'));
+
+        MvcResult last = restTagReadMockMvc
+            .perform(get(next))
+            .andExpect(status().isOk())
+            .andExpect(header().string("X-Total-Count", "3"))
+            .andExpect(jsonPath("$", hasSize(1)))
+            .andExpect(jsonPath("$.[0].timestamp").value(timestamp.plusSeconds(2).toString()))
+            .andReturn();
+        assertThat(last.getResponse().getHeader("Link")).isNull();
+    }
+
+    @Test
+    void searchTagReadsWithInvalidCursor() throws Exception {
+        restTagReadMockMvc.perform(get("/api/tag-reads/_cursor?cursor={cursor}", "not-a-cursor")).andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void exportTagReads() throws Exception {
+        Instant timestamp = Instant.now().minusSeconds(60);
+        saveExportedReads(EXPORTED_EPC, timestamp);
+
+        MvcResult result = restTagReadMockMvc
+            .perform(get("/api/tag-reads/_export?epc={epc}&from={from}", EXPORTED_EPC, timestamp.minusSeconds(1)))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+        restTagReadMockMvc
+            .perform(asyncDispatch(result))
+            .andExpect(status().isOk())
+            .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON));
+
+        String[] lines = result.getResponse().getContentAsString().split("\n");
+        assertThat(lines).hasSize(2).allMatch(line -> line.startsWith("{") && line.contains(EXPORTED_EPC));
+    }
+
+    @Test
+    void exportTagReadsAsCsv() throws Exception {
+        Instant timestamp = Instant.now().minusSeconds(60);
+        saveExportedReads(EXPORTED_CSV_EPC, timestamp);
+
+        MvcResult result = restTagReadMockMvc
+            .perform(get("/api/tag-reads/_export?epc={epc}&from={from}&format=CSV", EXPORTED_CSV_EPC, timestamp.minusSeconds(1)))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+        restTagReadMockMvc
+            .perform(asyncDispatch(result))
+            .andExpect(status().isOk())
+            .andExpect(content().contentTypeCompatibleWith("text/csv"));
+
+        String[] lines = result.getResponse().getContentAsString().split("\n");
+        assertThat(lines).hasSize(3);
+        assertThat(lines[0].split(","))
+            .containsExactly(
+                "id",
+                "epc",
+                "readerId",
+                "antenna",
+                "rssi",
+                "zone",
+                "timestamp",
+                "epcScheme",
+                "companyPrefix",
+                "itemReference",
+                "serialNumber",
+                "sku",
+                "description",
+                "owner"
+            );
+        assertThat(lines[1]).contains("," + EXPORTED_CSV_EPC + "," + DEFAULT_READER_ID + ",1,");
+    }
+
+    @Test
+    void exportTagReadsWithEmptyRange() throws Exception {
+        Instant now = Instant.now();
+        restTagReadMockMvc
+            .perform(get("/api/tag-reads/_export?from={from}&to={to}", now, now.minusSeconds(60)))
+            .andExpect(status().isBadRequest());
+    }
+
+    private void saveExportedReads(String epc, Instant timestamp) {
+        for (int i = 0; i < 2; i++) {
+            TagRead tagRead = new TagRead()
+                .id(UUID.randomUUID().toString())
+                .epc(epc)
+                .readerId(DEFAULT_READER_ID)
+                .antenna(1)
+                .timestamp(timestamp.plusSeconds(i));
+            elasticsearchTemplate.save(tagRead, IndexCoordinates.of(tagReadIndices.indexFor(tagRead.getTimestamp())));
+        }
+    }
+}
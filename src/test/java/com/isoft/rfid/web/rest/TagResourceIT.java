@@ -0,0 +1,53 @@
+package com.isoft.rfid.web.rest;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.isoft.rfid.IntegrationTest;
+import com.isoft.rfid.domain.TagRead;
+import com.isoft.rfid.service.TagLocationView;
+import java.time.Instant;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+/**
+ * Integration tests for the {@link TagResource} REST controller.
+ */
+@IntegrationTest
+@AutoConfigureMockMvc
+@WithMockUser
+class TagResourceIT {
+
+    private static final String DEFAULT_EPC = "3034257BF7194E4000000003";
+
+    @Autowired
+    private MockMvc restTagMockMvc;
+
+    @Autowired
+    private TagLocationView tagLocationView;
+
+    @Test
+    void getTagLocation() throws Exception {
+        tagLocationView.update(
+            List.of(new TagRead().epc(DEFAULT_EPC).readerId("dock-door-1").antenna(2).zone("inbound").timestamp(Instant.now()))
+        );
+
+        restTagMockMvc
+            .perform(get("/api/tags/{epc}/location", DEFAULT_EPC))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.epc").value(DEFAULT_EPC))
+            .andExpect(jsonPath("$.readerId").value("dock-door-1"))
+            .andExpect(jsonPath("$.antenna").value(2))
+            .andExpect(jsonPath("$.zone").value("inbound"));
+    }
+
+    @Test
+    void getUnknownTagLocation() throws Exception {
+        restTagMockMvc.perform(get("/api/tags/{epc}/location", "3034257BF7194E40000000FF")).andExpect(status().isNotFound());
+    }
+}
@@ -35,6 +35,11 @@ public class ExceptionTranslatorTestController {
         throw new TestResponseStatusException();
     }
 
+    @GetMapping("/too-many-requests")
+    public void tooManyRequests() {
+        throw new TooManyRequestsException(3);
+    }
+
     @GetMapping("/internal-server-error")
     public void internalServerError() {
         throw new RuntimeException();